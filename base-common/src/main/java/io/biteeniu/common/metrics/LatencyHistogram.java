@@ -0,0 +1,118 @@
+package io.biteeniu.common.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的对数分桶延迟直方图：用于统计P50/P99等分位数
+ * 分桶规则：小于16的值每个值一个桶；之后每个2的幂区间再均分为8个子桶，相对误差不超过12.5%
+ * 记录操作只有一次原子自增，可以在热路径上被多个线程并发调用
+ * @author luzhanghong
+ * @date 2026-10-18 13:10
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 16;
+    private static final int BUCKETS = LINEAR_LIMIT + (64 - 4) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * 记录一个延迟值
+     * @param value 延迟值（单位由调用方决定，通常为纳秒），负数按0记录
+     */
+    public void record(long value) {
+        long v = Math.max(value, 0L);
+        counts.incrementAndGet(indexOf(v));
+        total.increment();
+        sum.add(v);
+    }
+
+    /**
+     * @return 记录的总次数
+     */
+    public long count() {
+        return total.sum();
+    }
+
+    /**
+     * @return 平均值
+     */
+    public double mean() {
+        long count = total.sum();
+        return count == 0 ? 0D : (double) sum.sum() / count;
+    }
+
+    /**
+     * 计算分位数：返回分位点所在桶的上界
+     * @param percentile 分位，取值范围(0, 100]，如99表示P99
+     * @return 分位数
+     */
+    public long percentile(double percentile) {
+        long count = total.sum();
+        if (count == 0) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100D);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(BUCKETS - 1);
+    }
+
+    /**
+     * 清空直方图
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0L);
+        }
+        total.reset();
+        sum.reset();
+    }
+
+    /**
+     * 以指定时间单位输出摘要（直方图中记录的是纳秒）
+     * @param unit 输出的时间单位
+     * @return 摘要
+     */
+    public String summary(TimeUnit unit) {
+        return String.format("count=%d, mean=%d, p50=%d, p99=%d, p999=%d (%s)", count(),
+                unit.convert((long) mean(), TimeUnit.NANOSECONDS),
+                unit.convert(percentile(50), TimeUnit.NANOSECONDS),
+                unit.convert(percentile(99), TimeUnit.NANOSECONDS),
+                unit.convert(percentile(99.9), TimeUnit.NANOSECONDS),
+                unit.name().toLowerCase());
+    }
+
+    private static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - 4) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int exponent = (index - LINEAR_LIMIT) / SUB_BUCKETS + 4;
+        int subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS;
+        long base = 1L << exponent;
+        long width = base >>> SUB_BUCKET_BITS;
+        long upper = base + (subBucket + 1) * width - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+
+}
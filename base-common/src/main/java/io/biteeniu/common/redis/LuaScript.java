@@ -0,0 +1,104 @@
+package io.biteeniu.common.redis;
+
+import io.biteeniu.common.metrics.LatencyHistogram;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Lua脚本：本地计算脚本的SHA1值，始终使用EVALSHA执行，避免每次都传输整个脚本
+ * 1. Redis重启、主从切换或者执行了SCRIPT FLUSH之后脚本缓存会被清空，此时EVALSHA返回NOSCRIPT错误，自动SCRIPT LOAD之后重试一次
+ * 2. 也可以在启动时通过load()或者RedisPool.preload()预先加载，避免第一次执行时多一次往返
+ * 3. 每个脚本记录自己的执行耗时（包括网络往返），单位纳秒
+ * @author luzhanghong
+ * @date 2026-10-18 19:40
+ */
+public final class LuaScript {
+
+    private final String name;
+    private final String script;
+    private final String sha1;
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public LuaScript(String script) {
+        this(null, script);
+    }
+
+    /**
+     * 构造函数
+     * @param name 脚本名称：用于日志和指标，null表示使用SHA1值的前8位
+     * @param script 脚本代码
+     */
+    public LuaScript(String name, String script) {
+        this.script = script;
+        this.sha1 = sha1Hex(script);
+        this.name = name != null ? name : sha1.substring(0, 8);
+    }
+
+    /**
+     * 执行脚本
+     * @param jedis Jedis
+     * @param keys 脚本中使用的键（KEYS）
+     * @param args 脚本参数（ARGV）
+     * @return 脚本的返回值
+     */
+    public Object eval(Jedis jedis, List<String> keys, List<String> args) {
+        long start = System.nanoTime();
+        try {
+            return jedis.evalsha(sha1, keys, args);
+        } catch (JedisDataException e) {
+            if (e.getMessage() == null || !e.getMessage().startsWith("NOSCRIPT")) {
+                throw e;
+            }
+            jedis.scriptLoad(script);
+            return jedis.evalsha(sha1, keys, args);
+        } finally {
+            latency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 将脚本加载到Redis的脚本缓存中
+     * @param jedis Jedis
+     */
+    public void load(Jedis jedis) {
+        jedis.scriptLoad(script);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public String getSha1() {
+        return sha1;
+    }
+
+    /**
+     * @return 执行耗时，单位纳秒
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    private static String sha1Hex(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package io.biteeniu.common.redis;
+
+import redis.clients.jedis.Jedis;
+
+/**
+ * 借用一个连接执行的Redis操作，配合RedisPool.execute()使用：连接在操作结束（包括抛出异常）后自动归还
+ * @author luzhanghong
+ * @date 2026-10-19 01:20
+ */
+@FunctionalInterface
+public interface RedisCallback<T> {
+
+    /**
+     * 执行Redis操作
+     * @param jedis 借用的连接，不能在方法返回后继续使用
+     * @return 操作结果
+     */
+    T doInRedis(Jedis jedis);
+
+}
@@ -0,0 +1,215 @@
+package io.biteeniu.common.redis;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.Protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+
+/**
+ * Redis连接配置：连接参数和连接池大小
+ * 配置依次从默认值、classpath中的配置文件（例如redis.properties）、系统属性（-Dredis.host=...）中读取，后者覆盖前者
+ * 可用的配置项（括号中为默认值）：
+ * redis.host(127.0.0.1)、redis.port(6379)、redis.timeout(2000)、redis.password、redis.database(0)、
+ * redis.pool.maxTotal(16)、redis.pool.maxIdle(16)、redis.pool.minIdle(2)、redis.pool.maxWaitMillis(2000)、
+ * redis.pool.testWhileIdle(true)、redis.pool.evictionRunMillis(30000)、redis.leakDetectionMillis(0，不检测)
+ * 连接池大小的经验值：maxTotal不小于同时使用连接的线程数（包括长期阻塞在BLPOP、SUBSCRIBE上的线程），
+ * maxIdle等于maxTotal以避免负载波动时反复创建、销毁连接
+ * @author luzhanghong
+ * @date 2026-10-19 01:15
+ */
+public class RedisConfig {
+
+    private final static String PREFIX = "redis.";
+    private String host = Protocol.DEFAULT_HOST;
+    private int port = Protocol.DEFAULT_PORT;
+    private int timeout = Protocol.DEFAULT_TIMEOUT;
+    private String password;
+    private int database = Protocol.DEFAULT_DATABASE;
+    private int maxTotal = 16;
+    private int maxIdle = 16;
+    private int minIdle = 2;
+    private long maxWaitMillis = 2000L;
+    private boolean testWhileIdle = true;
+    private long evictionRunMillis = 30000L;
+    private long leakDetectionMillis = 0L;
+
+    /**
+     * 读取配置
+     * @param resource classpath中的配置文件，不存在时忽略
+     * @return 配置
+     */
+    public static RedisConfig load(String resource) {
+        Properties properties = new Properties();
+        try (InputStream in = RedisConfig.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Load " + resource + " failed", e);
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(PREFIX)) {
+                properties.setProperty(name, System.getProperty(name));
+            }
+        }
+        return from(properties);
+    }
+
+    /**
+     * 从属性中读取配置，缺少的配置项使用默认值
+     * @param properties 属性
+     * @return 配置
+     */
+    public static RedisConfig from(Properties properties) {
+        RedisConfig config = new RedisConfig();
+        config.host = properties.getProperty(PREFIX + "host", config.host);
+        config.port = Integer.parseInt(properties.getProperty(PREFIX + "port", String.valueOf(config.port)));
+        config.timeout = Integer.parseInt(properties.getProperty(PREFIX + "timeout", String.valueOf(config.timeout)));
+        config.password = properties.getProperty(PREFIX + "password", config.password);
+        config.database = Integer.parseInt(properties.getProperty(PREFIX + "database", String.valueOf(config.database)));
+        config.maxTotal = Integer.parseInt(properties.getProperty(PREFIX + "pool.maxTotal", String.valueOf(config.maxTotal)));
+        config.maxIdle = Integer.parseInt(properties.getProperty(PREFIX + "pool.maxIdle", String.valueOf(config.maxIdle)));
+        config.minIdle = Integer.parseInt(properties.getProperty(PREFIX + "pool.minIdle", String.valueOf(config.minIdle)));
+        config.maxWaitMillis = Long.parseLong(properties.getProperty(PREFIX + "pool.maxWaitMillis", String.valueOf(config.maxWaitMillis)));
+        config.testWhileIdle = Boolean.parseBoolean(properties.getProperty(PREFIX + "pool.testWhileIdle", String.valueOf(config.testWhileIdle)));
+        config.evictionRunMillis = Long.parseLong(properties.getProperty(PREFIX + "pool.evictionRunMillis", String.valueOf(config.evictionRunMillis)));
+        config.leakDetectionMillis = Long.parseLong(properties.getProperty(PREFIX + "leakDetectionMillis", String.valueOf(config.leakDetectionMillis)));
+        return config;
+    }
+
+    /**
+     * @return 连接池配置：空闲连接由后台线程定期检查（PING），借出时不检查，避免每次借用多一次往返
+     */
+    public GenericObjectPoolConfig toPoolConfig() {
+        GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+        poolConfig.setMaxTotal(maxTotal);
+        poolConfig.setMaxIdle(Math.min(maxIdle, maxTotal));
+        poolConfig.setMinIdle(Math.min(minIdle, maxTotal));
+        poolConfig.setMaxWaitMillis(maxWaitMillis);
+        poolConfig.setBlockWhenExhausted(true);
+        poolConfig.setTestOnBorrow(false);
+        poolConfig.setTestWhileIdle(testWhileIdle);
+        poolConfig.setTimeBetweenEvictionRunsMillis(evictionRunMillis);
+        poolConfig.setNumTestsPerEvictionRun(-1);
+        poolConfig.setMinEvictableIdleTimeMillis(60000L);
+        return poolConfig;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public RedisConfig setHost(String host) {
+        this.host = host;
+        return this;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public RedisConfig setPort(int port) {
+        this.port = port;
+        return this;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public RedisConfig setTimeout(int timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public RedisConfig setPassword(String password) {
+        this.password = password;
+        return this;
+    }
+
+    public int getDatabase() {
+        return database;
+    }
+
+    public RedisConfig setDatabase(int database) {
+        this.database = database;
+        return this;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public RedisConfig setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+        return this;
+    }
+
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    public RedisConfig setMaxIdle(int maxIdle) {
+        this.maxIdle = maxIdle;
+        return this;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public RedisConfig setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+        return this;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public RedisConfig setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+        return this;
+    }
+
+    public boolean isTestWhileIdle() {
+        return testWhileIdle;
+    }
+
+    public RedisConfig setTestWhileIdle(boolean testWhileIdle) {
+        this.testWhileIdle = testWhileIdle;
+        return this;
+    }
+
+    public long getEvictionRunMillis() {
+        return evictionRunMillis;
+    }
+
+    public RedisConfig setEvictionRunMillis(long evictionRunMillis) {
+        this.evictionRunMillis = evictionRunMillis;
+        return this;
+    }
+
+    public long getLeakDetectionMillis() {
+        return leakDetectionMillis;
+    }
+
+    public RedisConfig setLeakDetectionMillis(long leakDetectionMillis) {
+        this.leakDetectionMillis = leakDetectionMillis;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "RedisConfig{" + host + ":" + port + "/" + database + ", maxTotal=" + maxTotal + ", maxIdle=" + maxIdle +
+                ", minIdle=" + minIdle + ", maxWaitMillis=" + maxWaitMillis + "}";
+    }
+
+}
@@ -0,0 +1,197 @@
+package io.biteeniu.common.redis;
+
+import io.biteeniu.common.metrics.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 带指标的Jedis连接池：连接参数和池大小来自RedisConfig，可以直接替换JedisPool使用
+ * 1. 记录每次借用连接的等待时间和持有时间（从借出到归还），等待时间长说明池太小，持有时间长说明有慢命令或者连接被长期占用
+ * 2. execute()在借用的连接上执行操作并保证归还，避免像Launcher中那样把getResource()得到的连接交给长期运行的线程而从不归还
+ * 3. 可选的泄漏检测：后台线程定期检查借出超过leakDetectionMillis仍未归还的连接，打印借用它的线程和借用位置；
+ *    长期持有连接的用法（BLPOP、SUBSCRIBE）会被误报，因此默认关闭
+ * 4. preload()将Lua脚本预先加载到Redis，第一次执行时不需要因为NOSCRIPT多一次往返
+ * @author luzhanghong
+ * @date 2026-10-19 01:25
+ */
+public class RedisPool extends JedisPool {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(RedisPool.class);
+    private final RedisConfig config;
+    private final LatencyHistogram borrowWait = new LatencyHistogram();
+    private final LatencyHistogram holdTime = new LatencyHistogram();
+    private final Map<Jedis, Borrow> borrowed = new ConcurrentHashMap<>();  // Jedis没有重写equals()和hashCode()，按对象标识区分
+    private final ScheduledExecutorService leakDetector;
+
+    public RedisPool(RedisConfig config) {
+        super(config.toPoolConfig(), config.getHost(), config.getPort(), config.getTimeout(), config.getPassword(),
+                config.getDatabase());
+        this.config = config;
+        if (config.getLeakDetectionMillis() > 0) {
+            leakDetector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "redis-leak-detector");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(1000L, config.getLeakDetectionMillis() / 2);
+            leakDetector.scheduleWithFixedDelay(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            leakDetector = null;
+        }
+        LOGGER.info("Redis pool created: {}", config);
+    }
+
+    @Override
+    public Jedis getResource() {
+        long start = System.nanoTime();
+        Jedis jedis = super.getResource();
+        long now = System.nanoTime();
+        borrowWait.record(now - start);
+        Throwable site = leakDetector == null ? null : new Throwable("Borrowed here");
+        borrowed.put(jedis, new Borrow(now, Thread.currentThread().getName(), site));
+        return jedis;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void returnResource(Jedis resource) {
+        released(resource);
+        super.returnResource(resource);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void returnBrokenResource(Jedis resource) {
+        released(resource);
+        super.returnBrokenResource(resource);
+    }
+
+    /**
+     * 借用一个连接执行操作，结束后自动归还
+     * @param callback 操作
+     * @return 操作结果
+     */
+    public <T> T execute(RedisCallback<T> callback) {
+        try (Jedis jedis = getResource()) {
+            return callback.doInRedis(jedis);
+        }
+    }
+
+    /**
+     * 借用一个连接执行没有返回值的操作，结束后自动归还
+     * @param action 操作
+     */
+    public void run(Consumer<Jedis> action) {
+        try (Jedis jedis = getResource()) {
+            action.accept(jedis);
+        }
+    }
+
+    /**
+     * 将Lua脚本加载到Redis的脚本缓存中
+     * @param scripts 脚本
+     */
+    public void preload(LuaScript... scripts) {
+        run(jedis -> {
+            for (LuaScript script : scripts) {
+                script.load(jedis);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        if (leakDetector != null) {
+            leakDetector.shutdownNow();
+        }
+        super.close();
+    }
+
+    /**
+     * @return 借用连接的等待时间，单位纳秒
+     */
+    public LatencyHistogram borrowWait() {
+        return borrowWait;
+    }
+
+    /**
+     * @return 连接的持有时间（从借出到归还），单位纳秒
+     */
+    public LatencyHistogram holdTime() {
+        return holdTime;
+    }
+
+    /**
+     * @return 当前借出未归还的连接数
+     */
+    public int borrowedCount() {
+        return borrowed.size();
+    }
+
+    public RedisConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @return 连接池状态和指标的摘要
+     */
+    public String summary() {
+        return String.format("RedisPool{%s:%d, active=%d, idle=%d, waiters=%d, maxTotal=%d, borrowWait=%s, holdTime=%s}",
+                config.getHost(), config.getPort(), getNumActive(), getNumIdle(), getNumWaiters(), config.getMaxTotal(),
+                borrowWait.summary(TimeUnit.MICROSECONDS), holdTime.summary(TimeUnit.MICROSECONDS));
+    }
+
+    private void released(Jedis resource) {
+        if (resource == null) {
+            return;
+        }
+        Borrow borrow = borrowed.remove(resource);
+        if (borrow != null) {
+            holdTime.record(System.nanoTime() - borrow.borrowedAt);
+        }
+    }
+
+    /**
+     * 检查借出时间超过阈值仍未归还的连接：只打印警告，不强制回收
+     */
+    private void detectLeaks() {
+        long threshold = TimeUnit.MILLISECONDS.toNanos(config.getLeakDetectionMillis());
+        long now = System.nanoTime();
+        for (Borrow borrow : borrowed.values()) {
+            long held = now - borrow.borrowedAt;
+            if (held > threshold && !borrow.reported) {
+                borrow.reported = true;
+                LOGGER.warn("Possible connection leak: borrowed by thread[{}] {} ms ago and not returned.",
+                        borrow.thread, TimeUnit.NANOSECONDS.toMillis(held), borrow.site);
+            }
+        }
+    }
+
+    /**
+     * 一次借用：借出时刻、借用线程和借用位置（仅在开启泄漏检测时记录）
+     */
+    private static final class Borrow {
+
+        private final long borrowedAt;
+        private final String thread;
+        private final Throwable site;
+        private volatile boolean reported;
+
+        Borrow(long borrowedAt, String thread, Throwable site) {
+            this.borrowedAt = borrowedAt;
+            this.thread = thread;
+            this.site = site;
+        }
+
+    }
+
+}
@@ -0,0 +1,24 @@
+package io.biteeniu.java.delay.queue;
+
+import java.util.concurrent.Delayed;
+
+/**
+ * 其他包中的延迟句柄实现的基类：DeadlineDelayed.resetDeadline()只在本包内可见，重新调度时通过这里更新元素自身的到期时刻
+ * @author luzhanghong
+ * @date 2026-10-19 07:10
+ */
+public abstract class AbstractDelayHandle<E> implements DelayHandle<E> {
+
+    /**
+     * 重新设置元素的到期时刻：元素不是DeadlineDelayed时什么也不做
+     * 调用时元素不能处于任何堆或时间轮中（或者所在的结构不按元素的到期时刻排序），否则会破坏排序
+     * @param element 延迟元素
+     * @param deadline 新的到期时刻：System.nanoTime()基准，单位纳秒
+     */
+    protected static void resetDeadline(Delayed element, long deadline) {
+        if (element instanceof DeadlineDelayed) {
+            ((DeadlineDelayed) element).resetDeadline(deadline);
+        }
+    }
+
+}
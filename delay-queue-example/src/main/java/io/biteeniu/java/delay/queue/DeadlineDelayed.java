@@ -0,0 +1,92 @@
+package io.biteeniu.java.delay.queue;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 以单调时钟（System.nanoTime()）记录到期时刻的延迟元素基类
+ * 1. 到期时刻在构造时计算一次，之后的比较、排序不再读取时钟
+ * 2. 使用单调时钟，不受系统时间（墙上时钟）回拨或跳变的影响
+ * 3. 比较时使用到期时刻之差与0比较（与ScheduledThreadPoolExecutor相同），即使nanoTime数值溢出也能保证顺序正确
+ * 4. 到期时刻相同时按入队序号排序，保证先入队的先出队（FIFO）
+ * @author luzhanghong
+ * @date 2026-10-18 11:02
+ */
+public abstract class DeadlineDelayed implements Delayed {
+
+    // 延迟时间的上限：保证任意两个到期时刻之差不会溢出
+    private static final long MAX_DELAY_NANOS = Long.MAX_VALUE >> 1;
+
+    protected long deadline;        // 到期时刻：System.nanoTime()基准，单位纳秒
+    private long sequence;          // 入队序号：由队列在入队时设置，用于到期时刻相同时的排序
+
+    /**
+     * 构造函数
+     * @param delay 延迟时间
+     * @param unit 延迟时间的单位
+     */
+    protected DeadlineDelayed(long delay, TimeUnit unit) {
+        this.deadline = deadlineOf(unit.toNanos(delay));
+    }
+
+    /**
+     * 根据延迟时间计算到期时刻
+     * @param delayNanos 延迟时间，单位纳秒
+     * @return 到期时刻
+     */
+    public static long deadlineOf(long delayNanos) {
+        return System.nanoTime() + Math.min(Math.max(delayNanos, 0L), MAX_DELAY_NANOS);
+    }
+
+    /**
+     * @return 到期时刻：System.nanoTime()基准，单位纳秒
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * 重新设置到期时刻：只能由延迟队列在重新调度时调用，调用时元素不能处于任何堆或时间轮中，否则会破坏排序
+     * 其他包中的延迟队列通过AbstractDelayHandle.resetDeadline()调用
+     * @param deadline 新的到期时刻：System.nanoTime()基准，单位纳秒
+     */
+    void resetDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * 获取距离到期还剩多少纳秒：只读取一次时钟，不做时间单位转换
+     * @return 剩余时间，单位纳秒
+     */
+    public long getDelayNanos() {
+        return deadline - System.nanoTime();
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed o) {
+        if (o == this) {
+            return 0;
+        }
+        if (o instanceof DeadlineDelayed) {
+            // 直接比较预先计算好的到期时刻，不读取时钟
+            DeadlineDelayed other = (DeadlineDelayed) o;
+            int result = Long.compare(deadline - other.deadline, 0L);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+        return Long.compare(getDelayNanos(), o.getDelay(TimeUnit.NANOSECONDS));
+    }
+
+}
@@ -0,0 +1,37 @@
+package io.biteeniu.java.delay.queue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 延迟句柄：由DelayQueueEngine.offer()返回，用于取消或者重新调度已经入队的延迟元素
+ * 各实现的时间复杂度：时间轮O(1)，索引堆O(log n)，JDK DelayQueue O(n)
+ * @author luzhanghong
+ * @date 2026-10-18 15:05
+ */
+public interface DelayHandle<E> {
+
+    /**
+     * @return 延迟元素
+     */
+    E getElement();
+
+    /**
+     * 取消该延迟元素：取消后不会再被消费者取到
+     * @return true-取消成功；false-元素已经过期被取走或者已经被取消
+     */
+    boolean cancel();
+
+    /**
+     * 重新调度该延迟元素：以当前时刻为起点重新计算到期时刻
+     * @param delay 新的延迟时间
+     * @param unit 延迟时间的单位
+     * @return true-重新调度成功；false-元素已经过期被取走或者已经被取消
+     */
+    boolean reschedule(long delay, TimeUnit unit);
+
+    /**
+     * @return 元素是否已经被取消
+     */
+    boolean isCancelled();
+
+}
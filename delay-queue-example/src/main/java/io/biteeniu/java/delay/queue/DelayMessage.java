@@ -1,17 +1,18 @@
 package io.biteeniu.java.delay.queue;
 
-import java.util.concurrent.Delayed;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 延迟消息实体类
+ * 到期时刻在构造时基于System.nanoTime()计算一次，排序时直接比较到期时刻，见DeadlineDelayed
  * @author luzhanghong
  * @date 2018-07-04 10:57
  */
-public class DelayMessage implements Delayed {
+public class DelayMessage extends DeadlineDelayed {
 
+    private final String key; // 消息的键：分片延迟队列根据键选择分片，同一个键的消息保证按顺序消费
     private String message;   // 延迟消息数据
-    private long ttl;         // 延迟消息到期时间（过期时间）
+    private long id;          // 消息ID：由持久化延迟队列在入队时分配，用于日志中的取消和确认记录
 
     /**
      * 构造函数
@@ -19,21 +20,42 @@ public class DelayMessage implements Delayed {
      * @param ttl 延迟时间，单位毫秒
      */
     public DelayMessage(String message, long ttl) {
+        this(message, ttl, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 构造函数
+     * @param message 消息数据
+     * @param delay 延迟时间
+     * @param unit 延迟时间的单位
+     */
+    public DelayMessage(String message, long delay, TimeUnit unit) {
+        this(null, message, delay, unit);
+    }
+
+    /**
+     * 构造函数
+     * @param key 消息的键
+     * @param message 消息数据
+     * @param delay 延迟时间
+     * @param unit 延迟时间的单位
+     */
+    public DelayMessage(String key, String message, long delay, TimeUnit unit) {
+        super(delay, unit);
+        this.key = key;
         setMessage(message);
-        this.ttl = System.currentTimeMillis() + ttl;
     }
 
-    @Override
-    public long getDelay(TimeUnit unit) {
-        // 计算该延迟消息距离过期还剩多少时间
-        long remaining = ttl - System.currentTimeMillis();
-        return unit.convert(remaining, TimeUnit.MILLISECONDS);
+    public long getId() {
+        return id;
+    }
+
+    void setId(long id) {
+        this.id = id;
     }
 
-    @Override
-    public int compareTo(Delayed o) {
-        // 比较、排序：对消息的延时大小进行排序，用于实现将延时时间最小的消息放到队列头部
-        return (int) (this.getDelay(TimeUnit.MILLISECONDS) - o.getDelay(TimeUnit.MILLISECONDS));
+    public String getKey() {
+        return key;
     }
 
     public String getMessage() {
@@ -13,28 +13,38 @@ import java.util.concurrent.DelayQueue;
 public class DelayQueueConsumer implements Runnable {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(DelayQueueConsumer.class);
-    private final DelayQueue<DelayMessage> delayQueue;
+    private final DelayQueueEngine<DelayMessage> delayQueue;
 
     /**
      * 构造函数
      * @param delayQueue 延迟队列
      */
     public DelayQueueConsumer(DelayQueue<DelayMessage> delayQueue) {
+        this(new JdkDelayQueueEngine<>(delayQueue));
+    }
+
+    /**
+     * 构造函数
+     * @param delayQueue 延迟队列（JDK DelayQueue、时间轮等任意实现）
+     */
+    public DelayQueueConsumer(DelayQueueEngine<DelayMessage> delayQueue) {
         this.delayQueue = delayQueue;
     }
 
     @Override
     public void run() {
-        while (true) {
+        while (!Thread.currentThread().isInterrupted()) {
             try {
                 // 从延迟队列的头部获取已经过期的消息
                 // 如果暂时没有过期消息或者队列为空，则take()方法会被阻塞，直到有过期的消息为止
                 DelayMessage delayMessage = delayQueue.take();
                 LOGGER.info("Consumer received message: {}", delayMessage.getMessage());
             } catch (InterruptedException e) {
-                e.printStackTrace();
+                // 线程被中断：恢复中断标志并退出循环
+                Thread.currentThread().interrupt();
             }
         }
+        LOGGER.info("Consumer stopped.");
     }
 
 }
@@ -0,0 +1,141 @@
+package io.biteeniu.java.delay.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 延迟队列的消费者线程池：多个消费线程批量消费已过期的消息
+ * 1. 每个消费线程阻塞等待第一条过期消息，然后用drainTo()一次取出其余所有已过期的消息（最多maxBatchSize条）
+ * 2. 整批消息交给用户提供的处理器，处理器运行在可配置的Executor上
+ * 3. 消费线程被中断（shutdown）后退出循环，不再继续消费
+ * @author luzhanghong
+ * @date 2026-10-18 13:45
+ */
+public class DelayQueueConsumerPool<E extends Delayed> {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(DelayQueueConsumerPool.class);
+    private final DelayQueueEngine<E> delayQueue;
+    private final int maxBatchSize;
+    private final Executor executor;
+    private final Consumer<List<E>> handler;
+    private final DispatchMetrics metrics = new DispatchMetrics();
+    private final Thread[] consumers;
+
+    /**
+     * 构造函数：处理器直接运行在消费线程上
+     * @param delayQueue 延迟队列
+     * @param consumerCount 消费线程数
+     * @param maxBatchSize 每批最多消息数
+     * @param handler 批量消息处理器
+     */
+    public DelayQueueConsumerPool(DelayQueueEngine<E> delayQueue, int consumerCount, int maxBatchSize, Consumer<List<E>> handler) {
+        this(delayQueue, consumerCount, maxBatchSize, Runnable::run, handler);
+    }
+
+    /**
+     * 构造函数
+     * @param delayQueue 延迟队列
+     * @param consumerCount 消费线程数
+     * @param maxBatchSize 每批最多消息数
+     * @param executor 运行处理器的Executor
+     * @param handler 批量消息处理器
+     */
+    public DelayQueueConsumerPool(DelayQueueEngine<E> delayQueue, int consumerCount, int maxBatchSize,
+                                  Executor executor, Consumer<List<E>> handler) {
+        if (consumerCount <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("consumerCount and maxBatchSize must be positive");
+        }
+        this.delayQueue = delayQueue;
+        this.maxBatchSize = maxBatchSize;
+        this.executor = executor;
+        this.handler = handler;
+        this.consumers = new Thread[consumerCount];
+        for (int i = 0; i < consumerCount; i++) {
+            consumers[i] = new Thread(this::consume, "delay-queue-consumer-" + (i + 1));
+        }
+    }
+
+    /**
+     * 启动所有消费线程
+     */
+    public void start() {
+        metrics.reset();
+        for (Thread consumer : consumers) {
+            consumer.start();
+        }
+    }
+
+    /**
+     * 中断所有消费线程，并等待其退出
+     * @param timeout 等待的超时时间
+     * @param unit 超时时间的单位
+     * @throws InterruptedException 等待过程中当前线程被中断
+     */
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        for (Thread consumer : consumers) {
+            consumer.interrupt();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread consumer : consumers) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining > 0) {
+                consumer.join(remaining);
+            }
+        }
+    }
+
+    public DispatchMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void consume() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<E> batch = new ArrayList<>();
+            try {
+                // 阻塞等待第一条过期消息，然后一次性取出其余已过期的消息
+                batch.add(delayQueue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            delayQueue.drainTo(batch, maxBatchSize - 1);
+            dispatch(batch);
+        }
+        LOGGER.info("Consumer {} stopped.", Thread.currentThread().getName());
+    }
+
+    private void dispatch(List<E> batch) {
+        metrics.recordBatch(batch.size());
+        try {
+            executor.execute(() -> handle(batch));
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Batch of {} messages rejected by executor, handle it in consumer thread.", batch.size());
+            handle(batch);
+        }
+    }
+
+    private void handle(List<E> batch) {
+        long now = System.nanoTime();
+        for (E e : batch) {
+            if (e instanceof DeadlineDelayed) {
+                metrics.recordLag(now - ((DeadlineDelayed) e).getDeadline());
+            } else {
+                metrics.recordLag(-e.getDelay(TimeUnit.NANOSECONDS));
+            }
+        }
+        try {
+            handler.accept(batch);
+        } catch (RuntimeException e) {
+            LOGGER.error("Handle batch of {} messages failed.", batch.size(), e);
+        }
+    }
+
+}
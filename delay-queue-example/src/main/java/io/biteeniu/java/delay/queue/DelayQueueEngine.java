@@ -0,0 +1,46 @@
+package io.biteeniu.java.delay.queue;
+
+import java.util.Collection;
+import java.util.concurrent.Delayed;
+
+/**
+ * 延迟队列的通用接口：屏蔽底层的实现（JDK DelayQueue、分层时间轮等），消费者只依赖该接口进行消费
+ * @author luzhanghong
+ * @date 2026-10-18 09:12
+ */
+public interface DelayQueueEngine<E extends Delayed> {
+
+    /**
+     * 向延迟队列中添加一个延迟元素
+     * @param e 延迟元素
+     * @return 延迟句柄：可以用来取消或者重新调度该元素
+     */
+    DelayHandle<E> offer(E e);
+
+    /**
+     * 从延迟队列中获取一个已经过期的元素，如果暂时没有过期元素则一直阻塞
+     * @return 已经过期的元素
+     * @throws InterruptedException 等待过程中线程被中断
+     */
+    E take() throws InterruptedException;
+
+    /**
+     * 从延迟队列中获取一个已经过期的元素，不阻塞
+     * @return 已经过期的元素；没有过期元素时返回null
+     */
+    E poll();
+
+    /**
+     * 一次性取出所有（最多maxElements个）已经过期的元素，不阻塞
+     * @param c 存放取出元素的集合
+     * @param maxElements 最多取出的元素数量
+     * @return 实际取出的元素数量
+     */
+    int drainTo(Collection<? super E> c, int maxElements);
+
+    /**
+     * @return 延迟队列中的元素数量（包括未过期和已过期但还未被消费的元素）
+     */
+    int size();
+
+}
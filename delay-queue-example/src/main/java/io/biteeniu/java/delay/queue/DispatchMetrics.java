@@ -0,0 +1,75 @@
+package io.biteeniu.java.delay.queue;
+
+import io.biteeniu.common.metrics.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 延迟消息分发指标：吞吐量和分发延迟（消息交给处理器的时刻 - 消息的到期时刻）
+ * @author luzhanghong
+ * @date 2026-10-18 13:30
+ */
+public class DispatchMetrics {
+
+    private final LongAdder dispatched = new LongAdder();   // 已分发的消息数
+    private final LongAdder batches = new LongAdder();      // 已分发的批次数
+    private final LatencyHistogram dispatchLag = new LatencyHistogram();  // 分发延迟，单位纳秒
+    private volatile long startNanos = System.nanoTime();
+
+    /**
+     * 记录一批消息的分发
+     * @param size 批次大小
+     */
+    void recordBatch(int size) {
+        dispatched.add(size);
+        batches.increment();
+    }
+
+    /**
+     * 记录一条消息的分发延迟
+     * @param lagNanos 分发延迟，单位纳秒
+     */
+    void recordLag(long lagNanos) {
+        dispatchLag.record(lagNanos);
+    }
+
+    public long getDispatched() {
+        return dispatched.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * @return 自启动（或上次重置）以来的平均吞吐量，单位：条/秒
+     */
+    public double getThroughput() {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed <= 0 ? 0D : dispatched.sum() * 1e9 / elapsed;
+    }
+
+    /**
+     * @param percentile 分位，如99表示P99
+     * @param unit 时间单位
+     * @return 分发延迟的分位数
+     */
+    public long getDispatchLag(double percentile, TimeUnit unit) {
+        return unit.convert(dispatchLag.percentile(percentile), TimeUnit.NANOSECONDS);
+    }
+
+    public void reset() {
+        dispatched.reset();
+        batches.reset();
+        dispatchLag.reset();
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("dispatched=%d, batches=%d, throughput=%.0f/s, lag: %s",
+                getDispatched(), getBatches(), getThroughput(), dispatchLag.summary(TimeUnit.MICROSECONDS));
+    }
+
+}
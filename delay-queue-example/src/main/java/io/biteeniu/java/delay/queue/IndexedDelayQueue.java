@@ -0,0 +1,287 @@
+package io.biteeniu.java.delay.queue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 索引堆延迟队列：与DelayQueue一样是一把锁保护的二叉堆，但每个堆节点记录了自己在堆数组中的下标，
+ * 因此可以通过offer()返回的句柄以O(log n)的代价取消或者重新调度，而不需要像DelayQueue.remove()那样线性扫描
+ * 适合大部分定时器在到期前就被取消的场景（会话超时、重试等）
+ * @author luzhanghong
+ * @date 2026-10-18 15:20
+ */
+public class IndexedDelayQueue<E extends Delayed> implements DelayQueueEngine<E> {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private IndexedNode<E>[] heap;
+    private int size;
+    private long sequencer;  // 入队序号：到期时刻相同时先入队的先出队
+    private Thread leader;   // 正在等待堆顶元素到期的线程（Leader-Follower模式，与DelayQueue相同）
+
+    public IndexedDelayQueue() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * 构造函数
+     * @param initialCapacity 堆数组的初始容量
+     */
+    @SuppressWarnings("unchecked")
+    public IndexedDelayQueue(int initialCapacity) {
+        this.heap = new IndexedNode[Math.max(initialCapacity, 1)];
+    }
+
+    @Override
+    public DelayHandle<E> offer(E e) {
+        long deadline = e instanceof DeadlineDelayed
+                ? ((DeadlineDelayed) e).getDeadline()
+                : DeadlineDelayed.deadlineOf(e.getDelay(TimeUnit.NANOSECONDS));
+        IndexedNode<E> node = new IndexedNode<>(this, e, deadline);
+        lock.lock();
+        try {
+            node.sequence = sequencer++;
+            if (size >= heap.length) {
+                heap = Arrays.copyOf(heap, heap.length + (heap.length >> 1));
+            }
+            siftUp(size++, node);
+            if (heap[0] == node) {
+                // 新元素成为堆顶：唤醒等待线程重新计算等待时间
+                leader = null;
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return node;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            for (;;) {
+                IndexedNode<E> first = size == 0 ? null : heap[0];
+                if (first == null) {
+                    available.await();
+                } else {
+                    long delay = first.deadline - System.nanoTime();
+                    if (delay <= 0) {
+                        return removeAt(0).element;
+                    }
+                    first = null;
+                    if (leader != null) {
+                        available.await();
+                    } else {
+                        Thread thisThread = Thread.currentThread();
+                        leader = thisThread;
+                        try {
+                            available.awaitNanos(delay);
+                        } finally {
+                            if (leader == thisThread) {
+                                leader = null;
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            if (leader == null && size > 0) {
+                available.signal();
+            }
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll() {
+        lock.lock();
+        try {
+            return isHeadExpired(System.nanoTime()) ? removeAt(0).element : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            int n = 0;
+            while (n < maxElements && isHeadExpired(now)) {
+                c.add(removeAt(0).element);
+                n++;
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isHeadExpired(long now) {
+        return size > 0 && heap[0].deadline - now <= 0;
+    }
+
+    private boolean cancel(IndexedNode<E> node) {
+        lock.lock();
+        try {
+            int index = node.index;
+            if (index < 0) {
+                return false;
+            }
+            removeAt(index);
+            node.cancelled = true;
+            if (index == 0) {
+                leader = null;
+                available.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean reschedule(IndexedNode<E> node, long deadline) {
+        lock.lock();
+        try {
+            int index = node.index;
+            if (index < 0) {
+                return false;
+            }
+            node.deadline = deadline;
+            if (node.element instanceof DeadlineDelayed) {
+                ((DeadlineDelayed) node.element).resetDeadline(deadline);
+            }
+            siftDown(index, node);
+            if (heap[index] == node) {
+                siftUp(index, node);
+            }
+            if (index == 0 || heap[0] == node) {
+                leader = null;
+                available.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 删除堆中下标为i的节点：用最后一个节点填补空位，再向下或向上调整
+     */
+    private IndexedNode<E> removeAt(int i) {
+        IndexedNode<E> removed = heap[i];
+        int s = --size;
+        IndexedNode<E> last = heap[s];
+        heap[s] = null;
+        if (s != i) {
+            siftDown(i, last);
+            if (heap[i] == last) {
+                siftUp(i, last);
+            }
+        }
+        removed.index = -1;
+        return removed;
+    }
+
+    private void siftUp(int k, IndexedNode<E> node) {
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            IndexedNode<E> p = heap[parent];
+            if (node.compareTo(p) >= 0) {
+                break;
+            }
+            heap[k] = p;
+            p.index = k;
+            k = parent;
+        }
+        heap[k] = node;
+        node.index = k;
+    }
+
+    private void siftDown(int k, IndexedNode<E> node) {
+        int half = size >>> 1;
+        while (k < half) {
+            int child = (k << 1) + 1;
+            IndexedNode<E> c = heap[child];
+            int right = child + 1;
+            if (right < size && c.compareTo(heap[right]) > 0) {
+                c = heap[child = right];
+            }
+            if (node.compareTo(c) <= 0) {
+                break;
+            }
+            heap[k] = c;
+            c.index = k;
+            k = child;
+        }
+        heap[k] = node;
+        node.index = k;
+    }
+
+    /**
+     * 堆节点：记录自己在堆数组中的下标，同时作为延迟句柄返回给调用方
+     */
+    private static class IndexedNode<E extends Delayed> implements DelayHandle<E>, Comparable<IndexedNode<E>> {
+
+        private final IndexedDelayQueue<E> queue;
+        private final E element;
+        private long deadline;   // 到期时刻：System.nanoTime()基准，单位纳秒
+        private long sequence;
+        private int index = -1;  // 在堆数组中的下标，-1表示已经不在堆中
+        private volatile boolean cancelled;
+
+        IndexedNode(IndexedDelayQueue<E> queue, E element, long deadline) {
+            this.queue = queue;
+            this.element = element;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public E getElement() {
+            return element;
+        }
+
+        @Override
+        public boolean cancel() {
+            return queue.cancel(this);
+        }
+
+        @Override
+        public boolean reschedule(long delay, TimeUnit unit) {
+            return queue.reschedule(this, DeadlineDelayed.deadlineOf(unit.toNanos(delay)));
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public int compareTo(IndexedNode<E> o) {
+            long diff = deadline - o.deadline;
+            if (diff != 0) {
+                return diff < 0 ? -1 : 1;
+            }
+            return Long.compare(sequence, o.sequence);
+        }
+
+    }
+
+}
@@ -0,0 +1,103 @@
+package io.biteeniu.java.delay.queue;
+
+import java.util.Collection;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于java.util.concurrent.DelayQueue的延迟队列实现
+ * 底层是一把全局ReentrantLock保护的二叉堆，offer和take的时间复杂度都是O(log n)
+ * 注意：DelayQueue不记录元素在堆中的位置，取消和重新调度需要线性扫描整个堆，时间复杂度为O(n)；
+ * 取消频繁的场景请使用IndexedDelayQueue或者TimingWheelEngine
+ * @author luzhanghong
+ * @date 2026-10-18 09:20
+ */
+public class JdkDelayQueueEngine<E extends Delayed> implements DelayQueueEngine<E> {
+
+    private final DelayQueue<E> delayQueue;
+
+    public JdkDelayQueueEngine() {
+        this(new DelayQueue<>());
+    }
+
+    /**
+     * 构造函数
+     * @param delayQueue 被包装的JDK延迟队列
+     */
+    public JdkDelayQueueEngine(DelayQueue<E> delayQueue) {
+        this.delayQueue = delayQueue;
+    }
+
+    @Override
+    public DelayHandle<E> offer(E e) {
+        delayQueue.offer(e);
+        return new JdkDelayHandle(e);
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        return delayQueue.take();
+    }
+
+    @Override
+    public E poll() {
+        return delayQueue.poll();
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        return delayQueue.drainTo(c, maxElements);
+    }
+
+    @Override
+    public int size() {
+        return delayQueue.size();
+    }
+
+    /**
+     * 基于DelayQueue.remove()的延迟句柄
+     */
+    private class JdkDelayHandle implements DelayHandle<E> {
+
+        private final E element;
+        private volatile boolean cancelled;
+
+        JdkDelayHandle(E element) {
+            this.element = element;
+        }
+
+        @Override
+        public E getElement() {
+            return element;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (delayQueue.remove(element)) {
+                cancelled = true;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean reschedule(long delay, TimeUnit unit) {
+            if (!(element instanceof DeadlineDelayed)) {
+                throw new UnsupportedOperationException("Only DeadlineDelayed elements can be rescheduled");
+            }
+            if (!delayQueue.remove(element)) {
+                return false;
+            }
+            ((DeadlineDelayed) element).resetDeadline(DeadlineDelayed.deadlineOf(unit.toNanos(delay)));
+            return delayQueue.offer(element);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+    }
+
+}
@@ -1,10 +1,13 @@
 package io.biteeniu.java.delay.queue;
 
+import io.biteeniu.java.delay.queue.wheel.TimingWheelEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Random;
-import java.util.concurrent.DelayQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 程序启动类
@@ -20,8 +23,8 @@ public class Launcher {
      * @param args args
      */
     public static void main(String[] args) throws Exception {
-        // 创建延迟消息队列
-        DelayQueue<DelayMessage> delayQueue = new DelayQueue<>();
+        // 创建延迟消息队列：分层时间轮实现，也可以换成基于JDK DelayQueue的实现：new JdkDelayQueueEngine<>()
+        DelayQueueEngine<DelayMessage> delayQueue = new TimingWheelEngine<>();
         // 创建并启动延迟队列的消费者线程
         new Thread(new DelayQueueConsumer(delayQueue)).start();
         // 执行测试样例1
@@ -30,13 +33,17 @@ public class Launcher {
          test2(delayQueue);
         // 执行测试样例3
         // test3(delayQueue);
+        // 执行测试样例4：消费者线程池批量消费（需要注释掉上面的单线程消费者）
+        // test4(delayQueue);
+        // 执行测试样例5：分片延迟队列
+        // test5();
     }
 
     /**
      * 测试用例1：生成5条TTL时间依次增大的延迟消息：1秒，2秒，3秒，4秒，5秒
      * @param delayQueue 延迟队列
      */
-    private static void test1(DelayQueue<DelayMessage> delayQueue) {
+    private static void test1(DelayQueueEngine<DelayMessage> delayQueue) {
         for (int i = 1; i <= 5; i++) {
             DelayMessage delayMessage = new DelayMessage(String.valueOf(i), i*1000L);
             LOGGER.info("Producer publish message: {}", String.valueOf(i));
@@ -48,7 +55,7 @@ public class Launcher {
      * 测试用例2：生成5条TTL时间依次减小的延迟消息：：5秒，4秒，3秒，2秒，1秒
      * @param delayQueue 延迟队列
      */
-    private static void test2(DelayQueue<DelayMessage> delayQueue) {
+    private static void test2(DelayQueueEngine<DelayMessage> delayQueue) {
         for (int i = 5; i > 0; i--) {
             String message = String.valueOf(i);
             DelayMessage delayMessage = new DelayMessage(message, i*1000L);
@@ -61,7 +68,7 @@ public class Launcher {
      * 测试用例3：生成5个延迟时间随机的延迟消息
      * @param delayQueue 延迟队列
      */
-    private static void test3(DelayQueue<DelayMessage> delayQueue) {
+    private static void test3(DelayQueueEngine<DelayMessage> delayQueue) {
         Random random = new Random();
         for (int i = 0; i < 5; i++) {
             // 生成1~10的随机数：作为1秒-10秒的延迟时间
@@ -73,4 +80,42 @@ public class Launcher {
         }
     }
 
+    /**
+     * 测试用例4：突发到期——1万条消息在同一时刻到期，由4个消费线程批量消费，处理器运行在独立的线程池上
+     * @param delayQueue 延迟队列
+     */
+    private static void test4(DelayQueueEngine<DelayMessage> delayQueue) throws InterruptedException {
+        ExecutorService handlerExecutor = Executors.newFixedThreadPool(4);
+        DelayQueueConsumerPool<DelayMessage> consumerPool = new DelayQueueConsumerPool<>(delayQueue, 4, 512, handlerExecutor,
+                batch -> LOGGER.debug("Consumer received {} messages.", batch.size()));
+        consumerPool.start();
+        for (int i = 0; i < 10000; i++) {
+            delayQueue.offer(new DelayMessage(String.valueOf(i), 1000L));
+        }
+        LOGGER.info("Producer published 10000 messages.");
+        Thread.sleep(3000L);
+        consumerPool.shutdown(1, TimeUnit.SECONDS);
+        handlerExecutor.shutdown();
+        LOGGER.info("Consumer pool metrics: {}", consumerPool.getMetrics());
+    }
+
+    /**
+     * 测试用例5：分片延迟队列——8个分片，4个生产者线程并发写入，同一个键的消息按顺序消费
+     */
+    private static void test5() throws InterruptedException {
+        ShardedDelayQueue shardedQueue = new ShardedDelayQueue(8);
+        shardedQueue.start(512, batch -> batch.forEach(message ->
+                LOGGER.info("Consumer received message: {} -> {}", message.getKey(), message.getMessage())));
+        for (int p = 0; p < 4; p++) {
+            String key = "key-" + p;
+            new Thread(() -> {
+                for (int i = 0; i < 5; i++) {
+                    shardedQueue.offer(new DelayMessage(key, String.valueOf(i), 1000L, TimeUnit.MILLISECONDS));
+                }
+            }).start();
+        }
+        Thread.sleep(2000L);
+        shardedQueue.shutdown(1, TimeUnit.SECONDS);
+    }
+
 }
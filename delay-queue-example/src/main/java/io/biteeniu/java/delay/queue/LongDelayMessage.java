@@ -0,0 +1,30 @@
+package io.biteeniu.java.delay.queue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 只携带一个long型负载ID的延迟消息：全部是基本类型字段，没有装箱和字符串，
+ * 适合只需要在到期时根据ID回查业务数据的场景（如会话超时、重试）
+ * @author luzhanghong
+ * @date 2026-10-18 11:15
+ */
+public class LongDelayMessage extends DeadlineDelayed {
+
+    private final long id;  // 负载ID
+
+    /**
+     * 构造函数
+     * @param id 负载ID
+     * @param delay 延迟时间
+     * @param unit 延迟时间的单位
+     */
+    public LongDelayMessage(long id, long delay, TimeUnit unit) {
+        super(delay, unit);
+        this.id = id;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+}
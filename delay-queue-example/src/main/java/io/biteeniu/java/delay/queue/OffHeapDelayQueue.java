@@ -0,0 +1,398 @@
+package io.biteeniu.java.delay.queue;
+
+import io.biteeniu.java.delay.queue.offheap.SlabArena;
+import io.biteeniu.java.delay.queue.offheap.SlotTable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 堆外延迟队列：面向数千万未到期条目的场景，入队后的条目不再以Java对象的形式存在
+ * 1. 二叉堆由三个基本类型数组组成（到期时刻long[]、入队序号long[]、槽位号int[]），GC不需要扫描其中的内容
+ * 2. 消息ID、消息数据的地址和长度、条目在堆中的下标保存在堆外槽位表（SlotTable）中
+ * 3. 消息的键和数据编码后保存在堆外slab分配器（SlabArena）中
+ * 4. 只有在条目到期被取出（或者通过句柄读取）时才重新构造DelayMessage对象
+ * 与DelayQueue<DelayMessage>相比，每个未到期条目常驻Java堆的只有约20字节的数组空间，而不是DelayMessage、String、byte[]等多个对象，
+ * 老年代的存活对象数量不再随未到期条目数增长，Full GC的停顿时间也就不再随之增长；代价是入队时的一次编码和到期时的一次解码
+ * 直接内存的上限由-XX:MaxDirectMemorySize控制（默认与-Xmx相同），5000万条100字节左右的消息约需要8GB直接内存
+ * 基准测试见benchmark.OffHeapBenchmark
+ * @author luzhanghong
+ * @date 2026-10-18 18:40
+ */
+public class OffHeapDelayQueue implements DelayQueueEngine<DelayMessage> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final SlotTable slots = new SlotTable();
+    private final SlabArena arena;
+    private long[] deadlines;   // 堆：到期时刻，System.nanoTime()基准
+    private long[] sequences;   // 堆：入队序号，到期时刻相同时先入队的先出队
+    private int[] heapSlots;    // 堆：槽位号
+    private int size;
+    private long sequencer;
+    private Thread leader;      // 正在等待堆顶元素到期的线程（Leader-Follower模式，与DelayQueue相同）
+
+    public OffHeapDelayQueue() {
+        this(INITIAL_CAPACITY, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * 构造函数
+     * @param initialCapacity 堆数组的初始容量
+     * @param chunkSize 存放消息数据的每个直接内存块的大小
+     */
+    public OffHeapDelayQueue(int initialCapacity, int chunkSize) {
+        int capacity = Math.max(initialCapacity, 1);
+        this.deadlines = new long[capacity];
+        this.sequences = new long[capacity];
+        this.heapSlots = new int[capacity];
+        this.arena = new SlabArena(chunkSize);
+    }
+
+    @Override
+    public DelayHandle<DelayMessage> offer(DelayMessage message) {
+        byte[] payload = encode(message);
+        int slot;
+        int generation;
+        lock.lock();
+        try {
+            if (size >= heapSlots.length) {
+                int capacity = heapSlots.length + (heapSlots.length >> 1);
+                deadlines = Arrays.copyOf(deadlines, capacity);
+                sequences = Arrays.copyOf(sequences, capacity);
+                heapSlots = Arrays.copyOf(heapSlots, capacity);
+            }
+            // 先写入消息数据再分配槽位：消息过大（超过SlabArena.MAX_ALLOCATION）时抛出异常，不会留下无人释放的槽位
+            long address = arena.store(payload);
+            slot = slots.allocate();
+            slots.setId(slot, message.getId());
+            slots.setAddress(slot, address);
+            slots.setLength(slot, payload.length);
+            siftUp(size++, message.getDeadline(), sequencer++, slot);
+            if (heapSlots[0] == slot) {
+                // 新元素成为堆顶：唤醒等待线程重新计算等待时间
+                leader = null;
+                available.signal();
+            }
+            generation = slots.getGeneration(slot);
+        } finally {
+            lock.unlock();
+        }
+        return new OffHeapHandle(slot, generation);
+    }
+
+    @Override
+    public DelayMessage take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            for (;;) {
+                if (size == 0) {
+                    available.await();
+                } else {
+                    long delay = deadlines[0] - System.nanoTime();
+                    if (delay <= 0) {
+                        return expire(0);
+                    }
+                    if (leader != null) {
+                        available.await();
+                    } else {
+                        Thread thisThread = Thread.currentThread();
+                        leader = thisThread;
+                        try {
+                            available.awaitNanos(delay);
+                        } finally {
+                            if (leader == thisThread) {
+                                leader = null;
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            if (leader == null && size > 0) {
+                available.signal();
+            }
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public DelayMessage poll() {
+        lock.lock();
+        try {
+            return isHeadExpired(System.nanoTime()) ? expire(0) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super DelayMessage> c, int maxElements) {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            int n = 0;
+            while (n < maxElements && isHeadExpired(now)) {
+                c.add(expire(0));
+                n++;
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 已经申请的直接内存字节数（槽位表+消息数据）
+     */
+    public long getOffHeapBytes() {
+        lock.lock();
+        try {
+            return slots.getReservedBytes() + arena.getReservedBytes();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isHeadExpired(long now) {
+        return size > 0 && deadlines[0] - now <= 0;
+    }
+
+    /**
+     * 取出堆中下标为i的条目：构造消息对象并释放槽位和数据
+     */
+    private DelayMessage expire(int i) {
+        long deadline = deadlines[i];
+        int slot = removeAt(i);
+        DelayMessage message = materialize(slot, deadline);
+        release(slot);
+        return message;
+    }
+
+    private DelayMessage materialize(int slot, long deadline) {
+        ByteBuffer buffer = ByteBuffer.wrap(arena.load(slots.getAddress(slot), slots.getLength(slot)));
+        int keyLength = buffer.getInt();
+        String key = null;
+        if (keyLength >= 0) {
+            key = new String(buffer.array(), buffer.position(), keyLength, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + keyLength);
+        }
+        String data = buffer.get() == 0 ? null
+                : new String(buffer.array(), buffer.position(), buffer.remaining(), StandardCharsets.UTF_8);
+        DelayMessage message = new DelayMessage(key, data, 0L, TimeUnit.NANOSECONDS);
+        message.resetDeadline(deadline);
+        message.setId(slots.getId(slot));
+        return message;
+    }
+
+    private void release(int slot) {
+        arena.free(slots.getAddress(slot), slots.getLength(slot));
+        slots.release(slot);
+    }
+
+    /**
+     * @return 句柄对应的条目在堆中的下标；条目已经到期、取消或者槽位被复用时返回-1
+     */
+    private int indexOf(int slot, int generation) {
+        return slots.getGeneration(slot) == generation ? slots.getIndex(slot) : -1;
+    }
+
+    private DelayMessage get(int slot, int generation) {
+        lock.lock();
+        try {
+            int index = indexOf(slot, generation);
+            return index < 0 ? null : materialize(slot, deadlines[index]);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean cancel(int slot, int generation) {
+        lock.lock();
+        try {
+            int index = indexOf(slot, generation);
+            if (index < 0) {
+                return false;
+            }
+            removeAt(index);
+            release(slot);
+            if (index == 0) {
+                leader = null;
+                available.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean reschedule(int slot, int generation, long deadline) {
+        lock.lock();
+        try {
+            int index = indexOf(slot, generation);
+            if (index < 0) {
+                return false;
+            }
+            long sequence = sequences[index];
+            siftDown(index, deadline, sequence, slot);
+            if (heapSlots[index] == slot) {
+                siftUp(index, deadline, sequence, slot);
+            }
+            if (index == 0 || heapSlots[0] == slot) {
+                leader = null;
+                available.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 删除堆中下标为i的条目：用最后一个条目填补空位，再向下或向上调整
+     * @return 被删除条目的槽位号
+     */
+    private int removeAt(int i) {
+        int removed = heapSlots[i];
+        int s = --size;
+        if (s != i) {
+            long deadline = deadlines[s];
+            long sequence = sequences[s];
+            int slot = heapSlots[s];
+            siftDown(i, deadline, sequence, slot);
+            if (heapSlots[i] == slot) {
+                siftUp(i, deadline, sequence, slot);
+            }
+        }
+        slots.setIndex(removed, -1);
+        return removed;
+    }
+
+    private void siftUp(int k, long deadline, long sequence, int slot) {
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            if (!less(deadline, sequence, parent)) {
+                break;
+            }
+            move(parent, k);
+            k = parent;
+        }
+        place(k, deadline, sequence, slot);
+    }
+
+    private void siftDown(int k, long deadline, long sequence, int slot) {
+        int half = size >>> 1;
+        while (k < half) {
+            int child = (k << 1) + 1;
+            int right = child + 1;
+            if (right < size && less(deadlines[right], sequences[right], child)) {
+                child = right;
+            }
+            if (!less(deadlines[child], sequences[child], deadline, sequence)) {
+                break;
+            }
+            move(child, k);
+            k = child;
+        }
+        place(k, deadline, sequence, slot);
+    }
+
+    private boolean less(long deadline, long sequence, int index) {
+        return less(deadline, sequence, deadlines[index], sequences[index]);
+    }
+
+    private static boolean less(long deadline1, long sequence1, long deadline2, long sequence2) {
+        long diff = deadline1 - deadline2;
+        return diff != 0 ? diff < 0 : sequence1 < sequence2;
+    }
+
+    private void move(int from, int to) {
+        place(to, deadlines[from], sequences[from], heapSlots[from]);
+    }
+
+    private void place(int k, long deadline, long sequence, int slot) {
+        deadlines[k] = deadline;
+        sequences[k] = sequence;
+        heapSlots[k] = slot;
+        slots.setIndex(slot, k);
+    }
+
+    /**
+     * 编码格式：[int 键长度，-1表示null][键][byte 数据是否为null][数据]
+     */
+    private static byte[] encode(DelayMessage message) {
+        byte[] key = message.getKey() == null ? null : message.getKey().getBytes(StandardCharsets.UTF_8);
+        byte[] data = message.getMessage() == null ? null : message.getMessage().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + (key == null ? 0 : key.length) + 1 + (data == null ? 0 : data.length));
+        buffer.putInt(key == null ? -1 : key.length);
+        if (key != null) {
+            buffer.put(key);
+        }
+        buffer.put((byte) (data == null ? 0 : 1));
+        if (data != null) {
+            buffer.put(data);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 堆外条目的句柄：只保存槽位号和代数，不引用消息对象
+     */
+    private class OffHeapHandle implements DelayHandle<DelayMessage> {
+
+        private final int slot;
+        private final int generation;
+        private volatile boolean cancelled;
+
+        OffHeapHandle(int slot, int generation) {
+            this.slot = slot;
+            this.generation = generation;
+        }
+
+        /**
+         * @return 根据堆外数据重新构造的消息；条目已经到期被取走或者已经被取消时返回null
+         */
+        @Override
+        public DelayMessage getElement() {
+            return get(slot, generation);
+        }
+
+        @Override
+        public boolean cancel() {
+            if (OffHeapDelayQueue.this.cancel(slot, generation)) {
+                cancelled = true;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean reschedule(long delay, TimeUnit unit) {
+            return OffHeapDelayQueue.this.reschedule(slot, generation, DeadlineDelayed.deadlineOf(unit.toNanos(delay)));
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+    }
+
+}
@@ -0,0 +1,122 @@
+package io.biteeniu.java.delay.queue;
+
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 分片延迟队列：K个相互独立的DelayQueue分片，根据消息的键（key）的哈希值选择分片
+ * 1. 多个生产者写入不同分片时不再竞争同一把锁，写入吞吐量可以随CPU核数扩展
+ * 2. 每个分片只有一个消费线程，同一个键的消息总是落在同一个分片上，到期时刻相同时按入队顺序消费（FIFO）
+ * 3. 没有键的消息随机选择分片
+ * @author luzhanghong
+ * @date 2026-10-18 14:20
+ */
+public class ShardedDelayQueue {
+
+    private final JdkDelayQueueEngine<DelayMessage>[] shards;
+    private final AtomicLong[] sequences;  // 每个分片独立的入队序号
+    private final DelayQueueConsumerPool<DelayMessage>[] consumers;
+
+    /**
+     * 构造函数
+     * @param shardCount 分片数量
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedDelayQueue(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be positive");
+        }
+        this.shards = new JdkDelayQueueEngine[shardCount];
+        this.sequences = new AtomicLong[shardCount];
+        this.consumers = new DelayQueueConsumerPool[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new JdkDelayQueueEngine<>(new DelayQueue<>());
+            sequences[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * 向分片延迟队列中添加一条消息
+     * @param message 延迟消息
+     * @return 延迟句柄
+     */
+    public DelayHandle<DelayMessage> offer(DelayMessage message) {
+        int index = shardOf(message.getKey());
+        message.setSequence(sequences[index].getAndIncrement());
+        return shards[index].offer(message);
+    }
+
+    /**
+     * 为每个分片启动一个消费线程：处理器直接运行在分片的消费线程上，以保证同一个键的消息按顺序处理
+     * @param maxBatchSize 每批最多消息数
+     * @param handler 批量消息处理器
+     */
+    public synchronized void start(int maxBatchSize, Consumer<List<DelayMessage>> handler) {
+        for (int i = 0; i < shards.length; i++) {
+            if (consumers[i] == null) {
+                consumers[i] = new DelayQueueConsumerPool<>(shards[i], 1, maxBatchSize, handler);
+                consumers[i].start();
+            }
+        }
+    }
+
+    /**
+     * 停止所有分片的消费线程
+     * @param timeout 等待每个分片退出的超时时间
+     * @param unit 超时时间的单位
+     * @throws InterruptedException 等待过程中当前线程被中断
+     */
+    public synchronized void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        for (int i = 0; i < consumers.length; i++) {
+            if (consumers[i] != null) {
+                consumers[i].shutdown(timeout, unit);
+                consumers[i] = null;
+            }
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @param index 分片序号
+     * @return 分片
+     */
+    public DelayQueueEngine<DelayMessage> getShard(int index) {
+        return shards[index];
+    }
+
+    /**
+     * @param index 分片序号
+     * @return 分片消费线程的分发指标，分片未启动消费时返回null
+     */
+    public synchronized DispatchMetrics getMetrics(int index) {
+        return consumers[index] == null ? null : consumers[index].getMetrics();
+    }
+
+    /**
+     * @return 所有分片中的消息总数
+     */
+    public int size() {
+        int size = 0;
+        for (JdkDelayQueueEngine<DelayMessage> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    private int shardOf(String key) {
+        if (key == null) {
+            return ThreadLocalRandom.current().nextInt(shards.length);
+        }
+        int h = key.hashCode();
+        // 与HashMap相同的扰动：让高位也参与分片选择
+        return Math.floorMod(h ^ (h >>> 16), shards.length);
+    }
+
+}
@@ -0,0 +1,79 @@
+package io.biteeniu.java.delay.queue.benchmark;
+
+import io.biteeniu.java.delay.queue.DelayHandle;
+import io.biteeniu.java.delay.queue.DelayMessage;
+import io.biteeniu.java.delay.queue.DelayQueueEngine;
+import io.biteeniu.java.delay.queue.IndexedDelayQueue;
+import io.biteeniu.java.delay.queue.JdkDelayQueueEngine;
+import io.biteeniu.java.delay.queue.wheel.TimingWheelEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 取消密集型基准测试：模拟会话超时、重试等场景，90%的定时器在到期前被取消，另有一部分被重新调度（续期）
+ * 在N个背景定时器的基础上，写入M个定时器，随机取消其中90%，再重新调度剩余定时器中的一半，
+ * 分别统计offer、cancel、reschedule的平均耗时
+ * 运行方式：java -cp ... io.biteeniu.java.delay.queue.benchmark.CancelBenchmark [背景定时器数] [操作定时器数]
+ * @author luzhanghong
+ * @date 2026-10-18 15:50
+ */
+public class CancelBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(CancelBenchmark.class);
+    private final static double CANCEL_RATIO = 0.9D;
+
+    public static void main(String[] args) {
+        int background = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        for (int round = 1; round <= 3; round++) {
+            run(round, "DelayQueue", JdkDelayQueueEngine::new, background, operations);
+            run(round, "IndexedDelayQueue", IndexedDelayQueue::new, background, operations);
+            run(round, "TimingWheel", TimingWheelEngine::new, background, operations);
+        }
+    }
+
+    private static void run(int round, String name, Supplier<DelayQueueEngine<DelayMessage>> factory,
+                            int background, int operations) {
+        DelayQueueEngine<DelayMessage> queue = factory.get();
+        Random random = new Random(round);
+        for (int i = 0; i < background; i++) {
+            queue.offer(new DelayMessage("background", 3600000L + random.nextInt(3600000)));
+        }
+        // offer：会话超时时间30秒~60秒
+        List<DelayHandle<DelayMessage>> handles = new ArrayList<>(operations);
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            handles.add(queue.offer(new DelayMessage("session", 30000L + random.nextInt(30000))));
+        }
+        long offerNanos = System.nanoTime() - start;
+        // cancel：随机取消90%
+        Collections.shuffle(handles, random);
+        int cancels = (int) (operations * CANCEL_RATIO);
+        start = System.nanoTime();
+        for (int i = 0; i < cancels; i++) {
+            handles.get(i).cancel();
+        }
+        long cancelNanos = System.nanoTime() - start;
+        // reschedule：剩余的定时器中一半续期
+        int reschedules = (operations - cancels) / 2;
+        start = System.nanoTime();
+        for (int i = cancels; i < cancels + reschedules; i++) {
+            handles.get(i).reschedule(60000L, TimeUnit.MILLISECONDS);
+        }
+        long rescheduleNanos = System.nanoTime() - start;
+        LOGGER.info("round {} [{}] background={} offer: {} ns/op, cancel: {} ns/op, reschedule: {} ns/op, size={}",
+                round, name, background, offerNanos / operations, cancelNanos / Math.max(cancels, 1),
+                rescheduleNanos / Math.max(reschedules, 1), queue.size());
+        if (queue instanceof TimingWheelEngine) {
+            ((TimingWheelEngine) queue).shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package io.biteeniu.java.delay.queue.benchmark;
+
+import io.biteeniu.java.delay.queue.DelayMessage;
+import io.biteeniu.java.delay.queue.LongDelayMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 延迟消息比较开销基准测试：旧版（每次比较读取两次墙上时钟）vs 新版（直接比较预先计算的nanoTime到期时刻）
+ * 1. compare：随机两两比较，计算每次比较的平均耗时
+ * 2. heap：PriorityQueue（与DelayQueue底层相同的二叉堆）插入、弹出全部元素的耗时
+ * 3. 正确性：旧版把long型差值强转为int，延迟时间相差超过约24.8天后排序结果错误
+ * 运行方式：java -cp ... io.biteeniu.java.delay.queue.benchmark.DelayMessageCompareBenchmark [元素数量]
+ * @author luzhanghong
+ * @date 2026-10-18 11:30
+ */
+public class DelayMessageCompareBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(DelayMessageCompareBenchmark.class);
+    private final static int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        Random random = new Random(42);
+        Delayed[] legacy = new Delayed[size];
+        Delayed[] current = new Delayed[size];
+        Delayed[] primitive = new Delayed[size];
+        for (int i = 0; i < size; i++) {
+            long ttl = random.nextInt(3600000);
+            legacy[i] = new LegacyDelayMessage("m", ttl);
+            current[i] = new DelayMessage("m", ttl);
+            primitive[i] = new LongDelayMessage(i, ttl, TimeUnit.MILLISECONDS);
+        }
+        for (int round = 1; round <= ROUNDS; round++) {
+            LOGGER.info("round {}: legacy compare {} ns/op, heap {} ms", round, compare(legacy), heap(legacy));
+            LOGGER.info("round {}: DelayMessage compare {} ns/op, heap {} ms", round, compare(current), heap(current));
+            LOGGER.info("round {}: LongDelayMessage compare {} ns/op, heap {} ms", round, compare(primitive), heap(primitive));
+        }
+        // 正确性：0天 vs 30天
+        LegacyDelayMessage legacyNow = new LegacyDelayMessage("now", 0L);
+        LegacyDelayMessage legacyLater = new LegacyDelayMessage("later", TimeUnit.DAYS.toMillis(30));
+        DelayMessage now = new DelayMessage("now", 0L);
+        DelayMessage later = new DelayMessage("later", TimeUnit.DAYS.toMillis(30));
+        LOGGER.info("now.compareTo(now + 30 days): legacy={} (expected < 0), current={}",
+                legacyNow.compareTo(legacyLater), now.compareTo(later));
+    }
+
+    private static double compare(Delayed[] messages) {
+        int mask = Integer.highestOneBit(messages.length) - 1;
+        long sink = 0;
+        int operations = 10000000;
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            sink += messages[(i * 31) & mask].compareTo(messages[(i * 17 + 7) & mask]);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == Long.MIN_VALUE) {
+            LOGGER.debug("unreachable");
+        }
+        return (double) elapsed / operations;
+    }
+
+    private static long heap(Delayed[] messages) {
+        long start = System.nanoTime();
+        PriorityQueue<Delayed> queue = new PriorityQueue<>(messages.length);
+        for (Delayed message : messages) {
+            queue.offer(message);
+        }
+        while (queue.poll() != null) {
+            // 依次弹出
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * 旧版延迟消息的实现：到期时间基于System.currentTimeMillis()，compareTo中调用两次getDelay()
+     */
+    private static class LegacyDelayMessage implements Delayed {
+
+        private final String message;
+        private final long ttl;
+
+        LegacyDelayMessage(String message, long ttl) {
+            this.message = message;
+            this.ttl = System.currentTimeMillis() + ttl;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            long remaining = ttl - System.currentTimeMillis();
+            return unit.convert(remaining, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return (int) (this.getDelay(TimeUnit.MILLISECONDS) - o.getDelay(TimeUnit.MILLISECONDS));
+        }
+
+    }
+
+}
@@ -0,0 +1,109 @@
+package io.biteeniu.java.delay.queue.benchmark;
+
+import io.biteeniu.java.delay.queue.DelayMessage;
+import io.biteeniu.java.delay.queue.DelayQueueEngine;
+import io.biteeniu.java.delay.queue.JdkDelayQueueEngine;
+import io.biteeniu.java.delay.queue.wheel.TimingWheelEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 延迟队列基准测试：JDK DelayQueue vs 分层时间轮
+ * 对每种规模（默认1万、100万、1000万个未到期元素）分别测试：
+ * 1. fill：多个生产者线程并发写入N个随机延迟（1分钟~1小时）的元素的吞吐量
+ * 2. churn：在N个未到期元素的背景下，多个生产者写入立即到期的元素，一个消费者take()，测试端到端吞吐量
+ * 运行方式（1000万规模需要较大的堆）：
+ * java -Xmx8g -cp delay-queue-example-jar-with-dependencies.jar io.biteeniu.java.delay.queue.benchmark.DelayQueueBenchmark [规模列表] [生产者线程数]
+ * @author luzhanghong
+ * @date 2026-10-18 10:40
+ */
+public class DelayQueueBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(DelayQueueBenchmark.class);
+    private final static int CHURN_OPERATIONS = 1000000;
+
+    /**
+     * 基准测试入口
+     * @param args args[0]：规模列表，逗号分隔，默认10000,1000000,10000000；args[1]：生产者线程数，默认4
+     */
+    public static void main(String[] args) throws Exception {
+        String sizes = args.length > 0 ? args[0] : "10000,1000000,10000000";
+        int producers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        for (String size : sizes.split(",")) {
+            int pending = Integer.parseInt(size.trim());
+            run("DelayQueue", JdkDelayQueueEngine::new, pending, producers);
+            run("TimingWheel", TimingWheelEngine::new, pending, producers);
+        }
+    }
+
+    private static void run(String name, Supplier<DelayQueueEngine<DelayMessage>> factory,
+                            int pending, int producers) throws Exception {
+        System.gc();
+        DelayQueueEngine<DelayMessage> queue = factory.get();
+        // fill：写入N个长延迟的元素
+        long fillNanos = concurrently(producers, pending / producers, () -> {
+            long ttl = 60000L + ThreadLocalRandom.current().nextLong(3540000L);
+            queue.offer(new DelayMessage("fill", ttl));
+        });
+        long filled = (long) (pending / producers) * producers;
+        // churn：写入立即到期的元素，同时由一个消费者取出
+        int perProducer = CHURN_OPERATIONS / producers;
+        Thread consumer = new Thread(() -> {
+            try {
+                for (int i = 0; i < perProducer * producers; i++) {
+                    queue.take();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        long churnStart = System.nanoTime();
+        consumer.start();
+        concurrently(producers, perProducer, () -> queue.offer(new DelayMessage("churn", 0L)));
+        consumer.join();
+        long churnNanos = System.nanoTime() - churnStart;
+        LOGGER.info("[{}] pending={} producers={} fill: {} ns/op, {} ops/s; churn: {} ns/op, {} ops/s",
+                name, pending, producers,
+                fillNanos / Math.max(filled, 1), opsPerSecond(filled, fillNanos),
+                churnNanos / ((long) perProducer * producers), opsPerSecond((long) perProducer * producers, churnNanos));
+        if (queue instanceof TimingWheelEngine) {
+            ((TimingWheelEngine) queue).shutdown();
+        }
+    }
+
+    /**
+     * 启动多个线程，每个线程执行operations次操作
+     * @return 总耗时，单位纳秒
+     */
+    private static long concurrently(int threads, int operations, Runnable operation) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < operations; i++) {
+                        operation.run();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+
+    private static long opsPerSecond(long operations, long nanos) {
+        return nanos == 0 ? 0 : operations * 1000000000L / nanos;
+    }
+
+}
@@ -0,0 +1,112 @@
+package io.biteeniu.java.delay.queue.benchmark;
+
+import io.biteeniu.java.delay.queue.DelayMessage;
+import io.biteeniu.java.delay.queue.DelayQueueEngine;
+import io.biteeniu.java.delay.queue.JdkDelayQueueEngine;
+import io.biteeniu.java.delay.queue.OffHeapDelayQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * 堆外延迟队列基准测试：DelayQueue<DelayMessage> vs OffHeapDelayQueue
+ * 1. fill：写入N个长延迟（1小时~2小时）的条目，Full GC之后统计Java堆占用和直接内存占用
+ * 2. full gc：在N个未到期条目存活的情况下执行一次System.gc()，统计停顿时间
+ * 3. churn：在N个未到期条目的背景下写入并取出100万个立即到期的条目，统计期间GC的次数和累计耗时
+ * 每次只测试一种实现可以避免两者的堆相互影响，单次停顿的分布可以加上-Xlog:gc查看
+ * 运行方式（5000万规模）：
+ * java -Xmx24g -XX:MaxDirectMemorySize=16g -cp ... io.biteeniu.java.delay.queue.benchmark.OffHeapBenchmark 50000000 [DelayQueue|OffHeap]
+ * @author luzhanghong
+ * @date 2026-10-18 19:10
+ */
+public class OffHeapBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(OffHeapBenchmark.class);
+    private final static int CHURN_OPERATIONS = 1000000;
+    private final static String PAYLOAD = "{\"action\":\"close\",\"orderId\":";
+
+    /**
+     * 基准测试入口
+     * @param args args[0]：未到期条目数，默认1000000；args[1]：DelayQueue、OffHeap，默认两者都测试
+     */
+    public static void main(String[] args) throws Exception {
+        int pending = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        String target = args.length > 1 ? args[1] : "all";
+        if (!"OffHeap".equals(target)) {
+            run("DelayQueue", JdkDelayQueueEngine::new, pending);
+        }
+        if (!"DelayQueue".equals(target)) {
+            run("OffHeap", OffHeapDelayQueue::new, pending);
+        }
+    }
+
+    private static void run(String name, Supplier<DelayQueueEngine<DelayMessage>> factory, int pending) {
+        System.gc();
+        long baseHeap = usedHeap();
+        long baseDirect = usedDirect();
+        DelayQueueEngine<DelayMessage> queue = factory.get();
+        Random random = new Random(1);
+        long start = System.nanoTime();
+        for (int i = 0; i < pending; i++) {
+            queue.offer(new DelayMessage(PAYLOAD + i, 3600000L + random.nextInt(3600000)));
+        }
+        long fillNanos = System.nanoTime() - start;
+        // Full GC：N个条目存活时的停顿时间
+        start = System.nanoTime();
+        System.gc();
+        long fullGcMillis = (System.nanoTime() - start) / 1000000L;
+        long heapBytes = usedHeap() - baseHeap;
+        long directBytes = usedDirect() - baseDirect;
+        // churn：立即到期的条目写入后马上取出
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        start = System.nanoTime();
+        int taken = 0;
+        for (int i = 0; i < CHURN_OPERATIONS; i++) {
+            queue.offer(new DelayMessage(PAYLOAD, 0L));
+            if (queue.poll() != null) {
+                taken++;
+            }
+        }
+        long churnNanos = System.nanoTime() - start;
+        LOGGER.info("[{}] pending={} fill: {} ns/op, heap: {} MB ({} B/entry), direct: {} MB, full gc: {} ms, "
+                        + "churn: {} ns/op (taken {}), churn gc: {} collections, {} ms",
+                name, queue.size(), fillNanos / pending, heapBytes >> 20, heapBytes / pending, directBytes >> 20,
+                fullGcMillis, churnNanos / CHURN_OPERATIONS, taken, gcCount() - gcCount, gcMillis() - gcMillis);
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirect() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0L;
+    }
+
+    private static long gcCount() {
+        long count = 0L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(gc.getCollectionCount(), 0L);
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(gc.getCollectionTime(), 0L);
+        }
+        return millis;
+    }
+
+}
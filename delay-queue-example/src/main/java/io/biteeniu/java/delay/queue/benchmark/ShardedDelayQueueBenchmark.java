@@ -0,0 +1,83 @@
+package io.biteeniu.java.delay.queue.benchmark;
+
+import io.biteeniu.java.delay.queue.DelayMessage;
+import io.biteeniu.java.delay.queue.ShardedDelayQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分片延迟队列多生产者写入基准测试：分片数从1到64、生产者线程数从1到32两两组合，输出每种组合的写入吞吐量
+ * 分片数为1时等价于原来的单个DelayQueue
+ * 运行方式：java -Xmx4g -cp ... io.biteeniu.java.delay.queue.benchmark.ShardedDelayQueueBenchmark [每组写入总数]
+ * @author luzhanghong
+ * @date 2026-10-18 14:45
+ */
+public class ShardedDelayQueueBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ShardedDelayQueueBenchmark.class);
+    private final static int[] SHARD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    private final static int[] PRODUCER_COUNTS = {1, 2, 4, 8, 16, 32};
+    private final static int KEY_SPACE = 100000;
+
+    public static void main(String[] args) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        // 预热
+        run(4, 4, operations);
+        StringBuilder table = new StringBuilder("\nshards\\producers");
+        for (int producers : PRODUCER_COUNTS) {
+            table.append(String.format("%12d", producers));
+        }
+        for (int shards : SHARD_COUNTS) {
+            table.append(String.format("%n%16d", shards));
+            for (int producers : PRODUCER_COUNTS) {
+                table.append(String.format("%12d", run(shards, producers, operations)));
+            }
+        }
+        LOGGER.info("offer throughput (ops/s): {}", table);
+    }
+
+    /**
+     * @return 写入吞吐量，单位：次/秒
+     */
+    private static long run(int shardCount, int producers, int operations) throws InterruptedException {
+        ShardedDelayQueue queue = new ShardedDelayQueue(shardCount);
+        int perProducer = operations / producers;
+        // 预先生成消息，避免把对象创建的开销计入写入吞吐量
+        DelayMessage[][] messages = new DelayMessage[producers][perProducer];
+        for (int p = 0; p < producers; p++) {
+            for (int i = 0; i < perProducer; i++) {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                messages[p][i] = new DelayMessage("key-" + random.nextInt(KEY_SPACE), "m",
+                        60000L + random.nextInt(3540000), TimeUnit.MILLISECONDS);
+            }
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            DelayMessage[] batch = messages[p];
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (DelayMessage message : batch) {
+                        queue.offer(message);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        System.gc();
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        return (long) perProducer * producers * 1000000000L / Math.max(elapsed, 1L);
+    }
+
+}
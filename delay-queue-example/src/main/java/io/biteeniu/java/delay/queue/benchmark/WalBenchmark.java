@@ -0,0 +1,89 @@
+package io.biteeniu.java.delay.queue.benchmark;
+
+import io.biteeniu.java.delay.queue.DelayMessage;
+import io.biteeniu.java.delay.queue.DurableDelayQueue;
+import io.biteeniu.java.delay.queue.wal.WalConfig;
+import io.biteeniu.java.delay.queue.wal.WalEntry;
+import io.biteeniu.java.delay.queue.wal.WriteAheadLog;
+import io.biteeniu.java.delay.queue.wheel.TimingWheelEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * 预写日志基准测试
+ * 1. append：直接向WriteAheadLog追加N条OFFER记录，后台每10毫秒刷盘一次，统计持续写入吞吐量
+ * 2. offer：通过DurableDelayQueue写入N条长延迟消息（包含入队时间轮的开销），随后生成快照
+ * 3. recovery：关闭后重新打开同一个目录，统计从快照和日志恢复N条未完成消息的耗时
+ * 运行方式（1000万规模需要较大的堆）：
+ * java -Xmx8g -cp ... io.biteeniu.java.delay.queue.benchmark.WalBenchmark [消息数] [日志目录]
+ * @author luzhanghong
+ * @date 2026-10-18 17:30
+ */
+public class WalBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(WalBenchmark.class);
+    private final static String PAYLOAD = "{\"orderId\":\"20181018000000001\",\"action\":\"close\",\"reason\":\"payment timeout\"}";
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        File directory = args.length > 1 ? new File(args[1]) : Files.createTempDirectory("delay-queue-wal").toFile();
+        benchmarkAppend(new File(directory, "append"), count);
+        benchmarkRecovery(new File(directory, "queue"), count);
+    }
+
+    private static void benchmarkAppend(File directory, int count) throws Exception {
+        WriteAheadLog wal = new WriteAheadLog(directory, 64 * 1024 * 1024);
+        Thread flusher = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                wal.flush();
+                try {
+                    Thread.sleep(10L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        flusher.setDaemon(true);
+        flusher.start();
+        long deadline = System.currentTimeMillis() + 3600000L;
+        long start = System.nanoTime();
+        for (int i = 1; i <= count; i++) {
+            wal.append(WriteAheadLog.OFFER, new WalEntry(i, deadline, null, PAYLOAD));
+        }
+        wal.flush();
+        long elapsed = System.nanoTime() - start;
+        flusher.interrupt();
+        wal.close();
+        LOGGER.info("[append] {} records, {} MB, {} records/s", count, wal.getWrittenLsn() >> 20,
+                count * 1000000000L / Math.max(elapsed, 1L));
+    }
+
+    private static void benchmarkRecovery(File directory, int count) throws Exception {
+        WalConfig config = new WalConfig(directory);
+        TimingWheelEngine<DelayMessage> engine = new TimingWheelEngine<>();
+        DurableDelayQueue queue = new DurableDelayQueue(engine, config);
+        Random random = new Random(1);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            queue.offer(new DelayMessage(PAYLOAD, 3600000L + random.nextInt(3600000)));
+        }
+        long elapsed = System.nanoTime() - start;
+        LOGGER.info("[offer] {} messages, {} messages/s", count, count * 1000000000L / Math.max(elapsed, 1L));
+        queue.close();
+        engine.shutdown();
+
+        System.gc();
+        engine = new TimingWheelEngine<>();
+        start = System.nanoTime();
+        queue = new DurableDelayQueue(engine, config);
+        elapsed = System.nanoTime() - start;
+        LOGGER.info("[recovery] {} pending messages recovered in {} ms", queue.pendingSize(), elapsed / 1000000L);
+        queue.close();
+        engine.shutdown();
+    }
+
+}
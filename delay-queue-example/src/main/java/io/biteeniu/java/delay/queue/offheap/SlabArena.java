@@ -0,0 +1,122 @@
+package io.biteeniu.java.delay.queue.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 堆外slab内存分配器：在若干个固定大小的直接内存块（direct ByteBuffer）上按2的幂次分级分配
+ * 1. 分配大小向上取整到16字节~1MB之间的某个级别，释放的空间放回该级别的空闲链表（long数组实现的栈），下次同级别分配优先复用
+ * 2. 地址为long：高32位是内存块序号，低32位是块内偏移，不产生任何堆对象
+ * 3. 不是线程安全的，由调用方加锁
+ * @author luzhanghong
+ * @date 2026-10-18 18:05
+ */
+public class SlabArena {
+
+    private static final int MIN_SHIFT = 4;    // 最小分配级别：16字节
+    private static final int MAX_SHIFT = 20;   // 最大分配级别：1MB
+    public static final int MAX_ALLOCATION = 1 << MAX_SHIFT;
+
+    private final int chunkSize;
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    private int position;                      // 当前内存块中尚未分配的起始偏移
+    private final long[][] freeLists = new long[MAX_SHIFT - MIN_SHIFT + 1][];
+    private final int[] freeCounts = new int[MAX_SHIFT - MIN_SHIFT + 1];
+    private long allocatedBytes;               // 已分配（包含级别取整）的字节数
+
+    /**
+     * 构造函数
+     * @param chunkSize 每个直接内存块的大小，不能小于MAX_ALLOCATION
+     */
+    public SlabArena(int chunkSize) {
+        if (chunkSize < MAX_ALLOCATION) {
+            throw new IllegalArgumentException("chunkSize must be at least " + MAX_ALLOCATION);
+        }
+        this.chunkSize = chunkSize;
+        for (int i = 0; i < freeLists.length; i++) {
+            freeLists[i] = new long[16];
+        }
+    }
+
+    /**
+     * 分配一段内存并写入数据
+     * @param data 数据
+     * @return 地址
+     */
+    public long store(byte[] data) {
+        if (data.length > MAX_ALLOCATION) {
+            throw new IllegalArgumentException("Off-heap allocation of " + data.length + " bytes exceeds " + MAX_ALLOCATION);
+        }
+        int sizeClass = sizeClassOf(data.length);
+        long address = allocate(sizeClass);
+        ByteBuffer chunk = chunks[(int) (address >>> 32)].duplicate();
+        chunk.position((int) address);
+        chunk.put(data);
+        allocatedBytes += 1 << (sizeClass + MIN_SHIFT);
+        return address;
+    }
+
+    /**
+     * 读取一段内存
+     * @param address 地址
+     * @param length 数据长度
+     * @return 数据
+     */
+    public byte[] load(long address, int length) {
+        byte[] data = new byte[length];
+        ByteBuffer chunk = chunks[(int) (address >>> 32)].duplicate();
+        chunk.position((int) address);
+        chunk.get(data);
+        return data;
+    }
+
+    /**
+     * 释放一段内存
+     * @param address 地址
+     * @param length 分配时的数据长度
+     */
+    public void free(long address, int length) {
+        int sizeClass = sizeClassOf(length);
+        long[] freeList = freeLists[sizeClass];
+        if (freeCounts[sizeClass] == freeList.length) {
+            freeList = freeLists[sizeClass] = Arrays.copyOf(freeList, freeList.length << 1);
+        }
+        freeList[freeCounts[sizeClass]++] = address;
+        allocatedBytes -= 1 << (sizeClass + MIN_SHIFT);
+    }
+
+    /**
+     * @return 已分配的字节数
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return 已经申请的直接内存字节数
+     */
+    public long getReservedBytes() {
+        return (long) chunks.length * chunkSize;
+    }
+
+    private long allocate(int sizeClass) {
+        if (freeCounts[sizeClass] > 0) {
+            return freeLists[sizeClass][--freeCounts[sizeClass]];
+        }
+        int size = 1 << (sizeClass + MIN_SHIFT);
+        if (chunks.length == 0 || position + size > chunkSize) {
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunks[chunks.length - 1] = ByteBuffer.allocateDirect(chunkSize);
+            position = 0;
+        }
+        long address = ((long) (chunks.length - 1) << 32) | position;
+        position += size;
+        return address;
+    }
+
+    private static int sizeClassOf(int length) {
+        int shift = 32 - Integer.numberOfLeadingZeros(Math.max(length, 1) - 1);
+        return Math.max(shift, MIN_SHIFT) - MIN_SHIFT;
+    }
+
+}
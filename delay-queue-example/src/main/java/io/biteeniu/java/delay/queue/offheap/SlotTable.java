@@ -0,0 +1,113 @@
+package io.biteeniu.java.delay.queue.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 堆外槽位表：每个未到期的延迟条目占用一个定长槽位，槽位保存在直接内存块中，按槽位号（int）寻址
+ * 槽位布局（32字节）：[long 消息ID][long 数据地址][int 数据长度][int 在堆数组中的下标][int 代数][int 保留]
+ * 槽位被释放时代数加1，旧句柄持有的代数与槽位不一致即说明条目已经到期、取消或者槽位被复用
+ * 不是线程安全的，由调用方加锁
+ * @author luzhanghong
+ * @date 2026-10-18 18:20
+ */
+public class SlotTable {
+
+    private static final int SLOT_BYTES = 32;
+    private static final int ID_OFFSET = 0;
+    private static final int ADDRESS_OFFSET = 8;
+    private static final int LENGTH_OFFSET = 16;
+    private static final int INDEX_OFFSET = 20;
+    private static final int GENERATION_OFFSET = 24;
+    private static final int CHUNK_SHIFT = 20;  // 每个内存块2^20个槽位，即32MB
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    private int highWater;                     // 已经使用过的最大槽位号+1
+    private int[] freeSlots = new int[16];     // 已释放的槽位号
+    private int freeCount;
+
+    /**
+     * 分配一个槽位，代数保持不变
+     * @return 槽位号
+     */
+    public int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if ((highWater >>> CHUNK_SHIFT) == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunks[chunks.length - 1] = ByteBuffer.allocateDirect(SLOT_BYTES << CHUNK_SHIFT);
+        }
+        return highWater++;
+    }
+
+    /**
+     * 释放槽位：代数加1，使所有指向该槽位的旧句柄失效
+     * @param slot 槽位号
+     */
+    public void release(int slot) {
+        setInt(slot, GENERATION_OFFSET, getGeneration(slot) + 1);
+        setInt(slot, INDEX_OFFSET, -1);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length << 1);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    public long getId(int slot) {
+        return chunkOf(slot).getLong(offsetOf(slot) + ID_OFFSET);
+    }
+
+    public void setId(int slot, long id) {
+        chunkOf(slot).putLong(offsetOf(slot) + ID_OFFSET, id);
+    }
+
+    public long getAddress(int slot) {
+        return chunkOf(slot).getLong(offsetOf(slot) + ADDRESS_OFFSET);
+    }
+
+    public void setAddress(int slot, long address) {
+        chunkOf(slot).putLong(offsetOf(slot) + ADDRESS_OFFSET, address);
+    }
+
+    public int getLength(int slot) {
+        return chunkOf(slot).getInt(offsetOf(slot) + LENGTH_OFFSET);
+    }
+
+    public void setLength(int slot, int length) {
+        setInt(slot, LENGTH_OFFSET, length);
+    }
+
+    public int getIndex(int slot) {
+        return chunkOf(slot).getInt(offsetOf(slot) + INDEX_OFFSET);
+    }
+
+    public void setIndex(int slot, int index) {
+        setInt(slot, INDEX_OFFSET, index);
+    }
+
+    public int getGeneration(int slot) {
+        return chunkOf(slot).getInt(offsetOf(slot) + GENERATION_OFFSET);
+    }
+
+    /**
+     * @return 已经申请的直接内存字节数
+     */
+    public long getReservedBytes() {
+        return (long) chunks.length * (SLOT_BYTES << CHUNK_SHIFT);
+    }
+
+    private void setInt(int slot, int field, int value) {
+        chunkOf(slot).putInt(offsetOf(slot) + field, value);
+    }
+
+    private ByteBuffer chunkOf(int slot) {
+        return chunks[slot >>> CHUNK_SHIFT];
+    }
+
+    private static int offsetOf(int slot) {
+        return (slot & CHUNK_MASK) * SLOT_BYTES;
+    }
+
+}
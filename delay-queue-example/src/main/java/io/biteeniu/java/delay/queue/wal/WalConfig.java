@@ -0,0 +1,71 @@
+package io.biteeniu.java.delay.queue.wal;
+
+import java.io.File;
+
+/**
+ * 预写日志配置
+ * @author luzhanghong
+ * @date 2026-10-18 16:12
+ */
+public class WalConfig {
+
+    private File directory;                             // 日志和快照文件所在目录
+    private int segmentSize = 64 * 1024 * 1024;         // 每个日志段文件的大小：64MB
+    private long fsyncIntervalMs = 10L;                 // 刷盘（force）间隔，单位毫秒
+    private boolean syncWrites = false;                 // true-offer/cancel/ack等待刷盘完成后才返回（组提交）
+    private long snapshotLogBytes = 256L * 1024 * 1024; // 距离上次快照写入的日志超过该字节数时生成新的快照
+    private long snapshotCheckIntervalMs = 1000L;       // 检查是否需要生成快照的间隔，单位毫秒
+
+    public WalConfig(File directory) {
+        this.directory = directory;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(File directory) {
+        this.directory = directory;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public long getFsyncIntervalMs() {
+        return fsyncIntervalMs;
+    }
+
+    public void setFsyncIntervalMs(long fsyncIntervalMs) {
+        this.fsyncIntervalMs = fsyncIntervalMs;
+    }
+
+    public boolean isSyncWrites() {
+        return syncWrites;
+    }
+
+    public void setSyncWrites(boolean syncWrites) {
+        this.syncWrites = syncWrites;
+    }
+
+    public long getSnapshotLogBytes() {
+        return snapshotLogBytes;
+    }
+
+    public void setSnapshotLogBytes(long snapshotLogBytes) {
+        this.snapshotLogBytes = snapshotLogBytes;
+    }
+
+    public long getSnapshotCheckIntervalMs() {
+        return snapshotCheckIntervalMs;
+    }
+
+    public void setSnapshotCheckIntervalMs(long snapshotCheckIntervalMs) {
+        this.snapshotCheckIntervalMs = snapshotCheckIntervalMs;
+    }
+
+}
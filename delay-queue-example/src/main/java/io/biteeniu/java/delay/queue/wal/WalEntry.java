@@ -0,0 +1,39 @@
+package io.biteeniu.java.delay.queue.wal;
+
+/**
+ * 预写日志中的一条延迟消息记录
+ * 到期时刻使用墙上时钟（epoch毫秒）：nanoTime的起点在JVM重启后会变化，只有墙上时钟能跨进程使用
+ * @author luzhanghong
+ * @date 2026-10-18 16:10
+ */
+public final class WalEntry {
+
+    private final long id;            // 消息ID
+    private final long deadline;      // 到期时刻：epoch毫秒
+    private final String key;         // 消息的键，可以为null
+    private final String message;     // 消息数据，可以为null
+
+    public WalEntry(long id, long deadline, String key, String message) {
+        this.id = id;
+        this.deadline = deadline;
+        this.key = key;
+        this.message = message;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+}
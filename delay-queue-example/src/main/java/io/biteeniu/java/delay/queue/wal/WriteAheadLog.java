@@ -0,0 +1,299 @@
+package io.biteeniu.java.delay.queue.wal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 分段的内存映射（MappedByteBuffer）预写日志
+ * 1. 日志由多个固定大小的段文件组成，文件名为该段的起始LSN（日志序号，即全局字节偏移）
+ * 2. 每条记录的格式：[int 记录体长度][int 记录体CRC32][byte 类型][long 消息ID][OFFER：long 到期时刻、key、message]
+ * 3. 追加只是内存拷贝；刷盘（force）由外部按固定间隔调用，等待刷盘的写入者共享同一次force（组提交）
+ * 4. 记录体长度为0或者CRC校验失败即视为日志末尾（新段文件初始全为0，崩溃时写了一半的记录被丢弃）
+ * @author luzhanghong
+ * @date 2026-10-18 16:20
+ */
+public class WriteAheadLog implements Closeable {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(WriteAheadLog.class);
+    public static final byte OFFER = 1;   // 写入消息
+    public static final byte CANCEL = 2;  // 取消消息
+    public static final byte ACK = 3;     // 消息已被消费者确认
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final int HEADER_SIZE = 8;
+
+    private final File directory;
+    private final int segmentSize;
+    private final CRC32 crc32 = new CRC32();
+    private final Object durableMonitor = new Object();
+    private MappedByteBuffer current;    // 当前正在写入的段
+    private long currentBase;            // 当前段的起始LSN
+    private volatile long writtenLsn;    // 已经写入（内存）的LSN
+    private volatile long durableLsn;    // 已经刷盘的LSN
+
+    /**
+     * 打开预写日志：总是在已有段之后创建一个新段开始写入，已有的段只用于恢复
+     * @param directory 日志目录
+     * @param segmentSize 每个段文件的大小
+     * @throws IOException 创建段文件失败
+     */
+    public WriteAheadLog(File directory, int segmentSize) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can not create wal directory: " + directory);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        List<Long> segments = listSegments(directory);
+        long base = 0L;
+        if (!segments.isEmpty()) {
+            long last = segments.get(segments.size() - 1);
+            base = last + Math.max(segmentSize, new File(directory, segmentName(last)).length());
+        }
+        openSegment(base);
+        this.writtenLsn = base;
+        this.durableLsn = base;
+    }
+
+    /**
+     * 追加一条日志记录
+     * @param type 记录类型：OFFER、CANCEL、ACK
+     * @param entry 消息：CANCEL、ACK只记录消息ID
+     * @return 该记录结束位置的LSN，可以传给awaitDurable()等待其刷盘
+     * @throws IOException 记录超过段大小或者创建新段失败
+     */
+    public synchronized long append(byte type, WalEntry entry) throws IOException {
+        byte[] key = type == OFFER ? bytesOf(entry.getKey()) : null;
+        byte[] message = type == OFFER ? bytesOf(entry.getMessage()) : null;
+        int bodySize = 1 + 8 + (type == OFFER ? 8 + 4 + lengthOf(key) + 4 + lengthOf(message) : 0);
+        int recordSize = HEADER_SIZE + bodySize;
+        if (recordSize + HEADER_SIZE > segmentSize) {
+            throw new IOException("Wal record of " + recordSize + " bytes exceeds segment size " + segmentSize);
+        }
+        if (current.remaining() < recordSize + HEADER_SIZE) {
+            // 保证段末尾至少留下一个记录头的空间，读取时遇到长度0即为段结束
+            roll();
+        }
+        int start = current.position();
+        current.position(start + HEADER_SIZE);
+        current.put(type).putLong(entry.getId());
+        if (type == OFFER) {
+            current.putLong(entry.getDeadline());
+            putBytes(current, key);
+            putBytes(current, message);
+        }
+        ByteBuffer body = current.duplicate();
+        body.position(start + HEADER_SIZE);
+        body.limit(start + recordSize);
+        crc32.reset();
+        crc32.update(body);
+        current.putInt(start + 4, (int) crc32.getValue());
+        current.putInt(start, bodySize);
+        writtenLsn = currentBase + current.position();
+        return writtenLsn;
+    }
+
+    /**
+     * 结束当前段并创建新段
+     * @return 新段的起始LSN：在此之前写入的所有记录都位于更早的段中
+     * @throws IOException 创建新段失败
+     */
+    public synchronized long roll() throws IOException {
+        current.force();
+        markDurable(writtenLsn);
+        openSegment(currentBase + segmentSize);
+        writtenLsn = currentBase;
+        return currentBase;
+    }
+
+    /**
+     * 将当前段已经写入的内容刷盘，并唤醒所有等待该位置之前记录刷盘的写入者
+     */
+    public void flush() {
+        MappedByteBuffer buffer;
+        long lsn;
+        synchronized (this) {
+            buffer = current;
+            lsn = writtenLsn;
+        }
+        if (lsn > durableLsn) {
+            buffer.force();
+            markDurable(lsn);
+        }
+    }
+
+    /**
+     * 等待指定LSN之前的记录刷盘
+     * @param lsn LSN
+     * @throws InterruptedException 等待过程中线程被中断
+     */
+    public void awaitDurable(long lsn) throws InterruptedException {
+        synchronized (durableMonitor) {
+            while (durableLsn < lsn) {
+                durableMonitor.wait();
+            }
+        }
+    }
+
+    /**
+     * 删除所有完全位于指定LSN之前的段（在快照生成之后调用，即日志压缩）
+     * @param lsn 快照对应的LSN
+     */
+    public void deleteSegmentsBefore(long lsn) {
+        for (long base : listSegments(directory)) {
+            File file = new File(directory, segmentName(base));
+            if (base + file.length() <= lsn && base < currentBase && !file.delete()) {
+                LOGGER.warn("Delete wal segment {} failed.", file);
+            }
+        }
+    }
+
+    /**
+     * @return 已经写入的LSN
+     */
+    public long getWrittenLsn() {
+        return writtenLsn;
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * 从指定LSN开始按顺序读取日志记录
+     * @param directory 日志目录
+     * @param fromLsn 起始LSN（通常是快照对应的LSN），位于该LSN之前的段被跳过
+     * @param handler 记录处理器
+     * @return 读取的记录数
+     * @throws IOException 读取段文件失败
+     */
+    public static long replay(File directory, long fromLsn, RecordHandler handler) throws IOException {
+        long records = 0;
+        for (long base : listSegments(directory)) {
+            File file = new File(directory, segmentName(base));
+            if (base + file.length() <= fromLsn) {
+                continue;
+            }
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                buffer.position((int) Math.max(fromLsn - base, 0L));
+                CRC32 crc32 = new CRC32();
+                while (buffer.remaining() >= HEADER_SIZE) {
+                    int start = buffer.position();
+                    int bodySize = buffer.getInt();
+                    int checksum = buffer.getInt();
+                    if (bodySize <= 0 || bodySize > buffer.remaining()) {
+                        break;
+                    }
+                    ByteBuffer body = buffer.duplicate();
+                    body.limit(start + HEADER_SIZE + bodySize);
+                    crc32.reset();
+                    crc32.update(body);
+                    if ((int) crc32.getValue() != checksum) {
+                        LOGGER.warn("Wal segment {} has a torn record at offset {}, ignore the rest.", file, start);
+                        break;
+                    }
+                    byte type = buffer.get();
+                    long id = buffer.getLong();
+                    if (type == OFFER) {
+                        long deadline = buffer.getLong();
+                        String key = getString(buffer);
+                        String message = getString(buffer);
+                        handler.onRecord(type, new WalEntry(id, deadline, key, message));
+                    } else {
+                        handler.onRecord(type, new WalEntry(id, 0L, null, null));
+                    }
+                    records++;
+                }
+            }
+        }
+        return records;
+    }
+
+    private void openSegment(long base) throws IOException {
+        File file = new File(directory, segmentName(base));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            current = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        currentBase = base;
+    }
+
+    private void markDurable(long lsn) {
+        synchronized (durableMonitor) {
+            if (lsn > durableLsn) {
+                durableLsn = lsn;
+                durableMonitor.notifyAll();
+            }
+        }
+    }
+
+    private static List<Long> listSegments(File directory) {
+        List<Long> segments = new ArrayList<>();
+        String[] names = directory.list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.endsWith(SEGMENT_SUFFIX)) {
+                    segments.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                }
+            }
+        }
+        segments.sort(Long::compare);
+        return segments;
+    }
+
+    private static String segmentName(long base) {
+        return String.format("%020d%s", base, SEGMENT_SUFFIX);
+    }
+
+    static byte[] bytesOf(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int lengthOf(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 日志记录处理器
+     */
+    public interface RecordHandler {
+
+        /**
+         * @param type 记录类型：OFFER、CANCEL、ACK
+         * @param entry 消息：CANCEL、ACK只有消息ID
+         */
+        void onRecord(byte type, WalEntry entry);
+
+    }
+
+}
@@ -0,0 +1,91 @@
+package io.biteeniu.java.delay.queue.wheel;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 时间轮中的时间格：一个带哨兵节点的双向循环链表，存放过期时间落在同一个tick内的所有条目
+ * 时间格本身实现了Delayed接口，只有时间格（而不是每个条目）会进入DelayQueue，因此DelayQueue的大小受限于时间格的总数
+ * @author luzhanghong
+ * @date 2026-10-18 09:41
+ */
+final class TimerBucket<E extends Delayed> implements Delayed {
+
+    private final long originNanos;                                // 时间轮的启动时刻
+    private final TimerEntry<E> root = new TimerEntry<>(null, null, -1L);  // 哨兵节点
+    private final AtomicLong expiration = new AtomicLong(-1L);     // 时间格的过期时间，-1表示时间格为空
+
+    TimerBucket(long originNanos) {
+        this.originNanos = originNanos;
+        root.next = root;
+        root.prev = root;
+    }
+
+    /**
+     * 设置时间格的过期时间
+     * @param expiration 过期时间
+     * @return true-过期时间发生了变化，调用方需要将时间格重新放入DelayQueue
+     */
+    boolean setExpiration(long expiration) {
+        return this.expiration.getAndSet(expiration) != expiration;
+    }
+
+    long getExpiration() {
+        return expiration.get();
+    }
+
+    /**
+     * 将条目追加到链表尾部
+     * @param entry 定时条目
+     */
+    synchronized void add(TimerEntry<E> entry) {
+        TimerEntry<E> tail = root.prev;
+        entry.next = root;
+        entry.prev = tail;
+        entry.bucket = this;
+        tail.next = entry;
+        root.prev = entry;
+    }
+
+    /**
+     * 将条目从链表中摘除
+     * @param entry 定时条目
+     */
+    synchronized void remove(TimerEntry<E> entry) {
+        if (entry.bucket == this) {
+            entry.next.prev = entry.prev;
+            entry.prev.next = entry.next;
+            entry.next = null;
+            entry.prev = null;
+            entry.bucket = null;
+        }
+    }
+
+    /**
+     * 清空时间格：把所有条目依次摘除并交给回调处理（重新插入低层时间轮或者直接过期）
+     * @param action 回调
+     */
+    synchronized void flush(Consumer<TimerEntry<E>> action) {
+        TimerEntry<E> head = root.next;
+        while (head != root) {
+            remove(head);
+            action.accept(head);
+            head = root.next;
+        }
+        expiration.set(-1L);
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - originNanos);
+        return unit.convert(Math.max(getExpiration() - elapsed, 0L), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed o) {
+        return Long.compare(getExpiration(), ((TimerBucket) o).getExpiration());
+    }
+
+}
@@ -0,0 +1,111 @@
+package io.biteeniu.java.delay.queue.wheel;
+
+import io.biteeniu.java.delay.queue.AbstractDelayHandle;
+import io.biteeniu.java.delay.queue.DeadlineDelayed;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * 时间轮中的定时条目：双向链表节点，挂在某个时间格（TimerBucket）上，因此插入、取消和重新调度都是O(1)
+ * @author luzhanghong
+ * @date 2026-10-18 09:35
+ */
+public final class TimerEntry<E extends Delayed> extends AbstractDelayHandle<E> {
+
+    private static final int PENDING = 0;    // 等待过期
+    private static final int EXPIRED = 1;    // 已经过期，已交给消费者
+    private static final int CANCELLED = 2;  // 已经被取消
+    private static final int RESCHEDULING = 3;  // 正在重新调度
+    private static final AtomicIntegerFieldUpdater<TimerEntry> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(TimerEntry.class, "state");
+
+    final TimingWheelEngine<E> engine;  // 条目所属的时间轮延迟队列
+    final E element;                    // 延迟元素
+    volatile long expiration;           // 过期时间：相对于时间轮启动时刻的毫秒数，重新调度时由调用线程修改、推进线程读取
+    volatile TimerBucket<E> bucket;     // 条目当前所在的时间格
+    TimerEntry<E> prev;
+    TimerEntry<E> next;
+    private volatile int state = PENDING;
+
+    TimerEntry(TimingWheelEngine<E> engine, E element, long expiration) {
+        this.engine = engine;
+        this.element = element;
+        this.expiration = expiration;
+    }
+
+    /**
+     * 取消该定时条目：直接从所在时间格的链表中摘除，时间复杂度O(1)
+     * @return true-取消成功；false-条目已经过期或者已经被取消
+     */
+    @Override
+    public synchronized boolean cancel() {
+        if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+            return false;
+        }
+        remove();
+        engine.onCancelled();
+        return true;
+    }
+
+    /**
+     * 重新调度该定时条目：从原时间格中摘除，按新的过期时间重新放入时间轮，时间复杂度O(1)
+     * 如果元素是DeadlineDelayed，同时更新元素自身的到期时刻
+     * @param delay 新的延迟时间
+     * @param unit 延迟时间的单位
+     * @return true-重新调度成功；false-条目已经过期或者已经被取消
+     */
+    @Override
+    public synchronized boolean reschedule(long delay, TimeUnit unit) {
+        if (!STATE.compareAndSet(this, PENDING, RESCHEDULING)) {
+            return false;
+        }
+        // 时间轮按条目的过期时间而不是元素的到期时刻排序，处于RESCHEDULING状态的条目也不会被过期，可以先更新元素
+        long deadline = DeadlineDelayed.deadlineOf(unit.toNanos(delay));
+        resetDeadline(element, deadline);
+        engine.reschedule(this, deadline);
+        return true;
+    }
+
+    @Override
+    public E getElement() {
+        return element;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    boolean isPending() {
+        return state == PENDING;
+    }
+
+    /**
+     * 重新调度结束：把条目从RESCHEDULING状态恢复为等待过期，只能由TimingWheelEngine.reschedule()在写锁下调用
+     */
+    void rearm() {
+        state = PENDING;
+    }
+
+    /**
+     * 将条目标记为已过期，与cancel()竞争，只有一方能成功
+     * @return true-标记成功
+     */
+    boolean markExpired() {
+        return STATE.compareAndSet(this, PENDING, EXPIRED);
+    }
+
+    /**
+     * 将条目从所在的时间格中摘除：时间格在推进过程中可能发生变化，所以需要循环直到条目不在任何时间格中
+     */
+    void remove() {
+        TimerBucket<E> current = bucket;
+        while (current != null) {
+            current.remove(this);
+            current = bucket;
+        }
+    }
+
+}
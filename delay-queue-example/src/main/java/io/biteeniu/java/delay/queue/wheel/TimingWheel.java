@@ -0,0 +1,92 @@
+package io.biteeniu.java.delay.queue.wheel;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+
+/**
+ * 分层时间轮中的一层：wheelSize个时间格，每格跨度为tickMs
+ * 超出本层范围（tickMs * wheelSize）的条目交给上一层的溢出时间轮（overflow wheel），溢出时间轮的tick等于本层的总跨度
+ * 注意：add()在读锁下并发调用，advanceClock()在写锁下调用，由TimingWheelEngine负责加锁
+ * @author luzhanghong
+ * @date 2026-10-18 09:52
+ */
+final class TimingWheel<E extends Delayed> {
+
+    private final long tickMs;       // 每个时间格的跨度，单位毫秒
+    private final int wheelSize;     // 时间格的数量
+    private final long interval;     // 本层时间轮的总跨度
+    private final long originNanos;  // 时间轮的启动时刻
+    private final TimerBucket<E>[] buckets;
+    private final DelayQueue<TimerBucket<E>> bucketQueue;  // 所有层共享的时间格延迟队列
+    private long currentTime;        // 当前时间，向下取整为tickMs的整数倍
+    private volatile TimingWheel<E> overflowWheel;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMs, int wheelSize, long startMs, long originNanos, DelayQueue<TimerBucket<E>> bucketQueue) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.interval = tickMs * wheelSize;
+        this.originNanos = originNanos;
+        this.bucketQueue = bucketQueue;
+        this.currentTime = startMs - (startMs % tickMs);
+        this.buckets = new TimerBucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new TimerBucket<>(originNanos);
+        }
+    }
+
+    /**
+     * 将条目放入时间轮
+     * @param entry 定时条目
+     * @return true-放入成功；false-条目已经到期，应当直接交给消费者
+     */
+    boolean add(TimerEntry<E> entry) {
+        long expiration = entry.expiration;
+        if (expiration < currentTime + tickMs) {
+            // 已经落在当前tick内：到期（过期时间是最底层tick的整数倍，此时不晚于当前时间，见TimingWheelEngine.expirationOf）
+            return false;
+        } else if (expiration < currentTime + interval) {
+            // 落在本层范围内：放入对应的时间格
+            long virtualId = expiration / tickMs;
+            TimerBucket<E> bucket = buckets[(int) (virtualId % wheelSize)];
+            bucket.add(entry);
+            // 时间格的过期时间发生变化（时间格被复用于新一轮），需要重新放入延迟队列
+            if (bucket.setExpiration(virtualId * tickMs)) {
+                bucketQueue.offer(bucket);
+            }
+            return true;
+        } else {
+            // 超出本层范围：交给溢出时间轮
+            return getOverflowWheel().add(entry);
+        }
+    }
+
+    /**
+     * 推进时间轮的当前时间，并级联推进溢出时间轮
+     * @param timeMs 新的当前时间
+     */
+    void advanceClock(long timeMs) {
+        if (timeMs >= currentTime + tickMs) {
+            currentTime = timeMs - (timeMs % tickMs);
+            TimingWheel<E> overflow = overflowWheel;
+            if (overflow != null) {
+                overflow.advanceClock(currentTime);
+            }
+        }
+    }
+
+    private TimingWheel<E> getOverflowWheel() {
+        TimingWheel<E> overflow = overflowWheel;
+        if (overflow == null) {
+            synchronized (this) {
+                overflow = overflowWheel;
+                if (overflow == null) {
+                    overflow = new TimingWheel<>(interval, wheelSize, currentTime, originNanos, bucketQueue);
+                    overflowWheel = overflow;
+                }
+            }
+        }
+        return overflow;
+    }
+
+}
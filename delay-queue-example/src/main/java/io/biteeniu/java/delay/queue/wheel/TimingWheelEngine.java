@@ -0,0 +1,198 @@
+package io.biteeniu.java.delay.queue.wheel;
+
+import io.biteeniu.java.delay.queue.DeadlineDelayed;
+import io.biteeniu.java.delay.queue.DelayQueueEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 基于分层哈希时间轮（Hierarchical Hashed Timing Wheel）的延迟队列实现
+ * 1. 插入：根据过期时间直接定位到某一层的某个时间格，挂到链表尾部，O(1)
+ * 2. 取消：直接从时间格的链表中摘除，O(1)
+ * 3. 推进：只有时间格（而不是每个条目）进入DelayQueue，由一个后台收割线程等待最早到期的时间格，
+ *    到期后把时间格中的条目重新插入低层时间轮，或者放入已过期队列供消费者take()
+ * 插入在读锁下进行，多个生产者之间只在同一个时间格上竞争；推进在写锁下进行
+ * @author luzhanghong
+ * @date 2026-10-18 10:05
+ */
+public class TimingWheelEngine<E extends Delayed> implements DelayQueueEngine<E> {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(TimingWheelEngine.class);
+    private final static AtomicInteger ENGINE_NUMBER = new AtomicInteger(1);
+    public final static long DEFAULT_TICK_MS = 1L;     // 默认tick：1毫秒
+    public final static int DEFAULT_WHEEL_SIZE = 64;   // 默认每层64个时间格：各层跨度依次为64ms、4.1s、4.4min、4.7h ...
+
+    private final long tickMs;
+    private final long originNanos = System.nanoTime();  // 时间轮的启动时刻，所有过期时间都是相对于该时刻的毫秒数
+    private final DelayQueue<TimerBucket<E>> bucketQueue = new DelayQueue<>();
+    private final TimingWheel<E> timingWheel;
+    private final LinkedBlockingQueue<E> expiredQueue = new LinkedBlockingQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();  // 还在时间轮中的条目数
+    private final ReentrantReadWriteLock.ReadLock readLock;
+    private final ReentrantReadWriteLock.WriteLock writeLock;
+    private final Thread reaper;
+
+    public TimingWheelEngine() {
+        this(DEFAULT_TICK_MS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * 构造函数
+     * @param tickMs 最底层时间轮每个时间格的跨度，单位毫秒
+     * @param wheelSize 每层时间轮的时间格数量
+     */
+    public TimingWheelEngine(long tickMs, int wheelSize) {
+        if (tickMs <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMs and wheelSize must be positive");
+        }
+        this.tickMs = tickMs;
+        this.timingWheel = new TimingWheel<>(tickMs, wheelSize, 0L, originNanos, bucketQueue);
+        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
+        this.reaper = new Thread(this::reap, "timing-wheel-reaper-" + ENGINE_NUMBER.getAndIncrement());
+        this.reaper.setDaemon(true);
+        this.reaper.start();
+    }
+
+    /**
+     * 向时间轮中添加一个延迟元素，并返回对应的定时条目，可以通过TimerEntry以O(1)的代价取消或者重新调度
+     * @param e 延迟元素
+     * @return 定时条目
+     */
+    @Override
+    public TimerEntry<E> offer(E e) {
+        TimerEntry<E> entry = new TimerEntry<>(this, e, expirationOf(e));
+        pending.incrementAndGet();
+        reinsert(entry);
+        return entry;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        return expiredQueue.take();
+    }
+
+    @Override
+    public E poll() {
+        return expiredQueue.poll();
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        return expiredQueue.drainTo(c, maxElements);
+    }
+
+    @Override
+    public int size() {
+        return pending.get() + expiredQueue.size();
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    /**
+     * 停止后台收割线程：停止后时间轮不再推进，未过期的条目将不会再被交给消费者
+     */
+    public void shutdown() {
+        reaper.interrupt();
+    }
+
+    void onCancelled() {
+        pending.decrementAndGet();
+    }
+
+    void reinsert(TimerEntry<E> entry) {
+        readLock.lock();
+        try {
+            addEntry(entry);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * 重新调度一个处于RESCHEDULING状态、元素的到期时刻已经更新的条目：摘除、更新过期时间和重新插入都在写锁下完成
+     * 推进线程清空时间格时也持有写锁，否则条目可能刚被摘除就被推进线程插入低层时间格，随后又被插入新的时间格，同时挂在两个链表上
+     * @param entry 定时条目
+     * @param deadline 新的到期时刻：System.nanoTime()基准，单位纳秒
+     */
+    void reschedule(TimerEntry<E> entry, long deadline) {
+        writeLock.lock();
+        try {
+            entry.remove();
+            entry.expiration = expirationOf(deadline);
+            entry.rearm();
+            addEntry(entry);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 将到期时刻换算为时间轮的过期时间（相对于时间轮启动时刻的毫秒数），向上取整为tickMs的整数倍，保证元素不会提前过期：
+     * 时间轮把落在当前tick内的条目视为到期，而当前tick的起点不晚于当前时间，取整后这样的条目的到期时刻都已经过去（最多晚tickMs毫秒）
+     * @param deadlineNanos 到期时刻：System.nanoTime()基准，单位纳秒
+     * @return 过期时间
+     */
+    long expirationOf(long deadlineNanos) {
+        long relativeNanos = Math.max(deadlineNanos - originNanos, 0L);
+        long relativeMs = (relativeNanos / 1000000L) + (relativeNanos % 1000000L == 0 ? 0 : 1);
+        return (relativeMs + tickMs - 1) / tickMs * tickMs;
+    }
+
+    private long expirationOf(E e) {
+        if (e instanceof DeadlineDelayed) {
+            // 到期时刻已经预先计算好，不需要再读取时钟
+            return expirationOf(((DeadlineDelayed) e).getDeadline());
+        }
+        return expirationOf(DeadlineDelayed.deadlineOf(e.getDelay(TimeUnit.NANOSECONDS)));
+    }
+
+    private void addEntry(TimerEntry<E> entry) {
+        if (entry.isPending() && !timingWheel.add(entry)) {
+            // 已经到期：直接交给消费者
+            if (entry.markExpired()) {
+                pending.decrementAndGet();
+                expiredQueue.offer(entry.element);
+            }
+        }
+    }
+
+    /**
+     * 后台收割线程：等待最早到期的时间格，推进时间轮
+     */
+    private void reap() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                advance(bucketQueue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        LOGGER.info("Timing wheel reaper {} stopped.", Thread.currentThread().getName());
+    }
+
+    private void advance(TimerBucket<E> bucket) {
+        writeLock.lock();
+        try {
+            while (bucket != null) {
+                timingWheel.advanceClock(bucket.getExpiration());
+                bucket.flush(this::addEntry);
+                bucket = bucketQueue.poll();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+}
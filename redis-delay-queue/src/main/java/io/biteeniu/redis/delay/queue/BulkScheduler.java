@@ -0,0 +1,370 @@
+package io.biteeniu.redis.delay.queue;
+
+import com.google.common.util.concurrent.RateLimiter;
+import io.biteeniu.redis.delay.queue.codec.BinaryJobCodec;
+import io.biteeniu.redis.delay.queue.codec.JobCodec;
+import io.biteeniu.redis.delay.queue.shard.Bucket;
+import io.biteeniu.redis.delay.queue.shard.BucketRouter;
+import io.biteeniu.redis.delay.queue.shard.ShardedBuckets;
+import io.biteeniu.redis.delay.queue.utils.JobOperations;
+import io.biteeniu.redis.delay.queue.utils.JobScripts;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量调度和批量取消：一次写入或者取消数百万个任务，而不会长时间阻塞Redis、影响其他客户端
+ * 1. 写入：从迭代器中逐块读取任务（每块chunkSize个），每块在一个管道中发送（HMSET任务池、HMSET调度信息、ZADD延迟桶、唤醒脚本），
+ *    等待这一块的回复后才读取下一块；内存中最多只有一块任务，每条命令最多chunkSize个元素，Redis在两条命令之间可以处理其他客户端的请求
+ * 2. 同一管道中任务数据先于ZADD写入，管道中途失败时延迟桶中也不会出现没有任务数据的ID；失败时抛出异常，
+ *    迭代器停在失败的那一块之后，重新写入已经写入的任务会覆盖原来的数据（ID相同），调用方可以从头重试
+ * 3. 限速：按任务数限速（Guava RateLimiter），写入和取消共用同一个限速器，permitsPerSecond <= 0表示不限速
+ * 4. 取消：按任务ID、按主题、按到期时间范围，每块一次脚本调用；只能取消还在延迟桶中（未到期）的任务
+ * 5. 进度：每隔reportIntervalMs毫秒以及结束时回调一次ProgressListener，默认打印日志
+ * 与Producer的区别：Producer面向大量线程并发提交单个任务，每个任务一个Future；批量调度面向单个调用方一次提交大量任务，只报告进度
+ * @author luzhanghong
+ * @date 2026-10-19 03:20
+ */
+public class BulkScheduler {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(BulkScheduler.class);
+    private final static byte[] JOB_POOL = SafeEncoder.encode(RedisHelper.JOB_POOL);
+    private final static byte[] JOB_META = SafeEncoder.encode(RedisHelper.JOB_META);
+    private final BucketRouter router;
+    private final List<Bucket> buckets;
+    private final JobCodec codec;
+    private final int chunkSize;
+    private final RateLimiter rateLimiter;
+    private final long reportIntervalNanos;
+
+    public BulkScheduler(JedisPool jedisPool) {
+        this(jedisPool, new BinaryJobCodec(), 1000, 0, 1000L);
+    }
+
+    /**
+     * 构造函数：单个延迟桶（JOB_DELAY_BUCKET）
+     * @param jedisPool Jedis连接池
+     * @param codec 任务编解码器：必须与消费者使用的编解码器兼容
+     * @param chunkSize 每块的任务数，最大为JobScripts.MAX_BATCH_SIZE
+     * @param permitsPerSecond 每秒最多写入或者取消的任务数，<= 0表示不限速
+     * @param reportIntervalMs 进度回调的间隔，单位毫秒
+     */
+    public BulkScheduler(JedisPool jedisPool, JobCodec codec, int chunkSize, double permitsPerSecond, long reportIntervalMs) {
+        this(new Bucket("default", RedisHelper.JOB_DELAY_BUCKET, jedisPool), codec, chunkSize, permitsPerSecond, reportIntervalMs);
+    }
+
+    /**
+     * 构造函数：分片的延迟桶
+     * @param shardedBuckets 分片的延迟桶：写入按任务ID路由，按主题、到期时间范围取消时遍历全部延迟桶
+     * @param codec 任务编解码器：必须与消费者使用的编解码器兼容
+     * @param chunkSize 每块的任务数，最大为JobScripts.MAX_BATCH_SIZE
+     * @param permitsPerSecond 每秒最多写入或者取消的任务数，<= 0表示不限速
+     * @param reportIntervalMs 进度回调的间隔，单位毫秒
+     */
+    public BulkScheduler(ShardedBuckets shardedBuckets, JobCodec codec, int chunkSize, double permitsPerSecond, long reportIntervalMs) {
+        this(shardedBuckets, shardedBuckets.getBuckets(), codec, chunkSize, permitsPerSecond, reportIntervalMs);
+    }
+
+    private BulkScheduler(Bucket bucket, JobCodec codec, int chunkSize, double permitsPerSecond, long reportIntervalMs) {
+        this(bucket, Collections.singletonList(bucket), codec, chunkSize, permitsPerSecond, reportIntervalMs);
+    }
+
+    private BulkScheduler(BucketRouter router, List<Bucket> buckets, JobCodec codec, int chunkSize, double permitsPerSecond,
+                          long reportIntervalMs) {
+        this.router = router;
+        this.buckets = buckets;
+        this.codec = codec;
+        this.chunkSize = Math.min(Math.max(chunkSize, 1), JobScripts.MAX_BATCH_SIZE);
+        this.rateLimiter = permitsPerSecond > 0 ? RateLimiter.create(permitsPerSecond) : null;
+        this.reportIntervalNanos = TimeUnit.MILLISECONDS.toNanos(reportIntervalMs);
+    }
+
+    /**
+     * 批量写入任务，进度打印到日志
+     * @param jobs 任务：逐个读取，不会一次全部放入内存
+     * @return 写入的任务数
+     */
+    public long schedule(Iterator<Job> jobs) {
+        return schedule(jobs, progress("Scheduled"));
+    }
+
+    /**
+     * 批量写入任务
+     * @param jobs 任务：逐个读取，不会一次全部放入内存
+     * @param listener 进度回调
+     * @return 写入的任务数
+     * @throws IllegalArgumentException 任务没有ID或者类型，或者TTR为负数：之前的块已经写入，该任务所在的块不会写入
+     */
+    public long schedule(Iterator<Job> jobs, ProgressListener listener) {
+        Progress progress = new Progress(listener);
+        List<Job> chunk = new ArrayList<>(chunkSize);
+        while (jobs.hasNext()) {
+            Job job = jobs.next();
+            job.validate();
+            chunk.add(job);
+            if (chunk.size() == chunkSize || !jobs.hasNext()) {
+                acquire(chunk.size());
+                write(chunk);
+                progress.add(chunk.size());
+                chunk.clear();
+            }
+        }
+        return progress.finish();
+    }
+
+    /**
+     * 按任务ID取消
+     * @param ids 任务ID
+     * @return 取消的任务数
+     */
+    public long cancel(Collection<String> ids) {
+        Progress progress = new Progress(progress("Cancelled"));
+        Map<Bucket, List<String>> chunks = new HashMap<>();
+        for (String id : ids) {
+            List<String> chunk = chunks.computeIfAbsent(router.route(id), bucket -> new ArrayList<>(chunkSize));
+            chunk.add(id);
+            if (chunk.size() == chunkSize) {
+                progress.add(cancel(router.route(id), chunk, null).size());
+                chunk.clear();
+            }
+        }
+        for (Map.Entry<Bucket, List<String>> chunk : chunks.entrySet()) {
+            progress.add(cancel(chunk.getKey(), chunk.getValue(), null).size());
+        }
+        return progress.finish();
+    }
+
+    /**
+     * 取消某个主题的全部任务：通过ZSCAN分块遍历延迟桶，遍历开始前就在延迟桶中、遍历期间一直未到期的任务都会被取消
+     * @param topic 任务的类型
+     * @return 取消的任务数
+     */
+    public long cancelTopic(String topic) {
+        Progress progress = new Progress(progress("Cancelled"));
+        ScanParams params = new ScanParams().count(chunkSize);
+        for (Bucket bucket : buckets) {
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                ScanResult<Tuple> result;
+                try (Jedis jedis = bucket.getPool().getResource()) {
+                    result = jedis.zscan(bucket.getKey(), cursor, params);
+                }
+                List<String> ids = new ArrayList<>(result.getResult().size());
+                for (Tuple tuple : result.getResult()) {
+                    ids.add(tuple.getElement());
+                }
+                // 延迟桶使用紧凑编码时ZSCAN会忽略COUNT一次返回全部，按块拆分
+                for (int from = 0; from < ids.size(); from += chunkSize) {
+                    progress.add(cancel(bucket, ids.subList(from, Math.min(from + chunkSize, ids.size())), topic).size());
+                }
+                cursor = result.getCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        }
+        return progress.finish();
+    }
+
+    /**
+     * 取消到期时刻在[from, to]之间的全部任务
+     * @param from 到期时刻的下限（包含），单位毫秒
+     * @param to 到期时刻的上限（包含），单位毫秒
+     * @return 取消的任务数
+     */
+    public long cancelRange(long from, long to) {
+        return cancelRange(null, from, to);
+    }
+
+    /**
+     * 取消到期时刻在[from, to]之间、属于某个主题的全部任务：每次通过ZRANGEBYSCORE ... LIMIT读取一块，跳过不属于该主题的任务
+     * 按分值翻页：下一块从上一块最后一个任务的分值开始，偏移量只包括该分值上已经检查过并保留下来的任务（同一毫秒到期的其他主题的任务），
+     * 每次读取的代价与范围内其他主题的任务总数无关；范围的下限已经到期时，调度器同时移走的任务可能使少量任务被漏掉，可以再调用一次
+     * @param topic 任务的类型，null表示全部
+     * @param from 到期时刻的下限（包含），单位毫秒
+     * @param to 到期时刻的上限（包含），单位毫秒
+     * @return 取消的任务数
+     */
+    public long cancelRange(String topic, long from, long to) {
+        Progress progress = new Progress(progress("Cancelled"));
+        String max = String.valueOf(to);
+        for (Bucket bucket : buckets) {
+            String min = String.valueOf(from);
+            double lastScore = Double.NaN;
+            int offset = 0;  // 分值等于lastScore、已经检查过并保留下来的任务数
+            while (true) {
+                Set<Tuple> tuples;
+                try (Jedis jedis = bucket.getPool().getResource()) {
+                    tuples = jedis.zrangeByScoreWithScores(bucket.getKey(), min, max, offset, chunkSize);
+                }
+                if (tuples.isEmpty()) {
+                    break;
+                }
+                List<String> ids = new ArrayList<>(tuples.size());
+                double score = 0D;
+                for (Tuple tuple : tuples) {
+                    ids.add(tuple.getElement());
+                    score = tuple.getScore();
+                }
+                Set<String> cancelled = new HashSet<>(cancel(bucket, ids, topic));
+                progress.add(cancelled.size());
+                int retained = 0;
+                for (Tuple tuple : tuples) {
+                    if (tuple.getScore() == score && !cancelled.contains(tuple.getElement())) {
+                        retained++;
+                    }
+                }
+                offset = score == lastScore ? offset + retained : retained;
+                lastScore = score;
+                min = String.valueOf((long) score);
+                if (tuples.size() < chunkSize) {
+                    break;
+                }
+            }
+        }
+        return progress.finish();
+    }
+
+    /**
+     * 取消一个延迟桶中的一块任务
+     */
+    private List<String> cancel(Bucket bucket, List<String> ids, String topic) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        acquire(ids.size());
+        try (Jedis jedis = bucket.getPool().getResource()) {
+            return JobOperations.cancel(jedis, bucket.getKey(), ids, topic);
+        }
+    }
+
+    /**
+     * 按节点、延迟桶分组写入一块任务：每个节点一个管道
+     */
+    private void write(List<Job> chunk) {
+        Map<JedisPool, Map<String, List<Job>>> groups = new IdentityHashMap<>();
+        for (Job job : chunk) {
+            Bucket bucket = router.route(job.getId());
+            groups.computeIfAbsent(bucket.getPool(), pool -> new HashMap<>())
+                    .computeIfAbsent(bucket.getKey(), key -> new ArrayList<>())
+                    .add(job);
+        }
+        for (Map.Entry<JedisPool, Map<String, List<Job>>> group : groups.entrySet()) {
+            write(group.getKey(), group.getValue());
+        }
+    }
+
+    private void write(JedisPool jedisPool, Map<String, List<Job>> jobBuckets) {
+        long now = System.currentTimeMillis();
+        Map<byte[], byte[]> jobPool = new HashMap<>();
+        Map<byte[], byte[]> jobMeta = new HashMap<>();
+        Map<String, Map<String, Double>> zadds = new HashMap<>(jobBuckets.size() * 2);
+        Map<String, Long> earliest = new HashMap<>(jobBuckets.size() * 2);
+        for (Map.Entry<String, List<Job>> bucket : jobBuckets.entrySet()) {
+            Map<String, Double> jobBucket = new HashMap<>(bucket.getValue().size() * 2);
+            long min = Long.MAX_VALUE;
+            for (Job job : bucket.getValue()) {
+                byte[] id = SafeEncoder.encode(job.getId());
+                long expiredAt = now + (job.getDelay() == null ? 0L : job.getDelay() * 1000L);
+                jobPool.put(id, codec.encode(job));
+                jobMeta.put(id, SafeEncoder.encode(job.toMeta()));
+                jobBucket.put(job.getId(), (double) expiredAt);
+                min = Math.min(min, expiredAt);
+            }
+            zadds.put(bucket.getKey(), jobBucket);
+            earliest.put(bucket.getKey(), min);
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            // 任务数据先于延迟桶写入
+            pipeline.hmset(JOB_POOL, jobPool);
+            pipeline.hmset(JOB_META, jobMeta);
+            for (Map.Entry<String, Map<String, Double>> jobBucket : zadds.entrySet()) {
+                String key = jobBucket.getKey();
+                pipeline.zadd(key, jobBucket.getValue());
+                pipeline.eval(JobScripts.WAKE_SCHEDULER.getScript(), Collections.singletonList(key),
+                        Arrays.asList(RedisHelper.wakeupChannel(key), String.valueOf(earliest.get(key))));
+            }
+            for (Object reply : pipeline.syncAndReturnAll()) {
+                if (reply instanceof Exception) {
+                    throw new JedisException("Bulk schedule chunk of " + jobMeta.size() + " jobs failed", (Exception) reply);
+                }
+            }
+        }
+    }
+
+    private void acquire(int permits) {
+        if (rateLimiter != null) {
+            rateLimiter.acquire(permits);
+        }
+    }
+
+    private static ProgressListener progress(String action) {
+        return (done, elapsedMillis, finished) -> LOGGER.info("{} {} jobs in {} ms ({} jobs/s){}", action, done, elapsedMillis,
+                elapsedMillis == 0 ? done : done * 1000L / elapsedMillis, finished ? ", finished." : ".");
+    }
+
+    /**
+     * 进度回调
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * @param done 已经写入（或者取消）的任务数
+         * @param elapsedMillis 已经用去的时间，单位毫秒
+         * @param finished 是否已经结束
+         */
+        void onProgress(long done, long elapsedMillis, boolean finished);
+
+    }
+
+    /**
+     * 一次批量操作的进度：按间隔回调ProgressListener
+     */
+    private final class Progress {
+
+        private final ProgressListener listener;
+        private final long start = System.nanoTime();
+        private long lastReport = start;
+        private long done;
+
+        Progress(ProgressListener listener) {
+            this.listener = listener;
+        }
+
+        void add(long count) {
+            done += count;
+            long now = System.nanoTime();
+            if (now - lastReport >= reportIntervalNanos) {
+                lastReport = now;
+                listener.onProgress(done, TimeUnit.NANOSECONDS.toMillis(now - start), false);
+            }
+        }
+
+        long finish() {
+            listener.onProgress(done, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), true);
+            return done;
+        }
+
+    }
+
+}
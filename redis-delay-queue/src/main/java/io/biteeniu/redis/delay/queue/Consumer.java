@@ -1,59 +1,185 @@
 package io.biteeniu.redis.delay.queue;
 
+import io.biteeniu.redis.delay.queue.codec.BinaryJobCodec;
+import io.biteeniu.redis.delay.queue.codec.JobCodec;
+import io.biteeniu.redis.delay.queue.utils.JobOperations;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 
-import java.util.Iterator;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
- * 消息消费者
+ * 消息消费者：从一个或多个主题的就绪队列中预留任务，处理成功后确认（ack），处理失败则拒绝（nack）并按任务的重试策略延迟重新投递，失败次数达到上限的任务移入死信集合
+ * 1. 预留是一次Lua脚本调用：从就绪队列弹出一批任务ID，同时以"当前时间+TTR"为分值放入预留集合；消费者在处理过程中崩溃，任务会在TTR到期后由Reaper重新投递
+ * 2. 所有就绪队列都为空时通过BLPOP阻塞等待，弹出的任务ID立即交给预留脚本；BLPOP返回与预留脚本执行之间的极短窗口内崩溃仍可能丢失该任务
+ * 3. 任务内容通过一次HMGET批量读取并由JobCodec解码；配置了近缓存（JobCache）时先查缓存
+ * 4. 每个任务处理完成后立即单独确认或者拒绝，不等整批处理完：已经处理完成的任务不会因为同批后面的任务耗时过长、预留超时而被重新投递
+ * 5. 一批任务同时预留、依次处理，排在后面的任务要等前面的任务处理完才开始：batchSize × 单个任务的处理时间应当小于TTR，
+ *    否则还没有开始处理的任务会预留超时、被Reaper重新投递（可能被处理两次）；处理较慢的任务应当减小batchSize或者使用Dispatcher
  * @author luzhanghong
  * @date 2018-07-19 15:32
  */
 public class Consumer implements Runnable {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(Consumer.class);
-    private final Jedis jedis;
+    private final static int BLOCK_TIMEOUT_SECONDS = 1;  // BLPOP的超时时间：超时后检查一次是否需要停止
+    private final JedisPool jedisPool;
+    private final JobCodec codec;
+    private final JobCache cache;
+    private final JobHandler handler;
+    private final String[] topics;
+    private final String[] readyKeys;
+    private final int batchSize;
+    private final long defaultTtr;
+    private final long retryDelay;
+    private int nextTopic;  // 下一轮最先预留的主题
+    private volatile boolean running = true;
 
-    public Consumer(JedisPool jedisPool) {
-        this.jedis = jedisPool.getResource();
+    /**
+     * 构造函数：每批最多预留100个任务，默认TTR 30秒，处理失败1秒后重新投递
+     * @param jedisPool Jedis连接池
+     * @param handler 任务处理器
+     * @param topics 消费的主题
+     */
+    public Consumer(JedisPool jedisPool, JobHandler handler, String... topics) {
+        this(jedisPool, new BinaryJobCodec(), handler, 100, 30000L, 1000L, topics);
+    }
+
+    /**
+     * 构造函数
+     * @param jedisPool Jedis连接池
+     * @param codec 任务编解码器：必须与生产者使用的编解码器兼容
+     * @param handler 任务处理器
+     * @param batchSize 每批最多预留的任务数
+     * @param defaultTtr 任务未设置TTR时使用的TTR，单位毫秒
+     * @param retryDelay 没有重试策略的任务处理失败后重新投递的延迟时间，单位毫秒
+     * @param topics 消费的主题
+     */
+    public Consumer(JedisPool jedisPool, JobCodec codec, JobHandler handler, int batchSize, long defaultTtr,
+                    long retryDelay, String... topics) {
+        this(jedisPool, codec, null, handler, batchSize, defaultTtr, retryDelay, topics);
+    }
+
+    /**
+     * 构造函数
+     * @param jedisPool Jedis连接池
+     * @param codec 任务编解码器：必须与生产者使用的编解码器兼容
+     * @param cache 任务内容的近缓存，与同一进程中的生产者共用；null表示不使用
+     * @param handler 任务处理器
+     * @param batchSize 每批最多预留的任务数
+     * @param defaultTtr 任务未设置TTR时使用的TTR，单位毫秒
+     * @param retryDelay 没有重试策略的任务处理失败后重新投递的延迟时间，单位毫秒
+     * @param topics 消费的主题
+     */
+    public Consumer(JedisPool jedisPool, JobCodec codec, JobCache cache, JobHandler handler, int batchSize,
+                    long defaultTtr, long retryDelay, String... topics) {
+        if (topics.length == 0) {
+            throw new IllegalArgumentException("At least one topic is required");
+        }
+        this.jedisPool = jedisPool;
+        this.codec = codec;
+        this.cache = cache;
+        this.handler = handler;
+        this.topics = topics.clone();
+        this.readyKeys = new String[topics.length];
+        for (int i = 0; i < topics.length; i++) {
+            readyKeys[i] = RedisHelper.readyKey(topics[i]);
+        }
+        this.batchSize = batchSize;
+        this.defaultTtr = defaultTtr;
+        this.retryDelay = retryDelay;
     }
 
     @Override
     public void run() {
-        synchronized (this) {
-            while (true) {
-                long timestamp = System.currentTimeMillis();
-                Set<String> jobs = jedis.zrangeByScore("JOB_BUCKET", 0, timestamp, 0, 5);
-                if (jobs.isEmpty()) {
-                    // 没有任务的时候休眠100ms，避免
-                    try {
-                        this.wait(100);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                consumeOnce();
+            } catch (Exception e) {
+                LOGGER.error("Consume job failed.", e);
+            }
+        }
+        LOGGER.info("Consumer stopped.");
+    }
+
+    /**
+     * 停止消费者：当前的BLPOP超时或者当前这批任务处理完成之后退出
+     */
+    public void shutdown() {
+        running = false;
+    }
+
+    private void consumeOnce() {
+        // 每一轮都从连接池借一个连接，用完立即归还，消费者线程不长期占用连接
+        try (Jedis jedis = jedisPool.getResource()) {
+            List<String> ids = reserve(jedis);
+            if (ids.isEmpty()) {
+                return;
+            }
+            List<byte[]> bodies = cache != null ? cache.load(jedis, ids) : JobOperations.loadBodies(jedis, ids);
+            List<String> deleted = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i++) {
+                if (bodies.get(i) == null) {
+                    // 任务已经被删除：确认以清理预留集合
+                    deleted.add(ids.get(i));
+                }
+            }
+            ack(jedis, deleted);
+            for (int i = 0; i < ids.size(); i++) {
+                byte[] body = bodies.get(i);
+                if (body == null) {
                     continue;
                 }
-                Iterator<String> iterator = jobs.iterator();
-                while (iterator.hasNext()) {
-                    // 在这里处理任务
-                    String id = iterator.next();
-                    LOGGER.info("Consumer received job: {}  -- delete ...", id);
-                    jedis.zrem("JOB_BUCKET", id);
+                List<String> id = Collections.singletonList(ids.get(i));
+                try {
+                    handler.handle(codec.decode(body));
+                } catch (Exception e) {
+                    LOGGER.error("Handle job {} failed.", ids.get(i), e);
+                    List<String> dead = JobOperations.nack(jedis, id, retryDelay);
+                    if (!dead.isEmpty()) {
+                        LOGGER.warn("Job {} reached max attempts and was moved to dead letters.", ids.get(i));
+                    }
+                    continue;
                 }
+                ack(jedis, id);
             }
         }
     }
 
-    private void sleep(long millis) {
-        try {
-            Thread.sleep(millis);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    private void ack(Jedis jedis, List<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        JobOperations.ack(jedis, ids);
+        if (cache != null) {
+            cache.invalidate(ids);
+        }
+    }
+
+    /**
+     * 依次从各个主题的就绪队列预留任务；全部为空时BLPOP阻塞等待
+     */
+    private List<String> reserve(Jedis jedis) {
+        // 轮流从不同的主题开始，避免排在前面的主题饿死后面的主题
+        for (int i = 0; i < topics.length; i++) {
+            String topic = topics[(nextTopic + i) % topics.length];
+            List<String> ids = JobOperations.reserve(jedis, topic, batchSize, defaultTtr);
+            if (!ids.isEmpty()) {
+                nextTopic = (nextTopic + i + 1) % topics.length;
+                return ids;
+            }
+        }
+        List<String> popped = jedis.blpop(BLOCK_TIMEOUT_SECONDS, readyKeys);
+        if (popped == null || popped.size() < 2) {
+            return new ArrayList<>();
         }
+        String topic = popped.get(0).substring(RedisHelper.JOB_READY_PREFIX.length());
+        return JobOperations.reserve(jedis, topic, batchSize, defaultTtr, popped.get(1));
     }
 
 }
@@ -0,0 +1,90 @@
+package io.biteeniu.redis.delay.queue;
+
+import io.biteeniu.redis.delay.queue.utils.JobOperations;
+import io.biteeniu.redis.delay.queue.utils.JobScripts;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Tuple;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 死信管理：查看和重放失败次数达到重试策略上限的任务
+ * 1. 重放通过ZSCAN分批遍历死信集合，每批一次脚本调用放回延迟桶；不使用ZRANGE一次取出全部，死信很多时也不会长时间阻塞Redis
+ * 2. ZSCAN保证遍历开始前就在集合中、遍历期间一直没有被删除的任务至少返回一次；遍历期间新加入的死信可能被重放，也可能留到下一次
+ * 3. 重放的任务分值为当前时间，由调度器在下一轮（最长maxWait）移动到就绪队列，失败次数清零
+ * @author luzhanghong
+ * @date 2026-10-19 02:10
+ */
+public class DeadLetters {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(DeadLetters.class);
+    private final JedisPool jedisPool;
+    private final int scanCount;
+
+    public DeadLetters(JedisPool jedisPool) {
+        this(jedisPool, 500);
+    }
+
+    /**
+     * 构造函数
+     * @param jedisPool Jedis连接池
+     * @param scanCount 每次ZSCAN的COUNT提示值，也是每次重放脚本调用的大致任务数
+     */
+    public DeadLetters(JedisPool jedisPool, int scanCount) {
+        this.jedisPool = jedisPool;
+        this.scanCount = Math.min(Math.max(scanCount, 1), JobScripts.MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @return 死信数量
+     */
+    public long size() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.zcard(RedisHelper.JOB_DEAD_LETTER);
+        }
+    }
+
+    /**
+     * 重放全部死信
+     * @return 重放的任务数
+     */
+    public long replay() {
+        return replay(null);
+    }
+
+    /**
+     * 重放某个主题的死信
+     * @param topic 任务的类型，null表示全部
+     * @return 重放的任务数
+     */
+    public long replay(String topic) {
+        long total = 0L;
+        ScanParams params = new ScanParams().count(scanCount);
+        try (Jedis jedis = jedisPool.getResource()) {
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                ScanResult<Tuple> result = jedis.zscan(RedisHelper.JOB_DEAD_LETTER, cursor, params);
+                List<String> ids = new ArrayList<>(result.getResult().size());
+                for (Tuple tuple : result.getResult()) {
+                    ids.add(tuple.getElement());
+                }
+                // 集合使用紧凑编码时ZSCAN会忽略COUNT一次返回全部，按脚本的参数上限拆分
+                for (int from = 0; from < ids.size(); from += JobScripts.MAX_BATCH_SIZE) {
+                    List<String> batch = ids.subList(from, Math.min(from + JobScripts.MAX_BATCH_SIZE, ids.size()));
+                    total += JobOperations.replayDeadLetters(jedis, batch, topic);
+                }
+                cursor = result.getCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        }
+        LOGGER.info("Replayed {} dead letters{}.", total, topic == null ? "" : " of topic " + topic);
+        return total;
+    }
+
+}
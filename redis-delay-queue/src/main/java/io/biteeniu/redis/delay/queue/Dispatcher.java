@@ -0,0 +1,315 @@
+package io.biteeniu.redis.delay.queue;
+
+import io.biteeniu.redis.delay.queue.codec.BinaryJobCodec;
+import io.biteeniu.redis.delay.queue.codec.JobCodec;
+import io.biteeniu.redis.delay.queue.utils.JobOperations;
+import io.biteeniu.redis.delay.queue.utils.JobScripts;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
+import io.biteeniu.redis.delay.queue.utils.Wakeup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 任务分发器：按主题把任务路由到注册的处理器，在有界的线程池中并发处理，每个主题有独立的并发上限
+ * 1. 分发线程只负责和Redis交互：预留任务、一次HMGET批量读取任务内容（配置了近缓存时先查缓存）、批量确认（ack）和拒绝（nack）；
+ *    处理器在工作线程中执行
+ * 2. 每个主题一个信号量（并发上限），全局一个信号量（工作线程数）：只预留有空闲许可的数量的任务，
+ *    某个主题的处理器变慢时只会占满它自己的许可，不会饿死其他主题
+ * 3. 背压：所有主题的许可都用完时，分发线程不再预留新的任务（任务留在就绪队列中，可以被其他机器上的分发器取走），
+ *    直到有任务处理完成
+ * 4. 所有主题都有空闲许可并且就绪队列都为空时，通过BLPOP阻塞等待（与Consumer相同）；有主题的许可用完时不能长时间阻塞，
+ *    改为等待任意一个任务处理完成（最长50毫秒）后重新检查
+ * 5. 确认和拒绝在分发线程的下一轮中批量提交，最多延迟一个BLPOP超时（1秒），远小于TTR
+ * 使用方式：先通过register()注册每个主题的处理器，然后在独立的线程中运行：new Thread(dispatcher).start()
+ * @author luzhanghong
+ * @date 2026-10-19 00:10
+ */
+public class Dispatcher implements Runnable {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(Dispatcher.class);
+    private final static int BLOCK_TIMEOUT_SECONDS = 1;       // BLPOP的超时时间：超时后检查一次是否需要停止
+    private final static long BUSY_WAIT_MILLIS = 50L;        // 有主题的许可用完时最长的等待时间：超时后重新检查其他主题的就绪队列
+    private final JedisPool jedisPool;
+    private final JobCodec codec;
+    private final JobCache cache;
+    private final int threads;
+    private final int batchSize;
+    private final long defaultTtr;
+    private final long retryDelay;
+    private final Map<String, Route> routes = new LinkedHashMap<>();
+    private final Semaphore workers;
+    private final Wakeup completed = new Wakeup();
+    private final ConcurrentLinkedQueue<String> acks = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<String> nacks = new ConcurrentLinkedQueue<>();
+    private ExecutorService executor;
+    private int nextRoute;  // 下一轮最先预留的主题
+    private volatile boolean running = true;
+
+    /**
+     * 构造函数：8个工作线程，每批最多预留100个任务，默认TTR 30秒，处理失败1秒后重新投递
+     * @param jedisPool Jedis连接池
+     */
+    public Dispatcher(JedisPool jedisPool) {
+        this(jedisPool, new BinaryJobCodec(), 8, 100, 30000L, 1000L);
+    }
+
+    /**
+     * 构造函数
+     * @param jedisPool Jedis连接池
+     * @param codec 任务编解码器：必须与生产者使用的编解码器兼容
+     * @param threads 工作线程数：同时处理的任务总数的上限
+     * @param batchSize 每个主题每次最多预留的任务数
+     * @param defaultTtr 任务未设置TTR时使用的TTR，单位毫秒
+     * @param retryDelay 没有重试策略的任务处理失败后重新投递的延迟时间，单位毫秒
+     */
+    public Dispatcher(JedisPool jedisPool, JobCodec codec, int threads, int batchSize, long defaultTtr, long retryDelay) {
+        this(jedisPool, codec, null, threads, batchSize, defaultTtr, retryDelay);
+    }
+
+    /**
+     * 构造函数
+     * @param jedisPool Jedis连接池
+     * @param codec 任务编解码器：必须与生产者使用的编解码器兼容
+     * @param cache 任务内容的近缓存，与同一进程中的生产者共用；null表示不使用
+     * @param threads 工作线程数：同时处理的任务总数的上限
+     * @param batchSize 每个主题每次最多预留的任务数
+     * @param defaultTtr 任务未设置TTR时使用的TTR，单位毫秒
+     * @param retryDelay 没有重试策略的任务处理失败后重新投递的延迟时间，单位毫秒
+     */
+    public Dispatcher(JedisPool jedisPool, JobCodec codec, JobCache cache, int threads, int batchSize, long defaultTtr,
+                      long retryDelay) {
+        this.jedisPool = jedisPool;
+        this.codec = codec;
+        this.cache = cache;
+        this.threads = Math.max(threads, 1);
+        this.batchSize = Math.max(batchSize, 1);
+        this.defaultTtr = defaultTtr;
+        this.retryDelay = retryDelay;
+        this.workers = new Semaphore(this.threads);
+    }
+
+    /**
+     * 注册主题的处理器：必须在分发器启动之前调用
+     * @param topic 主题
+     * @param handler 处理器
+     * @param concurrency 该主题同时处理的任务数的上限：不超过工作线程数，应当小于工作线程数以便给其他主题留出线程
+     * @return 分发器本身
+     */
+    public synchronized Dispatcher register(String topic, JobHandler handler, int concurrency) {
+        if (executor != null) {
+            throw new IllegalStateException("Dispatcher has been started");
+        }
+        routes.put(topic, new Route(topic, handler, Math.min(Math.max(concurrency, 1), threads)));
+        return this;
+    }
+
+    @Override
+    public void run() {
+        Route[] routeArray;
+        synchronized (this) {
+            if (routes.isEmpty()) {
+                throw new IllegalStateException("At least one topic handler is required");
+            }
+            routeArray = routes.values().toArray(new Route[0]);
+            AtomicInteger index = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(threads,
+                    runnable -> new Thread(runnable, "dispatcher-worker-" + index.incrementAndGet()));
+        }
+        LOGGER.info("Dispatcher started with {} topics and {} workers.", routeArray.length, threads);
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                dispatchOnce(routeArray);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOGGER.error("Dispatch jobs failed.", e);
+                sleep(BUSY_WAIT_MILLIS);
+            }
+        }
+        executor.shutdown();
+        try {
+            // 等待已经分发的任务处理完成，提交它们的确认和拒绝
+            executor.awaitTermination(defaultTtr, TimeUnit.MILLISECONDS);
+            try (Jedis jedis = jedisPool.getResource()) {
+                flush(jedis);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Flush acknowledgements failed.", e);
+        }
+        LOGGER.info("Dispatcher stopped.");
+    }
+
+    /**
+     * 停止分发器：不再预留新的任务，已经分发的任务处理完成之后退出
+     */
+    public void shutdown() {
+        running = false;
+        completed.signal();
+    }
+
+    /**
+     * 一轮分发：提交确认和拒绝，然后为每个有空闲许可的主题预留并分发任务
+     */
+    private void dispatchOnce(Route[] routeArray) throws InterruptedException {
+        completed.clear();
+        int dispatched = 0;
+        List<String> idleKeys = new ArrayList<>(routeArray.length);
+        try (Jedis jedis = jedisPool.getResource()) {
+            flush(jedis);
+            // 轮流从不同的主题开始，避免排在前面的主题总是先拿到全局许可
+            for (int i = 0; i < routeArray.length; i++) {
+                Route route = routeArray[(nextRoute + i) % routeArray.length];
+                int free = freePermits(route);
+                if (free == 0) {
+                    continue;
+                }
+                int count = dispatch(jedis, route, JobOperations.reserve(jedis, route.topic, free, defaultTtr));
+                if (count == 0) {
+                    idleKeys.add(route.readyKey);
+                }
+                dispatched += count;
+            }
+            nextRoute = (nextRoute + 1) % routeArray.length;
+            if (dispatched > 0) {
+                return;
+            }
+            if (idleKeys.size() == routeArray.length) {
+                // 所有主题都有空闲许可但都没有任务：阻塞等待任意一个就绪队列
+                List<String> popped = jedis.blpop(BLOCK_TIMEOUT_SECONDS, idleKeys.toArray(new String[0]));
+                if (popped != null && popped.size() == 2) {
+                    Route route = routes.get(popped.get(0).substring(RedisHelper.JOB_READY_PREFIX.length()));
+                    int free = Math.max(freePermits(route), 1);
+                    dispatch(jedis, route, JobOperations.reserve(jedis, route.topic, free, defaultTtr, popped.get(1)));
+                }
+                return;
+            }
+        }
+        // 背压：有主题的许可用完了，等待任意一个任务处理完成
+        completed.await(BUSY_WAIT_MILLIS);
+    }
+
+    /**
+     * 批量读取任务内容，把任务交给工作线程
+     * @return 分发的任务数
+     */
+    private int dispatch(Jedis jedis, Route route, List<String> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<byte[]> bodies = cache != null ? cache.load(jedis, ids) : JobOperations.loadBodies(jedis, ids);
+        int count = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            String id = ids.get(i);
+            byte[] body = bodies.get(i);
+            if (body == null) {
+                // 任务已经被删除：确认以清理预留集合
+                acks.add(id);
+                continue;
+            }
+            Job job;
+            try {
+                job = codec.decode(body);
+            } catch (Exception e) {
+                LOGGER.error("Decode job {} failed.", id, e);
+                nacks.add(id);
+                continue;
+            }
+            // 只预留了有空闲许可的数量的任务，而许可只会被分发线程获取，这里一定能立即获得
+            route.permits.acquireUninterruptibly();
+            workers.acquireUninterruptibly();
+            executor.execute(() -> handle(route, id, job));
+            count++;
+        }
+        return count;
+    }
+
+    private void handle(Route route, String id, Job job) {
+        try {
+            route.handler.handle(job);
+            acks.add(id);
+        } catch (Exception e) {
+            LOGGER.error("Handle job {} of topic {} failed.", id, route.topic, e);
+            nacks.add(id);
+        } finally {
+            route.permits.release();
+            workers.release();
+            completed.signal();
+        }
+    }
+
+    /**
+     * 批量提交已经处理完成的任务的确认和拒绝
+     */
+    private void flush(Jedis jedis) {
+        List<String> ids;
+        while (!(ids = drain(acks)).isEmpty()) {
+            JobOperations.ack(jedis, ids);
+            if (cache != null) {
+                cache.invalidate(ids);
+            }
+        }
+        while (!(ids = drain(nacks)).isEmpty()) {
+            List<String> dead = JobOperations.nack(jedis, ids, retryDelay);
+            if (!dead.isEmpty()) {
+                LOGGER.warn("Jobs {} reached max attempts and were moved to dead letters.", dead);
+            }
+        }
+    }
+
+    /**
+     * @return 主题现在最多可以预留的任务数：主题的空闲许可、全局的空闲许可和批大小中的最小值
+     */
+    private int freePermits(Route route) {
+        return Math.min(Math.min(route.permits.availablePermits(), workers.availablePermits()), batchSize);
+    }
+
+    private static List<String> drain(ConcurrentLinkedQueue<String> queue) {
+        List<String> ids = new ArrayList<>();
+        String id;
+        while (ids.size() < JobScripts.MAX_BATCH_SIZE && (id = queue.poll()) != null) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 主题的路由：处理器和并发许可
+     */
+    private static class Route {
+
+        private final String topic;
+        private final String readyKey;
+        private final JobHandler handler;
+        private final Semaphore permits;
+
+        Route(String topic, JobHandler handler, int concurrency) {
+            this.topic = topic;
+            this.readyKey = RedisHelper.readyKey(topic);
+            this.handler = handler;
+            this.permits = new Semaphore(concurrency);
+        }
+
+    }
+
+}
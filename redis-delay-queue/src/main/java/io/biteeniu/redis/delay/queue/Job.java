@@ -16,15 +16,21 @@ public class Job {
     private Integer delay; // 任务延迟的时间，单位秒
     private Integer ttr;   // Time-to-run：Job执行超时时间，单位秒
     private Object body;   // 任务的内容：json格式
+    private transient RetryPolicy retry;  // 重试策略：保存在调度信息（JOB_META）中，不属于任务内容，不参与编解码；null表示按消费者的重试延迟无限重试
+
+    public Job() {}
 
     /**
      * 构造函数
      * @param topic 任务的类型
      * @param delay 任务延迟的时间，单位秒
-     * @param ttr 任务执行超时时间，单位秒
+     * @param ttr 任务执行超时时间，单位秒，不能为负数（null或者0表示使用消费者的默认TTR）
      * @param body 任务的内容
      */
     public Job(String topic, Integer delay, Integer ttr, Object body) {
+        if (ttr != null && ttr < 0) {
+            throw new IllegalArgumentException("ttr must not be negative: " + ttr);
+        }
         this.topic = topic;
         this.id = UUID.randomUUID().toString();
         this.delay = delay;
@@ -32,6 +38,19 @@ public class Job {
         this.body = body;
     }
 
+    /**
+     * 构造函数
+     * @param topic 任务的类型
+     * @param delay 任务延迟的时间，单位秒
+     * @param ttr 任务执行超时时间，单位秒
+     * @param body 任务的内容
+     * @param retry 重试策略
+     */
+    public Job(String topic, Integer delay, Integer ttr, Object body, RetryPolicy retry) {
+        this(topic, delay, ttr, body);
+        this.retry = retry;
+    }
+
     public String getTopic() {
         return topic;
     }
@@ -72,8 +91,47 @@ public class Job {
         this.body = body;
     }
 
+    public RetryPolicy getRetry() {
+        return retry;
+    }
+
+    public void setRetry(RetryPolicy retry) {
+        this.retry = retry;
+    }
+
     public String toJsonString() {
         return JSON.toJSONString(this);
     }
 
+    /**
+     * @return 任务的调度信息，写入JOB_META，格式为"ttr:topic"；设置了重试策略时为"ttr,最多投递次数,初始退避,退避上限:topic"
+     */
+    public String toMeta() {
+        String prefix = String.valueOf(ttr == null ? 0 : ttr);
+        return (retry == null ? prefix : prefix + "," + retry.toMeta()) + ":" + topic;
+    }
+
+    /**
+     * 写入Redis之前的检查：调度信息（JOB_META）中的TTR按非负整数解析，ID和类型不能为空
+     * setter和解码器不做检查，否则已经写入Redis的旧任务无法解码
+     * @throws IllegalArgumentException 任务没有ID或者类型，或者TTR为负数
+     */
+    void validate() {
+        if (id == null || topic == null) {
+            throw new IllegalArgumentException("Job id and topic must not be null");
+        }
+        if (ttr != null && ttr < 0) {
+            throw new IllegalArgumentException("ttr of job " + id + " must not be negative: " + ttr);
+        }
+    }
+
+    /**
+     * 从JSON字符串解析任务
+     * @param json JSON字符串
+     * @return 任务
+     */
+    public static Job parse(String json) {
+        return JSON.parseObject(json, Job.class);
+    }
+
 }
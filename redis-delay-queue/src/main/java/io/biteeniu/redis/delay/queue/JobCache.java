@@ -0,0 +1,184 @@
+package io.biteeniu.redis.delay.queue;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.biteeniu.common.metrics.LatencyHistogram;
+import io.biteeniu.redis.delay.queue.utils.JobOperations;
+import redis.clients.jedis.Jedis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 任务内容的本地近缓存（near-cache）：同一个进程中生产并消费的任务，触发时不需要再从JOB_POOL读取任务内容
+ * 1. 生产者写入成功后缓存编码后的任务内容；消费者读取任务内容时先查缓存，只对未命中的任务发送一次HMGET，全部命中时没有网络往返
+ * 2. 缓存项在任务的到期时刻+TTR之后过期：Guava Cache不支持为每个缓存项设置不同的过期时间，读取时检查并主动删除过期的缓存项；
+ *    同时设置一个统一的最长保留时间（expireAfterWrite）作为上限
+ * 3. 按编码后的字节数计算权重，总大小超过上限时按LRU淘汰；删除原因由Listener统计
+ * 4. 任务内容写入后不会被修改，缓存的内容不会过时；任务确认后主动删除缓存项
+ * @author luzhanghong
+ * @date 2026-10-19 00:45
+ */
+public class JobCache {
+
+    private final static int ENTRY_OVERHEAD = 96;  // 每个缓存项除内容之外的估计内存开销：键、Entry对象和Guava的内部节点
+    private final Cache<String, Entry> cache;
+    private final Listener<String, Entry> listener = new Listener<>();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final long defaultTtr;
+
+    /**
+     * 构造函数：最多缓存64MB，最长保留1小时，任务未设置TTR时按30秒计算过期时间
+     */
+    public JobCache() {
+        this(64L << 20, 3600000L, 30000L);
+    }
+
+    /**
+     * 构造函数
+     * @param maxBytes 缓存的任务内容的总字节数上限
+     * @param maxAge 缓存项最长的保留时间，单位毫秒：延迟比它更长的任务触发时不会命中
+     * @param defaultTtr 任务未设置TTR时使用的TTR，单位毫秒
+     */
+    public JobCache(long maxBytes, long maxAge, long defaultTtr) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String id, Entry entry) -> entry.body.length + id.length() * 2 + ENTRY_OVERHEAD)
+                .expireAfterWrite(maxAge, TimeUnit.MILLISECONDS)
+                .removalListener(listener)
+                .build();
+        this.defaultTtr = defaultTtr;
+    }
+
+    /**
+     * 缓存任务的内容：由生产者在任务写入Redis成功之后调用
+     * @param job 任务
+     * @param body 编码后的任务内容
+     * @param expiredAt 任务的到期时刻，单位毫秒
+     */
+    public void put(Job job, byte[] body, long expiredAt) {
+        long ttr = job.getTtr() == null || job.getTtr() <= 0 ? defaultTtr : job.getTtr() * 1000L;
+        cache.put(job.getId(), new Entry(body, expiredAt + ttr));
+    }
+
+    /**
+     * 读取一批任务的内容：先查缓存，未命中的任务通过一次HMGET从JOB_POOL读取
+     * @param jedis Jedis
+     * @param ids 任务ID
+     * @return 与ids一一对应的任务内容，任务已经被删除时为null
+     */
+    public List<byte[]> load(Jedis jedis, List<String> ids) {
+        long start = System.nanoTime();
+        byte[][] bodies = new byte[ids.size()][];
+        List<Integer> missed = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < bodies.length; i++) {
+            String id = ids.get(i);
+            Entry entry = cache.getIfPresent(id);
+            if (entry != null && entry.expireAt < now) {
+                // 已经过期：任务被重新投递过，或者消费者处理得很慢，缓存项不再有用
+                cache.invalidate(id);
+                entry = null;
+            }
+            if (entry == null) {
+                missed.add(i);
+            } else {
+                bodies[i] = entry.body;
+            }
+        }
+        if (!missed.isEmpty()) {
+            List<String> missedIds = new ArrayList<>(missed.size());
+            for (int index : missed) {
+                missedIds.add(ids.get(index));
+            }
+            List<byte[]> loaded = JobOperations.loadBodies(jedis, missedIds);
+            for (int i = 0; i < missed.size(); i++) {
+                bodies[missed.get(i)] = loaded.get(i);
+            }
+        }
+        hits.add(bodies.length - missed.size());
+        misses.add(missed.size());
+        loadLatency.record(System.nanoTime() - start);
+        return Arrays.asList(bodies);
+    }
+
+    /**
+     * 删除已经确认的任务的缓存项
+     * @param ids 任务ID
+     */
+    public void invalidate(Collection<String> ids) {
+        cache.invalidateAll(ids);
+    }
+
+    /**
+     * @return 命中次数：每个任务计一次，已经过期的缓存项计为未命中
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return 未命中次数
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return 命中率，没有读取过时为1
+     */
+    public double hitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 1D : (double) hit / total;
+    }
+
+    /**
+     * @return 缓存项的删除统计
+     */
+    public Listener<String, ?> removals() {
+        return listener;
+    }
+
+    /**
+     * @return 每批任务内容的读取耗时（包括未命中时的HMGET），单位纳秒
+     */
+    public LatencyHistogram loadLatency() {
+        return loadLatency;
+    }
+
+    /**
+     * @return 当前的缓存项数量（近似值）
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JobCache{size=%d, hitRate=%.2f%%, hits=%d, misses=%d, %s, load=%s}", cache.size(),
+                hitRate() * 100, hits.sum(), misses.sum(), listener, loadLatency.summary(TimeUnit.MICROSECONDS));
+    }
+
+    /**
+     * 缓存项：编码后的任务内容和过期时刻
+     */
+    private static final class Entry {
+
+        private final byte[] body;
+        private final long expireAt;
+
+        Entry(byte[] body, long expireAt) {
+            this.body = body;
+            this.expireAt = expireAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,17 @@
+package io.biteeniu.redis.delay.queue;
+
+/**
+ * 任务处理器
+ * @author luzhanghong
+ * @date 2026-10-18 20:00
+ */
+public interface JobHandler {
+
+    /**
+     * 处理一个到期的任务
+     * @param job 任务
+     * @throws Exception 处理失败
+     */
+    void handle(Job job) throws Exception;
+
+}
@@ -1,15 +1,11 @@
 package io.biteeniu.redis.delay.queue;
 
-import io.biteeniu.redis.delay.queue.utils.RedisHelper;
-import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import io.biteeniu.common.redis.RedisConfig;
+import io.biteeniu.common.redis.RedisPool;
+import io.biteeniu.redis.delay.queue.utils.JobScripts;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import redis.clients.jedis.Jedis;
-import redis.clients.jedis.JedisPool;
-import redis.clients.jedis.Transaction;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -20,42 +16,47 @@ import java.util.concurrent.ThreadLocalRandom;
 public class Launcher {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(Launcher.class);
-    private final static String JOB_POOL = "JOB_POOL";
-    private final static String JOB_BUCKET = "JOB_BUCKET";
+    private final static String TOPIC = "send-email";
     private final static ThreadLocalRandom RANDOM = ThreadLocalRandom.current();
-    private static JedisPool jedisPool;
-    private static Jedis jedis;
+    private static RedisPool jedisPool;
 
     /**
      * 程序启动入口方法
      * @param args args
      */
-    public static void main(String[] args) {
-        GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
-        poolConfig.setMaxIdle(1);
-        jedisPool = new JedisPool(poolConfig, "10.200.0.206");
-        Thread consumerThread = new Thread(new Consumer(jedisPool));
-        consumerThread.setName("consumer-thread");
-        consumerThread.start();
+    public static void main(String[] args) throws InterruptedException {
+        // Redis地址和连接池大小见redis.properties，可以通过系统属性覆盖，例如-Dredis.host=10.200.0.206
+        // 调度器、Reaper、分发器和生产者各自借用连接，调度器的唤醒订阅和分发器的BLPOP会长期占用连接，maxIdle不能太小
+        jedisPool = new RedisPool(RedisConfig.load("redis.properties"));
+        jedisPool.preload(JobScripts.ALL);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> LOGGER.info("{}", jedisPool.summary())));
+        Thread schedulerThread = new Thread(new Scheduler(jedisPool));
+        schedulerThread.setName("scheduler-thread");
+        schedulerThread.start();
+        Thread reaperThread = new Thread(new Reaper(jedisPool));
+        reaperThread.setName("reaper-thread");
+        reaperThread.start();
+        Dispatcher dispatcher = new Dispatcher(jedisPool)
+                .register(TOPIC, job -> LOGGER.info("Dispatcher received job: {}, topic: {}", job.getId(), job.getTopic()), 4);
+        Thread dispatcherThread = new Thread(dispatcher);
+        dispatcherThread.setName("dispatcher-thread");
+        dispatcherThread.start();
 
-        Map<String, String> jobPool = new HashMap<>();
-        Map<String, Double> jobBucket = new HashMap<>();
+        Producer producer = new Producer(jedisPool);
+        Thread producerThread = new Thread(producer);
+        producerThread.setName("producer-thread");
+        producerThread.start();
         for (int i = 1; i <= 10; i++) {
             int delay = 10;// + RANDOM.nextInt(21);
-            Long expiredAt = System.currentTimeMillis() + (delay * 1000L);
-            Job job = new Job("send-email" + i, delay, 1, "biteeniu@gmail.com");
-            jobPool.put(job.getId(), job.toJsonString());
-            jobBucket.put(job.getId(), Double.valueOf(expiredAt));
-            LOGGER.info("Producer publish job: {}, delay: {} seconds.", job.getId(), job.getDelay());
+            Job job = new Job(TOPIC, delay, 1, "biteeniu@gmail.com");
+            producer.publish(job).whenComplete((id, e) -> {
+                if (e == null) {
+                    LOGGER.info("Producer publish job: {}, delay: {} seconds.", id, job.getDelay());
+                } else {
+                    LOGGER.error("Producer publish job {} failed.", job.getId(), e);
+                }
+            });
         }
-
-        Jedis jedis = jedisPool.getResource();
-        jedis.hmset(JOB_POOL, jobPool);
-        Transaction transaction = jedis.multi();
-        transaction.hmset(RedisHelper.JOB_POOL, jobPool);
-        transaction.zadd(RedisHelper.JOB_DELAY_BUCKET, jobBucket);
-        transaction.exec();
-        jedis.close();
     }
 
     private static void sleep(long millis) {
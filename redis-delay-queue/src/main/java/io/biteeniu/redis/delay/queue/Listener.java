@@ -1,17 +1,65 @@
 package io.biteeniu.redis.delay.queue;
 
+import com.google.common.cache.RemovalCause;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
 
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
+ * 缓存的删除监听器：按删除原因统计被删除的缓存项数量
+ * EXPLICIT：任务确认后主动删除，或者读取时发现已经过期（到期时刻+TTR）；SIZE：总大小超过上限被淘汰；EXPIRED：超过最长保留时间
  * @author luzhanghong
  * @date 2018-07-24 14:40
  */
-public class Listener implements RemovalListener<String, String> {
+public class Listener<K, V> implements RemovalListener<K, V> {
+
+    private final Map<RemovalCause, LongAdder> counts = new EnumMap<>(RemovalCause.class);
+
+    public Listener() {
+        for (RemovalCause cause : RemovalCause.values()) {
+            counts.put(cause, new LongAdder());
+        }
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<K, V> notification) {
+        counts.get(notification.getCause()).increment();
+    }
+
+    /**
+     * @param cause 删除原因
+     * @return 因为该原因被删除的缓存项数量
+     */
+    public long count(RemovalCause cause) {
+        return counts.get(cause).sum();
+    }
+
+    /**
+     * @return 被淘汰（非主动删除）的缓存项数量
+     */
+    public long evictionCount() {
+        long evicted = 0L;
+        for (Map.Entry<RemovalCause, LongAdder> entry : counts.entrySet()) {
+            if (entry.getKey() != RemovalCause.EXPLICIT && entry.getKey() != RemovalCause.REPLACED) {
+                evicted += entry.getValue().sum();
+            }
+        }
+        return evicted;
+    }
 
     @Override
-    public void onRemoval(RemovalNotification notification) {
-        System.out.println(notification.getKey() + " has been removed.");
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<RemovalCause, LongAdder> entry : counts.entrySet()) {
+            long count = entry.getValue().sum();
+            if (count > 0) {
+                builder.append(builder.length() == 0 ? "" : ", ").append(entry.getKey()).append('=').append(count);
+            }
+        }
+        return "removals{" + builder + "}";
     }
 
 }
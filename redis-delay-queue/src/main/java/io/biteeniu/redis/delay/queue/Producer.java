@@ -1,19 +1,298 @@
 package io.biteeniu.redis.delay.queue;
 
+import io.biteeniu.redis.delay.queue.codec.BinaryJobCodec;
+import io.biteeniu.redis.delay.queue.codec.JobCodec;
+import io.biteeniu.redis.delay.queue.shard.Bucket;
+import io.biteeniu.redis.delay.queue.shard.BucketRouter;
+import io.biteeniu.redis.delay.queue.utils.JobScripts;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
- * 消息生产者
+ * 消息生产者：多个线程并发提交任务，由发送线程合并成批，每批通过一个管道（pipeline）中的MULTI/EXEC事务写入Redis
+ * 1. 与Kafka生产者的batch.size/linger.ms类似：凑满batchSize个任务，或者第一个任务等待了lingerMs毫秒，就发送一批
+ * 2. 每批只有3条写命令（JOB_POOL、JOB_META各一条HMSET，JOB_DELAY_BUCKET一条ZADD），整批一次网络往返，并且原子生效；
+ *    ZADD之后紧跟一次唤醒脚本，新任务成为延迟桶的队首时通过Pub/Sub唤醒等待中的调度器
+ * 3. 每次提交返回一个CompletableFuture，所在批次写入成功后完成（值为任务ID），写入失败则异常完成
+ * 4. 缓冲区有界：缓冲区满时publish()阻塞，直到发送线程腾出空间（背压）
+ * 5. 延迟桶分片时（ShardedBuckets），一批任务按节点分组，每个节点一个管道、一个事务，ZADD按延迟桶分组；
+ *    一个节点写入失败只影响该节点上的任务
+ * 生产者需要在独立的线程中运行：new Thread(producer).start()
  * @author luzhanghong
  * @date 2018-07-19 15:31
  */
 public class Producer implements Runnable {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(Producer.class);
+    private final static long IDLE_POLL_MILLIS = 100L;  // 缓冲区为空时等待的时间：超时后检查一次是否需要停止
+    private final static byte[] JOB_POOL = SafeEncoder.encode(RedisHelper.JOB_POOL);
+    private final BucketRouter router;
+    private final JobCodec codec;
+    private final JobCache cache;
+    private final BlockingQueue<PendingJob> buffer;
+    private final int batchSize;
+    private final long lingerNanos;
+    private volatile boolean running = true;
+    private volatile boolean stopped;  // 发送线程已经开始最后一次排空缓冲区：此后放入缓冲区的任务由publish()自己取回
+
+    public Producer(JedisPool jedisPool) {
+        this(jedisPool, new BinaryJobCodec(), 500, 5L, 10000);
+    }
+
+    /**
+     * 构造函数
+     * @param jedisPool Jedis连接池
+     * @param codec 任务编解码器：必须与消费者使用的编解码器兼容
+     * @param batchSize 每批最多的任务数
+     * @param lingerMs 一批中第一个任务最多等待的时间，单位毫秒
+     * @param bufferCapacity 缓冲区容量：最多有多少个已提交但还未发送的任务
+     */
+    public Producer(JedisPool jedisPool, JobCodec codec, int batchSize, long lingerMs, int bufferCapacity) {
+        this(new Bucket("default", RedisHelper.JOB_DELAY_BUCKET, jedisPool), codec, batchSize, lingerMs, bufferCapacity);
+    }
+
+    /**
+     * 构造函数
+     * @param router 延迟桶路由：决定每个任务写入哪个节点上的哪个延迟桶
+     * @param codec 任务编解码器：必须与消费者使用的编解码器兼容
+     * @param batchSize 每批最多的任务数
+     * @param lingerMs 一批中第一个任务最多等待的时间，单位毫秒
+     * @param bufferCapacity 缓冲区容量：最多有多少个已提交但还未发送的任务
+     */
+    public Producer(BucketRouter router, JobCodec codec, int batchSize, long lingerMs, int bufferCapacity) {
+        this(router, codec, null, batchSize, lingerMs, bufferCapacity);
+    }
+
+    /**
+     * 构造函数
+     * @param router 延迟桶路由：决定每个任务写入哪个节点上的哪个延迟桶
+     * @param codec 任务编解码器：必须与消费者使用的编解码器兼容
+     * @param cache 任务内容的近缓存：写入成功的任务内容放入缓存，与同一进程中的消费者共用；null表示不使用
+     * @param batchSize 每批最多的任务数
+     * @param lingerMs 一批中第一个任务最多等待的时间，单位毫秒
+     * @param bufferCapacity 缓冲区容量：最多有多少个已提交但还未发送的任务
+     */
+    public Producer(BucketRouter router, JobCodec codec, JobCache cache, int batchSize, long lingerMs, int bufferCapacity) {
+        this.router = router;
+        this.codec = codec;
+        this.cache = cache;
+        this.batchSize = Math.max(batchSize, 1);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+    }
+
+    /**
+     * 提交一个任务：缓冲区满时阻塞
+     * @param job 任务
+     * @return 任务写入Redis之后完成，值为任务ID
+     * @throws InterruptedException 等待缓冲区空间的过程中线程被中断
+     * @throws IllegalArgumentException 任务没有ID或者类型，或者TTR为负数
+     * @throws IllegalStateException 生产者已经停止
+     */
+    public CompletableFuture<String> publish(Job job) throws InterruptedException {
+        job.validate();
+        if (!running) {
+            throw new IllegalStateException("Producer has been shutdown");
+        }
+        long delay = job.getDelay() == null ? 0L : job.getDelay() * 1000L;
+        PendingJob pending = new PendingJob(job, System.currentTimeMillis() + delay);
+        // 发送线程退出后缓冲区不会再腾出空间，不能无限期阻塞
+        while (!buffer.offer(pending, IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (stopped) {
+                throw new IllegalStateException("Producer has been shutdown");
+            }
+        }
+        // 与shutdown()竞争时任务可能在发送线程最后一次排空之后才放入缓冲区：取回成功说明没有被发送，否则由发送线程发送
+        if (stopped && buffer.remove(pending)) {
+            throw new IllegalStateException("Producer has been shutdown");
+        }
+        return pending.future;
+    }
 
     @Override
     public void run() {
+        LOGGER.info("Producer started.");
+        List<PendingJob> batch = new ArrayList<>(batchSize);
+        try {
+            // 停止后继续把缓冲区中剩余的任务发送完
+            while (running || !buffer.isEmpty()) {
+                PendingJob first = buffer.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    if (buffer.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingJob next = remaining > 0 ? buffer.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                sendSafely(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // 被中断后不能再调用可中断的poll()：保留中断标志，下面用drainTo()把剩余的任务发送完后退出
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Producer interrupted, sending {} buffered jobs before exit.", batch.size() + buffer.size());
+        } finally {
+            // 无论以何种方式退出循环都要做最后一次排空：先设置stopped，之后放入缓冲区的任务由publish()取回，不会无人发送
+            running = false;
+            stopped = true;
+            buffer.drainTo(batch, batchSize - batch.size());
+            while (!batch.isEmpty()) {
+                sendSafely(batch);
+                batch.clear();
+                buffer.drainTo(batch, batchSize);
+            }
+            LOGGER.info("Producer stopped.");
+        }
+    }
+
+    /**
+     * 停止生产者：不再接受新的任务，发送线程把缓冲区中剩余的任务发送完之后退出；中断发送线程的效果相同
+     */
+    public void shutdown() {
+        running = false;
+    }
+
+    /**
+     * 写入一批任务：发送过程中的意外异常只让这一批中尚未完成的Future异常完成，发送线程继续运行
+     */
+    private void sendSafely(List<PendingJob> batch) {
+        try {
+            send(batch);
+        } catch (RuntimeException e) {
+            LOGGER.error("Publish batch of {} jobs failed unexpectedly.", batch.size(), e);
+            for (PendingJob pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 按节点分组写入一批任务：每个任务单独路由和编码，失败的任务（例如任务内容无法序列化）只让自己的Future异常完成
+     */
+    private void send(List<PendingJob> batch) {
+        Map<JedisPool, Map<String, List<PendingJob>>> groups = new IdentityHashMap<>();
+        for (PendingJob pending : batch) {
+            Bucket bucket;
+            try {
+                bucket = router.route(pending.job.getId());
+                pending.key = SafeEncoder.encode(pending.job.getId());
+                pending.body = codec.encode(pending.job);
+            } catch (RuntimeException e) {
+                LOGGER.error("Encode job {} failed.", pending.job.getId(), e);
+                pending.future.completeExceptionally(e);
+                continue;
+            }
+            groups.computeIfAbsent(bucket.getPool(), pool -> new HashMap<>())
+                    .computeIfAbsent(bucket.getKey(), key -> new ArrayList<>())
+                    .add(pending);
+        }
+        for (Map.Entry<JedisPool, Map<String, List<PendingJob>>> group : groups.entrySet()) {
+            send(group.getKey(), group.getValue());
+        }
+    }
+
+    /**
+     * 在一个管道中以MULTI/EXEC事务向一个节点写入一组任务，完成这些任务的Future
+     * @param jedisPool 节点的连接池
+     * @param buckets 延迟桶的键到该延迟桶中的任务的映射
+     */
+    private void send(JedisPool jedisPool, Map<String, List<PendingJob>> buckets) {
+        Map<byte[], byte[]> jobPool = new HashMap<>();
+        Map<String, String> jobMeta = new HashMap<>();
+        Map<String, Map<String, Double>> jobBuckets = new HashMap<>(buckets.size() * 2);
+        Map<String, Long> earliest = new HashMap<>(buckets.size() * 2);
+        for (Map.Entry<String, List<PendingJob>> bucket : buckets.entrySet()) {
+            Map<String, Double> jobBucket = new HashMap<>(bucket.getValue().size() * 2);
+            long min = Long.MAX_VALUE;
+            for (PendingJob pending : bucket.getValue()) {
+                String id = pending.job.getId();
+                jobPool.put(pending.key, pending.body);
+                jobMeta.put(id, pending.job.toMeta());
+                jobBucket.put(id, (double) pending.expiredAt);
+                min = Math.min(min, pending.expiredAt);
+            }
+            jobBuckets.put(bucket.getKey(), jobBucket);
+            earliest.put(bucket.getKey(), min);
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            pipeline.multi();
+            pipeline.hmset(JOB_POOL, jobPool);
+            pipeline.hmset(RedisHelper.JOB_META, jobMeta);
+            for (Map.Entry<String, Map<String, Double>> jobBucket : jobBuckets.entrySet()) {
+                String key = jobBucket.getKey();
+                pipeline.zadd(key, jobBucket.getValue());
+                pipeline.eval(JobScripts.WAKE_SCHEDULER.getScript(), Collections.singletonList(key),
+                        Arrays.asList(RedisHelper.wakeupChannel(key), String.valueOf(earliest.get(key))));
+            }
+            Response<List<Object>> replies = pipeline.exec();
+            pipeline.sync();
+            for (Object reply : replies.get()) {
+                if (reply instanceof Exception) {
+                    throw (Exception) reply;
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.error("Publish batch of {} jobs failed.", jobMeta.size(), e);
+            for (List<PendingJob> pendings : buckets.values()) {
+                for (PendingJob pending : pendings) {
+                    pending.future.completeExceptionally(e);
+                }
+            }
+            return;
+        }
+        for (List<PendingJob> pendings : buckets.values()) {
+            for (PendingJob pending : pendings) {
+                if (cache != null) {
+                    cache.put(pending.job, pending.body, pending.expiredAt);
+                }
+                pending.future.complete(pending.job.getId());
+            }
+        }
+    }
+
+    /**
+     * 已提交但还未发送的任务
+     */
+    private static class PendingJob {
+
+        private final Job job;
+        private final long expiredAt;  // 到期时刻：提交时计算，单位毫秒
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+        private byte[] key;            // 编码后的任务ID：发送时计算
+        private byte[] body;           // 编码后的任务内容：发送时计算
+
+        PendingJob(Job job, long expiredAt) {
+            this.job = job;
+            this.expiredAt = expiredAt;
+        }
 
     }
 
@@ -0,0 +1,93 @@
+package io.biteeniu.redis.delay.queue;
+
+import io.biteeniu.redis.delay.queue.utils.JobOperations;
+import io.biteeniu.redis.delay.queue.utils.JobScripts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+/**
+ * 预留超时回收器：周期性地将TTR已经到期但没有被确认的任务（消费者崩溃、处理超时）重新投递
+ * 1. 每次回收是一次Lua脚本调用，最多处理batchSize个任务，不需要按任务逐个往返
+ * 2. 脚本只查询预留集合中分值不大于当前时间的一段（ZRANGEBYSCORE ... LIMIT），没有超时任务时代价是O(log N)，与在途的预留数量基本无关
+ * 3. 回收的任务放回延迟桶，分值为当前时间，由调度器立即移动到就绪队列；设置了重试策略的任务同样计入失败次数，按策略退避或者移入死信集合
+ * @author luzhanghong
+ * @date 2026-10-18 20:50
+ */
+public class Reaper implements Runnable {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(Reaper.class);
+    private final JedisPool jedisPool;
+    private final int batchSize;
+    private final long sweepInterval;
+    private volatile boolean running = true;
+
+    public Reaper(JedisPool jedisPool) {
+        this(jedisPool, JobScripts.MAX_BATCH_SIZE, 1000L);
+    }
+
+    /**
+     * 构造函数
+     * @param jedisPool Jedis连接池
+     * @param batchSize 每次脚本调用最多回收的任务数
+     * @param sweepInterval 两次回收之间的间隔，单位毫秒
+     */
+    public Reaper(JedisPool jedisPool, int batchSize, long sweepInterval) {
+        this.jedisPool = jedisPool;
+        this.batchSize = Math.min(Math.max(batchSize, 1), JobScripts.MAX_BATCH_SIZE);
+        this.sweepInterval = sweepInterval;
+    }
+
+    @Override
+    public void run() {
+        LOGGER.info("Reaper started.");
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                int requeued = sweep();
+                if (requeued > 0) {
+                    LOGGER.info("Reaper requeued or dead-lettered {} expired reservations.", requeued);
+                }
+                Thread.sleep(sweepInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOGGER.error("Requeue expired reservations failed.", e);
+                sleep(sweepInterval);
+            }
+        }
+        LOGGER.info("Reaper stopped.");
+    }
+
+    /**
+     * 回收所有预留超时的任务：一次脚本调用回收满batchSize个任务时继续下一次调用
+     * @return 重新投递的任务数
+     */
+    public int sweep() {
+        int total = 0;
+        try (Jedis jedis = jedisPool.getResource()) {
+            int requeued;
+            do {
+                requeued = JobOperations.requeueExpired(jedis, batchSize);
+                total += requeued;
+            } while (requeued == batchSize && running);
+        }
+        return total;
+    }
+
+    /**
+     * 停止回收器
+     */
+    public void shutdown() {
+        running = false;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
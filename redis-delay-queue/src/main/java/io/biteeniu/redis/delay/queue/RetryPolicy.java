@@ -0,0 +1,56 @@
+package io.biteeniu.redis.delay.queue;
+
+/**
+ * 任务的重试策略：处理失败（拒绝或者TTR超时）后按指数退避加随机抖动延迟重新投递，失败次数达到上限后移入死信集合
+ * 第n次失败后的延迟：d = min(maxBackoff, initialBackoff * 2^(n-1))，实际延迟在[d/2, d)之间均匀分布（equal jitter），
+ * 既保证了最小间隔，又能把同一时刻失败的大量任务打散，避免它们在同一时刻再次集中投递
+ * 重试策略随调度信息写入JOB_META，由Lua脚本在拒绝任务的同一次调用中计算延迟，不增加网络往返
+ * @author luzhanghong
+ * @date 2026-10-19 02:00
+ */
+public final class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long initialBackoff;
+    private final long maxBackoff;
+
+    /**
+     * 构造函数
+     * @param maxAttempts 最多投递的次数（包括第一次），达到后不再重试而是移入死信集合；0表示不限制
+     * @param initialBackoff 第一次失败后的退避时间，单位毫秒
+     * @param maxBackoff 退避时间的上限，单位毫秒
+     */
+    public RetryPolicy(int maxAttempts, long initialBackoff, long maxBackoff) {
+        if (maxAttempts < 0 || initialBackoff < 0 || maxBackoff < initialBackoff) {
+            throw new IllegalArgumentException("Invalid retry policy: " + maxAttempts + "," + initialBackoff + "," + maxBackoff);
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    /**
+     * @return 写入调度信息的格式："最多投递次数,初始退避,退避上限"
+     */
+    public String toMeta() {
+        return maxAttempts + "," + initialBackoff + "," + maxBackoff;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{maxAttempts=" + maxAttempts + ", initialBackoff=" + initialBackoff + ", maxBackoff=" + maxBackoff + "}";
+    }
+
+}
@@ -0,0 +1,111 @@
+package io.biteeniu.redis.delay.queue;
+
+import io.biteeniu.redis.delay.queue.utils.JobOperations;
+import io.biteeniu.redis.delay.queue.utils.JobScripts;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
+import io.biteeniu.redis.delay.queue.utils.Wakeup;
+import io.biteeniu.redis.delay.queue.utils.WakeupSubscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+/**
+ * 任务调度器：将到期的任务ID从延迟桶（JOB_DELAY_BUCKET）原子地移动到各个主题的就绪队列
+ * 1. 每次移动由一次Lua脚本调用完成（EVALSHA），不管移动多少个任务都只有一次网络往返
+ * 2. 脚本在Redis中原子执行，可以部署多个调度器实例做高可用，同一个任务不会被移动两次
+ * 3. 一次移动满batchSize个任务说明可能还有积压，立即进行下一次移动；否则查看延迟桶的队首，
+ *    一直等待到队首任务到期（最长maxWait毫秒），而不是固定间隔轮询：到期的任务几乎没有调度延迟，空闲时也几乎没有Redis请求
+ * 4. 生产者写入的任务比当前队首更早到期时，通过唤醒频道（Pub/Sub）提前唤醒调度器；唤醒消息丢失时由maxWait兜底
+ * 单个Redis节点、单个延迟桶的部署使用本调度器；延迟桶分片到多个有序集合和多个节点时使用ShardedScheduler
+ * @author luzhanghong
+ * @date 2026-10-18 19:55
+ */
+public class Scheduler implements Runnable {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(Scheduler.class);
+    private final JedisPool jedisPool;
+    private final int batchSize;
+    private final long maxWait;
+    private final Wakeup wakeup = new Wakeup();
+    private final WakeupSubscriber subscriber;
+    private volatile boolean running = true;
+
+    public Scheduler(JedisPool jedisPool) {
+        this(jedisPool, 500, 1000L);
+    }
+
+    /**
+     * 构造函数
+     * @param jedisPool Jedis连接池：订阅唤醒频道会额外占用一个连接
+     * @param batchSize 每次最多移动的任务数
+     * @param maxWait 没有积压时两次移动之间最长的等待时间，单位毫秒
+     */
+    public Scheduler(JedisPool jedisPool, int batchSize, long maxWait) {
+        this.jedisPool = jedisPool;
+        this.batchSize = Math.min(Math.max(batchSize, 1), JobScripts.MAX_BATCH_SIZE);
+        this.maxWait = Math.max(maxWait, 1L);
+        String channel = RedisHelper.wakeupChannel(RedisHelper.JOB_DELAY_BUCKET);
+        this.subscriber = new WakeupSubscriber(jedisPool, channel, wakeup, channel::equals);
+    }
+
+    @Override
+    public void run() {
+        LOGGER.info("Scheduler started.");
+        Thread subscriberThread = new Thread(subscriber, Thread.currentThread().getName() + "-wakeup");
+        subscriberThread.setDaemon(true);
+        subscriberThread.start();
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                // 先清除唤醒信号再移动：移动之后写入的更早到期的任务一定会唤醒下面的等待
+                wakeup.clear();
+                long wait = moveDueJobs();
+                if (wait > 0) {
+                    wakeup.await(wait);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOGGER.error("Move due jobs failed.", e);
+                sleep(maxWait);
+            }
+        }
+        subscriber.close();
+        LOGGER.info("Scheduler stopped.");
+    }
+
+    /**
+     * 将到期的任务移动到就绪队列，并计算下一次移动之前需要等待的时间
+     * @return 需要等待的时间，单位毫秒：0表示还有积压，应当立即进行下一次移动
+     */
+    public long moveDueJobs() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            if (JobOperations.moveDueJobs(jedis, RedisHelper.JOB_DELAY_BUCKET, batchSize) >= batchSize) {
+                return 0L;
+            }
+            long next = JobOperations.nextDueTime(jedis, RedisHelper.JOB_DELAY_BUCKET);
+            if (next < 0) {
+                return maxWait;
+            }
+            // 队首已经到期（移动之后刚写入，或者生产者的时钟略快）时也至少等待1毫秒，避免时钟偏差造成空转
+            return Math.min(Math.max(next - System.currentTimeMillis(), 1L), maxWait);
+        }
+    }
+
+    /**
+     * 停止调度器：当前这次移动完成之后退出
+     */
+    public void shutdown() {
+        running = false;
+        wakeup.signal();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
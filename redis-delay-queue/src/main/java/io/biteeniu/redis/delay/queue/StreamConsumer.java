@@ -0,0 +1,337 @@
+package io.biteeniu.redis.delay.queue;
+
+import io.biteeniu.redis.delay.queue.codec.BinaryJobCodec;
+import io.biteeniu.redis.delay.queue.codec.JobCodec;
+import io.biteeniu.redis.delay.queue.utils.JobOperations;
+import io.biteeniu.redis.delay.queue.utils.JobScripts;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
+import io.biteeniu.redis.delay.queue.utils.Wakeup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.StreamEntry;
+import redis.clients.jedis.StreamEntryID;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 就绪流消费者：就绪队列的Stream后端，通过消费者组（XREADGROUP）读取到期的任务，可以与Dispatcher按主题混合使用
+ * 1. 启动时为每个注册的主题创建消费者组并登记主题的后端，调度器随后把该主题到期的任务追加到就绪流（而不是就绪队列）
+ * 2. 一次XREADGROUP BLOCK同时等待所有主题的就绪流，新条目追加后立即返回；读取即预留，未确认的条目由消费者组的
+ *    待确认列表（PEL）跟踪，不需要预留集合和Reaper
+ * 3. 确认是一次脚本调用：XACK + XDEL，然后删除任务数据；拒绝和处理超时的任务按重试策略放回延迟桶，或者移入死信集合
+ * 4. 每隔sweepInterval通过XPENDING检查最早投递的一批未确认条目，投递超过TTR的条目被回收（消费者崩溃、处理超时）
+ * 5. 与Dispatcher相同：工作线程数限制同时处理的任务数，许可用完时不再读取新的条目；有任务正在处理时XREADGROUP最多阻塞50毫秒，
+ *    以便及时提交它们的确认
+ * 注意：与就绪队列一样，就绪流位于延迟桶所在的节点，分片部署时每个节点都需要一个StreamConsumer
+ * @author luzhanghong
+ * @date 2026-10-19 02:40
+ */
+public class StreamConsumer implements Runnable {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(StreamConsumer.class);
+    private final static long BLOCK_TIMEOUT_MILLIS = 1000L;  // 没有任务正在处理时XREADGROUP的阻塞时间：超时后检查一次是否需要停止
+    private final static long BUSY_WAIT_MILLIS = 50L;        // 有任务正在处理时最长的阻塞时间：超时后提交已经完成的任务的确认
+    private final JedisPool jedisPool;
+    private final JobCodec codec;
+    private final JobCache cache;
+    private final String consumerName;
+    private final int threads;
+    private final int batchSize;
+    private final long defaultTtr;
+    private final long retryDelay;
+    private final long sweepInterval;
+    private final Map<String, JobHandler> handlers = new LinkedHashMap<>();
+    private final Semaphore workers;
+    private final Wakeup completed = new Wakeup();
+    private final ConcurrentLinkedQueue<Delivery> acks = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Delivery> nacks = new ConcurrentLinkedQueue<>();
+    private ExecutorService executor;
+    private long nextSweep;
+    private volatile boolean running = true;
+
+    /**
+     * 构造函数：8个工作线程，每次最多读取100个条目，默认TTR 30秒，处理失败1秒后重新投递，每秒检查一次处理超时的条目
+     * @param jedisPool Jedis连接池
+     */
+    public StreamConsumer(JedisPool jedisPool) {
+        this(jedisPool, new BinaryJobCodec(), null, 8, 100, 30000L, 1000L, 1000L);
+    }
+
+    /**
+     * 构造函数
+     * @param jedisPool Jedis连接池
+     * @param codec 任务编解码器：必须与生产者使用的编解码器兼容
+     * @param cache 任务内容的近缓存，与同一进程中的生产者共用；null表示不使用
+     * @param threads 工作线程数：同时处理的任务总数的上限
+     * @param batchSize 每次XREADGROUP最多读取的条目数
+     * @param defaultTtr 任务未设置TTR时使用的TTR，单位毫秒
+     * @param retryDelay 没有重试策略的任务处理失败后重新投递的延迟时间，单位毫秒
+     * @param sweepInterval 两次检查处理超时的条目之间的间隔，单位毫秒
+     */
+    public StreamConsumer(JedisPool jedisPool, JobCodec codec, JobCache cache, int threads, int batchSize, long defaultTtr,
+                          long retryDelay, long sweepInterval) {
+        this.jedisPool = jedisPool;
+        this.codec = codec;
+        this.cache = cache;
+        this.consumerName = "consumer-" + UUID.randomUUID().toString().substring(0, 8);
+        this.threads = Math.max(threads, 1);
+        this.batchSize = Math.min(Math.max(batchSize, 1), JobScripts.MAX_BATCH_SIZE);
+        this.defaultTtr = defaultTtr;
+        this.retryDelay = retryDelay;
+        this.sweepInterval = sweepInterval;
+        this.workers = new Semaphore(this.threads);
+    }
+
+    /**
+     * 注册主题的处理器：必须在消费者启动之前调用；启动时该主题改用就绪流
+     * @param topic 主题
+     * @param handler 处理器
+     * @return 消费者本身
+     */
+    public synchronized StreamConsumer register(String topic, JobHandler handler) {
+        if (executor != null) {
+            throw new IllegalStateException("StreamConsumer has been started");
+        }
+        handlers.put(topic, handler);
+        return this;
+    }
+
+    @Override
+    public void run() {
+        Map.Entry<String, StreamEntryID>[] streams;
+        Map<String, String> topicsByStream = new HashMap<>();
+        synchronized (this) {
+            if (handlers.isEmpty()) {
+                throw new IllegalStateException("At least one topic handler is required");
+            }
+            streams = newStreams(handlers.size());
+            int i = 0;
+            for (String topic : handlers.keySet()) {
+                String streamKey = RedisHelper.streamKey(topic);
+                streams[i++] = new AbstractMap.SimpleImmutableEntry<>(streamKey, StreamEntryID.UNRECEIVED_ENTRY);
+                topicsByStream.put(streamKey, topic);
+            }
+            AtomicInteger index = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(threads,
+                    runnable -> new Thread(runnable, "stream-worker-" + index.incrementAndGet()));
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            for (String topic : handlers.keySet()) {
+                JobOperations.useStream(jedis, topic);
+            }
+        }
+        LOGGER.info("StreamConsumer {} started with {} topics and {} workers.", consumerName, streams.length, threads);
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                consumeOnce(streams, topicsByStream);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOGGER.error("Consume streams failed.", e);
+                sleep(BUSY_WAIT_MILLIS);
+            }
+        }
+        executor.shutdown();
+        try {
+            // 等待已经读取的任务处理完成，提交它们的确认和拒绝；没有未确认的条目时从消费者组中删除自己
+            executor.awaitTermination(defaultTtr, TimeUnit.MILLISECONDS);
+            try (Jedis jedis = jedisPool.getResource()) {
+                flush(jedis);
+                for (String topic : handlers.keySet()) {
+                    String streamKey = RedisHelper.streamKey(topic);
+                    if (jedis.xpending(streamKey, RedisHelper.JOB_STREAM_GROUP, null, null, 1, consumerName).isEmpty()) {
+                        jedis.xgroupDelConsumer(streamKey, RedisHelper.JOB_STREAM_GROUP, consumerName);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.error("Flush acknowledgements failed.", e);
+        }
+        LOGGER.info("StreamConsumer {} stopped.", consumerName);
+    }
+
+    /**
+     * 停止消费者：不再读取新的条目，已经读取的任务处理完成之后退出
+     */
+    public void shutdown() {
+        running = false;
+        completed.signal();
+    }
+
+    public String getConsumerName() {
+        return consumerName;
+    }
+
+    /**
+     * 一轮消费：提交确认和拒绝，定期回收处理超时的条目，然后在有空闲许可时读取新的条目
+     */
+    private void consumeOnce(Map.Entry<String, StreamEntryID>[] streams, Map<String, String> topicsByStream)
+            throws InterruptedException {
+        completed.clear();
+        int free = workers.availablePermits();
+        try (Jedis jedis = jedisPool.getResource()) {
+            flush(jedis);
+            long now = System.currentTimeMillis();
+            if (now >= nextSweep) {
+                nextSweep = now + sweepInterval;
+                for (String topic : handlers.keySet()) {
+                    int reclaimed = JobOperations.reclaimStalled(jedis, topic, JobScripts.MAX_BATCH_SIZE, defaultTtr);
+                    if (reclaimed > 0) {
+                        LOGGER.info("Reclaimed {} stalled entries of topic {}.", reclaimed, topic);
+                    }
+                }
+            }
+            if (free > 0) {
+                // COUNT对每个流分别生效，按流的数量均分空闲许可，一次读取的条目总数基本不超过空闲许可
+                int count = Math.max(Math.min(free, batchSize) / streams.length, 1);
+                long block = free == threads ? BLOCK_TIMEOUT_MILLIS : BUSY_WAIT_MILLIS;
+                List<Map.Entry<String, List<StreamEntry>>> result =
+                        jedis.xreadGroup(RedisHelper.JOB_STREAM_GROUP, consumerName, count, block, false, streams);
+                if (result != null) {
+                    for (Map.Entry<String, List<StreamEntry>> stream : result) {
+                        dispatch(jedis, topicsByStream.get(stream.getKey()), stream.getValue());
+                    }
+                }
+                return;
+            }
+        }
+        // 背压：许可用完了，等待任意一个任务处理完成
+        completed.await(BUSY_WAIT_MILLIS);
+    }
+
+    /**
+     * 批量读取任务内容，把任务交给工作线程
+     */
+    private void dispatch(Jedis jedis, String topic, List<StreamEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(entries.size());
+        for (StreamEntry entry : entries) {
+            ids.add(entry.getFields().get("id"));
+        }
+        List<byte[]> bodies = cache != null ? cache.load(jedis, ids) : JobOperations.loadBodies(jedis, ids);
+        JobHandler handler = handlers.get(topic);
+        for (int i = 0; i < entries.size(); i++) {
+            Delivery delivery = new Delivery(topic, entries.get(i).getID().toString(), ids.get(i));
+            byte[] body = bodies.get(i);
+            if (body == null) {
+                // 任务已经被删除：确认以清理流条目
+                acks.add(delivery);
+                continue;
+            }
+            Job job;
+            try {
+                job = codec.decode(body);
+            } catch (Exception e) {
+                LOGGER.error("Decode job {} failed.", delivery.id, e);
+                nacks.add(delivery);
+                continue;
+            }
+            // 读取的条目数可能略多于空闲许可（每个流至少读取1个），此时等待其他任务处理完成
+            workers.acquireUninterruptibly();
+            executor.execute(() -> handle(handler, delivery, job));
+        }
+    }
+
+    private void handle(JobHandler handler, Delivery delivery, Job job) {
+        try {
+            handler.handle(job);
+            acks.add(delivery);
+        } catch (Exception e) {
+            LOGGER.error("Handle job {} of topic {} failed.", delivery.id, delivery.topic, e);
+            nacks.add(delivery);
+        } finally {
+            workers.release();
+            completed.signal();
+        }
+    }
+
+    /**
+     * 按主题批量提交已经处理完成的任务的确认和拒绝
+     */
+    private void flush(Jedis jedis) {
+        Map<String, List<String>> byTopic;
+        while (!(byTopic = drain(acks)).isEmpty()) {
+            for (Map.Entry<String, List<String>> entry : byTopic.entrySet()) {
+                JobOperations.streamAck(jedis, entry.getKey(), entry.getValue());
+                if (cache != null) {
+                    List<String> ids = new ArrayList<>(entry.getValue().size() / 2);
+                    for (int i = 1; i < entry.getValue().size(); i += 2) {
+                        ids.add(entry.getValue().get(i));
+                    }
+                    cache.invalidate(ids);
+                }
+            }
+        }
+        while (!(byTopic = drain(nacks)).isEmpty()) {
+            for (Map.Entry<String, List<String>> entry : byTopic.entrySet()) {
+                List<String> dead = JobOperations.streamNack(jedis, entry.getKey(), entry.getValue(), retryDelay);
+                if (!dead.isEmpty()) {
+                    LOGGER.warn("Jobs {} reached max attempts and were moved to dead letters.", dead);
+                }
+            }
+        }
+    }
+
+    /**
+     * 取出最多MAX_BATCH_SIZE个投递，按主题分组为"流条目ID, 任务ID"交替排列的列表
+     */
+    private static Map<String, List<String>> drain(ConcurrentLinkedQueue<Delivery> queue) {
+        Map<String, List<String>> byTopic = new HashMap<>();
+        Delivery delivery;
+        int count = 0;
+        while (count < JobScripts.MAX_BATCH_SIZE && (delivery = queue.poll()) != null) {
+            List<String> entries = byTopic.computeIfAbsent(delivery.topic, topic -> new ArrayList<>());
+            entries.add(delivery.entryId);
+            entries.add(delivery.id);
+            count++;
+        }
+        return byTopic;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map.Entry<String, StreamEntryID>[] newStreams(int size) {
+        return new Map.Entry[size];
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 一次投递：主题、流条目ID和任务ID
+     */
+    private static final class Delivery {
+
+        private final String topic;
+        private final String entryId;
+        private final String id;
+
+        Delivery(String topic, String entryId, String id) {
+            this.topic = topic;
+            this.entryId = entryId;
+            this.id = id;
+        }
+
+    }
+
+}
@@ -0,0 +1,119 @@
+package io.biteeniu.redis.delay.queue.benchmark;
+
+import io.biteeniu.common.metrics.LatencyHistogram;
+import io.biteeniu.common.redis.RedisConfig;
+import io.biteeniu.common.redis.RedisPool;
+import io.biteeniu.redis.delay.queue.BulkScheduler;
+import io.biteeniu.redis.delay.queue.Job;
+import io.biteeniu.redis.delay.queue.codec.BinaryJobCodec;
+import io.biteeniu.redis.delay.queue.codec.JobCodec;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量调度基准测试：写入N个延迟1小时的任务，同时另一个客户端每毫秒执行一次PING，统计PING的延迟（其他客户端感受到的阻塞）
+ * 1. 一次性写入：整批任务构造成一条HMSET和一条ZADD（批量调度之前的做法）
+ * 2. BulkScheduler：每块1000个任务一个管道
+ * 3. BulkScheduler按到期时间范围取消全部任务
+ * 运行方式（需要一个本地启动的redis-server，会清空当前数据库）：
+ * java -cp ... io.biteeniu.redis.delay.queue.benchmark.BulkScheduleBenchmark [redis主机] [任务数] [每秒任务数，0表示不限速]
+ * @author luzhanghong
+ * @date 2026-10-19 03:40
+ */
+public class BulkScheduleBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(BulkScheduleBenchmark.class);
+    private final static String TOPIC = "benchmark";
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int jobs = args.length > 1 ? Integer.parseInt(args[1]) : 500000;
+        double rate = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        RedisPool jedisPool = new RedisPool(new RedisConfig().setHost(host).setMaxTotal(8));
+        JobCodec codec = new BinaryJobCodec();
+
+        jedisPool.run(Jedis::flushDB);
+        probe(jedisPool, "single command", () -> {
+            long now = System.currentTimeMillis();
+            Map<byte[], byte[]> jobPool = new HashMap<>(jobs * 2);
+            Map<String, String> jobMeta = new HashMap<>(jobs * 2);
+            Map<String, Double> jobBucket = new HashMap<>(jobs * 2);
+            for (Iterator<Job> it = jobs(jobs); it.hasNext(); ) {
+                Job job = it.next();
+                jobPool.put(SafeEncoder.encode(job.getId()), codec.encode(job));
+                jobMeta.put(job.getId(), job.toMeta());
+                jobBucket.put(job.getId(), (double) (now + job.getDelay() * 1000L));
+            }
+            jedisPool.run(jedis -> {
+                jedis.hmset(SafeEncoder.encode(RedisHelper.JOB_POOL), jobPool);
+                jedis.hmset(RedisHelper.JOB_META, jobMeta);
+                jedis.zadd(RedisHelper.JOB_DELAY_BUCKET, jobBucket);
+            });
+        });
+
+        jedisPool.run(Jedis::flushDB);
+        BulkScheduler bulk = new BulkScheduler(jedisPool, codec, 1000, rate, 1000L);
+        probe(jedisPool, "bulk schedule", () -> bulk.schedule(jobs(jobs)));
+        probe(jedisPool, "bulk cancel", () -> {
+            long cancelled = bulk.cancelRange(0L, Long.MAX_VALUE);
+            if (cancelled != jobs) {
+                LOGGER.warn("Cancelled {} of {} jobs.", cancelled, jobs);
+            }
+        });
+        jedisPool.run(jedis -> LOGGER.info("Remaining: bucket {}, pool {}, metas {}", jedis.zcard(RedisHelper.JOB_DELAY_BUCKET),
+                jedis.hlen(RedisHelper.JOB_POOL), jedis.hlen(RedisHelper.JOB_META)));
+        jedisPool.close();
+    }
+
+    private static Iterator<Job> jobs(int count) {
+        return new Iterator<Job>() {
+            private int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < count;
+            }
+
+            @Override
+            public Job next() {
+                return new Job(TOPIC, 3600, 30, "reminder-" + i++);
+            }
+        };
+    }
+
+    /**
+     * 执行一个操作，同时在另一个连接上每毫秒PING一次，打印操作耗时和PING的延迟分布
+     */
+    private static void probe(RedisPool jedisPool, String name, Runnable action) throws InterruptedException {
+        LatencyHistogram ping = new LatencyHistogram();
+        boolean[] running = {true};
+        Thread prober = new Thread(() -> jedisPool.run(jedis -> {
+            while (running[0]) {
+                long start = System.nanoTime();
+                jedis.ping();
+                ping.record(System.nanoTime() - start);
+                try {
+                    Thread.sleep(1L);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }), "prober");
+        prober.start();
+        long start = System.nanoTime();
+        action.run();
+        long elapsed = System.nanoTime() - start;
+        running[0] = false;
+        prober.join();
+        LOGGER.info("[{}] {} ms, ping: {}", name, TimeUnit.NANOSECONDS.toMillis(elapsed), ping.summary(TimeUnit.MICROSECONDS));
+    }
+
+}
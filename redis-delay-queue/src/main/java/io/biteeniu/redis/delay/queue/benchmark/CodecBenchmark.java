@@ -0,0 +1,119 @@
+package io.biteeniu.redis.delay.queue.benchmark;
+
+import io.biteeniu.redis.delay.queue.Job;
+import io.biteeniu.redis.delay.queue.codec.BinaryJobCodec;
+import io.biteeniu.redis.delay.queue.codec.JobCodec;
+import io.biteeniu.redis.delay.queue.codec.JsonJobCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 编解码器基准测试：JSON vs 二进制（带主题字典）
+ * 1. 小内容（约60字节）和大内容（约4KB，二进制格式使用LZ4压缩）两种任务，统计编码、解码的耗时、每次操作分配的内存和编码后的大小
+ * 2. 指定了Redis主机时，每种格式向一个临时的Hash中写入100万个任务，统计Redis内存的增量
+ * 运行方式：
+ * java -cp ... io.biteeniu.redis.delay.queue.benchmark.CodecBenchmark [redis主机，可选] [写入Redis的任务数]
+ * @author luzhanghong
+ * @date 2026-10-18 22:30
+ */
+public class CodecBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(CodecBenchmark.class);
+    private final static int WARMUP = 200000;
+    private final static int ITERATIONS = 1000000;
+    private final static String SCRATCH_KEY = "job-pool-codec-benchmark";
+
+    public static void main(String[] args) {
+        Map<String, JobCodec> codecs = new HashMap<>();
+        codecs.put("json", new JsonJobCodec());
+        codecs.put("binary", new BinaryJobCodec(Arrays.asList("send-email", "order-timeout", "send-sms"), 512));
+        Job small = new Job("order-timeout", 1800, 30, "{\"orderId\":\"20181018000000001\",\"userId\":10086}");
+        StringBuilder large = new StringBuilder();
+        while (large.length() < 4096) {
+            large.append("{\"sku\":\"SKU-").append(large.length()).append("\",\"quantity\":1,\"price\":99.00},");
+        }
+        Job big = new Job("send-email", 60, 30, large.toString());
+        for (Map.Entry<String, JobCodec> entry : codecs.entrySet()) {
+            run(entry.getKey(), entry.getValue(), "small", small);
+            run(entry.getKey(), entry.getValue(), "large", big);
+        }
+        if (args.length > 0) {
+            int jobs = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+            try (Jedis jedis = new Jedis(args[0])) {
+                for (Map.Entry<String, JobCodec> entry : codecs.entrySet()) {
+                    redisMemory(jedis, entry.getKey(), entry.getValue(), jobs);
+                }
+            }
+        }
+    }
+
+    private static void run(String name, JobCodec codec, String size, Job job) {
+        byte[] encoded = codec.encode(job);
+        for (int i = 0; i < WARMUP; i++) {
+            codec.decode(codec.encode(job));
+        }
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            encoded = codec.encode(job);
+        }
+        long encodeNanos = System.nanoTime() - start;
+        long encodeAllocated = allocatedBytes() - allocated;
+        allocated = allocatedBytes();
+        start = System.nanoTime();
+        Job decoded = null;
+        for (int i = 0; i < ITERATIONS; i++) {
+            decoded = codec.decode(encoded);
+        }
+        long decodeNanos = System.nanoTime() - start;
+        long decodeAllocated = allocatedBytes() - allocated;
+        if (!job.getId().equals(decoded.getId()) || !job.getBody().equals(decoded.getBody())) {
+            throw new IllegalStateException(name + " codec round trip mismatch");
+        }
+        LOGGER.info("[{} {}] size: {} bytes, encode: {} ns/op ({} B/op), decode: {} ns/op ({} B/op)", name, size,
+                encoded.length, encodeNanos / ITERATIONS, encodeAllocated / ITERATIONS, decodeNanos / ITERATIONS,
+                decodeAllocated / ITERATIONS);
+    }
+
+    private static void redisMemory(Jedis jedis, String name, JobCodec codec, int jobs) {
+        byte[] key = SafeEncoder.encode(SCRATCH_KEY);
+        jedis.del(key);
+        long before = usedMemory(jedis);
+        Pipeline pipeline = jedis.pipelined();
+        for (int i = 0; i < jobs; i++) {
+            Job job = new Job("order-timeout", 1800, 30, "{\"orderId\":\"" + (20181018000000000L + i) + "\",\"userId\":10086}");
+            pipeline.hset(key, SafeEncoder.encode(job.getId()), codec.encode(job));
+            if (i % 1000 == 999) {
+                pipeline.sync();
+            }
+        }
+        pipeline.sync();
+        long after = usedMemory(jedis);
+        jedis.del(key);
+        LOGGER.info("[{}] redis memory for {} jobs: {} MB ({} B/job)", name, jobs, (after - before) >> 20,
+                (after - before) / jobs);
+    }
+
+    private static long usedMemory(Jedis jedis) {
+        for (String line : jedis.info("memory").split("\r\n")) {
+            if (line.startsWith("used_memory:")) {
+                return Long.parseLong(line.substring("used_memory:".length()));
+            }
+        }
+        return 0L;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+}
@@ -0,0 +1,119 @@
+package io.biteeniu.redis.delay.queue.benchmark;
+
+import ch.qos.logback.classic.Level;
+import io.biteeniu.common.redis.RedisConfig;
+import io.biteeniu.common.redis.RedisPool;
+import io.biteeniu.redis.delay.queue.DeadLetters;
+import io.biteeniu.redis.delay.queue.Dispatcher;
+import io.biteeniu.redis.delay.queue.Job;
+import io.biteeniu.redis.delay.queue.Producer;
+import io.biteeniu.redis.delay.queue.RetryPolicy;
+import io.biteeniu.redis.delay.queue.Scheduler;
+import io.biteeniu.redis.delay.queue.codec.BinaryJobCodec;
+import io.biteeniu.redis.delay.queue.utils.JobScripts;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 失败风暴和死信重放基准测试：N个任务全部处理失败，按重试策略（最多3次，退避10~100毫秒）重试后移入死信集合，然后通过ZSCAN全部重放
+ * 统计每次失败的投递在Redis上执行的命令数、拒绝脚本的耗时，以及重放脚本单次调用的耗时（即重放期间Redis被单个脚本阻塞的最长时间）
+ * 运行方式（需要一个本地启动的redis-server，会清空当前数据库）：
+ * java -cp ... io.biteeniu.redis.delay.queue.benchmark.DeadLetterBenchmark [redis主机] [任务数]
+ * @author luzhanghong
+ * @date 2026-10-19 02:20
+ */
+public class DeadLetterBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(DeadLetterBenchmark.class);
+    private final static String TOPIC = "benchmark";
+    private final static int MAX_ATTEMPTS = 3;
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int jobs = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        // 每次失败都会打印一条错误日志，基准测试中关闭
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Dispatcher.class)).setLevel(Level.OFF);
+        RedisPool jedisPool = new RedisPool(new RedisConfig().setHost(host).setMaxTotal(8));
+        jedisPool.run(Jedis::flushDB);
+        jedisPool.preload(JobScripts.ALL);
+
+        AtomicInteger deliveries = new AtomicInteger();
+        AtomicInteger succeeded = new AtomicInteger();
+        boolean[] failing = {true};
+        Scheduler scheduler = new Scheduler(jedisPool, 1000, 1000L);
+        Dispatcher dispatcher = new Dispatcher(jedisPool, new BinaryJobCodec(), 8, 100, 30000L, 1000L)
+                .register(TOPIC, job -> {
+                    deliveries.incrementAndGet();
+                    if (failing[0]) {
+                        throw new IllegalStateException("Benchmark failure");
+                    }
+                    succeeded.incrementAndGet();
+                }, 8);
+        Thread schedulerThread = new Thread(scheduler, "scheduler");
+        Thread dispatcherThread = new Thread(dispatcher, "dispatcher");
+        schedulerThread.start();
+        dispatcherThread.start();
+
+        Producer producer = new Producer(jedisPool);
+        Thread producerThread = new Thread(producer, "producer");
+        producerThread.start();
+        RetryPolicy retry = new RetryPolicy(MAX_ATTEMPTS, 20L, 100L);
+        CompletableFuture<String> last = null;
+        for (int i = 0; i < jobs; i++) {
+            last = producer.publish(new Job(TOPIC, 0, 30, "dead-letter-benchmark-" + i, retry));
+        }
+        last.join();
+        producer.shutdown();
+        producerThread.join();
+
+        DeadLetters deadLetters = new DeadLetters(jedisPool, 500);
+        long commandsBefore = commandsProcessed(jedisPool);
+        long start = System.nanoTime();
+        while (deadLetters.size() < jobs) {
+            Thread.sleep(10L);
+        }
+        long elapsed = System.nanoTime() - start;
+        long commands = commandsProcessed(jedisPool) - commandsBefore;
+        LOGGER.info("[failure storm] {} jobs, {} deliveries, all dead-lettered in {} ms, {} Redis commands per delivery",
+                jobs, deliveries.get(), TimeUnit.NANOSECONDS.toMillis(elapsed), String.format("%.3f", (double) commands / deliveries.get()));
+        LOGGER.info("[failure storm] nack script: {}", JobScripts.NACK_JOBS.getLatency().summary(TimeUnit.MICROSECONDS));
+
+        failing[0] = false;
+        start = System.nanoTime();
+        long replayed = deadLetters.replay();
+        long replayElapsed = System.nanoTime() - start;
+        while (succeeded.get() < jobs) {
+            Thread.sleep(10L);
+        }
+        LOGGER.info("[replay] {} dead letters replayed in {} ms, all handled after {} ms; replay script: {}",
+                replayed, TimeUnit.NANOSECONDS.toMillis(replayElapsed), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                JobScripts.REPLAY_DEAD_LETTERS.getLatency().summary(TimeUnit.MICROSECONDS));
+        scheduler.shutdown();
+        dispatcher.shutdown();
+        schedulerThread.join();
+        dispatcherThread.join();
+        jedisPool.run(jedis -> LOGGER.info("Remaining: dead letters {}, attempts {}, metas {}",
+                jedis.zcard(RedisHelper.JOB_DEAD_LETTER), jedis.hlen(RedisHelper.JOB_ATTEMPTS), jedis.hlen(RedisHelper.JOB_META)));
+        jedisPool.close();
+    }
+
+    /**
+     * @return Redis启动以来处理的命令总数（INFO stats中的total_commands_processed，包括脚本中执行的命令）
+     */
+    private static long commandsProcessed(RedisPool jedisPool) {
+        String info = jedisPool.execute(jedis -> jedis.info("stats"));
+        for (String line : info.split("\r\n")) {
+            if (line.startsWith("total_commands_processed:")) {
+                return Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+            }
+        }
+        return -1L;
+    }
+
+}
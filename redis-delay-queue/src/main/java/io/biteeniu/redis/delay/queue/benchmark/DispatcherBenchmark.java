@@ -0,0 +1,111 @@
+package io.biteeniu.redis.delay.queue.benchmark;
+
+import io.biteeniu.redis.delay.queue.Consumer;
+import io.biteeniu.redis.delay.queue.Dispatcher;
+import io.biteeniu.redis.delay.queue.Job;
+import io.biteeniu.redis.delay.queue.JobHandler;
+import io.biteeniu.redis.delay.queue.codec.BinaryJobCodec;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分发器基准测试：一个快主题（处理耗时1毫秒）和一个慢主题（处理耗时200毫秒）的任务同时就绪，
+ * 统计快主题的全部任务处理完成的耗时，对比单线程的Consumer和按主题限制并发的Dispatcher
+ * 单线程的Consumer轮流预留两个主题的任务，慢主题的每一批都会阻塞快主题；Dispatcher中慢主题只占用它自己的并发许可
+ * 运行方式（需要一个本地启动的redis-server，会删除延迟队列使用的键）：
+ * java -cp ... io.biteeniu.redis.delay.queue.benchmark.DispatcherBenchmark [redis主机] [快主题任务数] [慢主题任务数]
+ * @author luzhanghong
+ * @date 2026-10-19 00:30
+ */
+public class DispatcherBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(DispatcherBenchmark.class);
+    private final static String FAST = "benchmark-fast";
+    private final static String SLOW = "benchmark-slow";
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int fastJobs = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int slowJobs = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+        poolConfig.setMaxTotal(4);
+        JedisPool jedisPool = new JedisPool(poolConfig, host);
+
+        AtomicInteger fastDone = new AtomicInteger();
+        JobHandler fast = job -> {
+            Thread.sleep(1L);
+            fastDone.incrementAndGet();
+        };
+        JobHandler slow = job -> Thread.sleep(200L);
+
+        prepare(jedisPool, fastJobs, slowJobs);
+        Consumer consumer = new Consumer(jedisPool, job -> (FAST.equals(job.getTopic()) ? fast : slow).handle(job), FAST, SLOW);
+        Thread consumerThread = new Thread(consumer, "consumer");
+        long start = System.nanoTime();
+        consumerThread.start();
+        long consumerElapsed = await(fastDone, fastJobs, start);
+        consumer.shutdown();
+        consumerThread.join();
+
+        prepare(jedisPool, fastJobs, slowJobs);
+        fastDone.set(0);
+        Dispatcher dispatcher = new Dispatcher(jedisPool, new BinaryJobCodec(), 8, 100, 30000L, 1000L)
+                .register(FAST, fast, 4)
+                .register(SLOW, slow, 4);
+        Thread dispatcherThread = new Thread(dispatcher, "dispatcher");
+        start = System.nanoTime();
+        dispatcherThread.start();
+        long dispatcherElapsed = await(fastDone, fastJobs, start);
+        dispatcher.shutdown();
+        dispatcherThread.join();
+
+        LOGGER.info("{} fast jobs behind {} slow jobs: consumer {} ms ({} jobs/s), dispatcher {} ms ({} jobs/s)",
+                fastJobs, slowJobs, consumerElapsed / 1000000L, fastJobs * 1000000000L / consumerElapsed,
+                dispatcherElapsed / 1000000L, fastJobs * 1000000000L / dispatcherElapsed);
+        prepare(jedisPool, 0, 0);
+        jedisPool.close();
+    }
+
+    private static long await(AtomicInteger done, int jobs, long start) throws InterruptedException {
+        while (done.get() < jobs) {
+            Thread.sleep(1L);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * 清空延迟队列，并直接把两个主题的任务写入就绪队列
+     */
+    private static void prepare(JedisPool jedisPool, int fastJobs, int slowJobs) {
+        BinaryJobCodec codec = new BinaryJobCodec();
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.del(RedisHelper.JOB_POOL, RedisHelper.JOB_META, RedisHelper.JOB_DELAY_BUCKET, RedisHelper.JOB_RESERVED,
+                    RedisHelper.readyKey(FAST), RedisHelper.readyKey(SLOW));
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < Math.max(fastJobs, slowJobs); i++) {
+                if (i < slowJobs) {
+                    write(pipeline, codec, new Job(SLOW, 0, 60, "slow-" + i));
+                }
+                if (i < fastJobs) {
+                    write(pipeline, codec, new Job(FAST, 0, 60, "fast-" + i));
+                }
+            }
+            pipeline.sync();
+        }
+    }
+
+    private static void write(Pipeline pipeline, BinaryJobCodec codec, Job job) {
+        pipeline.hset(SafeEncoder.encode(RedisHelper.JOB_POOL), SafeEncoder.encode(job.getId()), codec.encode(job));
+        pipeline.hset(RedisHelper.JOB_META, job.getId(), job.toMeta());
+        pipeline.rpush(RedisHelper.readyKey(job.getTopic()), job.getId());
+    }
+
+}
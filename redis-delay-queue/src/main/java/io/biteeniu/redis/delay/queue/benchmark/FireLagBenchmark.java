@@ -0,0 +1,104 @@
+package io.biteeniu.redis.delay.queue.benchmark;
+
+import io.biteeniu.common.metrics.LatencyHistogram;
+import io.biteeniu.redis.delay.queue.Consumer;
+import io.biteeniu.redis.delay.queue.Job;
+import io.biteeniu.redis.delay.queue.Producer;
+import io.biteeniu.redis.delay.queue.Scheduler;
+import io.biteeniu.redis.delay.queue.codec.BinaryJobCodec;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 触发延迟基准测试：以稳定的速率提交延迟1~3秒的任务，统计任务从到期到被消费者处理的延迟（fire lag）分布，
+ * 然后在空闲状态下统计Redis每秒处理的命令数
+ * 任务内容为提交时计算的到期时刻，生产者的linger会使实际到期时刻略晚，因此统计值略微偏大
+ * 运行方式（需要一个本地启动的redis-server，会删除延迟队列使用的键）：
+ * java -cp ... io.biteeniu.redis.delay.queue.benchmark.FireLagBenchmark [redis主机] [每秒任务数] [持续秒数] [最长等待毫秒数]
+ * @author luzhanghong
+ * @date 2026-10-18 23:55
+ */
+public class FireLagBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(FireLagBenchmark.class);
+    private final static String TOPIC = "benchmark";
+    private final static long IDLE_SECONDS = 10L;
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        long maxWait = args.length > 3 ? Long.parseLong(args[3]) : 1000L;
+        GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+        poolConfig.setMaxTotal(8);
+        JedisPool jedisPool = new JedisPool(poolConfig, host);
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.del(RedisHelper.JOB_POOL, RedisHelper.JOB_META, RedisHelper.JOB_DELAY_BUCKET, RedisHelper.JOB_RESERVED,
+                    RedisHelper.readyKey(TOPIC));
+        }
+        LatencyHistogram lag = new LatencyHistogram();
+        AtomicInteger consumed = new AtomicInteger();
+        Scheduler scheduler = new Scheduler(jedisPool, 500, maxWait);
+        Consumer consumer = new Consumer(jedisPool, job -> {
+            lag.record(System.currentTimeMillis() - Long.parseLong((String) job.getBody()));
+            consumed.incrementAndGet();
+        }, TOPIC);
+        Producer producer = new Producer(jedisPool, new BinaryJobCodec(), 500, 0L, 10000);
+        new Thread(scheduler, "scheduler").start();
+        new Thread(consumer, "consumer").start();
+        Thread sender = new Thread(producer, "producer");
+        sender.start();
+        Thread.sleep(500L);
+
+        int jobs = rate * seconds;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long next = System.nanoTime();
+        for (int i = 0; i < jobs; i++) {
+            long delay = 1 + ThreadLocalRandom.current().nextInt(3);
+            long due = System.currentTimeMillis() + delay * 1000L;
+            producer.publish(new Job(TOPIC, (int) delay, 30, String.valueOf(due)));
+            next += intervalNanos;
+            long sleep = next - System.nanoTime();
+            if (sleep > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleep);
+            }
+        }
+        while (consumed.get() < jobs) {
+            Thread.sleep(10L);
+        }
+        LOGGER.info("[fire lag] {} jobs, max wait {} ms, p50: {} ms, p99: {} ms, p99.9: {} ms, max: {} ms", jobs, maxWait,
+                lag.percentile(50), lag.percentile(99), lag.percentile(99.9), lag.percentile(100));
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            long before = commandsProcessed(jedis);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(IDLE_SECONDS));
+            long after = commandsProcessed(jedis);
+            // 减去这里的两次INFO
+            LOGGER.info("[idle] {} commands/s with 1 scheduler and 1 consumer", (after - before - 1) / IDLE_SECONDS);
+        }
+        producer.shutdown();
+        sender.join();
+        scheduler.shutdown();
+        consumer.shutdown();
+        Thread.sleep(1500L);
+        jedisPool.close();
+    }
+
+    private static long commandsProcessed(Jedis jedis) {
+        for (String line : jedis.info("stats").split("\r\n")) {
+            if (line.startsWith("total_commands_processed:")) {
+                return Long.parseLong(line.substring("total_commands_processed:".length()));
+            }
+        }
+        return 0L;
+    }
+
+}
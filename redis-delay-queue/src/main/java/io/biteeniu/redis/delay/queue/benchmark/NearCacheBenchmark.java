@@ -0,0 +1,96 @@
+package io.biteeniu.redis.delay.queue.benchmark;
+
+import io.biteeniu.redis.delay.queue.Dispatcher;
+import io.biteeniu.redis.delay.queue.Job;
+import io.biteeniu.redis.delay.queue.JobCache;
+import io.biteeniu.redis.delay.queue.Producer;
+import io.biteeniu.redis.delay.queue.Scheduler;
+import io.biteeniu.redis.delay.queue.codec.BinaryJobCodec;
+import io.biteeniu.redis.delay.queue.shard.Bucket;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 近缓存基准测试：同一个进程中生产并消费N个任务（内容约1KB），对比不同缓存大小下读取任务内容的耗时和命中率
+ * 缓存大小为0时每个缓存项写入后立即被淘汰，相当于不使用缓存；缓存较小时部分任务在触发前被淘汰
+ * 运行方式（需要一个本地启动的redis-server，会删除延迟队列使用的键）：
+ * java -cp ... io.biteeniu.redis.delay.queue.benchmark.NearCacheBenchmark [redis主机] [任务数] [缓存大小列表，单位KB]
+ * @author luzhanghong
+ * @date 2026-10-19 01:00
+ */
+public class NearCacheBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(NearCacheBenchmark.class);
+    private final static String TOPIC = "benchmark";
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int jobs = args.length > 1 ? Integer.parseInt(args[1]) : 50000;
+        String sizes = args.length > 2 ? args[2] : "0,8192,65536";
+        GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+        poolConfig.setMaxTotal(8);
+        JedisPool jedisPool = new JedisPool(poolConfig, host);
+        StringBuilder body = new StringBuilder();
+        while (body.length() < 1024) {
+            body.append("near-cache-benchmark-");
+        }
+        for (String size : sizes.split(",")) {
+            run(jedisPool, jobs, Long.parseLong(size.trim()) << 10, body.toString());
+        }
+        jedisPool.close();
+    }
+
+    private static void run(JedisPool jedisPool, int jobs, long cacheBytes, String body) throws Exception {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.del(RedisHelper.JOB_POOL, RedisHelper.JOB_META, RedisHelper.JOB_DELAY_BUCKET, RedisHelper.JOB_RESERVED,
+                    RedisHelper.readyKey(TOPIC));
+        }
+        JobCache cache = new JobCache(cacheBytes, 3600000L, 30000L);
+        BinaryJobCodec codec = new BinaryJobCodec();
+        Producer producer = new Producer(new Bucket("default", RedisHelper.JOB_DELAY_BUCKET, jedisPool), codec, cache,
+                500, 5L, 10000);
+        Thread sender = new Thread(producer, "producer");
+        sender.start();
+        // 先全部写入再启动调度器，读取任务内容时缓存中已经有全部（或者被淘汰后剩下的）任务
+        CompletableFuture<String> last = null;
+        for (int i = 0; i < jobs; i++) {
+            last = producer.publish(new Job(TOPIC, 0, 30, body));
+        }
+        last.join();
+        producer.shutdown();
+        sender.join();
+
+        AtomicInteger consumed = new AtomicInteger();
+        Scheduler scheduler = new Scheduler(jedisPool, 1000, 1000L);
+        Dispatcher dispatcher = new Dispatcher(jedisPool, codec, cache, 8, 100, 30000L, 1000L)
+                .register(TOPIC, job -> consumed.incrementAndGet(), 8);
+        Thread schedulerThread = new Thread(scheduler, "scheduler");
+        Thread dispatcherThread = new Thread(dispatcher, "dispatcher");
+        long start = System.nanoTime();
+        schedulerThread.start();
+        dispatcherThread.start();
+        while (consumed.get() < jobs) {
+            Thread.sleep(1L);
+        }
+        long elapsed = System.nanoTime() - start;
+        scheduler.shutdown();
+        dispatcher.shutdown();
+        schedulerThread.join();
+        dispatcherThread.join();
+        LOGGER.info("[cache {} KB] {} jobs in {} ms ({} jobs/s), hit rate {}%, evictions {}, load p50 {} us, p99 {} us",
+                cacheBytes >> 10, jobs, elapsed / 1000000L, jobs * 1000000000L / elapsed,
+                Math.round(cache.hitRate() * 1000) / 10D, cache.removals().evictionCount(),
+                TimeUnit.NANOSECONDS.toMicros(cache.loadLatency().percentile(50)),
+                TimeUnit.NANOSECONDS.toMicros(cache.loadLatency().percentile(99)));
+        LOGGER.info("{}", cache);
+    }
+
+}
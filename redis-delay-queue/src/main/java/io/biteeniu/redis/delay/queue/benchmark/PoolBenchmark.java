@@ -0,0 +1,70 @@
+package io.biteeniu.redis.delay.queue.benchmark;
+
+import io.biteeniu.common.metrics.LatencyHistogram;
+import io.biteeniu.common.redis.RedisConfig;
+import io.biteeniu.common.redis.RedisPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 连接池基准测试：N个线程并发执行GET，对比不同连接池大小下借用连接的等待时间和单次操作（借用+GET+归还）的耗时
+ * 连接池比并发线程数小时，操作耗时主要花在等待连接上
+ * 运行方式（需要一个本地启动的redis-server）：
+ * java -cp ... io.biteeniu.redis.delay.queue.benchmark.PoolBenchmark [redis主机] [线程数] [每轮秒数] [连接池大小列表]
+ * @author luzhanghong
+ * @date 2026-10-19 01:35
+ */
+public class PoolBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(PoolBenchmark.class);
+    private final static String KEY = "pool-benchmark";
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        String sizes = args.length > 3 ? args[3] : "4,8,32";
+        for (String size : sizes.split(",")) {
+            RedisConfig config = new RedisConfig().setHost(host).setMaxTotal(Integer.parseInt(size.trim()))
+                    .setMaxIdle(Integer.parseInt(size.trim())).setMaxWaitMillis(10000L);
+            run(new RedisPool(config), threads, seconds);
+        }
+    }
+
+    private static void run(RedisPool pool, int threads, int seconds) throws InterruptedException {
+        pool.run(jedis -> jedis.set(KEY, "value"));
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder operations = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    pool.execute(jedis -> jedis.get(KEY));
+                    latency.record(System.nanoTime() - start);
+                    operations.increment();
+                }
+            }, "worker-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        LOGGER.info("[pool {}, {} threads] {} ops/s, borrow wait p50 {} us, p99 {} us, operation p50 {} us, p99 {} us",
+                pool.getConfig().getMaxTotal(), threads, operations.sum() / seconds,
+                TimeUnit.NANOSECONDS.toMicros(pool.borrowWait().percentile(50)),
+                TimeUnit.NANOSECONDS.toMicros(pool.borrowWait().percentile(99)),
+                TimeUnit.NANOSECONDS.toMicros(latency.percentile(50)),
+                TimeUnit.NANOSECONDS.toMicros(latency.percentile(99)));
+        LOGGER.info("{}", pool.summary());
+        pool.close();
+    }
+
+}
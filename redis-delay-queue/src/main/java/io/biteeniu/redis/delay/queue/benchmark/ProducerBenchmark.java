@@ -0,0 +1,83 @@
+package io.biteeniu.redis.delay.queue.benchmark;
+
+import io.biteeniu.redis.delay.queue.Job;
+import io.biteeniu.redis.delay.queue.Producer;
+import io.biteeniu.redis.delay.queue.codec.BinaryJobCodec;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 生产者吞吐量基准测试：多个线程并发提交任务，统计不同批大小下的发布吞吐量（从第一次提交到所有Future完成）
+ * 运行方式（需要一个本地启动的redis-server，会删除延迟队列使用的键）：
+ * java -cp ... io.biteeniu.redis.delay.queue.benchmark.ProducerBenchmark [redis主机] [任务数] [提交线程数] [批大小列表]
+ * @author luzhanghong
+ * @date 2026-10-18 21:30
+ */
+public class ProducerBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ProducerBenchmark.class);
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int jobs = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        String batchSizes = args.length > 3 ? args[3] : "1,10,100,500,1000";
+        GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+        poolConfig.setMaxTotal(4);
+        JedisPool jedisPool = new JedisPool(poolConfig, host);
+        for (String batchSize : batchSizes.split(",")) {
+            run(jedisPool, Integer.parseInt(batchSize.trim()), jobs, threads);
+        }
+        jedisPool.close();
+    }
+
+    private static void run(JedisPool jedisPool, int batchSize, int jobs, int threads) throws Exception {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.del(RedisHelper.JOB_POOL, RedisHelper.JOB_META, RedisHelper.JOB_DELAY_BUCKET);
+        }
+        Producer producer = new Producer(jedisPool, new BinaryJobCodec(), batchSize, 5L, 10000);
+        Thread sender = new Thread(producer, "producer-" + batchSize);
+        sender.start();
+        int perThread = jobs / threads;
+        List<Thread> submitters = new ArrayList<>();
+        List<CompletableFuture<String>> lastFutures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            CompletableFuture<CompletableFuture<String>> last = new CompletableFuture<>();
+            Thread submitter = new Thread(() -> {
+                try {
+                    CompletableFuture<String> future = null;
+                    for (int i = 0; i < perThread; i++) {
+                        future = producer.publish(new Job("benchmark", 3600, 30, "benchmark-" + i));
+                    }
+                    last.complete(future);
+                } catch (InterruptedException e) {
+                    last.completeExceptionally(e);
+                }
+            });
+            submitters.add(submitter);
+            submitter.start();
+            lastFutures.add(last.thenCompose(future -> future));
+        }
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+        // 批次按提交顺序发送，每个线程最后一个任务完成即说明该线程所有任务都已经完成
+        CompletableFuture.allOf(lastFutures.toArray(new CompletableFuture[0])).join();
+        long elapsed = System.nanoTime() - start;
+        producer.shutdown();
+        sender.join();
+        long total = (long) perThread * threads;
+        LOGGER.info("[batch {}] {} jobs from {} threads in {} ms, {} jobs/s", batchSize, total, threads,
+                elapsed / 1000000L, total * 1000000000L / elapsed);
+    }
+
+}
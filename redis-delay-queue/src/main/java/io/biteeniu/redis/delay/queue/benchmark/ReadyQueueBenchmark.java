@@ -0,0 +1,183 @@
+package io.biteeniu.redis.delay.queue.benchmark;
+
+import io.biteeniu.common.metrics.LatencyHistogram;
+import io.biteeniu.common.redis.RedisConfig;
+import io.biteeniu.common.redis.RedisPool;
+import io.biteeniu.redis.delay.queue.Dispatcher;
+import io.biteeniu.redis.delay.queue.Job;
+import io.biteeniu.redis.delay.queue.JobHandler;
+import io.biteeniu.redis.delay.queue.Producer;
+import io.biteeniu.redis.delay.queue.Scheduler;
+import io.biteeniu.redis.delay.queue.StreamConsumer;
+import io.biteeniu.redis.delay.queue.codec.BinaryJobCodec;
+import io.biteeniu.redis.delay.queue.utils.JobOperations;
+import io.biteeniu.redis.delay.queue.utils.JobScripts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 就绪队列后端基准测试：同样的负载分别使用就绪队列（List + Dispatcher）和就绪流（Stream + StreamConsumer），两者都是8个工作线程
+ * 1. 稳定负载：以固定速率提交延迟1~3秒的任务，统计任务从到期到被处理的延迟（fire lag）
+ * 2. 积压：先写入N个已经到期的任务再启动消费者，统计全部处理完成的耗时和每个任务在Redis上执行的命令数
+ * 运行方式（需要一个本地启动的redis-server，会清空当前数据库）：
+ * java -cp ... io.biteeniu.redis.delay.queue.benchmark.ReadyQueueBenchmark [redis主机] [每秒任务数] [持续秒数] [积压任务数]
+ * @author luzhanghong
+ * @date 2026-10-19 03:00
+ */
+public class ReadyQueueBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ReadyQueueBenchmark.class);
+    private final static String TOPIC = "benchmark";
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int backlog = args.length > 3 ? Integer.parseInt(args[3]) : 50000;
+        RedisPool jedisPool = new RedisPool(new RedisConfig().setHost(host).setMaxTotal(8));
+        for (boolean stream : new boolean[]{false, true}) {
+            steady(jedisPool, stream, rate, seconds);
+            backlog(jedisPool, stream, backlog);
+        }
+        jedisPool.close();
+    }
+
+    private static void steady(RedisPool jedisPool, boolean stream, int rate, int seconds) throws Exception {
+        jedisPool.run(Jedis::flushDB);
+        jedisPool.preload(JobScripts.ALL);
+        LatencyHistogram lag = new LatencyHistogram();
+        AtomicInteger consumed = new AtomicInteger();
+        Backend backend = new Backend(jedisPool, stream, job -> {
+            lag.record(System.currentTimeMillis() - Long.parseLong((String) job.getBody()));
+            consumed.incrementAndGet();
+        });
+        Producer producer = new Producer(jedisPool, new BinaryJobCodec(), 500, 0L, 10000);
+        Thread sender = new Thread(producer, "producer");
+        sender.start();
+        backend.start();
+        Thread.sleep(500L);
+        int jobs = rate * seconds;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long next = System.nanoTime();
+        for (int i = 0; i < jobs; i++) {
+            long delay = 1 + ThreadLocalRandom.current().nextInt(3);
+            long due = System.currentTimeMillis() + delay * 1000L;
+            producer.publish(new Job(TOPIC, (int) delay, 30, String.valueOf(due)));
+            next += intervalNanos;
+            long sleep = next - System.nanoTime();
+            if (sleep > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleep);
+            }
+        }
+        while (consumed.get() < jobs) {
+            Thread.sleep(10L);
+        }
+        LOGGER.info("[{} steady] {} jobs, fire lag p50: {} ms, p99: {} ms, p99.9: {} ms, max: {} ms", backend.name(), jobs,
+                lag.percentile(50), lag.percentile(99), lag.percentile(99.9), lag.percentile(100));
+        producer.shutdown();
+        sender.join();
+        backend.stop();
+    }
+
+    private static void backlog(RedisPool jedisPool, boolean stream, int jobs) throws Exception {
+        jedisPool.run(Jedis::flushDB);
+        jedisPool.preload(JobScripts.ALL);
+        if (stream) {
+            // 先登记后端，调度器才会把积压的任务追加到就绪流
+            jedisPool.run(jedis -> JobOperations.useStream(jedis, TOPIC));
+        }
+        Producer producer = new Producer(jedisPool, new BinaryJobCodec(), 500, 5L, 10000);
+        Thread sender = new Thread(producer, "producer");
+        sender.start();
+        CompletableFuture<String> last = null;
+        for (int i = 0; i < jobs; i++) {
+            last = producer.publish(new Job(TOPIC, 0, 30, "ready-queue-benchmark"));
+        }
+        last.join();
+        producer.shutdown();
+        sender.join();
+
+        AtomicInteger consumed = new AtomicInteger();
+        Backend backend = new Backend(jedisPool, stream, job -> consumed.incrementAndGet());
+        long commandsBefore = commandsProcessed(jedisPool);
+        long start = System.nanoTime();
+        backend.start();
+        while (consumed.get() < jobs) {
+            Thread.sleep(1L);
+        }
+        long elapsed = System.nanoTime() - start;
+        long commands = commandsProcessed(jedisPool) - commandsBefore;
+        LOGGER.info("[{} backlog] {} jobs in {} ms ({} jobs/s), {} Redis commands per job", backend.name(), jobs,
+                TimeUnit.NANOSECONDS.toMillis(elapsed), jobs * 1000000000L / elapsed, String.format("%.2f", (double) commands / jobs));
+        backend.stop();
+    }
+
+    /**
+     * @return Redis启动以来处理的命令总数（包括脚本中执行的命令）
+     */
+    private static long commandsProcessed(RedisPool jedisPool) {
+        String info = jedisPool.execute(jedis -> jedis.info("stats"));
+        for (String line : info.split("\r\n")) {
+            if (line.startsWith("total_commands_processed:")) {
+                return Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+            }
+        }
+        return -1L;
+    }
+
+    /**
+     * 调度器和某一种后端的消费者
+     */
+    private static final class Backend {
+
+        private final boolean stream;
+        private final Scheduler scheduler;
+        private final Dispatcher dispatcher;
+        private final StreamConsumer consumer;
+        private final Thread[] threads;
+
+        Backend(RedisPool jedisPool, boolean stream, JobHandler handler) {
+            this.stream = stream;
+            this.scheduler = new Scheduler(jedisPool, 1000, 1000L);
+            if (stream) {
+                this.dispatcher = null;
+                this.consumer = new StreamConsumer(jedisPool).register(TOPIC, handler);
+            } else {
+                this.dispatcher = new Dispatcher(jedisPool).register(TOPIC, handler, 8);
+                this.consumer = null;
+            }
+            this.threads = new Thread[]{new Thread(scheduler, "scheduler"),
+                    new Thread(stream ? consumer : dispatcher, stream ? "stream-consumer" : "dispatcher")};
+        }
+
+        String name() {
+            return stream ? "stream" : "list";
+        }
+
+        void start() {
+            for (Thread thread : threads) {
+                thread.start();
+            }
+        }
+
+        void stop() throws InterruptedException {
+            scheduler.shutdown();
+            if (stream) {
+                consumer.shutdown();
+            } else {
+                dispatcher.shutdown();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+package io.biteeniu.redis.delay.queue.benchmark;
+
+import io.biteeniu.redis.delay.queue.Reaper;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 预留回收基准测试：预留集合中有N个在途预留（默认100万），其中一部分已经超时
+ * 1. idle sweep：没有超时预留时一次回收的耗时（应当与N基本无关）
+ * 2. requeue：回收全部超时预留的耗时和吞吐量
+ * 运行方式（需要一个本地启动的redis-server，会删除延迟队列使用的键）：
+ * java -cp ... io.biteeniu.redis.delay.queue.benchmark.ReaperBenchmark [redis主机] [在途预留数] [超时预留数]
+ * @author luzhanghong
+ * @date 2026-10-18 21:05
+ */
+public class ReaperBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ReaperBenchmark.class);
+    private final static int IDLE_SWEEPS = 1000;
+
+    public static void main(String[] args) {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int inFlight = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        int expired = args.length > 2 ? Integer.parseInt(args[2]) : 100000;
+        JedisPool jedisPool = new JedisPool(host);
+        Reaper reaper = new Reaper(jedisPool);
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.del(RedisHelper.JOB_RESERVED, RedisHelper.JOB_DELAY_BUCKET);
+            long now = System.currentTimeMillis();
+            Pipeline pipeline = jedis.pipelined();
+            Map<String, Double> chunk = new HashMap<>();
+            for (int i = 0; i < inFlight; i++) {
+                // 未超时的预留TTR在1分钟之后到期，超时的预留在1秒之前到期
+                chunk.put(UUID.randomUUID().toString(), (double) (i < expired ? now - 1000L : now + 60000L + i));
+                if (chunk.size() == 1000) {
+                    pipeline.zadd(RedisHelper.JOB_RESERVED, chunk);
+                    chunk = new HashMap<>();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                pipeline.zadd(RedisHelper.JOB_RESERVED, chunk);
+            }
+            pipeline.sync();
+            LOGGER.info("{} reservations in flight, {} expired, redis used memory: {}", jedis.zcard(RedisHelper.JOB_RESERVED),
+                    expired, usedMemory(jedis));
+        }
+
+        long start = System.nanoTime();
+        int requeued = reaper.sweep();
+        long elapsed = System.nanoTime() - start;
+        LOGGER.info("[requeue] {} expired reservations requeued in {} ms, {} jobs/s", requeued, elapsed / 1000000L,
+                requeued * 1000000000L / Math.max(elapsed, 1L));
+
+        start = System.nanoTime();
+        for (int i = 0; i < IDLE_SWEEPS; i++) {
+            reaper.sweep();
+        }
+        elapsed = System.nanoTime() - start;
+        LOGGER.info("[idle sweep] {} us/sweep with {} reservations in flight", elapsed / 1000L / IDLE_SWEEPS,
+                inFlight - requeued);
+        jedisPool.close();
+    }
+
+    private static String usedMemory(Jedis jedis) {
+        for (String line : jedis.info("memory").split("\r\n")) {
+            if (line.startsWith("used_memory_human:")) {
+                return line.substring("used_memory_human:".length());
+            }
+        }
+        return "unknown";
+    }
+
+}
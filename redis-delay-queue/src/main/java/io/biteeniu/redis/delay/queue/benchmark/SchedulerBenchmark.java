@@ -0,0 +1,92 @@
+package io.biteeniu.redis.delay.queue.benchmark;
+
+import io.biteeniu.redis.delay.queue.Consumer;
+import io.biteeniu.redis.delay.queue.Job;
+import io.biteeniu.redis.delay.queue.Scheduler;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 调度吞吐量基准测试：预先写入N个已经到期的任务，启动多个调度器和多个消费者，统计全部任务被消费的耗时，
+ * 同时检查是否有任务被重复消费（多个调度器并发移动、多个消费者并发弹出）
+ * 运行方式（需要一个本地启动的redis-server，会删除延迟队列使用的键）：
+ * java -cp ... io.biteeniu.redis.delay.queue.benchmark.SchedulerBenchmark [redis主机] [任务数] [调度器数] [消费者数]
+ * @author luzhanghong
+ * @date 2026-10-18 20:10
+ */
+public class SchedulerBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(SchedulerBenchmark.class);
+    private final static String TOPIC = "benchmark";
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int jobs = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        int schedulers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int consumers = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+        poolConfig.setMaxTotal(schedulers * 2 + consumers + 2);
+        JedisPool jedisPool = new JedisPool(poolConfig, host);
+        prepare(jedisPool, jobs);
+
+        Map<String, AtomicInteger> claims = new ConcurrentHashMap<>();
+        AtomicInteger consumed = new AtomicInteger();
+        List<Scheduler> schedulerList = new ArrayList<>();
+        List<Consumer> consumerList = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < schedulers; i++) {
+            Scheduler scheduler = new Scheduler(jedisPool, 1000, 10L);
+            schedulerList.add(scheduler);
+            new Thread(scheduler, "scheduler-" + i).start();
+        }
+        for (int i = 0; i < consumers; i++) {
+            Consumer consumer = new Consumer(jedisPool, job -> {
+                claims.computeIfAbsent(job.getId(), id -> new AtomicInteger()).incrementAndGet();
+                consumed.incrementAndGet();
+            }, TOPIC);
+            consumerList.add(consumer);
+            new Thread(consumer, "consumer-" + i).start();
+        }
+        while (consumed.get() < jobs) {
+            Thread.sleep(10L);
+        }
+        long elapsed = System.nanoTime() - start;
+        schedulerList.forEach(Scheduler::shutdown);
+        consumerList.forEach(Consumer::shutdown);
+        long duplicates = claims.values().stream().filter(count -> count.get() > 1).count();
+        LOGGER.info("{} jobs consumed by {} consumers ({} schedulers) in {} ms, {} jobs/s, duplicates: {}",
+                jobs, consumers, schedulers, elapsed / 1000000L, jobs * 1000000000L / elapsed, duplicates);
+        Thread.sleep(1500L);
+        jedisPool.close();
+    }
+
+    private static void prepare(JedisPool jedisPool, int jobs) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.del(RedisHelper.JOB_POOL, RedisHelper.JOB_META, RedisHelper.JOB_DELAY_BUCKET, RedisHelper.readyKey(TOPIC));
+            long now = System.currentTimeMillis();
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < jobs; i++) {
+                Job job = new Job(TOPIC, 0, 30, "benchmark-" + i);
+                pipeline.hset(RedisHelper.JOB_POOL, job.getId(), job.toJsonString());
+                pipeline.hset(RedisHelper.JOB_META, job.getId(), job.toMeta());
+                pipeline.zadd(RedisHelper.JOB_DELAY_BUCKET, now, job.getId());
+                if (i % 1000 == 999) {
+                    pipeline.sync();
+                }
+            }
+            pipeline.sync();
+        }
+    }
+
+}
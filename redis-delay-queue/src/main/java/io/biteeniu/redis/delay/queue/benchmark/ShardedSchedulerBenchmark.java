@@ -0,0 +1,133 @@
+package io.biteeniu.redis.delay.queue.benchmark;
+
+import io.biteeniu.redis.delay.queue.Job;
+import io.biteeniu.redis.delay.queue.Producer;
+import io.biteeniu.redis.delay.queue.codec.BinaryJobCodec;
+import io.biteeniu.redis.delay.queue.shard.Bucket;
+import io.biteeniu.redis.delay.queue.shard.BucketOwnership;
+import io.biteeniu.redis.delay.queue.shard.ShardedBuckets;
+import io.biteeniu.redis.delay.queue.shard.ShardedScheduler;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 分片调度基准测试：通过生产者向分片的延迟桶写入N个已经到期的任务，启动多个分片调度器，统计全部任务移动到就绪队列的耗时
+ * 1. 移动到一半时停止第一个调度器，检查其他调度器能否接管它的延迟桶（再平衡）
+ * 2. 结束后检查就绪队列中的任务总数是否恰好为N（没有丢失、没有重复移动），并且所有延迟桶都已经清空
+ * 3. 打印每个节点上的任务数，检查一致性哈希的分布是否均匀
+ * 运行方式（需要在本地启动多个redis-server，例如端口6379、6380、6381，会删除延迟队列使用的键）：
+ * java -cp ... io.biteeniu.redis.delay.queue.benchmark.ShardedSchedulerBenchmark [节点列表] [延迟桶数] [调度器数] [任务数]
+ * @author luzhanghong
+ * @date 2026-10-18 23:25
+ */
+public class ShardedSchedulerBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ShardedSchedulerBenchmark.class);
+    private final static String TOPIC = "benchmark";
+
+    public static void main(String[] args) throws Exception {
+        String nodeList = args.length > 0 ? args[0] : "127.0.0.1:6379,127.0.0.1:6380,127.0.0.1:6381";
+        int bucketCount = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int schedulers = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int jobs = args.length > 3 ? Integer.parseInt(args[3]) : 300000;
+        GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+        poolConfig.setMaxTotal(schedulers * 2 + 4);
+        Map<String, JedisPool> nodes = new LinkedHashMap<>();
+        for (String node : nodeList.split(",")) {
+            String[] hostAndPort = node.trim().split(":");
+            nodes.put(node.trim(), new JedisPool(poolConfig, hostAndPort[0], Integer.parseInt(hostAndPort[1])));
+        }
+        ShardedBuckets buckets = new ShardedBuckets(nodes, bucketCount, 160);
+        JedisPool coordinator = buckets.getNodes().values().iterator().next();
+        clean(buckets);
+        publish(buckets, jobs);
+        for (Map.Entry<String, JedisPool> node : buckets.getNodes().entrySet()) {
+            try (Jedis jedis = node.getValue().getResource()) {
+                LOGGER.info("[{}] {} jobs", node.getKey(), jedis.hlen(RedisHelper.JOB_META));
+            }
+        }
+
+        List<ShardedScheduler> schedulerList = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < schedulers; i++) {
+            BucketOwnership ownership = new BucketOwnership(coordinator, "worker-" + i, buckets.getBuckets(), 3000L);
+            ShardedScheduler scheduler = new ShardedScheduler(ownership, 1000, 10L, 200L);
+            schedulerList.add(scheduler);
+            Thread thread = new Thread(scheduler, "scheduler-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        boolean stopped = false;
+        long ready;
+        while ((ready = countReady(buckets)) < jobs) {
+            if (!stopped && schedulers > 1 && ready >= jobs / 2) {
+                LOGGER.info("{} jobs moved, stopping scheduler worker-0", ready);
+                schedulerList.get(0).shutdown();
+                stopped = true;
+            }
+            Thread.sleep(5L);
+        }
+        long elapsed = System.nanoTime() - start;
+        schedulerList.forEach(ShardedScheduler::shutdown);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long remaining = 0L;
+        for (Bucket bucket : buckets.getBuckets()) {
+            try (Jedis jedis = bucket.getPool().getResource()) {
+                remaining += jedis.zcard(bucket.getKey());
+            }
+        }
+        LOGGER.info("{} jobs moved by {} schedulers over {} nodes / {} buckets in {} ms, {} jobs/s, ready: {}, left in buckets: {}",
+                jobs, schedulers, nodes.size(), bucketCount, elapsed / 1000000L, jobs * 1000000000L / elapsed,
+                countReady(buckets), remaining);
+        clean(buckets);
+        nodes.values().forEach(JedisPool::close);
+    }
+
+    private static void publish(ShardedBuckets buckets, int jobs) throws Exception {
+        Producer producer = new Producer(buckets, new BinaryJobCodec(), 1000, 5L, 10000);
+        Thread sender = new Thread(producer, "producer");
+        sender.start();
+        CompletableFuture<String> last = null;
+        for (int i = 0; i < jobs; i++) {
+            last = producer.publish(new Job(TOPIC, 0, 30, "benchmark-" + i));
+        }
+        if (last != null) {
+            last.join();
+        }
+        producer.shutdown();
+        sender.join();
+    }
+
+    private static long countReady(ShardedBuckets buckets) {
+        long ready = 0L;
+        for (JedisPool pool : buckets.getNodes().values()) {
+            try (Jedis jedis = pool.getResource()) {
+                ready += jedis.llen(RedisHelper.readyKey(TOPIC));
+            }
+        }
+        return ready;
+    }
+
+    private static void clean(ShardedBuckets buckets) {
+        for (Bucket bucket : buckets.getBuckets()) {
+            try (Jedis jedis = bucket.getPool().getResource()) {
+                jedis.del(bucket.getKey(), RedisHelper.JOB_POOL, RedisHelper.JOB_META, RedisHelper.JOB_RESERVED,
+                        RedisHelper.JOB_SCHEDULER_WORKERS, RedisHelper.readyKey(TOPIC));
+            }
+        }
+    }
+
+}
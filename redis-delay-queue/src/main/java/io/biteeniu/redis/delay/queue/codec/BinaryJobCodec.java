@@ -0,0 +1,356 @@
+package io.biteeniu.redis.delay.queue.codec;
+
+import com.alibaba.fastjson.JSON;
+import io.biteeniu.redis.delay.queue.Job;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 紧凑的二进制编解码器
+ * 格式：[byte 魔数][byte 标志位][ID][主题][varint 延迟][varint TTR][byte 内容类型][内容]
+ * 1. ID：标准格式的UUID存为16字节（36字符的字符串存为16字节），否则存为varint长度+UTF-8
+ * 2. 主题：在主题字典中的存为varint序号（通常1字节），否则存为varint长度+UTF-8；生产者和消费者必须使用相同的字典
+ * 3. 延迟、TTR：zigzag编码的varint，0表示null
+ * 4. 内容：String和byte[]直接存储，其他对象存为JSON；超过压缩阈值时使用LZ4压缩
+ * 5. 编码只在线程本地的缓冲区上写入，最后复制一次得到结果；解码直接在输入数组上读取
+ * 解码时第一个字节为'{'的数据按JSON解码，因此可以直接读取JsonJobCodec写入的旧数据
+ * @author luzhanghong
+ * @date 2026-10-18 22:00
+ */
+public class BinaryJobCodec implements JobCodec {
+
+    private static final byte MAGIC = (byte) 0xB7;
+    private static final int FLAG_BINARY_ID = 1;        // ID为16字节的UUID
+    private static final int FLAG_TOPIC_INDEX = 1 << 1; // 主题为字典序号
+    private static final int FLAG_COMPRESSED = 1 << 2;  // 内容经过LZ4压缩
+    private static final byte BODY_NULL = 0;
+    private static final byte BODY_STRING = 1;
+    private static final byte BODY_BYTES = 2;
+    private static final byte BODY_JSON = 3;
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+    private static final ThreadLocal<Output> OUTPUT = ThreadLocal.withInitial(Output::new);
+
+    private final String[] topics;
+    private final Map<String, Integer> topicIndexes;
+    private final int compressThreshold;
+    private final LZ4Compressor compressor = LZ4.fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4.fastDecompressor();
+
+    /**
+     * 构造函数：没有主题字典，内容超过512字节时压缩
+     */
+    public BinaryJobCodec() {
+        this(Collections.<String>emptyList(), 512);
+    }
+
+    /**
+     * 构造函数
+     * @param topics 主题字典：序号即在列表中的下标，只能在末尾追加，不能删除或者调整顺序
+     * @param compressThreshold 内容超过该字节数时使用LZ4压缩；小于等于0表示不压缩
+     */
+    public BinaryJobCodec(List<String> topics, int compressThreshold) {
+        this.topics = topics.toArray(new String[0]);
+        this.topicIndexes = new HashMap<>(topics.size() * 2);
+        for (int i = 0; i < this.topics.length; i++) {
+            topicIndexes.put(this.topics[i], i);
+        }
+        this.compressThreshold = compressThreshold <= 0 ? Integer.MAX_VALUE : compressThreshold;
+    }
+
+    @Override
+    public byte[] encode(Job job) {
+        Output out = OUTPUT.get();
+        out.position = 2;
+        int flags = 0;
+        // ID
+        if (isUuid(job.getId())) {
+            flags |= FLAG_BINARY_ID;
+            out.writeLong(parseHex(job.getId(), 0, 8) << 32 | parseHex(job.getId(), 9, 13) << 16 | parseHex(job.getId(), 14, 18));
+            out.writeLong(parseHex(job.getId(), 19, 23) << 48 | parseHex(job.getId(), 24, 36));
+        } else {
+            out.writeString(job.getId());
+        }
+        // 主题
+        Integer topicIndex = job.getTopic() == null ? null : topicIndexes.get(job.getTopic());
+        if (topicIndex != null) {
+            flags |= FLAG_TOPIC_INDEX;
+            out.writeVarint(topicIndex);
+        } else {
+            out.writeString(job.getTopic());
+        }
+        out.writeNullableInt(job.getDelay());
+        out.writeNullableInt(job.getTtr());
+        // 内容
+        Object body = job.getBody();
+        byte[] bytes;
+        if (body == null) {
+            out.writeByte(BODY_NULL);
+            bytes = null;
+        } else if (body instanceof String) {
+            out.writeByte(BODY_STRING);
+            bytes = ((String) body).getBytes(StandardCharsets.UTF_8);
+        } else if (body instanceof byte[]) {
+            out.writeByte(BODY_BYTES);
+            bytes = (byte[]) body;
+        } else {
+            out.writeByte(BODY_JSON);
+            bytes = JSON.toJSONBytes(body);
+        }
+        if (bytes != null) {
+            if (bytes.length > compressThreshold) {
+                flags |= FLAG_COMPRESSED;
+                out.writeVarint(bytes.length);
+                int maxLength = compressor.maxCompressedLength(bytes.length);
+                out.ensureCapacity(maxLength + 5);
+                int lengthPosition = out.position;
+                // 先预留5字节的长度位置，压缩后再回填
+                int compressed = compressor.compress(bytes, 0, bytes.length, out.buffer, lengthPosition + 5, maxLength);
+                out.position = lengthPosition;
+                out.writeFixedVarint(compressed);
+                out.position += compressed;
+            } else {
+                out.writeVarint(bytes.length);
+                out.writeBytes(bytes, 0, bytes.length);
+            }
+        }
+        out.buffer[0] = MAGIC;
+        out.buffer[1] = (byte) flags;
+        return Arrays.copyOf(out.buffer, out.position);
+    }
+
+    @Override
+    public Job decode(byte[] data) {
+        if (data.length > 0 && data[0] == '{') {
+            return JSON.parseObject(data, Job.class);
+        }
+        if (data.length < 2 || data[0] != MAGIC) {
+            throw new IllegalArgumentException("Unknown job encoding");
+        }
+        Input in = new Input(data);
+        int flags = data[1];
+        in.position = 2;
+        Job job = new Job();
+        if ((flags & FLAG_BINARY_ID) != 0) {
+            job.setId(formatUuid(in.readLong(), in.readLong()));
+        } else {
+            job.setId(in.readString());
+        }
+        if ((flags & FLAG_TOPIC_INDEX) != 0) {
+            job.setTopic(topics[(int) in.readVarint()]);
+        } else {
+            job.setTopic(in.readString());
+        }
+        job.setDelay(in.readNullableInt());
+        job.setTtr(in.readNullableInt());
+        byte bodyType = data[in.position++];
+        if (bodyType == BODY_NULL) {
+            return job;
+        }
+        byte[] bytes;
+        int offset;
+        int length;
+        if ((flags & FLAG_COMPRESSED) != 0) {
+            length = (int) in.readVarint();
+            int compressed = (int) in.readVarint();
+            bytes = new byte[length];
+            decompressor.decompress(data, in.position, bytes, 0, length);
+            in.position += compressed;
+            offset = 0;
+        } else {
+            length = (int) in.readVarint();
+            bytes = data;
+            offset = in.position;
+            in.position += length;
+        }
+        if (bodyType == BODY_STRING) {
+            job.setBody(new String(bytes, offset, length, StandardCharsets.UTF_8));
+        } else if (bodyType == BODY_BYTES) {
+            job.setBody(offset == 0 && length == bytes.length ? bytes : Arrays.copyOfRange(bytes, offset, offset + length));
+        } else {
+            job.setBody(JSON.parse(new String(bytes, offset, length, StandardCharsets.UTF_8)));
+        }
+        return job;
+    }
+
+    /**
+     * 是否为标准格式的UUID：8-4-4-4-12个小写十六进制字符（UUID.toString()的格式，解码后能还原成完全相同的字符串）
+     */
+    private static boolean isUuid(String id) {
+        if (id == null || id.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = id.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseHex(String s, int from, int to) {
+        long value = 0L;
+        for (int i = from; i < to; i++) {
+            value = value << 4 | Character.digit(s.charAt(i), 16);
+        }
+        return value;
+    }
+
+    private static String formatUuid(long msb, long lsb) {
+        char[] chars = new char[36];
+        formatHex(chars, 0, msb >>> 32, 8);
+        chars[8] = '-';
+        formatHex(chars, 9, msb >>> 16, 4);
+        chars[13] = '-';
+        formatHex(chars, 14, msb, 4);
+        chars[18] = '-';
+        formatHex(chars, 19, lsb >>> 48, 4);
+        chars[23] = '-';
+        formatHex(chars, 24, lsb, 12);
+        return new String(chars);
+    }
+
+    private static void formatHex(char[] chars, int offset, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            chars[offset + i] = Character.forDigit((int) (value & 0xF), 16);
+            value >>>= 4;
+        }
+    }
+
+    /**
+     * 线程本地的可扩容输出缓冲区
+     */
+    private static final class Output {
+
+        private byte[] buffer = new byte[256];
+        private int position;
+
+        void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + extra));
+            }
+        }
+
+        void writeByte(byte b) {
+            ensureCapacity(1);
+            buffer[position++] = b;
+        }
+
+        void writeBytes(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, buffer, position, length);
+            position += length;
+        }
+
+        void writeLong(long value) {
+            ensureCapacity(8);
+            for (int i = 7; i >= 0; i--) {
+                buffer[position + i] = (byte) value;
+                value >>>= 8;
+            }
+            position += 8;
+        }
+
+        void writeVarint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        /**
+         * 固定占用5字节的varint：用于先预留位置、后回填的长度
+         */
+        void writeFixedVarint(int value) {
+            for (int i = 0; i < 4; i++) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) (value & 0x7F);
+        }
+
+        void writeNullableInt(Integer value) {
+            // zigzag编码后加1，0表示null
+            writeVarint(value == null ? 0L : ((((long) value) << 1) ^ (((long) value) >> 63)) + 1L);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarint(0L);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1L);
+            writeBytes(bytes, 0, bytes.length);
+        }
+
+    }
+
+    /**
+     * 直接在输入数组上读取
+     */
+    private static final class Input {
+
+        private final byte[] buffer;
+        private int position;
+
+        Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        long readLong() {
+            long value = 0L;
+            for (int i = 0; i < 8; i++) {
+                value = value << 8 | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        long readVarint() {
+            long value = 0L;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        Integer readNullableInt() {
+            long value = readVarint();
+            if (value == 0L) {
+                return null;
+            }
+            value -= 1L;
+            return (int) ((value >>> 1) ^ -(value & 1));
+        }
+
+        String readString() {
+            long length = readVarint();
+            if (length == 0L) {
+                return null;
+            }
+            String value = new String(buffer, position, (int) length - 1, StandardCharsets.UTF_8);
+            position += (int) length - 1;
+            return value;
+        }
+
+    }
+
+}
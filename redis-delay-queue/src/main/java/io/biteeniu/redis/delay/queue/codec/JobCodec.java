@@ -0,0 +1,27 @@
+package io.biteeniu.redis.delay.queue.codec;
+
+import io.biteeniu.redis.delay.queue.Job;
+
+/**
+ * 任务编解码器：决定任务在JOB_POOL中的存储格式
+ * 实现必须是线程安全的，生产者、消费者的多个线程共享同一个实例
+ * @author luzhanghong
+ * @date 2026-10-18 21:50
+ */
+public interface JobCodec {
+
+    /**
+     * 编码任务
+     * @param job 任务
+     * @return 编码后的字节
+     */
+    byte[] encode(Job job);
+
+    /**
+     * 解码任务
+     * @param data encode()的结果
+     * @return 任务
+     */
+    Job decode(byte[] data);
+
+}
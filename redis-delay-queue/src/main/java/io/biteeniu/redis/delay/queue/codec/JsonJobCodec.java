@@ -0,0 +1,25 @@
+package io.biteeniu.redis.delay.queue.codec;
+
+import com.alibaba.fastjson.JSON;
+import io.biteeniu.redis.delay.queue.Job;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON编解码器：基于fastjson，存储格式可读，便于使用redis-cli调试
+ * @author luzhanghong
+ * @date 2026-10-18 21:52
+ */
+public class JsonJobCodec implements JobCodec {
+
+    @Override
+    public byte[] encode(Job job) {
+        return job.toJsonString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Job decode(byte[] data) {
+        return JSON.parseObject(data, Job.class);
+    }
+
+}
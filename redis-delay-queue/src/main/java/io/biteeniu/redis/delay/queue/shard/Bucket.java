@@ -0,0 +1,52 @@
+package io.biteeniu.redis.delay.queue.shard;
+
+import redis.clients.jedis.JedisPool;
+
+/**
+ * 延迟桶：某个Redis节点上的一个有序集合
+ * 单个延迟桶本身也是一个路由：所有任务都写入这个桶（单节点部署）
+ * @author luzhanghong
+ * @date 2026-10-18 22:58
+ */
+public final class Bucket implements BucketRouter {
+
+    private final String node;    // 节点名称，例如host:port
+    private final String key;     // 有序集合的键
+    private final JedisPool pool; // 节点的连接池
+
+    public Bucket(String node, String key, JedisPool pool) {
+        this.node = node;
+        this.key = key;
+        this.pool = pool;
+    }
+
+    @Override
+    public Bucket route(String jobId) {
+        return this;
+    }
+
+    /**
+     * @return 延迟桶的全局唯一名称：节点名称/键
+     */
+    public String getName() {
+        return node + "/" + key;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public JedisPool getPool() {
+        return pool;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+
+}
@@ -0,0 +1,121 @@
+package io.biteeniu.redis.delay.queue.shard;
+
+import com.google.common.hash.Hashing;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 延迟桶的归属：多个调度器通过心跳发现彼此，每个延迟桶只由一个调度器负责
+ * 1. 每个调度器周期性地把自己的心跳写入协调节点上的JOB_SCHEDULER_WORKERS，并删除超时未心跳的调度器
+ * 2. 延迟桶的归属使用最高随机权重哈希（rendezvous hashing）：延迟桶归属于hash(调度器ID, 延迟桶名称)最大的调度器，
+ *    所有调度器看到相同的成员列表时计算出相同的归属，不需要额外的协调；成员变化时只有加入或者离开的调度器的延迟桶会迁移
+ * 3. 成员变化后的一个心跳周期内，两个调度器可能同时认为自己负责同一个延迟桶。移动脚本是原子的，这只会造成重复的空扫描，不会重复投递任务
+ * @author luzhanghong
+ * @date 2026-10-18 23:10
+ */
+public class BucketOwnership {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(BucketOwnership.class);
+    private final JedisPool coordinator;
+    private final String workerId;
+    private final List<Bucket> buckets;
+    private final long heartbeatTimeout;
+    private List<String> workers = Collections.emptyList();
+    private List<Bucket> owned = Collections.emptyList();
+
+    /**
+     * 构造函数
+     * @param coordinator 协调节点的连接池：所有调度器必须使用同一个协调节点
+     * @param workerId 调度器ID：在所有调度器中唯一
+     * @param buckets 全部延迟桶
+     * @param heartbeatTimeout 心跳超时时间：超过该时间没有心跳的调度器视为已经离开，单位毫秒
+     */
+    public BucketOwnership(JedisPool coordinator, String workerId, List<Bucket> buckets, long heartbeatTimeout) {
+        this.coordinator = coordinator;
+        this.workerId = workerId;
+        this.buckets = buckets;
+        this.heartbeatTimeout = heartbeatTimeout;
+    }
+
+    /**
+     * 发送一次心跳，并根据最新的成员列表重新计算归属于本调度器的延迟桶
+     * @return 归属于本调度器的延迟桶
+     */
+    public List<Bucket> refresh() {
+        long now = System.currentTimeMillis();
+        Set<String> members;
+        try (Jedis jedis = coordinator.getResource()) {
+            jedis.zadd(RedisHelper.JOB_SCHEDULER_WORKERS, now, workerId);
+            jedis.zremrangeByScore(RedisHelper.JOB_SCHEDULER_WORKERS, Double.NEGATIVE_INFINITY, now - heartbeatTimeout);
+            members = jedis.zrange(RedisHelper.JOB_SCHEDULER_WORKERS, 0, -1);
+        }
+        List<String> current = new ArrayList<>(members);
+        Collections.sort(current);
+        if (!current.equals(workers)) {
+            List<Bucket> assigned = new ArrayList<>();
+            for (Bucket bucket : buckets) {
+                if (workerId.equals(ownerOf(bucket, current))) {
+                    assigned.add(bucket);
+                }
+            }
+            LOGGER.info("Scheduler members changed: {}, worker {} owns {}/{} buckets.", current, workerId,
+                    assigned.size(), buckets.size());
+            workers = current;
+            owned = Collections.unmodifiableList(assigned);
+        }
+        return owned;
+    }
+
+    /**
+     * 离开：删除本调度器的心跳，其他调度器在下一次心跳时接管本调度器的延迟桶
+     */
+    public void leave() {
+        try (Jedis jedis = coordinator.getResource()) {
+            jedis.zrem(RedisHelper.JOB_SCHEDULER_WORKERS, workerId);
+        }
+        workers = Collections.emptyList();
+        owned = Collections.emptyList();
+    }
+
+    /**
+     * @return 最近一次心跳时归属于本调度器的延迟桶
+     */
+    public List<Bucket> getOwned() {
+        return owned;
+    }
+
+    public List<Bucket> getBuckets() {
+        return buckets;
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    private static String ownerOf(Bucket bucket, List<String> workers) {
+        String owner = null;
+        long max = Long.MIN_VALUE;
+        for (String worker : workers) {
+            long weight = Hashing.murmur3_128().newHasher()
+                    .putString(worker, StandardCharsets.UTF_8)
+                    .putByte((byte) 0)
+                    .putString(bucket.getName(), StandardCharsets.UTF_8)
+                    .hash().asLong();
+            if (owner == null || weight > max) {
+                owner = worker;
+                max = weight;
+            }
+        }
+        return owner;
+    }
+
+}
@@ -0,0 +1,17 @@
+package io.biteeniu.redis.delay.queue.shard;
+
+/**
+ * 延迟桶路由：决定一个任务写入哪个Redis节点上的哪个延迟桶
+ * 任务的全部数据（JOB_POOL、JOB_META）都写入延迟桶所在的节点，Lua脚本才能在一个节点上原子地处理该任务
+ * @author luzhanghong
+ * @date 2026-10-18 22:55
+ */
+public interface BucketRouter {
+
+    /**
+     * @param jobId 任务ID
+     * @return 任务所在的延迟桶
+     */
+    Bucket route(String jobId);
+
+}
@@ -0,0 +1,66 @@
+package io.biteeniu.redis.delay.queue.shard;
+
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 一致性哈希环：每个节点在环上放置若干个虚拟节点，键顺时针找到的第一个虚拟节点即为该键所在的节点
+ * 增加或者删除一个节点时，只有约1/N的键需要迁移
+ * @author luzhanghong
+ * @date 2026-10-18 22:50
+ */
+public class ConsistentHashRing<T> {
+
+    private final TreeMap<Long, T> ring = new TreeMap<>();
+    private final int virtualNodes;
+
+    /**
+     * 构造函数
+     * @param virtualNodes 每个节点的虚拟节点数：越多键的分布越均匀
+     */
+    public ConsistentHashRing(int virtualNodes) {
+        this.virtualNodes = Math.max(virtualNodes, 1);
+    }
+
+    /**
+     * 添加节点
+     * @param name 节点名称：决定虚拟节点在环上的位置，所有客户端必须使用相同的名称（例如host:port）
+     * @param node 节点
+     */
+    public synchronized void add(String name, T node) {
+        for (int i = 0; i < virtualNodes; i++) {
+            ring.put(hash(name + "#" + i), node);
+        }
+    }
+
+    /**
+     * 删除节点
+     * @param name 节点名称
+     */
+    public synchronized void remove(String name) {
+        for (int i = 0; i < virtualNodes; i++) {
+            ring.remove(hash(name + "#" + i));
+        }
+    }
+
+    /**
+     * 获取键所在的节点
+     * @param key 键
+     * @return 节点；环为空时返回null
+     */
+    public synchronized T get(String key) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, T> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    static long hash(String key) {
+        return Hashing.murmur3_128().hashString(key, StandardCharsets.UTF_8).asLong();
+    }
+
+}
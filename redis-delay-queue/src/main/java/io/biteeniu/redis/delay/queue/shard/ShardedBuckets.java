@@ -0,0 +1,87 @@
+package io.biteeniu.redis.delay.queue.shard;
+
+import com.google.common.hash.Hashing;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
+import redis.clients.jedis.JedisPool;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 分片的延迟桶：任务按ID的哈希值分散到bucketCount个有序集合（job-delay-bucket:0 ~ job-delay-bucket:N-1），
+ * 每个有序集合再通过一致性哈希环放到某个Redis节点上
+ * 1. 任务的全部数据（JOB_POOL、JOB_META、就绪队列、预留集合）都在其延迟桶所在的节点上，Lua脚本只访问一个节点
+ * 2. 每个节点上还有一个未分片的延迟桶（JOB_DELAY_BUCKET），用于接收该节点上被拒绝（nack）和预留超时的任务，
+ *    消费者和Reaper按节点部署，不需要知道任务原来属于哪个分片
+ * 3. 延迟桶的数量应当远大于节点数和调度器数（例如64、256），增加节点时只有约1/N的延迟桶需要迁移；
+ *    延迟桶的数量和节点名称一旦确定就不能修改，否则已有任务的路由会改变
+ * @author luzhanghong
+ * @date 2026-10-18 23:05
+ */
+public class ShardedBuckets implements BucketRouter {
+
+    private final Bucket[] shards;        // 分片的延迟桶，下标即序号
+    private final List<Bucket> buckets;   // 全部延迟桶：分片的延迟桶和每个节点上未分片的延迟桶
+    private final Map<String, JedisPool> nodes;
+
+    /**
+     * 构造函数
+     * @param nodes 节点名称（例如host:port）到连接池的映射，所有客户端必须使用相同的节点名称
+     * @param bucketCount 分片的延迟桶数量
+     * @param virtualNodes 每个节点在一致性哈希环上的虚拟节点数
+     */
+    public ShardedBuckets(Map<String, JedisPool> nodes, int bucketCount, int virtualNodes) {
+        if (nodes.isEmpty() || bucketCount < 1) {
+            throw new IllegalArgumentException("At least one node and one bucket are required");
+        }
+        this.nodes = Collections.unmodifiableMap(new TreeMap<>(nodes));
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(virtualNodes);
+        for (String node : this.nodes.keySet()) {
+            ring.add(node, node);
+        }
+        this.shards = new Bucket[bucketCount];
+        List<Bucket> all = new ArrayList<>(bucketCount + nodes.size());
+        for (int i = 0; i < bucketCount; i++) {
+            String key = RedisHelper.bucketKey(i);
+            String node = ring.get(key);
+            shards[i] = new Bucket(node, key, this.nodes.get(node));
+            all.add(shards[i]);
+        }
+        for (Map.Entry<String, JedisPool> node : this.nodes.entrySet()) {
+            all.add(new Bucket(node.getKey(), RedisHelper.JOB_DELAY_BUCKET, node.getValue()));
+        }
+        this.buckets = Collections.unmodifiableList(all);
+    }
+
+    @Override
+    public Bucket route(String jobId) {
+        return shards[bucketOf(jobId)];
+    }
+
+    /**
+     * @param jobId 任务ID
+     * @return 任务所在的分片延迟桶的序号
+     */
+    public int bucketOf(String jobId) {
+        return Math.floorMod(Hashing.murmur3_32().hashString(jobId, StandardCharsets.UTF_8).asInt(), shards.length);
+    }
+
+    /**
+     * @return 全部延迟桶：调度器在这些延迟桶之间分配
+     */
+    public List<Bucket> getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * @return 节点名称到连接池的映射：每个节点需要部署消费者和Reaper
+     */
+    public Map<String, JedisPool> getNodes() {
+        return nodes;
+    }
+
+}
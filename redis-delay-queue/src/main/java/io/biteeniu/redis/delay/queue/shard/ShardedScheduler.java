@@ -0,0 +1,166 @@
+package io.biteeniu.redis.delay.queue.shard;
+
+import io.biteeniu.redis.delay.queue.utils.JobOperations;
+import io.biteeniu.redis.delay.queue.utils.JobScripts;
+import io.biteeniu.redis.delay.queue.utils.RedisHelper;
+import io.biteeniu.redis.delay.queue.utils.Wakeup;
+import io.biteeniu.redis.delay.queue.utils.WakeupSubscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分片调度器：只移动归属于自己的延迟桶中到期的任务
+ * 1. 每个心跳周期通过BucketOwnership发送心跳并刷新归属的延迟桶，调度器加入或者离开时延迟桶自动重新分配
+ * 2. 每一轮依次对每个归属的延迟桶执行一次移动脚本（连接延迟桶所在的节点），任何一个延迟桶移动满batchSize个任务就立即进行下一轮，
+ *    否则一直等待到归属的延迟桶中最早的队首到期（最长maxWait毫秒）
+ * 3. 在每个节点上订阅唤醒频道，生产者写入的任务成为某个归属的延迟桶的队首时提前唤醒；下一次心跳最晚在heartbeatInterval之后发送
+ * 4. 延迟桶分布在多个节点上，增加节点和调度器即可水平扩展，不再受限于单个Redis实例的单核
+ * 调度器需要在独立的线程中运行：new Thread(scheduler).start()
+ * @author luzhanghong
+ * @date 2026-10-18 23:15
+ */
+public class ShardedScheduler implements Runnable {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ShardedScheduler.class);
+    private final BucketOwnership ownership;
+    private final int batchSize;
+    private final long maxWait;
+    private final long heartbeatInterval;
+    private final Wakeup wakeup = new Wakeup();
+    private final List<WakeupSubscriber> subscribers = new ArrayList<>();
+    private long nextHeartbeat;
+    private volatile boolean running = true;
+
+    public ShardedScheduler(BucketOwnership ownership) {
+        this(ownership, 500, 1000L, 1000L);
+    }
+
+    /**
+     * 构造函数
+     * @param ownership 延迟桶的归属：心跳超时时间应当是heartbeatInterval的数倍
+     * @param batchSize 每个延迟桶每次最多移动的任务数
+     * @param maxWait 没有积压时两轮移动之间最长的等待时间，单位毫秒
+     * @param heartbeatInterval 心跳间隔，单位毫秒
+     */
+    public ShardedScheduler(BucketOwnership ownership, int batchSize, long maxWait, long heartbeatInterval) {
+        this.ownership = ownership;
+        this.batchSize = Math.min(Math.max(batchSize, 1), JobScripts.MAX_BATCH_SIZE);
+        this.maxWait = Math.max(maxWait, 1L);
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    @Override
+    public void run() {
+        LOGGER.info("Sharded scheduler {} started.", ownership.getWorkerId());
+        subscribe();
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                wakeup.clear();
+                long wait = moveDueJobs();
+                if (wait > 0) {
+                    wakeup.await(wait);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOGGER.error("Move due jobs failed.", e);
+                sleep(maxWait);
+            }
+        }
+        subscribers.forEach(WakeupSubscriber::close);
+        try {
+            ownership.leave();
+        } catch (Exception e) {
+            LOGGER.error("Leave scheduler group failed.", e);
+        }
+        LOGGER.info("Sharded scheduler {} stopped.", ownership.getWorkerId());
+    }
+
+    /**
+     * 必要时发送心跳，然后对每个归属的延迟桶执行一次移动，并计算下一轮移动之前需要等待的时间
+     * @return 需要等待的时间，单位毫秒：0表示至少有一个延迟桶可能还有积压，应当立即进行下一轮移动
+     */
+    public long moveDueJobs() {
+        long now = System.currentTimeMillis();
+        List<Bucket> owned = ownership.getOwned();
+        if (now >= nextHeartbeat) {
+            owned = ownership.refresh();
+            nextHeartbeat = now + heartbeatInterval;
+        }
+        boolean backlog = false;
+        long next = Long.MAX_VALUE;
+        for (Bucket bucket : owned) {
+            try (Jedis jedis = bucket.getPool().getResource()) {
+                if (JobOperations.moveDueJobs(jedis, bucket.getKey(), batchSize) >= batchSize) {
+                    backlog = true;
+                } else if (!backlog) {
+                    long due = JobOperations.nextDueTime(jedis, bucket.getKey());
+                    if (due >= 0) {
+                        next = Math.min(next, due);
+                    }
+                }
+            } catch (Exception e) {
+                // 一个节点不可用不影响其他节点上的延迟桶
+                LOGGER.error("Move due jobs of bucket {} failed.", bucket, e);
+            }
+        }
+        if (backlog) {
+            return 0L;
+        }
+        long wait = Math.min(maxWait, nextHeartbeat - System.currentTimeMillis());
+        if (next != Long.MAX_VALUE) {
+            wait = Math.min(wait, next - System.currentTimeMillis());
+        }
+        return Math.max(wait, 1L);
+    }
+
+    /**
+     * 在每个节点上订阅唤醒频道：只有归属于本调度器的延迟桶的唤醒消息才会唤醒本调度器
+     */
+    private void subscribe() {
+        Map<String, Bucket> nodes = new LinkedHashMap<>();
+        for (Bucket bucket : ownership.getBuckets()) {
+            nodes.putIfAbsent(bucket.getNode(), bucket);
+        }
+        for (Bucket node : nodes.values()) {
+            WakeupSubscriber subscriber = new WakeupSubscriber(node.getPool(), RedisHelper.wakeupChannel("*"), wakeup,
+                    channel -> isOwned(node.getNode(), channel));
+            Thread thread = new Thread(subscriber, Thread.currentThread().getName() + "-wakeup-" + node.getNode());
+            thread.setDaemon(true);
+            thread.start();
+            subscribers.add(subscriber);
+        }
+    }
+
+    private boolean isOwned(String node, String channel) {
+        for (Bucket bucket : ownership.getOwned()) {
+            if (bucket.getNode().equals(node) && channel.equals(RedisHelper.wakeupChannel(bucket.getKey()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 停止调度器：当前这一轮移动完成之后离开调度器组并退出
+     */
+    public void shutdown() {
+        running = false;
+        wakeup.signal();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,268 @@
+package io.biteeniu.redis.delay.queue.utils;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 任务的移动、预留、确认、拒绝、取消和死信重放操作，以及就绪流（Stream后端）上的对应操作：每个操作都是一次Lua脚本调用，批量操作多个任务也只有一次网络往返
+ * 语义为至少一次（at-least-once）：任务被预留后必须在TTR内确认，否则由Reaper重新投递
+ * @author luzhanghong
+ * @date 2026-10-18 20:40
+ */
+public final class JobOperations {
+
+    private JobOperations() {}
+
+    private final static List<String> ACK_KEYS = Arrays.asList(RedisHelper.JOB_RESERVED, RedisHelper.JOB_DELAY_BUCKET,
+            RedisHelper.JOB_POOL, RedisHelper.JOB_META, RedisHelper.JOB_ATTEMPTS);
+    private final static byte[] JOB_POOL = SafeEncoder.encode(RedisHelper.JOB_POOL);
+    private final static List<String> RETRY_KEYS = Arrays.asList(RedisHelper.JOB_RESERVED, RedisHelper.JOB_DELAY_BUCKET,
+            RedisHelper.JOB_META, RedisHelper.JOB_ATTEMPTS, RedisHelper.JOB_DEAD_LETTER);
+    private final static String STREAM_BACKEND = "stream";
+    private final static List<String> REPLAY_KEYS = Arrays.asList(RedisHelper.JOB_DEAD_LETTER, RedisHelper.JOB_DELAY_BUCKET,
+            RedisHelper.JOB_META, RedisHelper.JOB_ATTEMPTS);
+
+    /**
+     * 将延迟桶中最多limit个到期的任务移动到各个主题的就绪队列
+     * @param jedis Jedis：必须连接延迟桶所在的节点
+     * @param bucketKey 延迟桶的键
+     * @param limit 最多移动的任务数
+     * @return 本次移动的任务数
+     */
+    public static int moveDueJobs(Jedis jedis, String bucketKey, int limit) {
+        List<String> keys = Arrays.asList(bucketKey, RedisHelper.JOB_META, RedisHelper.JOB_READY_BACKENDS);
+        List<String> args = Arrays.asList(String.valueOf(System.currentTimeMillis()),
+                String.valueOf(Math.min(limit, JobScripts.MAX_BATCH_SIZE)), RedisHelper.JOB_READY_PREFIX,
+                RedisHelper.JOB_STREAM_PREFIX);
+        Object moved = JobScripts.MOVE_DUE_JOBS.eval(jedis, keys, args);
+        return moved == null ? 0 : ((Long) moved).intValue();
+    }
+
+    /**
+     * 查看延迟桶的队首
+     * @param jedis Jedis：必须连接延迟桶所在的节点
+     * @param bucketKey 延迟桶的键
+     * @return 最早到期的任务的到期时刻，单位毫秒；延迟桶为空时返回-1
+     */
+    public static long nextDueTime(Jedis jedis, String bucketKey) {
+        Set<Tuple> head = jedis.zrangeWithScores(bucketKey, 0, 0);
+        return head.isEmpty() ? -1L : (long) head.iterator().next().getScore();
+    }
+
+    /**
+     * 从主题的就绪队列中预留最多limit个任务
+     * @param jedis Jedis
+     * @param topic 任务的类型
+     * @param limit 最多预留的任务数
+     * @param defaultTtr 任务未设置TTR时使用的TTR，单位毫秒
+     * @param popped 已经通过BLPOP从该就绪队列弹出的任务ID
+     * @return 预留成功的任务ID
+     */
+    @SuppressWarnings("unchecked")
+    public static List<String> reserve(Jedis jedis, String topic, int limit, long defaultTtr, String... popped) {
+        List<String> args = new ArrayList<>(3 + popped.length);
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.add(String.valueOf(Math.min(limit, JobScripts.MAX_BATCH_SIZE)));
+        args.add(String.valueOf(defaultTtr));
+        Collections.addAll(args, popped);
+        List<String> keys = Arrays.asList(RedisHelper.readyKey(topic), RedisHelper.JOB_RESERVED, RedisHelper.JOB_META);
+        return (List<String>) JobScripts.RESERVE_JOBS.eval(jedis, keys, args);
+    }
+
+    /**
+     * 通过一次HMGET批量读取任务的内容
+     * @param jedis Jedis
+     * @param ids 任务ID
+     * @return 与ids一一对应的编码后的任务内容，任务已经被删除时为null
+     */
+    public static List<byte[]> loadBodies(Jedis jedis, List<String> ids) {
+        byte[][] fields = new byte[ids.size()][];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = SafeEncoder.encode(ids.get(i));
+        }
+        return jedis.hmget(JOB_POOL, fields);
+    }
+
+    /**
+     * 确认任务已经处理完成：删除任务的全部数据
+     * @param jedis Jedis
+     * @param ids 任务ID
+     * @return 确认成功的任务数
+     */
+    public static long ack(Jedis jedis, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return 0L;
+        }
+        return (Long) JobScripts.ACK_JOBS.eval(jedis, ACK_KEYS, new ArrayList<>(ids));
+    }
+
+    /**
+     * 拒绝任务：按任务的重试策略延迟后重新投递，没有重试策略的任务在delay毫秒之后重新投递；失败次数达到上限的任务移入死信集合
+     * @param jedis Jedis
+     * @param ids 任务ID
+     * @param delay 任务没有重试策略时的重试延迟，单位毫秒
+     * @return 移入死信集合的任务ID
+     */
+    @SuppressWarnings("unchecked")
+    public static List<String> nack(Jedis jedis, Collection<String> ids, long delay) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> args = new ArrayList<>(ids.size() + 3);
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.add(String.valueOf(delay));
+        args.add(String.valueOf(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE)));
+        args.addAll(ids);
+        return (List<String>) JobScripts.NACK_JOBS.eval(jedis, RETRY_KEYS, args);
+    }
+
+    /**
+     * 将最多limit个预留超时的任务移回延迟桶：有重试策略的任务计入失败次数并退避，达到上限的移入死信集合
+     * @param jedis Jedis
+     * @param limit 最多处理的任务数
+     * @return 处理的任务数
+     */
+    public static int requeueExpired(Jedis jedis, int limit) {
+        List<String> args = Arrays.asList(String.valueOf(System.currentTimeMillis()),
+                String.valueOf(Math.min(limit, JobScripts.MAX_BATCH_SIZE)),
+                String.valueOf(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE)));
+        return ((Long) JobScripts.REQUEUE_EXPIRED.eval(jedis, RETRY_KEYS, args)).intValue();
+    }
+
+    /**
+     * 将一批死信放回延迟桶立即投递
+     * @param jedis Jedis
+     * @param ids 任务ID：通常来自一次ZSCAN
+     * @param topic 只重放该主题的任务，null表示全部
+     * @return 重放的任务数
+     */
+    public static long replayDeadLetters(Jedis jedis, Collection<String> ids, String topic) {
+        if (ids.isEmpty()) {
+            return 0L;
+        }
+        List<String> args = new ArrayList<>(ids.size() + 2);
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.add(topic == null ? "" : topic);
+        args.addAll(ids);
+        return (Long) JobScripts.REPLAY_DEAD_LETTERS.eval(jedis, REPLAY_KEYS, args);
+    }
+
+    /**
+     * 取消一批还在延迟桶中的任务
+     * @param jedis Jedis：必须连接延迟桶所在的节点
+     * @param bucketKey 延迟桶的键
+     * @param ids 任务ID
+     * @param topic 只取消该主题的任务，null表示全部
+     * @return 取消的任务ID
+     */
+    @SuppressWarnings("unchecked")
+    public static List<String> cancel(Jedis jedis, String bucketKey, Collection<String> ids, String topic) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> keys = Arrays.asList(bucketKey, RedisHelper.JOB_POOL, RedisHelper.JOB_META, RedisHelper.JOB_ATTEMPTS);
+        List<String> args = new ArrayList<>(ids.size() + 1);
+        args.add(topic == null ? "" : topic);
+        args.addAll(ids);
+        return (List<String>) JobScripts.CANCEL_JOBS.eval(jedis, keys, args);
+    }
+
+    /**
+     * 主题改用就绪流：创建消费者组（从流的开头读取，已经追加的条目不会遗漏），然后登记主题的后端，调度器随后把到期的任务追加到就绪流
+     * 登记之前已经移动到就绪队列（List）中的任务仍需要由Consumer或Dispatcher处理完
+     * @param jedis Jedis：必须连接延迟桶所在的节点
+     * @param topic 任务的类型
+     */
+    public static void useStream(Jedis jedis, String topic) {
+        try {
+            jedis.xgroupCreate(RedisHelper.streamKey(topic), RedisHelper.JOB_STREAM_GROUP, new StreamEntryID(), true);
+        } catch (JedisDataException e) {
+            if (e.getMessage() == null || !e.getMessage().startsWith("BUSYGROUP")) {
+                throw e;
+            }
+        }
+        jedis.hset(RedisHelper.JOB_READY_BACKENDS, topic, STREAM_BACKEND);
+    }
+
+    /**
+     * 主题改回就绪队列（List）：就绪流中已有的条目仍需要由StreamConsumer处理完
+     * @param jedis Jedis：必须连接延迟桶所在的节点
+     * @param topic 任务的类型
+     */
+    public static void useList(Jedis jedis, String topic) {
+        jedis.hdel(RedisHelper.JOB_READY_BACKENDS, topic);
+    }
+
+    /**
+     * 确认就绪流中已经处理完成的任务
+     * @param jedis Jedis
+     * @param topic 任务的类型
+     * @param entries 流条目ID和任务ID交替排列
+     * @return 确认成功的任务数
+     */
+    public static long streamAck(Jedis jedis, String topic, List<String> entries) {
+        if (entries.isEmpty()) {
+            return 0L;
+        }
+        List<String> keys = Arrays.asList(RedisHelper.streamKey(topic), RedisHelper.JOB_DELAY_BUCKET, RedisHelper.JOB_POOL,
+                RedisHelper.JOB_META, RedisHelper.JOB_ATTEMPTS);
+        List<String> args = new ArrayList<>(entries.size() + 1);
+        args.add(RedisHelper.JOB_STREAM_GROUP);
+        args.addAll(entries);
+        return (Long) JobScripts.STREAM_ACK_JOBS.eval(jedis, keys, args);
+    }
+
+    /**
+     * 拒绝就绪流中的任务：按重试策略放回延迟桶，没有重试策略的任务在delay毫秒之后重新投递
+     * @param jedis Jedis
+     * @param topic 任务的类型
+     * @param entries 流条目ID和任务ID交替排列
+     * @param delay 任务没有重试策略时的重试延迟，单位毫秒
+     * @return 移入死信集合的任务ID
+     */
+    @SuppressWarnings("unchecked")
+    public static List<String> streamNack(Jedis jedis, String topic, List<String> entries, long delay) {
+        if (entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> args = new ArrayList<>(entries.size() + 4);
+        args.add(RedisHelper.JOB_STREAM_GROUP);
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.add(String.valueOf(delay));
+        args.add(String.valueOf(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE)));
+        args.addAll(entries);
+        return (List<String>) JobScripts.STREAM_NACK_JOBS.eval(jedis, streamRetryKeys(topic), args);
+    }
+
+    /**
+     * 回收就绪流中投递后超过TTR仍未确认的任务
+     * @param jedis Jedis
+     * @param topic 任务的类型
+     * @param limit 最多检查的未确认条目数（从最早投递的开始）
+     * @param defaultTtr 任务未设置TTR时使用的TTR，单位毫秒
+     * @return 回收的条目数
+     */
+    public static int reclaimStalled(Jedis jedis, String topic, int limit, long defaultTtr) {
+        List<String> args = Arrays.asList(RedisHelper.JOB_STREAM_GROUP, String.valueOf(System.currentTimeMillis()),
+                String.valueOf(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE)),
+                String.valueOf(Math.min(limit, JobScripts.MAX_BATCH_SIZE)), String.valueOf(defaultTtr));
+        return ((Long) JobScripts.RECLAIM_STALLED.eval(jedis, streamRetryKeys(topic), args)).intValue();
+    }
+
+    private static List<String> streamRetryKeys(String topic) {
+        return Arrays.asList(RedisHelper.streamKey(topic), RedisHelper.JOB_DELAY_BUCKET, RedisHelper.JOB_META,
+                RedisHelper.JOB_ATTEMPTS, RedisHelper.JOB_DEAD_LETTER);
+    }
+
+}
@@ -0,0 +1,308 @@
+package io.biteeniu.redis.delay.queue.utils;
+
+import io.biteeniu.common.redis.LuaScript;
+
+/**
+ * 延迟队列使用的Lua脚本：每个脚本在Redis服务端原子执行，多个调度器、消费者并发执行也不会重复投递
+ * 注意：就绪队列、就绪流的键在脚本中根据主题拼接，没有全部通过KEYS传入，因此只适用于单机（或者主从）Redis
+ * @author luzhanghong
+ * @date 2026-10-18 19:45
+ */
+public final class JobScripts {
+
+    private JobScripts() {}
+
+    /**
+     * 一次脚本调用中最多移动的任务数：受Lua unpack()参数个数的限制
+     */
+    public final static int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * 将最多N个已经到期的任务ID从延迟桶移动到各自主题的就绪队列
+     * 使用Stream后端的主题（JOB_READY_BACKENDS中的值为"stream"）追加到就绪流，每个条目包含任务ID和TTR（秒）；
+     * TTR无法解析（例如旧版本写入的负数）时写入0，由消费者使用默认TTR：此时任务已经从延迟桶删除，脚本出错会丢失任务
+     * KEYS[1]: 延迟桶（JOB_DELAY_BUCKET）；KEYS[2]: 调度信息（JOB_META）；KEYS[3]: 就绪队列后端（JOB_READY_BACKENDS）
+     * ARGV[1]: 当前时间戳（毫秒）；ARGV[2]: 最多移动的任务数；ARGV[3]: 就绪队列的键前缀；ARGV[4]: 就绪流的键前缀
+     * 返回：移动的任务数（包括调度信息已经不存在、被直接丢弃的任务）
+     */
+    public final static LuaScript MOVE_DUE_JOBS = new LuaScript("move-due-jobs",
+            "local ids = redis.call('zrangebyscore', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2]))\n" +
+            "if #ids == 0 then return 0 end\n" +
+            "redis.call('zrem', KEYS[1], unpack(ids))\n" +
+            "local metas = redis.call('hmget', KEYS[2], unpack(ids))\n" +
+            "local ready = {}\n" +
+            "local ttrs = {}\n" +
+            "for i, id in ipairs(ids) do\n" +
+            "  local meta = metas[i]\n" +
+            "  if meta then\n" +
+            "    local topic = string.sub(meta, string.find(meta, ':', 1, true) + 1)\n" +
+            "    local list = ready[topic]\n" +
+            "    if not list then list = {}; ready[topic] = list end\n" +
+            "    list[#list + 1] = id\n" +
+            "    ttrs[id] = string.match(meta, '^%d+') or '0'\n" +
+            "  end\n" +
+            "end\n" +
+            "for topic, list in pairs(ready) do\n" +
+            "  if redis.call('hget', KEYS[3], topic) == 'stream' then\n" +
+            "    for _, id in ipairs(list) do\n" +
+            "      redis.call('xadd', ARGV[4] .. topic, '*', 'id', id, 'ttr', ttrs[id])\n" +
+            "    end\n" +
+            "  else\n" +
+            "    redis.call('rpush', ARGV[3] .. topic, unpack(list))\n" +
+            "  end\n" +
+            "end\n" +
+            "return #ids");
+
+    /**
+     * 唤醒调度器：写入的任务成为延迟桶的队首（比原来的队首更早到期）时，向唤醒频道发布新的队首分值
+     * KEYS[1]: 延迟桶；ARGV[1]: 唤醒频道；ARGV[2]: 本次写入该延迟桶的任务中最早的到期时刻（毫秒）
+     * 在生产者的MULTI事务中紧跟ZADD执行，ZADD之后队首的分值仍然不小于ARGV[2]说明新任务就是队首；
+     * 事务中使用EVAL而不是EVALSHA，避免脚本缓存被清空时事务中的NOSCRIPT错误
+     * 返回：nil
+     */
+    public final static LuaScript WAKE_SCHEDULER = new LuaScript("wake-scheduler",
+            "local head = redis.call('zrange', KEYS[1], 0, 0, 'WITHSCORES')\n" +
+            "if head[2] and tonumber(head[2]) >= tonumber(ARGV[2]) then\n" +
+            "  redis.call('publish', ARGV[1], head[2])\n" +
+            "end");
+
+    /**
+     * 预留（取走）任务：从就绪队列弹出最多N个任务ID，并以"当前时间+TTR"为分值放入预留集合
+     * KEYS[1]: 就绪队列；KEYS[2]: 预留集合（JOB_RESERVED）；KEYS[3]: 调度信息（JOB_META）
+     * ARGV[1]: 当前时间戳（毫秒）；ARGV[2]: 最多预留的任务数；ARGV[3]: 任务未设置TTR时的默认TTR（毫秒）；
+     * ARGV[4...]: 已经通过BLPOP弹出、需要一并预留的任务ID
+     * 调度信息中的TTR无法解析（例如旧版本写入的负数）时也使用默认TTR：此时任务已经弹出，脚本出错会丢失任务
+     * 返回：预留成功的任务ID（调度信息已经不存在的任务被丢弃）
+     */
+    public final static LuaScript RESERVE_JOBS = new LuaScript("reserve-jobs",
+            "local ids = {}\n" +
+            "for i = 4, #ARGV do ids[#ids + 1] = ARGV[i] end\n" +
+            "local limit = tonumber(ARGV[2])\n" +
+            "while #ids < limit do\n" +
+            "  local id = redis.call('lpop', KEYS[1])\n" +
+            "  if not id then break end\n" +
+            "  ids[#ids + 1] = id\n" +
+            "end\n" +
+            "if #ids == 0 then return ids end\n" +
+            "local now = tonumber(ARGV[1])\n" +
+            "local metas = redis.call('hmget', KEYS[3], unpack(ids))\n" +
+            "local reserved = {}\n" +
+            "for i, id in ipairs(ids) do\n" +
+            "  local meta = metas[i]\n" +
+            "  if meta then\n" +
+            "    local ttr = tonumber(string.match(meta, '^%d+') or '0') * 1000\n" +
+            "    if ttr <= 0 then ttr = tonumber(ARGV[3]) end\n" +
+            "    redis.call('zadd', KEYS[2], now + ttr, id)\n" +
+            "    reserved[#reserved + 1] = id\n" +
+            "  end\n" +
+            "end\n" +
+            "return reserved");
+
+    /**
+     * 确认任务：删除任务的全部数据；即使预留已经超时、任务已经被重新放回延迟桶，也一并删除，避免已经处理完成的任务被再次投递
+     * KEYS[1]: 预留集合；KEYS[2]: 延迟桶；KEYS[3]: 任务池（JOB_POOL）；KEYS[4]: 调度信息；KEYS[5]: 失败次数（JOB_ATTEMPTS）
+     * ARGV[1...]: 任务ID
+     * 返回：确认成功（任务数据存在）的任务数
+     */
+    public final static LuaScript ACK_JOBS = new LuaScript("ack-jobs",
+            "redis.call('zrem', KEYS[1], unpack(ARGV))\n" +
+            "redis.call('zrem', KEYS[2], unpack(ARGV))\n" +
+            "redis.call('hdel', KEYS[3], unpack(ARGV))\n" +
+            "redis.call('hdel', KEYS[5], unpack(ARGV))\n" +
+            "return redis.call('hdel', KEYS[4], unpack(ARGV))");
+
+    /**
+     * 拒绝、TTR超时共用的重试逻辑：失败次数加一，按任务的重试策略计算退避时间后放回延迟桶，或者移入死信集合
+     * KEYS[2]: 延迟桶；KEYS[3]: 调度信息；KEYS[4]: 失败次数；KEYS[5]: 死信集合
+     * 随机抖动使用调用方传入的种子：脚本的执行结果只取决于参数，主从复制、AOF重放时结果一致
+     * retry(id, now, delay)返回true表示任务已经移入死信集合；调度信息已经不存在的任务直接丢弃
+     */
+    private final static String RETRY_FUNCTION =
+            "local function retry(id, now, delay)\n" +
+            "  local meta = redis.call('hget', KEYS[3], id)\n" +
+            "  if not meta then\n" +
+            "    redis.call('hdel', KEYS[4], id)\n" +
+            "    return false\n" +
+            "  end\n" +
+            "  local attempts = redis.call('hincrby', KEYS[4], id, 1)\n" +
+            "  local max, base, cap = string.match(meta, '^%d+,(%d+),(%d+),(%d+):')\n" +
+            "  if max then\n" +
+            "    max = tonumber(max)\n" +
+            "    if max > 0 and attempts >= max then\n" +
+            "      redis.call('zadd', KEYS[5], now, id)\n" +
+            "      return true\n" +
+            "    end\n" +
+            "    local d = math.min(tonumber(cap), tonumber(base) * 2 ^ (attempts - 1))\n" +
+            "    delay = math.floor(d / 2 + math.random() * d / 2)\n" +
+            "  end\n" +
+            "  redis.call('zadd', KEYS[2], now + delay, id)\n" +
+            "  return false\n" +
+            "end\n";
+
+    /**
+     * 拒绝任务：将仍处于预留状态的任务从预留集合移回延迟桶，按重试策略延迟后重新投递；失败次数达到上限的任务移入死信集合
+     * KEYS[1]: 预留集合；KEYS[2]: 延迟桶；KEYS[3]: 调度信息；KEYS[4]: 失败次数；KEYS[5]: 死信集合
+     * ARGV[1]: 当前时间戳（毫秒）；ARGV[2]: 任务没有重试策略时的重试延迟（毫秒）；ARGV[3]: 随机种子；ARGV[4...]: 任务ID
+     * 返回：移入死信集合的任务ID（预留已经超时被重新投递的任务不再处理）
+     */
+    public final static LuaScript NACK_JOBS = new LuaScript("nack-jobs", RETRY_FUNCTION +
+            "math.randomseed(tonumber(ARGV[3]))\n" +
+            "local now = tonumber(ARGV[1])\n" +
+            "local delay = tonumber(ARGV[2])\n" +
+            "local dead = {}\n" +
+            "for i = 4, #ARGV do\n" +
+            "  if redis.call('zrem', KEYS[1], ARGV[i]) == 1 and retry(ARGV[i], now, delay) then\n" +
+            "    dead[#dead + 1] = ARGV[i]\n" +
+            "  end\n" +
+            "end\n" +
+            "return dead");
+
+    /**
+     * 重新投递预留超时的任务：将最多N个TTR已经到期的任务ID从预留集合移回延迟桶
+     * 没有重试策略的任务分值为当前时间，由调度器立即移动到就绪队列；有重试策略的任务同样计入失败次数并退避
+     * KEYS[1]: 预留集合；KEYS[2]: 延迟桶；KEYS[3]: 调度信息；KEYS[4]: 失败次数；KEYS[5]: 死信集合
+     * ARGV[1]: 当前时间戳（毫秒）；ARGV[2]: 最多处理的任务数；ARGV[3]: 随机种子
+     * 返回：处理的任务数（包括移入死信集合的任务）
+     */
+    public final static LuaScript REQUEUE_EXPIRED = new LuaScript("requeue-expired", RETRY_FUNCTION +
+            "local ids = redis.call('zrangebyscore', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2]))\n" +
+            "if #ids == 0 then return 0 end\n" +
+            "redis.call('zrem', KEYS[1], unpack(ids))\n" +
+            "math.randomseed(tonumber(ARGV[3]))\n" +
+            "local now = tonumber(ARGV[1])\n" +
+            "for i, id in ipairs(ids) do\n" +
+            "  retry(id, now, 0)\n" +
+            "end\n" +
+            "return #ids");
+
+    /**
+     * 重放死信：将仍在死信集合中的任务放回延迟桶立即投递，并清零失败次数
+     * KEYS[1]: 死信集合；KEYS[2]: 延迟桶；KEYS[3]: 调度信息；KEYS[4]: 失败次数
+     * ARGV[1]: 当前时间戳（毫秒）；ARGV[2]: 只重放该主题的任务，空字符串表示全部；ARGV[3...]: 任务ID
+     * 返回：重放的任务数（调度信息已经不存在的任务从死信集合中删除，不计入）
+     */
+    public final static LuaScript REPLAY_DEAD_LETTERS = new LuaScript("replay-dead-letters",
+            "local n = 0\n" +
+            "for i = 3, #ARGV do\n" +
+            "  local id = ARGV[i]\n" +
+            "  local meta = redis.call('hget', KEYS[3], id)\n" +
+            "  if not meta then\n" +
+            "    redis.call('zrem', KEYS[1], id)\n" +
+            "    redis.call('hdel', KEYS[4], id)\n" +
+            "  elseif ARGV[2] == '' or string.sub(meta, string.find(meta, ':', 1, true) + 1) == ARGV[2] then\n" +
+            "    if redis.call('zrem', KEYS[1], id) == 1 then\n" +
+            "      redis.call('hdel', KEYS[4], id)\n" +
+            "      redis.call('zadd', KEYS[2], ARGV[1], id)\n" +
+            "      n = n + 1\n" +
+            "    end\n" +
+            "  end\n" +
+            "end\n" +
+            "return n");
+
+    /**
+     * 确认就绪流中的任务：确认并删除流条目（XACK + XDEL，流的长度只取决于未处理的任务数），然后删除任务的全部数据
+     * KEYS[1]: 就绪流；KEYS[2]: 延迟桶；KEYS[3]: 任务池；KEYS[4]: 调度信息；KEYS[5]: 失败次数
+     * ARGV[1]: 消费者组；ARGV[2...]: 流条目ID和任务ID交替排列
+     * 返回：确认成功（任务数据存在）的任务数
+     */
+    public final static LuaScript STREAM_ACK_JOBS = new LuaScript("stream-ack-jobs",
+            "local entries = {}\n" +
+            "local ids = {}\n" +
+            "for i = 2, #ARGV, 2 do\n" +
+            "  entries[#entries + 1] = ARGV[i]\n" +
+            "  ids[#ids + 1] = ARGV[i + 1]\n" +
+            "end\n" +
+            "redis.call('xack', KEYS[1], ARGV[1], unpack(entries))\n" +
+            "redis.call('xdel', KEYS[1], unpack(entries))\n" +
+            "redis.call('zrem', KEYS[2], unpack(ids))\n" +
+            "redis.call('hdel', KEYS[3], unpack(ids))\n" +
+            "redis.call('hdel', KEYS[5], unpack(ids))\n" +
+            "return redis.call('hdel', KEYS[4], unpack(ids))");
+
+    /**
+     * 拒绝就绪流中的任务：确认并删除流条目，任务按重试策略放回延迟桶或者移入死信集合，由调度器在到期后重新追加到就绪流
+     * KEYS[1]: 就绪流；KEYS[2]: 延迟桶；KEYS[3]: 调度信息；KEYS[4]: 失败次数；KEYS[5]: 死信集合
+     * ARGV[1]: 消费者组；ARGV[2]: 当前时间戳（毫秒）；ARGV[3]: 任务没有重试策略时的重试延迟（毫秒）；ARGV[4]: 随机种子；
+     * ARGV[5...]: 流条目ID和任务ID交替排列
+     * 返回：移入死信集合的任务ID（流条目已经被回收的任务不再处理）
+     */
+    public final static LuaScript STREAM_NACK_JOBS = new LuaScript("stream-nack-jobs", RETRY_FUNCTION +
+            "math.randomseed(tonumber(ARGV[4]))\n" +
+            "local now = tonumber(ARGV[2])\n" +
+            "local delay = tonumber(ARGV[3])\n" +
+            "local dead = {}\n" +
+            "for i = 5, #ARGV, 2 do\n" +
+            "  if redis.call('xack', KEYS[1], ARGV[1], ARGV[i]) == 1 then\n" +
+            "    redis.call('xdel', KEYS[1], ARGV[i])\n" +
+            "    if retry(ARGV[i + 1], now, delay) then dead[#dead + 1] = ARGV[i + 1] end\n" +
+            "  end\n" +
+            "end\n" +
+            "return dead");
+
+    /**
+     * 回收就绪流中处理超时的任务：通过XPENDING检查消费者组中最早的N个未确认条目，已经投递超过TTR的条目确认并删除，
+     * 任务与预留超时一样计入失败次数，按重试策略放回延迟桶或者移入死信集合
+     * KEYS[1]: 就绪流；KEYS[2]: 延迟桶；KEYS[3]: 调度信息；KEYS[4]: 失败次数；KEYS[5]: 死信集合
+     * ARGV[1]: 消费者组；ARGV[2]: 当前时间戳（毫秒）；ARGV[3]: 随机种子；ARGV[4]: 最多检查的条目数；ARGV[5]: 任务未设置TTR时的默认TTR（毫秒）
+     * 返回：回收的条目数
+     */
+    public final static LuaScript RECLAIM_STALLED = new LuaScript("reclaim-stalled", RETRY_FUNCTION +
+            "local pending = redis.call('xpending', KEYS[1], ARGV[1], '-', '+', tonumber(ARGV[4]))\n" +
+            "if #pending == 0 then return 0 end\n" +
+            "math.randomseed(tonumber(ARGV[3]))\n" +
+            "local now = tonumber(ARGV[2])\n" +
+            "local n = 0\n" +
+            "for _, p in ipairs(pending) do\n" +
+            "  local entry = redis.call('xrange', KEYS[1], p[1], p[1])[1]\n" +
+            "  local id = nil\n" +
+            "  local ttr = 0\n" +
+            "  if entry then\n" +
+            "    local fields = entry[2]\n" +
+            "    for i = 1, #fields, 2 do\n" +
+            "      if fields[i] == 'id' then id = fields[i + 1] elseif fields[i] == 'ttr' then ttr = tonumber(fields[i + 1]) * 1000 end\n" +
+            "    end\n" +
+            "  end\n" +
+            "  if ttr <= 0 then ttr = tonumber(ARGV[5]) end\n" +
+            "  if not entry or p[3] >= ttr then\n" +
+            "    redis.call('xack', KEYS[1], ARGV[1], p[1])\n" +
+            "    redis.call('xdel', KEYS[1], p[1])\n" +
+            "    if id then retry(id, now, 0) end\n" +
+            "    n = n + 1\n" +
+            "  end\n" +
+            "end\n" +
+            "return n");
+
+    /**
+     * 取消还在延迟桶中（未到期）的任务：从延迟桶删除成功的任务才删除其任务数据，已经移动到就绪队列的任务不受影响
+     * KEYS[1]: 延迟桶；KEYS[2]: 任务池；KEYS[3]: 调度信息；KEYS[4]: 失败次数
+     * ARGV[1]: 只取消该主题的任务，空字符串表示全部；ARGV[2...]: 任务ID
+     * 返回：取消的任务ID
+     */
+    public final static LuaScript CANCEL_JOBS = new LuaScript("cancel-jobs",
+            "local ids = {}\n" +
+            "for i = 2, #ARGV do ids[#ids + 1] = ARGV[i] end\n" +
+            "if #ids == 0 then return {} end\n" +
+            "local metas = ARGV[1] ~= '' and redis.call('hmget', KEYS[3], unpack(ids))\n" +
+            "local cancelled = {}\n" +
+            "for i, id in ipairs(ids) do\n" +
+            "  local meta = metas and metas[i]\n" +
+            "  if not metas or (meta and string.sub(meta, string.find(meta, ':', 1, true) + 1) == ARGV[1]) then\n" +
+            "    if redis.call('zrem', KEYS[1], id) == 1 then cancelled[#cancelled + 1] = id end\n" +
+            "  end\n" +
+            "end\n" +
+            "if #cancelled > 0 then\n" +
+            "  redis.call('hdel', KEYS[2], unpack(cancelled))\n" +
+            "  redis.call('hdel', KEYS[3], unpack(cancelled))\n" +
+            "  redis.call('hdel', KEYS[4], unpack(cancelled))\n" +
+            "end\n" +
+            "return cancelled");
+
+    /**
+     * 全部脚本：启动时通过RedisPool.preload()预先加载到每个Redis节点
+     */
+    public final static LuaScript[] ALL = {
+            MOVE_DUE_JOBS, WAKE_SCHEDULER, RESERVE_JOBS, ACK_JOBS, NACK_JOBS, REQUEUE_EXPIRED, REPLAY_DEAD_LETTERS,
+            STREAM_ACK_JOBS, STREAM_NACK_JOBS, RECLAIM_STALLED, CANCEL_JOBS
+    };
+
+}
@@ -1,6 +1,8 @@
 package io.biteeniu.redis.delay.queue.utils;
 
+import io.biteeniu.common.redis.LuaScript;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.params.SetParams;
 
 import java.util.Collections;
 import java.util.UUID;
@@ -22,6 +24,46 @@ public final class RedisHelper {
      * JOB_DELAY_BUCKET: 存放延迟任务的ID：Redis SortSet结构，用于对任务进行延时
      */
     public final static String JOB_DELAY_BUCKET = "job-delay-bucket";
+    /**
+     * JOB_META: 存放延迟任务的调度信息，格式为"ttr:topic"（设置了重试策略时为"ttr,最多投递次数,初始退避,退避上限:topic"）：Redis Hash结构，Lua脚本根据它把任务路由到对应主题的就绪队列，不需要解析任务内容
+     */
+    public final static String JOB_META = "job-meta";
+    /**
+     * JOB_READY_PREFIX: 就绪队列的键前缀，每个主题一个就绪队列（Redis List结构），存放已经到期等待消费的任务ID
+     */
+    public final static String JOB_READY_PREFIX = "job-ready:";
+    /**
+     * JOB_STREAM_PREFIX: 就绪流的键前缀：使用Stream后端的主题，到期的任务追加到该主题的Redis Stream，由消费者组读取
+     */
+    public final static String JOB_STREAM_PREFIX = "job-stream:";
+    /**
+     * JOB_STREAM_GROUP: 就绪流的消费者组：每个任务只需要被处理一次，所有StreamConsumer都加入同一个组
+     */
+    public final static String JOB_STREAM_GROUP = "job-consumers";
+    /**
+     * JOB_READY_BACKENDS: 存放每个主题的就绪队列后端：Redis Hash结构，值为"stream"的主题使用就绪流，其他主题使用就绪队列（List）
+     */
+    public final static String JOB_READY_BACKENDS = "job-ready-backends";
+    /**
+     * JOB_RESERVED: 存放已经被消费者取走但还没有确认的任务ID，分值为TTR到期时刻：Redis SortSet结构，超时未确认的任务会被重新投递
+     */
+    public final static String JOB_RESERVED = "job-reserved";
+    /**
+     * JOB_ATTEMPTS: 存放任务失败（拒绝或者TTR超时）的次数：Redis Hash结构，任务确认或者从死信集合重放时删除
+     */
+    public final static String JOB_ATTEMPTS = "job-attempts";
+    /**
+     * JOB_DEAD_LETTER: 存放失败次数达到重试策略上限的任务ID，分值为移入的时刻：Redis SortSet结构，任务数据保留，可以重放
+     */
+    public final static String JOB_DEAD_LETTER = "job-dead-letter";
+    /**
+     * JOB_SCHEDULER_WORKERS: 存放分片调度器的心跳，分值为最近一次心跳的时刻：Redis SortSet结构，用于在调度器之间分配延迟桶
+     */
+    public final static String JOB_SCHEDULER_WORKERS = "job-scheduler-workers";
+    /**
+     * JOB_WAKEUP_PREFIX: 唤醒频道的前缀，每个延迟桶一个频道（Redis Pub/Sub），新写入的任务成为延迟桶的队首时发布，提前唤醒等待中的调度器
+     */
+    public final static String JOB_WAKEUP_PREFIX = "job-wakeup:";
     private static final String EX = "EX";  // 设置键的过期时间为second秒。SET key value EX second效果等同于SETEX key second value。
     private static final String PX = "PX";  // 设置键的过期时间为millisecond毫秒。SET key value PX millisecond效果等同于PSETEX key millisecond value。
     private static final String NX = "NX";  // 只在键不存在时，才对键进行设置操作。SET key value NX 效果等同于SETNX key value。
@@ -29,11 +71,46 @@ public final class RedisHelper {
     private static final String LOCK_SUCCESS = "OK";  // OK表示加锁成功
     private static final Long UNLOCK_SUCCESS = 1L;    // 1表示解锁成功
     private static final ThreadLocal<String> uuid = new ThreadLocal<>();  // 将客户端的ID（ClientId）设置成Thread-Local变量，保证每个线程都有自己独享的唯一ClientId
-    // 解锁的Lua脚本代码
-    private static final String UNLOCK_SCRIPT = "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
-    // UNLOCK_SCRIPT脚本代码的SHA1值，使用EVALSHA命令来传脚本的SHA1值，避免每次都传输整个脚本，浪费带宽
-    private static final String UNLOCK_SCRIPT_SHA1 = "e9f69f2beb755be68b5e456ee2ce9aadfbc4ebf4";
+    // 解锁的Lua脚本：通过EVALSHA执行，避免每次都传输整个脚本，脚本缓存被清空时自动重新加载
+    private static final LuaScript UNLOCK_SCRIPT = new LuaScript("unlock",
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end");
+
+
+    /**
+     * 获取主题对应的就绪队列的键
+     * @param topic 任务的类型
+     * @return 就绪队列的键
+     */
+    public static String readyKey(String topic) {
+        return JOB_READY_PREFIX + topic;
+    }
+
+    /**
+     * 获取主题对应的就绪流的键
+     * @param topic 任务的类型
+     * @return 就绪流的键
+     */
+    public static String streamKey(String topic) {
+        return JOB_STREAM_PREFIX + topic;
+    }
 
+    /**
+     * 获取分片延迟桶的键
+     * @param index 延迟桶的序号
+     * @return 延迟桶的键
+     */
+    public static String bucketKey(int index) {
+        return JOB_DELAY_BUCKET + ":" + index;
+    }
+
+    /**
+     * 获取延迟桶对应的唤醒频道
+     * @param bucketKey 延迟桶的键
+     * @return 唤醒频道
+     */
+    public static String wakeupChannel(String bucketKey) {
+        return JOB_WAKEUP_PREFIX + bucketKey;
+    }
 
     /**
      * 对某个Key加锁（Redis分布式锁）
@@ -42,7 +119,7 @@ public final class RedisHelper {
      * @return true-加锁成功；false-加锁失败
      */
     public static boolean lock(Jedis jedis, String key) {
-        return LOCK_SUCCESS.equals(jedis.set(key, getThreadLocalClientId(), NX, EX, 30L));
+        return LOCK_SUCCESS.equals(jedis.set(key, getThreadLocalClientId(), SetParams.setParams().nx().ex(30)));
     }
 
     /**
@@ -52,7 +129,7 @@ public final class RedisHelper {
      * @return true-解锁成功；false-解锁失败
      */
     public static boolean unlock(Jedis jedis, String key) {
-        return UNLOCK_SUCCESS.equals(jedis.evalsha(UNLOCK_SCRIPT_SHA1, Collections.singletonList(key), Collections.singletonList(getThreadLocalClientId())));
+        return UNLOCK_SUCCESS.equals(UNLOCK_SCRIPT.eval(jedis, Collections.singletonList(key), Collections.singletonList(getThreadLocalClientId())));
     }
 
     /**
@@ -0,0 +1,46 @@
+package io.biteeniu.redis.delay.queue.utils;
+
+/**
+ * 唤醒信号：调度器在两轮移动之间等待，收到唤醒信号后提前结束等待
+ * 调度器在每一轮移动之前调用clear()，之后收到的信号都不会丢失：即使信号在await()之前到达，await()也会立即返回
+ * @author luzhanghong
+ * @date 2026-10-18 23:40
+ */
+public final class Wakeup {
+
+    private boolean signalled;
+
+    /**
+     * 发出唤醒信号
+     */
+    public synchronized void signal() {
+        signalled = true;
+        notifyAll();
+    }
+
+    /**
+     * 清除已经收到的唤醒信号
+     */
+    public synchronized void clear() {
+        signalled = false;
+    }
+
+    /**
+     * 等待唤醒信号
+     * @param millis 最多等待的时间，单位毫秒
+     * @return true-收到了唤醒信号；false-等待超时
+     * @throws InterruptedException 等待的过程中线程被中断
+     */
+    public synchronized boolean await(long millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + millis;
+        long remaining = millis;
+        while (!signalled && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        boolean result = signalled;
+        signalled = false;
+        return result;
+    }
+
+}
@@ -0,0 +1,98 @@
+package io.biteeniu.redis.delay.queue.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.function.Predicate;
+
+/**
+ * 唤醒频道的订阅者：在独立的线程中订阅一个节点上的唤醒频道（PSUBSCRIBE），收到消息时发出唤醒信号
+ * 1. 订阅占用一个独立的连接，直到close()；连接断开后每秒重连一次，重连成功后发出一次唤醒信号，
+ *    让调度器重新查看队首，弥补断线期间丢失的消息
+ * 2. Pub/Sub不保证送达，丢失的唤醒由调度器的最长等待时间兜底
+ * @author luzhanghong
+ * @date 2026-10-18 23:45
+ */
+public class WakeupSubscriber implements Runnable {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(WakeupSubscriber.class);
+    private final static long RECONNECT_INTERVAL = 1000L;
+    private final JedisPool jedisPool;
+    private final String pattern;
+    private final Wakeup wakeup;
+    private final Predicate<String> filter;
+    private final JedisPubSub pubSub;
+    private volatile boolean running = true;
+
+    /**
+     * 构造函数
+     * @param jedisPool 节点的连接池
+     * @param pattern 唤醒频道的模式，例如RedisHelper.wakeupChannel("*")
+     * @param wakeup 收到消息时发出的唤醒信号
+     * @param filter 频道过滤器：只有频道名称满足条件的消息才发出唤醒信号
+     */
+    public WakeupSubscriber(JedisPool jedisPool, String pattern, Wakeup wakeup, Predicate<String> filter) {
+        this.jedisPool = jedisPool;
+        this.pattern = pattern;
+        this.wakeup = wakeup;
+        this.filter = filter;
+        this.pubSub = new JedisPubSub() {
+            @Override
+            public void onPMessage(String pattern, String channel, String message) {
+                if (WakeupSubscriber.this.filter.test(channel)) {
+                    WakeupSubscriber.this.wakeup.signal();
+                }
+            }
+
+            @Override
+            public void onPSubscribe(String pattern, int subscribedChannels) {
+                // close()在psubscribe()之前调用时没有可以取消的订阅：订阅成功后再检查一次，否则订阅线程永远不会退出
+                synchronized (WakeupSubscriber.this) {
+                    if (!running) {
+                        punsubscribe();
+                        return;
+                    }
+                }
+                WakeupSubscriber.this.wakeup.signal();
+            }
+        };
+    }
+
+    @Override
+    public void run() {
+        // 被中断后sleep()会立即返回，继续重连只会不停地打印警告，因此中断也让订阅线程退出
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try (Jedis jedis = jedisPool.getResource()) {
+                // psubscribe()阻塞直到取消订阅
+                jedis.psubscribe(pubSub, pattern);
+            } catch (Exception e) {
+                if (running && !Thread.currentThread().isInterrupted()) {
+                    LOGGER.warn("Wakeup subscription {} lost, reconnecting in {} ms.", pattern, RECONNECT_INTERVAL, e);
+                    sleep(RECONNECT_INTERVAL);
+                }
+            }
+        }
+    }
+
+    /**
+     * 取消订阅，订阅线程随之退出；与订阅成功的回调互斥，两者之一一定能看到对方的状态
+     */
+    public synchronized void close() {
+        running = false;
+        if (pubSub.isSubscribed()) {
+            pubSub.punsubscribe();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
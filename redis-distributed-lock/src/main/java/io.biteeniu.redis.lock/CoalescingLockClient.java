@@ -0,0 +1,239 @@
+package io.biteeniu.redis.lock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 合并本地竞争的分布式锁客户端：同一进程中竞争同一个key的线程先在本地排队，只有本地的获胜者访问Redis
+ * 1. 每个key对应一个本地的公平ReentrantLock（按引用计数创建和删除，没有线程使用的key不占内存），线程先获取本地锁，再获取Redis锁；
+ *    本地的等待者在ReentrantLock上排队，不再各自轮询Redis
+ * 2. 移交：释放时如果本地还有等待同一个key的线程，不删除Redis锁，直接交给下一个本地线程，省去一次DEL和一次SET；
+ *    接手的线程按自己的超时时间续期（超时时间与上次相同、并且距离上次加锁或者续期不到超时时间的1/3时省去续期），
+ *    续期失败说明锁已经丢失，重新获取Redis锁；
+ *    为了不让其他进程饿死，连续移交maxHandoffs次之后必须真正释放一次Redis锁
+ * 3. Redis锁的值是本客户端的clientId（而不是线程的clientId），移交后新的持有者线程可以续期和解锁
+ * 4. 可重入：同一个线程再次加锁只增加本地的持有计数，不访问Redis
+ * 5. 看门狗（可选）：获取Redis锁和每次移交之后由看门狗为锁续期，持有者为当前线程
+ * @author luzhanghong
+ * @date 2026-10-19 04:20
+ */
+public class CoalescingLockClient {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(CoalescingLockClient.class);
+    private final JedisPool jedisPool;
+    private final LockWatchdog watchdog;
+    private final long retryMillis;
+    private final int maxHandoffs;
+    private final String clientId = UUID.randomUUID().toString();
+    private final Map<String, LocalLock> locks = new ConcurrentHashMap<>();
+
+    public CoalescingLockClient(JedisPool jedisPool) {
+        this(jedisPool, null, 50L, 16);
+    }
+
+    /**
+     * 构造函数
+     * @param jedisPool Jedis连接池
+     * @param watchdog 看门狗，null表示不自动续期
+     * @param retryMillis 本地获胜者获取Redis锁失败后重试的间隔，单位毫秒
+     * @param maxHandoffs 最多连续在本地移交的次数，0表示每次都释放Redis锁
+     */
+    public CoalescingLockClient(JedisPool jedisPool, LockWatchdog watchdog, long retryMillis, int maxHandoffs) {
+        this.jedisPool = jedisPool;
+        this.watchdog = watchdog;
+        this.retryMillis = retryMillis;
+        this.maxHandoffs = maxHandoffs;
+    }
+
+    /**
+     * 获取分布式锁
+     * @param key 用key来当锁，因为key是唯一的
+     * @param expireTime 锁的超时时间，单位秒
+     * @param waitMillis 最多等待的时间（包括本地排队和轮询Redis的时间），单位毫秒
+     * @return true-加锁成功；false-等待超时或者线程被中断
+     */
+    public boolean tryLock(String key, int expireTime, long waitMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        LocalLock local = locks.compute(key, (k, lock) -> {
+            lock = lock == null ? new LocalLock() : lock;
+            lock.users++;
+            return lock;
+        });
+        boolean locked = false;
+        try {
+            if (!local.lock.tryLock(waitMillis, TimeUnit.MILLISECONDS)) {
+                releaseOrphan(key, local);
+                return false;
+            }
+            try {
+                if (local.lock.getHoldCount() > 1) {
+                    locked = true;
+                } else if (local.redisHeld && claim(key, local, expireTime)) {
+                    // 上一个本地持有者移交过来的锁
+                    watch(key, expireTime);
+                    locked = true;
+                } else {
+                    local.redisHeld = false;
+                    local.handoffs = 0;
+                    locked = acquire(key, expireTime, deadline);
+                    if (locked) {
+                        local.redisHeld = true;
+                        local.renewedAt = System.nanoTime();
+                        local.expireTime = expireTime;
+                    }
+                }
+                return locked;
+            } finally {
+                if (!locked) {
+                    local.lock.unlock();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            releaseOrphan(key, local);
+            return false;
+        } finally {
+            if (!locked) {
+                release(key);
+            }
+        }
+    }
+
+    /**
+     * 解锁：本地还有等待者时把锁移交给下一个本地线程，否则释放Redis锁
+     * @param key key
+     */
+    public void unlock(String key) {
+        LocalLock local = locks.get(key);
+        if (local == null || !local.lock.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("Lock " + key + " is not held by current thread");
+        }
+        try {
+            if (local.lock.getHoldCount() == 1 && local.redisHeld) {
+                if (watchdog != null) {
+                    watchdog.unwatch(key, clientId);
+                }
+                if (local.lock.hasQueuedThreads() && local.handoffs < maxHandoffs) {
+                    local.handoffs++;
+                } else {
+                    local.redisHeld = false;
+                    local.handoffs = 0;
+                    try (Jedis jedis = jedisPool.getResource()) {
+                        RedisLockHelper.unlock(jedis, key, clientId);
+                    }
+                }
+            }
+        } finally {
+            local.lock.unlock();
+            release(key);
+        }
+    }
+
+    /**
+     * @return 本客户端在Redis锁中使用的clientId
+     */
+    public String getClientId() {
+        return clientId;
+    }
+
+    /**
+     * 本地获胜者轮询Redis锁，直到成功或者超时
+     */
+    private boolean acquire(String key, int expireTime, long deadline) throws InterruptedException {
+        while (true) {
+            boolean locked;
+            try (Jedis jedis = jedisPool.getResource()) {
+                locked = RedisLockHelper.lock(jedis, key, clientId, expireTime);
+            }
+            if (locked) {
+                watch(key, expireTime);
+                return true;
+            }
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            Thread.sleep(Math.min(retryMillis, remaining));
+        }
+    }
+
+    /**
+     * 接手移交过来的锁：Redis中的锁仍然是上一个持有者的超时时间，按本次的超时时间续期；
+     * 超时时间与上次相同并且距离上次加锁或者续期不到超时时间的1/3时，锁至少还有2/3的时间，省去续期
+     * @return true-锁仍然属于本客户端；false-锁已经丢失（或者续期失败），需要重新获取
+     */
+    private boolean claim(String key, LocalLock local, int expireTime) {
+        long now = System.nanoTime();
+        if (expireTime == local.expireTime && now - local.renewedAt < TimeUnit.SECONDS.toNanos(expireTime) / 3) {
+            return true;
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            if (RedisLockHelper.renew(jedis, key, clientId, expireTime)) {
+                local.renewedAt = now;
+                local.expireTime = expireTime;
+                return true;
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Renew handed-off lock {} failed.", key, e);
+            return false;
+        }
+        LOGGER.warn("Handed-off lock {} was lost, acquiring it again.", key);
+        return false;
+    }
+
+    /**
+     * 等待本地锁超时或者被中断的线程可能正是移交的对象：如果锁已经移交出来却没有其他线程等待，由这个线程释放Redis锁，否则要等到锁超时
+     */
+    private void releaseOrphan(String key, LocalLock local) {
+        if (!local.lock.tryLock()) {
+            return;
+        }
+        try {
+            if (local.redisHeld && !local.lock.hasQueuedThreads()) {
+                local.redisHeld = false;
+                local.handoffs = 0;
+                try (Jedis jedis = jedisPool.getResource()) {
+                    RedisLockHelper.unlock(jedis, key, clientId);
+                }
+            }
+        } finally {
+            local.lock.unlock();
+        }
+    }
+
+    private void watch(String key, int expireTime) {
+        if (watchdog != null) {
+            watchdog.watch(key, clientId, expireTime * 1000L);
+        }
+    }
+
+    /**
+     * 减少引用计数，没有线程使用时删除本地锁
+     */
+    private void release(String key) {
+        locks.computeIfPresent(key, (k, lock) -> --lock.users == 0 ? null : lock);
+    }
+
+    /**
+     * 一个key的本地锁：redisHeld、expireTime和handoffs只在持有本地锁时读写
+     */
+    private static final class LocalLock {
+
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private int users;             // 正在等待或者持有本地锁的调用次数：只在ConcurrentHashMap.compute中修改
+        private boolean redisHeld;     // 本客户端是否持有Redis锁
+        private int expireTime;        // 当前Redis锁的超时时间，单位秒
+        private long renewedAt;        // 上次加锁或者续期的时刻（System.nanoTime()）
+        private int handoffs;          // 连续在本地移交的次数
+
+    }
+
+}
@@ -1,10 +1,10 @@
 package io.biteeniu.redis.lock;
 
-import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import io.biteeniu.common.redis.RedisConfig;
+import io.biteeniu.common.redis.RedisPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
-import redis.clients.jedis.JedisPool;
 
 /**
  * 程序启动类
@@ -20,15 +20,18 @@ public class Launcher {
      * @param args args
      */
     public static void main(String[] args) {
-        GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
-        JedisPool jedisPool = new JedisPool(poolConfig, "10.200.0.206");
+        // Redis地址和连接池大小见redis.properties，可以通过系统属性覆盖，例如-Dredis.host=10.200.0.206
+        RedisPool jedisPool = new RedisPool(RedisConfig.load("redis.properties"));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> LOGGER.info("{}", jedisPool.summary())));
 
         // 测试获取分布式锁——错误的示例1
         // testLockWithWrongWay1(jedisPool.getResource());
         // 测试获取分布式锁——正确的姿势——锁的可重入性测试
         // testReentrantLockWithCorrectWay(jedisPool.getResource());
-        // 测试正确姿势下的加锁解锁操作
-        testLockAndUnlockWithCorrectWay(jedisPool);
+        // 测试可重入的分布式锁：嵌套加锁只有最外层访问Redis
+        // testReentrantRedisLock(jedisPool);
+        // 测试正确姿势下的加锁解锁操作：锁由看门狗自动续期
+        testLockAndUnlockWithCorrectWay(jedisPool, new LockWatchdog(jedisPool));
     }
 
     /**
@@ -71,40 +74,57 @@ public class Launcher {
         }
     }
 
+    /**
+     * 可重入的分布式锁测试：同一个线程嵌套加锁3次，只有最外层的加锁和解锁访问Redis
+     * @param jedisPool RedisPool
+     */
+    private static void testReentrantRedisLock(RedisPool jedisPool) {
+        ReentrantRedisLock lock = new ReentrantRedisLock(jedisPool, "distributed-reentrant-lock", 5);
+        String clientId = RedisLockHelper.getThreadLocalClientId();
+        for (int depth = 1; depth <= 3; depth++) {
+            boolean lockResult = lock.tryLock();
+            LOGGER.info("Client[{}] get lock at depth {}: {}, hold count: {}.", clientId, depth, lockResult, lock.getHoldCount());
+        }
+        while (lock.isHeldByCurrentThread()) {
+            lock.unlock();
+            LOGGER.info("Client[{}] release lock, hold count: {}.", clientId, lock.getHoldCount());
+        }
+    }
+
     /**
      * 测试正确姿势下的加锁解锁操作
-     * @param jedisPool JedisPool
+     * @param jedisPool RedisPool
+     * @param watchdog 看门狗
      */
-    private static void testLockAndUnlockWithCorrectWay(JedisPool jedisPool) {
+    private static void testLockAndUnlockWithCorrectWay(RedisPool jedisPool, LockWatchdog watchdog) {
         // 开启两个线程来处理业务逻辑，两个线程都需要现获取到分布式锁才能处理业务
-        Jedis jedis1 = jedisPool.getResource();
-        new Thread(() -> {
-            while (true) {
-                handleBusinessLogic(jedis1);
-            }
-        }).start();
-        Jedis jedis2 = jedisPool.getResource();
-        new Thread(() -> {
-            while (true) {
-                handleBusinessLogic(jedis2);
-            }
-        }).start();
+        // 每次加锁、解锁时才从连接池借用连接，用完立即归还，不在线程中长期占用连接
+        for (int i = 1; i <= 2; i++) {
+            Thread thread = new Thread(() -> {
+                while (true) {
+                    handleBusinessLogic(jedisPool, watchdog);
+                }
+            });
+            thread.setName("business-thread-" + i);
+            thread.start();
+        }
     }
 
     /**
      * 模拟处理业务逻辑测试：加锁-处理业务-解锁
-     * @param jedis Jedis
+     * @param jedisPool RedisPool
+     * @param watchdog 看门狗
      */
-    private static void handleBusinessLogic(Jedis jedis) {
+    private static void handleBusinessLogic(RedisPool jedisPool, LockWatchdog watchdog) {
         String key = "distributed-lock";  // 加锁的key
         String clientId = RedisLockHelper.getThreadLocalClientId();  // 客户端ID
-        int expireTime = 5;  // 锁的超时时间设置为5秒
-        if (RedisLockHelper.lock(jedis, key, expireTime)) {
+        int expireTime = 1;  // 锁的超时时间设置为1秒：看门狗约每333毫秒续期一次，客户端崩溃后1秒内锁就会释放
+        if (jedisPool.execute(jedis -> RedisLockHelper.lock(jedis, key, expireTime, watchdog))) {
             LOGGER.info("Client[{}] get lock ok.", clientId);
-            // 加锁成功后，执行业务逻辑：这里假设业务逻辑处理需要2秒的时间
+            // 加锁成功后，执行业务逻辑：这里假设业务逻辑处理需要2秒的时间（超过锁的超时时间），处理期间不占用连接
             sleep(2000L);
             // 业务逻辑处理完毕，执行解锁操作
-            RedisLockHelper.unlock(jedis, key);
+            jedisPool.execute(jedis -> RedisLockHelper.unlock(jedis, key, watchdog));
             LOGGER.info("Client[{}] handle business ok and release lock ok.", clientId);
             // 业务处理完毕：休眠600ms
             sleep(600L);
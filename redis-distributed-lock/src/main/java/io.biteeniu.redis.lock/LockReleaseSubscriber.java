@@ -0,0 +1,152 @@
+package io.biteeniu.redis.lock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 锁释放频道的订阅者：整个进程共用一个连接订阅全部锁的释放频道（PSUBSCRIBE lock-release:*），解锁脚本删除锁时向该锁的频道发布消息，
+ * 订阅者唤醒本进程中等待这个锁的线程
+ * 1. 等待者在尝试加锁之前登记（register），加锁失败到开始等待之间收到的释放消息也不会丢失
+ * 2. 同一个锁的全部等待者都被唤醒，重新竞争：锁可能被其他进程抢到，没抢到的线程继续等待
+ * 3. 订阅需要在独立的线程中运行：new Thread(subscriber).start()；连接断开后每秒重连一次，重连成功后唤醒全部等待者
+ * 4. Pub/Sub不保证送达，锁超时自动删除时也没有消息，等待者以有上限的指数退避兜底
+ * @author luzhanghong
+ * @date 2026-10-19 05:00
+ */
+public class LockReleaseSubscriber implements Runnable {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(LockReleaseSubscriber.class);
+    private final static long RECONNECT_INTERVAL = 1000L;
+    private final JedisPool jedisPool;
+    private final Map<String, Set<Waiter>> waiters = new ConcurrentHashMap<>();
+    private final JedisPubSub pubSub;
+    private volatile boolean running = true;
+
+    public LockReleaseSubscriber(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+        this.pubSub = new JedisPubSub() {
+            @Override
+            public void onPMessage(String pattern, String channel, String message) {
+                signal(message);
+            }
+
+            @Override
+            public void onPSubscribe(String pattern, int subscribedChannels) {
+                // close()在psubscribe()之前调用时没有可以取消的订阅：订阅成功后再检查一次，否则订阅线程永远不会退出
+                synchronized (LockReleaseSubscriber.this) {
+                    if (!running) {
+                        punsubscribe();
+                        return;
+                    }
+                }
+                // 断线期间可能错过了释放消息
+                for (String key : waiters.keySet()) {
+                    signal(key);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void run() {
+        // 被中断后sleep()会立即返回，继续重连只会不停地打印警告，因此中断也让订阅线程退出
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try (Jedis jedis = jedisPool.getResource()) {
+                // psubscribe()阻塞直到取消订阅
+                jedis.psubscribe(pubSub, RedisLockHelper.releaseChannel("*"));
+            } catch (Exception e) {
+                if (running && !Thread.currentThread().isInterrupted()) {
+                    LOGGER.warn("Lock release subscription lost, reconnecting in {} ms.", RECONNECT_INTERVAL, e);
+                    sleep(RECONNECT_INTERVAL);
+                }
+            }
+        }
+    }
+
+    /**
+     * 取消订阅，订阅线程随之退出；与订阅成功的回调互斥，两者之一一定能看到对方的状态
+     */
+    public synchronized void close() {
+        running = false;
+        if (pubSub.isSubscribed()) {
+            pubSub.punsubscribe();
+        }
+    }
+
+    /**
+     * 登记一个等待者：在第一次尝试加锁之前调用
+     * @param key 锁的key
+     * @return 等待者，加锁结束后必须调用unregister()
+     */
+    public Waiter register(String key) {
+        Waiter waiter = new Waiter();
+        waiters.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(waiter);
+        return waiter;
+    }
+
+    /**
+     * 取消登记
+     * @param key 锁的key
+     * @param waiter 等待者
+     */
+    public void unregister(String key, Waiter waiter) {
+        waiters.computeIfPresent(key, (k, set) -> set.remove(waiter) && set.isEmpty() ? null : set);
+    }
+
+    private void signal(String key) {
+        Set<Waiter> set = waiters.get(key);
+        if (set != null) {
+            for (Waiter waiter : set) {
+                waiter.signal();
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 一个等待中的线程：收到的释放信号在下一次await()时消费，信号先于await()到达也不会丢失
+     */
+    public static final class Waiter {
+
+        private boolean signalled;
+
+        synchronized void signal() {
+            signalled = true;
+            notifyAll();
+        }
+
+        /**
+         * 等待释放信号
+         * @param millis 最多等待的时间，单位毫秒
+         * @return true-收到了释放信号；false-等待超时
+         * @throws InterruptedException 等待的过程中线程被中断
+         */
+        public synchronized boolean await(long millis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + millis;
+            long remaining = millis;
+            while (!signalled && remaining > 0) {
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+            boolean result = signalled;
+            signalled = false;
+            return result;
+        }
+
+    }
+
+}
@@ -0,0 +1,181 @@
+package io.biteeniu.redis.lock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 锁的看门狗：自动为本进程持有的锁续期，锁的超时时间可以设置得很短（客户端崩溃后锁很快释放），长时间的业务处理也不会丢失锁
+ * 1. 整个进程共用一个看门狗线程，每隔tickMillis毫秒检查一次，为距离上次续期已经过了约TTL/3的锁续期
+ * 2. 续期使用"比较后PEXPIRE"的Lua脚本：锁的值仍然是持有者的clientId才续期，不会为已经被其他客户端获取的锁续期
+ * 3. 一次检查中需要续期的全部锁在一个管道中发送，只有一次网络往返
+ * 4. 以下情况停止续期：锁已经释放（unwatch）、持有锁的线程已经结束（锁随后自然过期）、续期时发现锁已经不属于持有者，
+ *    或者持续续期失败（例如Redis不可用）直到锁已经过期
+ * @author luzhanghong
+ * @date 2026-10-19 04:00
+ */
+public class LockWatchdog implements Closeable {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(LockWatchdog.class);
+    private final JedisPool jedisPool;
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+
+    public LockWatchdog(JedisPool jedisPool) {
+        this(jedisPool, 100L);
+    }
+
+    /**
+     * 构造函数
+     * @param jedisPool Jedis连接池
+     * @param tickMillis 检查的间隔，单位毫秒：应当远小于锁的超时时间的1/3
+     */
+    public LockWatchdog(JedisPool jedisPool, long tickMillis) {
+        this.jedisPool = jedisPool;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lock-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 开始为当前线程持有的锁续期：加锁成功后调用
+     * @param key 锁的key
+     * @param clientId 持有者的clientId
+     * @param ttlMillis 锁的超时时间，单位毫秒：每次续期都重新设置为这个值
+     */
+    public void watch(String key, String clientId, long ttlMillis) {
+        leases.put(key, new Lease(clientId, ttlMillis, Thread.currentThread()));
+    }
+
+    /**
+     * 停止续期：解锁之前调用
+     * @param key 锁的key
+     * @param clientId 持有者的clientId：只停止该持有者的续期
+     */
+    public void unwatch(String key, String clientId) {
+        leases.computeIfPresent(key, (k, lease) -> lease.clientId.equals(clientId) ? null : lease);
+    }
+
+    /**
+     * @param key 锁的key
+     * @return 看门狗是否仍在为该锁续期：锁已经丢失时返回false
+     */
+    public boolean isWatching(String key) {
+        return leases.containsKey(key);
+    }
+
+    /**
+     * @return 正在续期的锁的数量
+     */
+    public int size() {
+        return leases.size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        leases.clear();
+    }
+
+    /**
+     * 一次检查：在一个管道中为到期的锁续期
+     */
+    private void tick() {
+        long now = System.currentTimeMillis();
+        List<String> keys = new ArrayList<>();
+        List<Lease> due = new ArrayList<>();
+        for (Map.Entry<String, Lease> entry : leases.entrySet()) {
+            Lease lease = entry.getValue();
+            if (!lease.owner.isAlive()) {
+                LOGGER.warn("Owner thread {} of lock {} has died, stop renewing.", lease.owner.getName(), entry.getKey());
+                leases.remove(entry.getKey(), lease);
+            } else if (lease.expiresAt <= now) {
+                LOGGER.warn("Lock {} has expired before it could be renewed, stop renewing.", entry.getKey());
+                leases.remove(entry.getKey(), lease);
+            } else if (now - lease.renewedAt >= lease.ttlMillis / 3) {
+                keys.add(entry.getKey());
+                due.add(lease);
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Object>> responses = new ArrayList<>(due.size());
+            for (int i = 0; i < due.size(); i++) {
+                Lease lease = due.get(i);
+                responses.add(pipeline.evalsha(RedisLockHelper.RENEW_SCRIPT.getSha1(), Collections.singletonList(keys.get(i)),
+                        Arrays.asList(lease.clientId, String.valueOf(lease.ttlMillis))));
+            }
+            pipeline.sync();
+            boolean reload = false;
+            for (int i = 0; i < due.size(); i++) {
+                Lease lease = due.get(i);
+                Object result;
+                try {
+                    result = responses.get(i).get();
+                } catch (JedisDataException e) {
+                    // 脚本缓存被清空：重新加载，这些锁在下一次检查时续期
+                    reload = reload || (e.getMessage() != null && e.getMessage().startsWith("NOSCRIPT"));
+                    continue;
+                }
+                if (Long.valueOf(1L).equals(result)) {
+                    lease.renewed(now);
+                } else {
+                    LOGGER.warn("Lock {} is no longer held by client {}, stop renewing.", keys.get(i), lease.clientId);
+                    leases.remove(keys.get(i), lease);
+                }
+            }
+            if (reload) {
+                RedisLockHelper.RENEW_SCRIPT.load(jedis);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Renew {} locks failed.", due.size(), e);
+        }
+    }
+
+    /**
+     * 一个正在续期的锁
+     */
+    private static final class Lease {
+
+        private final String clientId;
+        private final long ttlMillis;
+        private final Thread owner;
+        private volatile long renewedAt;  // 上次加锁或者续期成功的时刻，单位毫秒
+        private volatile long expiresAt;  // 按上次续期计算的锁的过期时刻，单位毫秒
+
+        Lease(String clientId, long ttlMillis, Thread owner) {
+            this.clientId = clientId;
+            this.ttlMillis = ttlMillis;
+            this.owner = owner;
+            renewed(System.currentTimeMillis());
+        }
+
+        void renewed(long now) {
+            this.renewedAt = now;
+            this.expiresAt = now + ttlMillis;
+        }
+
+    }
+
+}
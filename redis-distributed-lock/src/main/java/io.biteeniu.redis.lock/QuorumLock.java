@@ -0,0 +1,232 @@
+package io.biteeniu.redis.lock;
+
+import io.biteeniu.common.redis.LuaScript;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * 多节点的法定数量锁（Redlock）：在N个互相独立的Redis节点（不是主从）上同时加锁，超过半数节点加锁成功并且剩余有效时间大于0才算成功，
+ * 任意少数节点宕机或者主从切换丢失了锁，都不会让两个客户端同时持有锁
+ * 1. 并发：对各个节点的请求在线程池中同时发出，加锁耗时取决于最慢的节点（max）而不是各节点耗时之和（sum）；
+ *    每个节点最多等待nodeTimeoutMillis毫秒，超时的节点按失败处理
+ * 2. 有效时间：validity = ttl - 加锁耗时 - 时钟漂移（ttl * driftFactor + 2毫秒），持有者必须在有效时间内完成操作
+ * 3. 失败时在全部节点上解锁（包括超时、可能已经加锁成功的节点），不需要等待锁自然过期
+ * 4. 防护令牌（fencing token）：每个节点上有一个计数器，加锁成功的节点INCR计数器，令牌取这些节点返回值的最大值，
+ *    然后在第二轮请求中把法定数量节点的计数器提高到令牌的值；任意两个法定数量的节点集合至少有一个公共节点，
+ *    因此后一次加锁的令牌一定大于前一次，下游存储只接受不小于已见过的最大令牌的写入，就能拒绝锁过期后仍在写入的旧持有者
+ * @author luzhanghong
+ * @date 2026-10-19 06:00
+ */
+public class QuorumLock implements Closeable {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(QuorumLock.class);
+    private final static String FENCE_PREFIX = "lock-fence:";  // 防护令牌计数器的键前缀，后面是锁的key
+    // 加锁并递增计数器：KEYS[1]: 锁；KEYS[2]: 计数器；ARGV[1]: 锁的值；ARGV[2]: 超时时间（毫秒）
+    // 返回计数器递增后的值，加锁失败返回0
+    private final static LuaScript ACQUIRE_SCRIPT = new LuaScript("quorum-acquire",
+            "if redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then\n" +
+            "  return redis.call('incr', KEYS[2])\n" +
+            "end\n" +
+            "return 0");
+    // 提高计数器：KEYS[1]: 计数器；ARGV[1]: 令牌；计数器小于令牌时设置为令牌，返回1
+    private final static LuaScript RAISE_SCRIPT = new LuaScript("quorum-raise-fence",
+            "local current = tonumber(redis.call('get', KEYS[1]) or '0')\n" +
+            "if current < tonumber(ARGV[1]) then redis.call('set', KEYS[1], ARGV[1]) end\n" +
+            "return 1");
+    private final List<JedisPool> nodes;
+    private final int quorum;
+    private final long nodeTimeoutMillis;
+    private final double driftFactor;
+    private final ExecutorService executor;
+
+    public QuorumLock(List<? extends JedisPool> nodes) {
+        this(nodes, 50L, 0.01);
+    }
+
+    /**
+     * 构造函数
+     * @param nodes 互相独立的Redis节点，通常为奇数个（3、5）
+     * @param nodeTimeoutMillis 每个节点最多等待的时间，单位毫秒：应当远小于锁的超时时间
+     * @param driftFactor 时钟漂移系数：有效时间中扣除ttl * driftFactor + 2毫秒
+     */
+    public QuorumLock(List<? extends JedisPool> nodes, long nodeTimeoutMillis, double driftFactor) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one node is required");
+        }
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        this.quorum = nodes.size() / 2 + 1;
+        this.nodeTimeoutMillis = nodeTimeoutMillis;
+        this.driftFactor = driftFactor;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "quorum-lock");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 尝试加锁一次
+     * @param key 锁的key
+     * @param ttlMillis 锁的超时时间，单位毫秒
+     * @return 加锁成功时返回租约（包括有效时间和防护令牌），失败返回null
+     */
+    public Lease tryLock(String key, long ttlMillis) {
+        String value = UUID.randomUUID().toString();
+        long start = System.nanoTime();
+        List<String> keys = Arrays.asList(key, FENCE_PREFIX + key);
+        List<String> args = Arrays.asList(value, String.valueOf(ttlMillis));
+        List<Long> counters = fanOut(jedis -> (Long) ACQUIRE_SCRIPT.eval(jedis, keys, args));
+        long token = 0L;
+        List<Integer> acquired = new ArrayList<>(counters.size());
+        for (int i = 0; i < counters.size(); i++) {
+            Long counter = counters.get(i);
+            if (counter != null && counter > 0) {
+                acquired.add(i);
+                token = Math.max(token, counter);
+            }
+        }
+        if (acquired.size() >= quorum && raiseFence(key, token, acquired) >= quorum) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            long validity = ttlMillis - elapsed - (long) (ttlMillis * driftFactor) - 2L;
+            if (validity > 0) {
+                return new Lease(key, value, token, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(validity));
+            }
+        }
+        LOGGER.debug("Quorum lock {} failed: {} of {} nodes acquired.", key, acquired.size(), nodes.size());
+        release(key, value);
+        return null;
+    }
+
+    /**
+     * 解锁：在全部节点上删除值仍然是租约的值的锁
+     * @param lease 加锁成功时返回的租约
+     * @return 解锁成功的节点数
+     */
+    public int unlock(Lease lease) {
+        return release(lease.key, lease.value);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private int release(String key, String value) {
+        int released = 0;
+        for (Long result : fanOut(jedis -> RedisLockHelper.unlock(jedis, key, value) ? 1L : 0L)) {
+            if (result != null && result == 1L) {
+                released++;
+            }
+        }
+        return released;
+    }
+
+    /**
+     * 第二轮请求：把加锁成功的节点上的计数器提高到令牌的值
+     * @return 成功的节点数
+     */
+    private int raiseFence(String key, long token, List<Integer> acquired) {
+        List<String> keys = Collections.singletonList(FENCE_PREFIX + key);
+        List<String> args = Collections.singletonList(String.valueOf(token));
+        List<Long> results = fanOut(jedis -> (Long) RAISE_SCRIPT.eval(jedis, keys, args));
+        int raised = 0;
+        for (int i : acquired) {
+            if (results.get(i) != null && results.get(i) == 1L) {
+                raised++;
+            }
+        }
+        return raised;
+    }
+
+    /**
+     * 在全部节点上并发执行同一个操作，最多等待nodeTimeoutMillis毫秒
+     * @return 每个节点的结果，失败或者超时的节点为null
+     */
+    private List<Long> fanOut(Function<Jedis, Long> operation) {
+        List<CompletableFuture<Long>> futures = new ArrayList<>(nodes.size());
+        for (JedisPool node : nodes) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try (Jedis jedis = node.getResource()) {
+                    return operation.apply(jedis);
+                }
+            }, executor));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(nodeTimeoutMillis);
+        List<Long> results = new ArrayList<>(nodes.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get(Math.max(deadline - System.nanoTime(), 0L), TimeUnit.NANOSECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.add(null);
+            } catch (ExecutionException | TimeoutException e) {
+                LOGGER.debug("Quorum lock node {} failed: {}", i, e.toString());
+                results.add(null);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 租约：一次成功的加锁
+     */
+    public static final class Lease {
+
+        private final String key;
+        private final String value;
+        private final long token;
+        private final long validUntil;  // 有效期的截止时刻（System.nanoTime()）
+
+        Lease(String key, String value, long token, long validUntil) {
+            this.key = key;
+            this.value = value;
+            this.token = token;
+            this.validUntil = validUntil;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return 防护令牌：每次成功加锁都比上一次大，随写入请求一起交给下游存储
+         */
+        public long getToken() {
+            return token;
+        }
+
+        /**
+         * @return 剩余的有效时间，单位毫秒；0表示已经失效，不能再依赖锁的互斥性
+         */
+        public long getValidityMillis() {
+            return Math.max(TimeUnit.NANOSECONDS.toMillis(validUntil - System.nanoTime()), 0L);
+        }
+
+        public boolean isValid() {
+            return validUntil - System.nanoTime() > 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Lease{key=" + key + ", token=" + token + ", validity=" + getValidityMillis() + "ms}";
+        }
+
+    }
+
+}
@@ -1,11 +1,16 @@
 package io.biteeniu.redis.lock;
 
+import io.biteeniu.common.redis.LuaScript;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.params.SetParams;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.UUID;
+import java.util.function.Predicate;
 
 /**
  * @author luzhanghong
@@ -21,6 +26,33 @@ public final class RedisLockHelper {
     private static final String NX = "NX";  // 只在键不存在时，才对键进行设置操作。SET key value NX 效果等同于SETNX key value。
     private static final String XX = "XX";  // 只在键已经存在时，才对键进行设置操作。
     private static final ThreadLocal<String> uuid = new ThreadLocal<>();  // 将客户端的ID（ClientId）设置成Thread-Local变量，保证每个线程都有自己独享的唯一ClientId
+    private static final String RELEASE_CHANNEL_PREFIX = "lock-release:";  // 锁的释放频道的前缀，后面是锁的key
+    private static final long MIN_BACKOFF = 10L;   // 等待锁时没有收到释放消息，第一次重试前等待的时间，单位毫秒
+    private static final long MAX_BACKOFF = 500L;  // 重试间隔的上限，单位毫秒
+    // 解锁的Lua脚本：通过EVALSHA执行，避免每次都传输整个脚本，脚本缓存被清空时自动重新加载
+    // 删除锁之后向锁的释放频道发布锁的key，唤醒等待这个锁的客户端（见LockReleaseSubscriber）
+    private static final LuaScript UNLOCK_SCRIPT = new LuaScript("unlock",
+            "if redis.call('get', KEYS[1]) == ARGV[1] then\n" +
+            "  redis.call('del', KEYS[1])\n" +
+            "  redis.call('publish', ARGV[2], KEYS[1])\n" +
+            "  return 1\n" +
+            "end\n" +
+            "return 0");
+    // 续期的Lua脚本：锁仍然属于clientId时才重新设置超时时间（毫秒），看门狗在管道中通过EVALSHA执行
+    // 普通锁（字符串，值为clientId）和可重入锁（哈希，字段为clientId）共用
+    static final LuaScript RENEW_SCRIPT = new LuaScript("renew",
+            "local t = redis.call('type', KEYS[1]).ok\n" +
+            "if (t == 'string' and redis.call('get', KEYS[1]) == ARGV[1])\n" +
+            "    or (t == 'hash' and redis.call('hexists', KEYS[1], ARGV[1]) == 1) then\n" +
+            "  return redis.call('pexpire', KEYS[1], ARGV[2])\n" +
+            "end\n" +
+            "return 0");
+    // Lua脚本片段：取Redis服务器的当前时间（毫秒）放入局部变量now，租约的过期时刻都以服务器时钟计算，不受客户端时钟偏差影响
+    // 必须位于脚本开头：Redis 5之前默认复制整个脚本，TIME之后不允许写命令，replicate_commands()改为复制脚本产生的写命令
+    static final String NOW_MILLIS =
+            "redis.replicate_commands()\n" +
+            "local t = redis.call('time')\n" +
+            "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)\n";
 
     private RedisLockHelper() {}
 
@@ -78,7 +110,120 @@ public final class RedisLockHelper {
      * @return true-加锁成功；false-加锁失败
      */
     public static boolean lock(Jedis jedis, String key, int expireTime) {
-        return LOCK_SUCCESS.equals(jedis.set(key, getThreadLocalClientId(), NX, PX, expireTime*1000L));
+        return lock(jedis, key, getThreadLocalClientId(), expireTime);
+    }
+
+    /**
+     * 以指定的clientId获取分布式锁：锁的持有者不是单个线程时使用，例如在同一进程的多个线程之间移交锁
+     * @param jedis Jedis实例
+     * @param key 用key来当锁，因为key是唯一的
+     * @param clientId 持有者的ID，作为锁的值
+     * @param expireTime 锁的超时时间，单位秒——超过此时间未解锁则Redis会删除锁
+     * @return true-加锁成功；false-加锁失败
+     */
+    public static boolean lock(Jedis jedis, String key, String clientId, int expireTime) {
+        return LOCK_SUCCESS.equals(jedis.set(key, clientId, SetParams.setParams().nx().px(expireTime*1000L)));
+    }
+
+    /**
+     * 获取分布式锁，成功后由看门狗自动续期：超时时间可以设置得很短，业务处理时间超过超时时间也不会丢失锁
+     * @param jedis Jedis实例
+     * @param key 用key来当锁，因为key是唯一的
+     * @param expireTime 锁的超时时间，单位秒——客户端崩溃（不再续期）后超过此时间Redis会删除锁
+     * @param watchdog 看门狗
+     * @return true-加锁成功；false-加锁失败
+     */
+    public static boolean lock(Jedis jedis, String key, int expireTime, LockWatchdog watchdog) {
+        if (lock(jedis, key, expireTime)) {
+            watchdog.watch(key, getThreadLocalClientId(), expireTime * 1000L);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 获取分布式锁，失败时等待锁被释放，直到超时：
+     * 等待期间不轮询Redis，解锁时通过释放频道唤醒；没有收到释放消息（消息丢失、锁超时被删除）时按10~500毫秒的指数退避重试
+     * 每次尝试时才从连接池借用连接，等待期间不占用连接
+     * @param jedisPool Jedis连接池
+     * @param key 用key来当锁，因为key是唯一的
+     * @param expireTime 锁的超时时间，单位秒——超过此时间未解锁则Redis会删除锁
+     * @param waitMillis 最多等待的时间，单位毫秒
+     * @param subscriber 锁释放频道的订阅者
+     * @return true-加锁成功；false-等待超时或者线程被中断
+     */
+    public static boolean tryLock(JedisPool jedisPool, String key, int expireTime, long waitMillis, LockReleaseSubscriber subscriber) {
+        String clientId = getThreadLocalClientId();
+        return await(jedisPool, key, waitMillis, subscriber, jedis -> lock(jedis, key, clientId, expireTime));
+    }
+
+    /**
+     * 反复尝试加锁，两次尝试之间等待锁的释放消息或者退避，直到成功或者超时：各种锁的等待逻辑共用
+     * @param jedisPool Jedis连接池：每次尝试时借用连接
+     * @param key 锁的key
+     * @param waitMillis 最多等待的时间，单位毫秒
+     * @param subscriber 锁释放频道的订阅者，null表示只按指数退避重试
+     * @param attempt 一次加锁尝试
+     * @return true-加锁成功；false-等待超时或者线程被中断
+     */
+    static boolean await(JedisPool jedisPool, String key, long waitMillis, LockReleaseSubscriber subscriber,
+                         Predicate<Jedis> attempt) {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        long backoff = MIN_BACKOFF;
+        LockReleaseSubscriber.Waiter waiter = subscriber == null ? null : subscriber.register(key);
+        try {
+            while (true) {
+                try (Jedis jedis = jedisPool.getResource()) {
+                    if (attempt.test(jedis)) {
+                        return true;
+                    }
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                if (waiter == null) {
+                    Thread.sleep(Math.min(backoff, remaining));
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF);
+                } else if (waiter.await(Math.min(backoff, remaining))) {
+                    backoff = MIN_BACKOFF;
+                } else {
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            if (waiter != null) {
+                subscriber.unregister(key, waiter);
+            }
+        }
+    }
+
+    /**
+     * 续期：锁仍然属于当前线程时重新设置超时时间
+     * @param jedis Jedis实例
+     * @param key key
+     * @param expireTime 锁的超时时间，单位秒
+     * @return true-续期成功；false-锁已经不属于当前线程
+     */
+    public static boolean renew(Jedis jedis, String key, int expireTime) {
+        return renew(jedis, key, getThreadLocalClientId(), expireTime);
+    }
+
+    /**
+     * 续期：锁仍然属于clientId时重新设置超时时间
+     * @param jedis Jedis实例
+     * @param key key
+     * @param clientId 持有者的ID
+     * @param expireTime 锁的超时时间，单位秒
+     * @return true-续期成功；false-锁已经不属于clientId
+     */
+    public static boolean renew(Jedis jedis, String key, String clientId, int expireTime) {
+        Object result = RENEW_SCRIPT.eval(jedis, Collections.singletonList(key),
+                Arrays.asList(clientId, String.valueOf(expireTime * 1000L)));
+        return UNLOCK_SUCCESS.equals(result);
     }
 
     /**
@@ -108,12 +253,39 @@ public final class RedisLockHelper {
      * @param key key
      */
     public static boolean unlock(Jedis jedis, String key) {
-        String clientId = getThreadLocalClientId();
-        String script = "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
-        Object result = jedis.eval(script, Collections.singletonList(key), Collections.singletonList(clientId));
+        return unlock(jedis, key, getThreadLocalClientId());
+    }
+
+    /**
+     * 解锁：锁仍然属于clientId时才删除
+     * @param jedis Jedis
+     * @param key key
+     * @param clientId 持有者的ID
+     */
+    public static boolean unlock(Jedis jedis, String key, String clientId) {
+        Object result = UNLOCK_SCRIPT.eval(jedis, Collections.singletonList(key), Arrays.asList(clientId, releaseChannel(key)));
         return UNLOCK_SUCCESS.equals(result);
     }
 
+    /**
+     * 解锁，并停止看门狗的续期
+     * @param jedis Jedis
+     * @param key key
+     * @param watchdog 看门狗
+     */
+    public static boolean unlock(Jedis jedis, String key, LockWatchdog watchdog) {
+        watchdog.unwatch(key, getThreadLocalClientId());
+        return unlock(jedis, key);
+    }
+
+    /**
+     * @param key 锁的key
+     * @return 锁的释放频道
+     */
+    public static String releaseChannel(String key) {
+        return RELEASE_CHANNEL_PREFIX + key;
+    }
+
     /**
      * 为每个线程设置一个Thread-Local的clientId
      * @return clientId
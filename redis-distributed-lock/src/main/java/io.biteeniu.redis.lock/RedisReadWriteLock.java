@@ -0,0 +1,188 @@
+package io.biteeniu.redis.lock;
+
+import io.biteeniu.common.redis.LuaScript;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 带租约的分布式读写锁：多个读者可以同时持有读锁，写锁与读锁、写锁互斥，读多写少的临界区随读者数量扩展，不再逐个串行执行
+ * 1. 写锁就是RedisLockHelper的普通锁（key为name，值为线程的clientId），读者是有序集合name:readers，成员为线程的clientId，
+ *    分值为租约的过期时刻（Redis服务器时间，毫秒）；加锁脚本先按分值删除过期的读租约（ZREMRANGEBYSCORE），崩溃的读者不会永远挡住写者
+ * 2. 写者优先：写者因为有读者而加锁失败时设置name:write-pending标记，之后的新读者不能再加读锁，已有的读者释放之后写者就能加锁，
+ *    持续到达的读者不会让写者饿死；写者放弃等待时删除自己的标记，标记本身也有租约
+ * 3. 解锁和续期只对持有者生效，与解锁脚本的持有者检查相同；最后一个读者释放、写者释放或者放弃时向name的释放频道发布消息，
+ *    等待者通过LockReleaseSubscriber被唤醒（与RedisLockHelper.tryLock相同的等待逻辑）
+ * 4. 不可重入，也不支持读锁升级为写锁：同一个线程重复加读锁只刷新租约，一次解锁即释放；持有读锁的线程再加写锁会一直等到自己的读租约过期
+ * 5. 租约不会自动续期：持有时间可能超过leaseMillis时调用renewReadLock()/renewWriteLock()
+ * @author luzhanghong
+ * @date 2026-10-19 06:40
+ */
+public class RedisReadWriteLock {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(RedisReadWriteLock.class);
+    // 加读锁：KEYS[1]: 写锁；KEYS[2]: 读者；KEYS[3]: 写者等待标记；ARGV[1]: clientId；ARGV[2]: 租约时间（毫秒）
+    // 返回1表示成功，0表示有写者持有或者等待
+    private final static LuaScript READ_ACQUIRE_SCRIPT = new LuaScript("read-acquire",
+            RedisLockHelper.NOW_MILLIS +
+            "if redis.call('exists', KEYS[1]) == 1 then return 0 end\n" +
+            "if redis.call('exists', KEYS[3]) == 1 and not redis.call('zscore', KEYS[2], ARGV[1]) then return 0 end\n" +
+            "redis.call('zremrangebyscore', KEYS[2], '-inf', now)\n" +
+            "redis.call('zadd', KEYS[2], now + tonumber(ARGV[2]), ARGV[1])\n" +
+            "if redis.call('pttl', KEYS[2]) < tonumber(ARGV[2]) then redis.call('pexpire', KEYS[2], ARGV[2]) end\n" +
+            "return 1");
+    // 释放读锁：KEYS[1]: 读者；ARGV[1]: clientId；ARGV[2]: 释放频道；ARGV[3]: 锁的名称
+    // 返回1表示成功，0表示读租约已经过期并被清理；判断是否是最后一个读者之前先删除过期的读租约，崩溃的读者留下的成员不会挡住唤醒写者的消息
+    private final static LuaScript READ_RELEASE_SCRIPT = new LuaScript("read-release",
+            RedisLockHelper.NOW_MILLIS +
+            "if redis.call('zrem', KEYS[1], ARGV[1]) == 0 then return 0 end\n" +
+            "redis.call('zremrangebyscore', KEYS[1], '-inf', now)\n" +
+            "if redis.call('zcard', KEYS[1]) == 0 then redis.call('publish', ARGV[2], ARGV[3]) end\n" +
+            "return 1");
+    // 读锁续期：KEYS[1]: 读者；ARGV[1]: clientId；ARGV[2]: 租约时间（毫秒）；租约仍然有效时才续期，返回1
+    private final static LuaScript READ_RENEW_SCRIPT = new LuaScript("read-renew",
+            RedisLockHelper.NOW_MILLIS +
+            "local score = redis.call('zscore', KEYS[1], ARGV[1])\n" +
+            "if not score or tonumber(score) <= now then return 0 end\n" +
+            "redis.call('zadd', KEYS[1], 'XX', now + tonumber(ARGV[2]), ARGV[1])\n" +
+            "if redis.call('pttl', KEYS[1]) < tonumber(ARGV[2]) then redis.call('pexpire', KEYS[1], ARGV[2]) end\n" +
+            "return 1");
+    // 加写锁：KEYS[1]: 写锁；KEYS[2]: 读者；KEYS[3]: 写者等待标记；ARGV[1]: clientId；ARGV[2]: 租约时间（毫秒）
+    // 返回1表示成功；失败时设置（或者刷新自己的）等待标记，返回0
+    private final static LuaScript WRITE_ACQUIRE_SCRIPT = new LuaScript("write-acquire",
+            RedisLockHelper.NOW_MILLIS +
+            "redis.call('zremrangebyscore', KEYS[2], '-inf', now)\n" +
+            "if redis.call('exists', KEYS[1]) == 0 and redis.call('zcard', KEYS[2]) == 0 then\n" +
+            "  redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2])\n" +
+            "  if redis.call('get', KEYS[3]) == ARGV[1] then redis.call('del', KEYS[3]) end\n" +
+            "  return 1\n" +
+            "end\n" +
+            "local pending = redis.call('get', KEYS[3])\n" +
+            "if not pending or pending == ARGV[1] then redis.call('set', KEYS[3], ARGV[1], 'PX', ARGV[2]) end\n" +
+            "return 0");
+    // 放弃等待写锁：KEYS[1]: 写者等待标记；ARGV[1]: clientId；ARGV[2]: 释放频道；ARGV[3]: 锁的名称
+    // 标记属于clientId时删除并唤醒被标记挡住的读者
+    private final static LuaScript WRITE_CANCEL_SCRIPT = new LuaScript("write-cancel",
+            "if redis.call('get', KEYS[1]) == ARGV[1] then\n" +
+            "  redis.call('del', KEYS[1])\n" +
+            "  redis.call('publish', ARGV[2], ARGV[3])\n" +
+            "  return 1\n" +
+            "end\n" +
+            "return 0");
+    private final JedisPool jedisPool;
+    private final String name;
+    private final long leaseMillis;
+    private final LockReleaseSubscriber subscriber;
+    private final List<String> keys;
+    private final List<String> readersKey;
+
+    public RedisReadWriteLock(JedisPool jedisPool, String name, long leaseMillis) {
+        this(jedisPool, name, leaseMillis, null);
+    }
+
+    /**
+     * 构造函数
+     * @param jedisPool Jedis连接池
+     * @param name 锁的名称：写锁的key，读者和写者等待标记的key以它为前缀
+     * @param leaseMillis 租约时间，单位毫秒：超过此时间未释放也未续期的读锁、写锁和写者等待标记自动删除，应当大于500毫秒（重试间隔的上限）
+     * @param subscriber 锁释放频道的订阅者，null表示等待锁时只按指数退避重试
+     */
+    public RedisReadWriteLock(JedisPool jedisPool, String name, long leaseMillis, LockReleaseSubscriber subscriber) {
+        this.jedisPool = jedisPool;
+        this.name = name;
+        this.leaseMillis = leaseMillis;
+        this.subscriber = subscriber;
+        this.keys = Arrays.asList(name, name + ":readers", name + ":write-pending");
+        this.readersKey = Collections.singletonList(keys.get(1));
+    }
+
+    /**
+     * 加读锁：没有写者持有或者等待时立即成功，与其他读者共享
+     * @param waitMillis 最多等待的时间，单位毫秒
+     * @return true-加锁成功；false-等待超时或者线程被中断
+     */
+    public boolean tryReadLock(long waitMillis) {
+        List<String> args = Arrays.asList(RedisLockHelper.getThreadLocalClientId(), String.valueOf(leaseMillis));
+        return RedisLockHelper.await(jedisPool, name, waitMillis, subscriber,
+                jedis -> Long.valueOf(1L).equals(READ_ACQUIRE_SCRIPT.eval(jedis, keys, args)));
+    }
+
+    /**
+     * 释放当前线程的读锁
+     * @return true-释放成功；false-读租约已经过期
+     */
+    public boolean unlockRead() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Object result = READ_RELEASE_SCRIPT.eval(jedis, readersKey,
+                    Arrays.asList(RedisLockHelper.getThreadLocalClientId(), RedisLockHelper.releaseChannel(name), name));
+            if (Long.valueOf(1L).equals(result)) {
+                return true;
+            }
+        }
+        LOGGER.warn("Read lease of {} had already expired before client {} released it.", name, RedisLockHelper.getThreadLocalClientId());
+        return false;
+    }
+
+    /**
+     * 读锁续期：当前线程的读租约仍然有效时重新设置为leaseMillis毫秒
+     * @return true-续期成功；false-读租约已经过期
+     */
+    public boolean renewReadLock() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Object result = READ_RENEW_SCRIPT.eval(jedis, readersKey,
+                    Arrays.asList(RedisLockHelper.getThreadLocalClientId(), String.valueOf(leaseMillis)));
+            return Long.valueOf(1L).equals(result);
+        }
+    }
+
+    /**
+     * 加写锁：等待已有的读者全部释放，等待期间新的读者不能加锁
+     * @param waitMillis 最多等待的时间，单位毫秒
+     * @return true-加锁成功；false-等待超时或者线程被中断
+     */
+    public boolean tryWriteLock(long waitMillis) {
+        String clientId = RedisLockHelper.getThreadLocalClientId();
+        List<String> args = Arrays.asList(clientId, String.valueOf(leaseMillis));
+        if (RedisLockHelper.await(jedisPool, name, waitMillis, subscriber,
+                jedis -> Long.valueOf(1L).equals(WRITE_ACQUIRE_SCRIPT.eval(jedis, keys, args)))) {
+            return true;
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            WRITE_CANCEL_SCRIPT.eval(jedis, Collections.singletonList(keys.get(2)),
+                    Arrays.asList(clientId, RedisLockHelper.releaseChannel(name), name));
+        }
+        return false;
+    }
+
+    /**
+     * 释放当前线程的写锁
+     * @return true-释放成功；false-写锁已经不属于当前线程
+     */
+    public boolean unlockWrite() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return RedisLockHelper.unlock(jedis, name);
+        }
+    }
+
+    /**
+     * 写锁续期：写锁仍然属于当前线程时重新设置为leaseMillis毫秒
+     * @return true-续期成功；false-写锁已经不属于当前线程
+     */
+    public boolean renewWriteLock() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Object result = RedisLockHelper.RENEW_SCRIPT.eval(jedis, Collections.singletonList(name),
+                    Arrays.asList(RedisLockHelper.getThreadLocalClientId(), String.valueOf(leaseMillis)));
+            return Long.valueOf(1L).equals(result);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+}
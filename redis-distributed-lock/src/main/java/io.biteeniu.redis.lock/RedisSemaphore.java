@@ -0,0 +1,140 @@
+package io.biteeniu.redis.lock;
+
+import io.biteeniu.common.redis.LuaScript;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 带租约的分布式计数信号量：同一时刻最多permits个持有者
+ * 1. 信号量是一个有序集合，成员为许可的ID，分值为租约的过期时刻（Redis服务器时间，毫秒）；
+ *    每次获取许可之前按分值删除已经过期的租约（ZREMRANGEBYSCORE），崩溃的客户端占用的许可在租约过期后自动归还
+ * 2. 获取、释放、续期都是Lua脚本：只有持有许可ID的客户端才能释放或者续期，与解锁脚本的持有者检查相同；
+ *    许可不属于线程，可以由其他线程释放，同一个线程也可以持有多个许可
+ * 3. 释放许可时向信号量的释放频道发布消息，等待者通过LockReleaseSubscriber被唤醒（与RedisLockHelper.tryLock相同的等待逻辑）
+ * 4. 许可数随每次获取一起传给脚本：使用同一个信号量的全部客户端必须使用相同的许可数
+ * @author luzhanghong
+ * @date 2026-10-19 06:20
+ */
+public class RedisSemaphore {
+
+    // 获取许可：KEYS[1]: 信号量；ARGV[1]: 许可ID；ARGV[2]: 租约时间（毫秒）；ARGV[3]: 许可数；返回1表示成功，0表示没有剩余的许可
+    private final static LuaScript ACQUIRE_SCRIPT = new LuaScript("semaphore-acquire",
+            RedisLockHelper.NOW_MILLIS +
+            "redis.call('zremrangebyscore', KEYS[1], '-inf', now)\n" +
+            "if redis.call('zcard', KEYS[1]) >= tonumber(ARGV[3]) then return 0 end\n" +
+            "redis.call('zadd', KEYS[1], now + tonumber(ARGV[2]), ARGV[1])\n" +
+            "if redis.call('pttl', KEYS[1]) < tonumber(ARGV[2]) then redis.call('pexpire', KEYS[1], ARGV[2]) end\n" +
+            "return 1");
+    // 释放许可：KEYS[1]: 信号量；ARGV[1]: 许可ID；ARGV[2]: 释放频道；返回1表示成功，0表示许可已经过期并被清理
+    private final static LuaScript RELEASE_SCRIPT = new LuaScript("semaphore-release",
+            "if redis.call('zrem', KEYS[1], ARGV[1]) == 0 then return 0 end\n" +
+            "redis.call('publish', ARGV[2], KEYS[1])\n" +
+            "return 1");
+    // 续期：KEYS[1]: 信号量；ARGV[1]: 许可ID；ARGV[2]: 租约时间（毫秒）；租约仍然有效时才续期，返回1
+    private final static LuaScript RENEW_SCRIPT = new LuaScript("semaphore-renew",
+            RedisLockHelper.NOW_MILLIS +
+            "local score = redis.call('zscore', KEYS[1], ARGV[1])\n" +
+            "if not score or tonumber(score) <= now then return 0 end\n" +
+            "redis.call('zadd', KEYS[1], 'XX', now + tonumber(ARGV[2]), ARGV[1])\n" +
+            "if redis.call('pttl', KEYS[1]) < tonumber(ARGV[2]) then redis.call('pexpire', KEYS[1], ARGV[2]) end\n" +
+            "return 1");
+    // 有效的租约数：KEYS[1]: 信号量
+    private final static LuaScript COUNT_SCRIPT = new LuaScript("semaphore-count",
+            RedisLockHelper.NOW_MILLIS +
+            "return redis.call('zcount', KEYS[1], '(' .. now, '+inf')");
+    private final JedisPool jedisPool;
+    private final String key;
+    private final int permits;
+    private final long leaseMillis;
+    private final LockReleaseSubscriber subscriber;
+
+    public RedisSemaphore(JedisPool jedisPool, String key, int permits, long leaseMillis) {
+        this(jedisPool, key, permits, leaseMillis, null);
+    }
+
+    /**
+     * 构造函数
+     * @param jedisPool Jedis连接池
+     * @param key 信号量的key
+     * @param permits 许可数
+     * @param leaseMillis 租约时间，单位毫秒：超过此时间未释放也未续期的许可自动归还
+     * @param subscriber 锁释放频道的订阅者，null表示等待许可时只按指数退避重试
+     */
+    public RedisSemaphore(JedisPool jedisPool, String key, int permits, long leaseMillis, LockReleaseSubscriber subscriber) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive: " + permits);
+        }
+        this.jedisPool = jedisPool;
+        this.key = key;
+        this.permits = permits;
+        this.leaseMillis = leaseMillis;
+        this.subscriber = subscriber;
+    }
+
+    /**
+     * 尝试获取一个许可，不等待
+     * @return 许可ID，没有剩余的许可时返回null
+     */
+    public String tryAcquire() {
+        return tryAcquire(0L);
+    }
+
+    /**
+     * 获取一个许可，没有剩余的许可时等待其他持有者释放
+     * @param waitMillis 最多等待的时间，单位毫秒
+     * @return 许可ID，用于释放和续期；等待超时或者线程被中断时返回null
+     */
+    public String tryAcquire(long waitMillis) {
+        String permitId = UUID.randomUUID().toString();
+        List<String> args = Arrays.asList(permitId, String.valueOf(leaseMillis), String.valueOf(permits));
+        boolean acquired = RedisLockHelper.await(jedisPool, key, waitMillis, subscriber,
+                jedis -> Long.valueOf(1L).equals(ACQUIRE_SCRIPT.eval(jedis, Collections.singletonList(key), args)));
+        return acquired ? permitId : null;
+    }
+
+    /**
+     * 释放许可
+     * @param permitId 获取许可时返回的ID
+     * @return true-释放成功；false-许可已经过期（可能已经被其他客户端占用）
+     */
+    public boolean release(String permitId) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Object result = RELEASE_SCRIPT.eval(jedis, Collections.singletonList(key),
+                    Arrays.asList(permitId, RedisLockHelper.releaseChannel(key)));
+            return Long.valueOf(1L).equals(result);
+        }
+    }
+
+    /**
+     * 续期：许可的租约仍然有效时重新设置为leaseMillis毫秒
+     * @param permitId 获取许可时返回的ID
+     * @return true-续期成功；false-许可已经过期
+     */
+    public boolean renew(String permitId) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Object result = RENEW_SCRIPT.eval(jedis, Collections.singletonList(key),
+                    Arrays.asList(permitId, String.valueOf(leaseMillis)));
+            return Long.valueOf(1L).equals(result);
+        }
+    }
+
+    /**
+     * @return 当前剩余的许可数（不包括已经过期但尚未清理的租约）
+     */
+    public int availablePermits() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Object held = COUNT_SCRIPT.eval(jedis, Collections.singletonList(key), Collections.emptyList());
+            return Math.max(permits - ((Long) held).intValue(), 0);
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+}
@@ -0,0 +1,157 @@
+package io.biteeniu.redis.lock;
+
+import io.biteeniu.common.redis.LuaScript;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 可重入的分布式锁：锁是一个哈希，字段为持有者的clientId（线程的clientId），值为持有次数
+ * 1. 加锁、解锁、续期都是Lua脚本：锁不存在或者已经属于当前线程时持有次数加一并重新设置超时时间；
+ *    解锁时持有次数减一，减到0时删除锁并向释放频道发布消息
+ * 2. 本地持有计数：同一个线程嵌套加锁时（无论通过哪个ReentrantRedisLock实例）只增加本地计数，不访问Redis；
+ *    只有最外层的加锁和解锁各执行一次脚本，Redis中的持有次数通常是1
+ * 3. 嵌套加锁不检查Redis中的锁是否仍然存在：持有时间可能超过超时时间时应当使用看门狗续期
+ * 4. 与RedisLockHelper.lock()的锁使用同一个命名空间：同一个key不能同时用作两种锁（类型不同，加锁脚本会返回WRONGTYPE错误）
+ * @author luzhanghong
+ * @date 2026-10-19 05:30
+ */
+public class ReentrantRedisLock {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ReentrantRedisLock.class);
+    // 每个线程持有的可重入锁：key到本地持有次数
+    private final static ThreadLocal<Map<String, Integer>> HOLDS = ThreadLocal.withInitial(HashMap::new);
+    // 加锁：KEYS[1]: 锁；ARGV[1]: clientId；ARGV[2]: 超时时间（毫秒）；返回1表示成功，0表示锁属于其他持有者
+    private final static LuaScript ACQUIRE_SCRIPT = new LuaScript("reentrant-acquire",
+            "if redis.call('exists', KEYS[1]) == 0 or redis.call('hexists', KEYS[1], ARGV[1]) == 1 then\n" +
+            "  redis.call('hincrby', KEYS[1], ARGV[1], 1)\n" +
+            "  redis.call('pexpire', KEYS[1], ARGV[2])\n" +
+            "  return 1\n" +
+            "end\n" +
+            "return 0");
+    // 解锁：KEYS[1]: 锁；ARGV[1]: clientId；ARGV[2]: 超时时间（毫秒）；ARGV[3]: 释放频道
+    // 返回剩余的持有次数，锁已经不属于clientId时返回-1
+    private final static LuaScript RELEASE_SCRIPT = new LuaScript("reentrant-release",
+            "if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then return -1 end\n" +
+            "local count = redis.call('hincrby', KEYS[1], ARGV[1], -1)\n" +
+            "if count > 0 then\n" +
+            "  redis.call('pexpire', KEYS[1], ARGV[2])\n" +
+            "else\n" +
+            "  redis.call('del', KEYS[1])\n" +
+            "  redis.call('publish', ARGV[3], KEYS[1])\n" +
+            "end\n" +
+            "return count");
+    private final JedisPool jedisPool;
+    private final String key;
+    private final int expireTime;
+    private final LockWatchdog watchdog;
+    private final LockReleaseSubscriber subscriber;
+
+    public ReentrantRedisLock(JedisPool jedisPool, String key, int expireTime) {
+        this(jedisPool, key, expireTime, null, null);
+    }
+
+    /**
+     * 构造函数
+     * @param jedisPool Jedis连接池
+     * @param key 锁的key
+     * @param expireTime 锁的超时时间，单位秒
+     * @param watchdog 看门狗，null表示不自动续期
+     * @param subscriber 锁释放频道的订阅者，null表示等待锁时只按指数退避重试
+     */
+    public ReentrantRedisLock(JedisPool jedisPool, String key, int expireTime, LockWatchdog watchdog, LockReleaseSubscriber subscriber) {
+        this.jedisPool = jedisPool;
+        this.key = key;
+        this.expireTime = expireTime;
+        this.watchdog = watchdog;
+        this.subscriber = subscriber;
+    }
+
+    /**
+     * 尝试加锁一次，不等待
+     * @return true-加锁成功；false-锁属于其他持有者
+     */
+    public boolean tryLock() {
+        return tryLock(0L);
+    }
+
+    /**
+     * 加锁：当前线程已经持有时只增加本地计数
+     * @param waitMillis 最多等待的时间，单位毫秒
+     * @return true-加锁成功；false-等待超时或者线程被中断
+     */
+    public boolean tryLock(long waitMillis) {
+        Map<String, Integer> holds = HOLDS.get();
+        Integer count = holds.get(key);
+        if (count != null) {
+            holds.put(key, count + 1);
+            return true;
+        }
+        String clientId = RedisLockHelper.getThreadLocalClientId();
+        if (!RedisLockHelper.await(jedisPool, key, waitMillis, subscriber, jedis -> acquire(jedis, clientId))) {
+            return false;
+        }
+        holds.put(key, 1);
+        if (watchdog != null) {
+            watchdog.watch(key, clientId, expireTime * 1000L);
+        }
+        return true;
+    }
+
+    /**
+     * 解锁：本地计数减一，减到0时释放Redis中的锁
+     */
+    public void unlock() {
+        Map<String, Integer> holds = HOLDS.get();
+        Integer count = holds.get(key);
+        if (count == null) {
+            throw new IllegalMonitorStateException("Lock " + key + " is not held by current thread");
+        }
+        if (count > 1) {
+            holds.put(key, count - 1);
+            return;
+        }
+        holds.remove(key);
+        String clientId = RedisLockHelper.getThreadLocalClientId();
+        if (watchdog != null) {
+            watchdog.unwatch(key, clientId);
+        }
+        Object remaining;
+        try (Jedis jedis = jedisPool.getResource()) {
+            remaining = RELEASE_SCRIPT.eval(jedis, Collections.singletonList(key),
+                    Arrays.asList(clientId, String.valueOf(expireTime * 1000L), RedisLockHelper.releaseChannel(key)));
+        }
+        if (Long.valueOf(-1L).equals(remaining)) {
+            LOGGER.warn("Lock {} had already expired before client {} released it.", key, clientId);
+        }
+    }
+
+    /**
+     * @return 当前线程的本地持有次数，0表示没有持有
+     */
+    public int getHoldCount() {
+        Integer count = HOLDS.get().get(key);
+        return count == null ? 0 : count;
+    }
+
+    public boolean isHeldByCurrentThread() {
+        return getHoldCount() > 0;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    private boolean acquire(Jedis jedis, String clientId) {
+        Object result = ACQUIRE_SCRIPT.eval(jedis, Collections.singletonList(key),
+                Arrays.asList(clientId, String.valueOf(expireTime * 1000L)));
+        return Long.valueOf(1L).equals(result);
+    }
+
+}
@@ -0,0 +1,122 @@
+package io.biteeniu.redis.lock.benchmark;
+
+import io.biteeniu.common.metrics.LatencyHistogram;
+import io.biteeniu.common.redis.RedisConfig;
+import io.biteeniu.common.redis.RedisPool;
+import io.biteeniu.redis.lock.LockReleaseSubscriber;
+import io.biteeniu.redis.lock.RedisLockHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 锁的移交延迟基准测试：N个线程（各自的clientId，相当于N个客户端）反复竞争同一个锁，持有5毫秒，释放后休眠5毫秒再竞争
+ * 移交延迟：释放时有线程在等待，从持有者开始解锁到下一个线程加锁成功的时间（锁空闲、等待者却还没拿到锁的时间）
+ * 等待时间：每个线程从开始加锁到加锁成功的时间
+ * 1. 轮询：加锁失败后休眠固定的时间重试（Launcher.handleBusinessLogic的做法，分别测试500毫秒和50毫秒）
+ * 2. 通知：RedisLockHelper.tryLock，等待释放频道的消息，兜底的指数退避为10~500毫秒
+ * 运行方式（需要一个本地启动的redis-server）：
+ * java -cp ... io.biteeniu.redis.lock.benchmark.HandoffLatencyBenchmark [redis主机] [线程数] [每种方式的持续秒数]
+ * @author luzhanghong
+ * @date 2026-10-19 05:10
+ */
+public class HandoffLatencyBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(HandoffLatencyBenchmark.class);
+    private final static String KEY = "benchmark-handoff-lock";
+    private final static AtomicInteger waiting = new AtomicInteger();     // 正在等待锁的线程数
+    private final static AtomicLong pendingRelease = new AtomicLong();   // 有线程等待时开始解锁的时刻，下一次加锁成功后清零
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        RedisPool jedisPool = new RedisPool(new RedisConfig().setHost(host).setMaxTotal(threads + 2));
+        jedisPool.run(jedis -> jedis.del(KEY));
+
+        for (long retryMillis : new long[]{500L, 50L}) {
+            run(jedisPool, "polling " + retryMillis + " ms", threads, seconds, () -> {
+                while (!jedisPool.execute(jedis -> RedisLockHelper.lock(jedis, KEY, 5))) {
+                    sleep(retryMillis);
+                }
+            });
+        }
+        LockReleaseSubscriber subscriber = new LockReleaseSubscriber(jedisPool);
+        Thread subscriberThread = new Thread(subscriber, "lock-release-subscriber");
+        subscriberThread.start();
+        run(jedisPool, "pub/sub", threads, seconds, () -> {
+            while (!RedisLockHelper.tryLock(jedisPool, KEY, 5, 10000L, subscriber)) {
+                LOGGER.warn("Lock wait timed out.");
+            }
+        });
+        subscriber.close();
+        subscriberThread.join();
+        jedisPool.close();
+    }
+
+    private static void run(RedisPool jedisPool, String name, int threads, int seconds, Runnable lock) throws InterruptedException {
+        LatencyHistogram handoff = new LatencyHistogram();
+        LatencyHistogram wait = new LatencyHistogram();
+        AtomicLong acquired = new AtomicLong();
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(threads);
+        long commandsBefore = commandsProcessed(jedisPool);
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    waiting.incrementAndGet();
+                    long waitFrom = System.nanoTime();
+                    lock.run();
+                    long now = System.nanoTime();
+                    wait.record(now - waitFrom);
+                    waiting.decrementAndGet();
+                    long releasedAt = pendingRelease.getAndSet(0L);
+                    if (releasedAt > 0) {
+                        handoff.record(now - releasedAt);
+                    }
+                    acquired.incrementAndGet();
+                    sleep(5L);
+                    if (waiting.get() > 0) {
+                        pendingRelease.set(System.nanoTime());
+                    }
+                    jedisPool.execute(jedis -> RedisLockHelper.unlock(jedis, KEY));
+                    sleep(5L);
+                }
+                done.countDown();
+            }, name + "-" + i).start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        long commands = commandsProcessed(jedisPool) - commandsBefore;
+        LOGGER.info("[{}] {} threads, {} acquisitions/s, {} Redis commands per acquisition, handoff latency: {}, wait: {}", name, threads,
+                acquired.get() * 1000000000L / elapsed, String.format("%.1f", (double) commands / acquired.get()),
+                handoff.summary(TimeUnit.MICROSECONDS), wait.summary(TimeUnit.MICROSECONDS));
+    }
+
+    /**
+     * @return Redis启动以来处理的命令总数（包括脚本中执行的命令）
+     */
+    private static long commandsProcessed(RedisPool jedisPool) {
+        String info = jedisPool.execute(jedis -> jedis.info("stats"));
+        for (String line : info.split("\r\n")) {
+            if (line.startsWith("total_commands_processed:")) {
+                return Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+            }
+        }
+        return -1L;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package io.biteeniu.redis.lock.benchmark;
+
+import io.biteeniu.common.metrics.LatencyHistogram;
+import io.biteeniu.common.redis.RedisConfig;
+import io.biteeniu.common.redis.RedisPool;
+import io.biteeniu.redis.lock.CoalescingLockClient;
+import io.biteeniu.redis.lock.RedisLockHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 热点锁竞争基准测试：N个线程反复获取同一个key的锁，持有1毫秒后释放
+ * 1. 轮询：每个线程各自调用RedisLockHelper.lock，失败后休眠retryMillis毫秒重试
+ * 2. 合并：CoalescingLockClient，本地排队，只有本地获胜者访问Redis
+ * 统计每秒加锁次数、加锁耗时（从开始尝试到成功）和Redis每秒处理的命令数
+ * 运行方式（需要一个本地启动的redis-server）：
+ * java -cp ... io.biteeniu.redis.lock.benchmark.LockContentionBenchmark [redis主机] [线程数] [每种方式的持续秒数] [轮询间隔毫秒]
+ * @author luzhanghong
+ * @date 2026-10-19 04:40
+ */
+public class LockContentionBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(LockContentionBenchmark.class);
+    private final static String KEY = "benchmark-hot-lock";
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        long retryMillis = args.length > 3 ? Long.parseLong(args[3]) : 10L;
+        RedisPool jedisPool = new RedisPool(new RedisConfig().setHost(host).setMaxTotal(threads + 2));
+        jedisPool.run(jedis -> jedis.del(KEY));
+
+        run(jedisPool, "polling", threads, seconds, () -> {
+            while (!jedisPool.execute(jedis -> RedisLockHelper.lock(jedis, KEY, 5))) {
+                sleep(retryMillis);
+            }
+        }, () -> jedisPool.execute(jedis -> RedisLockHelper.unlock(jedis, KEY)));
+
+        CoalescingLockClient client = new CoalescingLockClient(jedisPool, null, retryMillis, 16);
+        run(jedisPool, "coalescing", threads, seconds, () -> {
+            while (!client.tryLock(KEY, 5, 10000L)) {
+                LOGGER.warn("Lock wait timed out.");
+            }
+        }, () -> client.unlock(KEY));
+        jedisPool.close();
+    }
+
+    private static void run(RedisPool jedisPool, String name, int threads, int seconds, Runnable lock, Runnable unlock)
+            throws InterruptedException {
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicLong acquired = new AtomicLong();
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(threads);
+        long commandsBefore = commandsProcessed(jedisPool);
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    long begin = System.nanoTime();
+                    lock.run();
+                    latency.record(System.nanoTime() - begin);
+                    acquired.incrementAndGet();
+                    sleep(1L);
+                    unlock.run();
+                }
+                done.countDown();
+            }, name + "-" + i).start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        long commands = commandsProcessed(jedisPool) - commandsBefore;
+        LOGGER.info("[{}] {} threads, {} acquisitions/s, {} Redis commands/s, acquire latency: {}", name, threads,
+                acquired.get() * 1000000000L / elapsed, commands * 1000000000L / elapsed, latency.summary(TimeUnit.MICROSECONDS));
+    }
+
+    /**
+     * @return Redis启动以来处理的命令总数（包括脚本中执行的命令）
+     */
+    private static long commandsProcessed(RedisPool jedisPool) {
+        String info = jedisPool.execute(jedis -> jedis.info("stats"));
+        for (String line : info.split("\r\n")) {
+            if (line.startsWith("total_commands_processed:")) {
+                return Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+            }
+        }
+        return -1L;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
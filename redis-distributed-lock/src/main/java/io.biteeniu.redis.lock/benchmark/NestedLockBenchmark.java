@@ -0,0 +1,73 @@
+package io.biteeniu.redis.lock.benchmark;
+
+import io.biteeniu.common.metrics.LatencyHistogram;
+import io.biteeniu.common.redis.RedisConfig;
+import io.biteeniu.common.redis.RedisPool;
+import io.biteeniu.redis.lock.ReentrantRedisLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 嵌套加锁基准测试：单个线程反复以不同的嵌套深度获取同一个可重入锁（每一层新建一个ReentrantRedisLock实例，模拟互相调用的方法各自加锁），
+ * 统计一次完整的加锁-解锁（包括全部嵌套层）的耗时和Redis命令数
+ * 运行方式（需要一个本地启动的redis-server）：
+ * java -cp ... io.biteeniu.redis.lock.benchmark.NestedLockBenchmark [redis主机] [每种深度的次数]
+ * @author luzhanghong
+ * @date 2026-10-19 05:40
+ */
+public class NestedLockBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(NestedLockBenchmark.class);
+    private final static String KEY = "benchmark-reentrant-lock";
+
+    public static void main(String[] args) {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        RedisPool jedisPool = new RedisPool(new RedisConfig().setHost(host).setMaxTotal(2));
+        jedisPool.run(jedis -> jedis.del(KEY));
+        for (int depth : new int[]{1, 5, 20}) {
+            LatencyHistogram latency = new LatencyHistogram();
+            long commandsBefore = commandsProcessed(jedisPool);
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                nested(jedisPool, depth);
+                latency.record(System.nanoTime() - start);
+            }
+            long commands = commandsProcessed(jedisPool) - commandsBefore - 1;
+            LOGGER.info("[depth {}] {} Redis commands per outer acquisition, latency: {}", depth,
+                    String.format("%.1f", (double) commands / iterations), latency.summary(TimeUnit.MICROSECONDS));
+        }
+        jedisPool.close();
+    }
+
+    private static void nested(RedisPool jedisPool, int depth) {
+        if (depth == 0) {
+            return;
+        }
+        ReentrantRedisLock lock = new ReentrantRedisLock(jedisPool, KEY, 5);
+        if (!lock.tryLock()) {
+            throw new IllegalStateException("Lock " + KEY + " is held by another client");
+        }
+        try {
+            nested(jedisPool, depth - 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Redis启动以来处理的命令总数（包括脚本中执行的命令）
+     */
+    private static long commandsProcessed(RedisPool jedisPool) {
+        String info = jedisPool.execute(jedis -> jedis.info("stats"));
+        for (String line : info.split("\r\n")) {
+            if (line.startsWith("total_commands_processed:")) {
+                return Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+            }
+        }
+        return -1L;
+    }
+
+}
@@ -0,0 +1,135 @@
+package io.biteeniu.redis.lock.benchmark;
+
+import io.biteeniu.common.metrics.LatencyHistogram;
+import io.biteeniu.common.redis.RedisConfig;
+import io.biteeniu.common.redis.RedisPool;
+import io.biteeniu.redis.lock.QuorumLock;
+import io.biteeniu.redis.lock.RedisLockHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 法定数量锁基准测试
+ * 1. 加锁耗时：单节点加锁、依次在每个节点上加锁（sum）、QuorumLock并发加锁（max）
+ * 2. 竞争：N个线程竞争同一个锁，持有2毫秒，检查是否有两个线程同时持有锁、防护令牌是否严格递增；
+ *    测试期间可以手动停止一个节点（例如kill掉6381端口的redis-server），少数节点宕机时加锁仍然成功
+ * 运行方式（需要若干个本地启动的redis-server）：
+ * java -cp ... io.biteeniu.redis.lock.benchmark.QuorumLockBenchmark [节点列表，例如127.0.0.1:6379,127.0.0.1:6380,127.0.0.1:6381] [线程数] [竞争的持续秒数]
+ * @author luzhanghong
+ * @date 2026-10-19 06:20
+ */
+public class QuorumLockBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(QuorumLockBenchmark.class);
+    private final static String KEY = "benchmark-quorum-lock";
+
+    public static void main(String[] args) throws Exception {
+        String addresses = args.length > 0 ? args[0] : "127.0.0.1:6379,127.0.0.1:6380,127.0.0.1:6381";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        List<RedisPool> nodes = new ArrayList<>();
+        for (String address : addresses.split(",")) {
+            String[] hostPort = address.split(":");
+            nodes.add(new RedisPool(new RedisConfig().setHost(hostPort[0]).setPort(Integer.parseInt(hostPort[1]))
+                    .setMaxTotal(threads * 2).setTimeout(200)));
+        }
+        QuorumLock quorumLock = new QuorumLock(nodes);
+        latency(nodes, quorumLock, 5000);
+        contention(quorumLock, threads, seconds);
+        quorumLock.close();
+        for (RedisPool node : nodes) {
+            node.close();
+        }
+    }
+
+    private static void latency(List<RedisPool> nodes, QuorumLock quorumLock, int iterations) {
+        LatencyHistogram single = new LatencyHistogram();
+        LatencyHistogram sequential = new LatencyHistogram();
+        LatencyHistogram quorum = new LatencyHistogram();
+        for (int i = 0; i < iterations; i++) {
+            String value = UUID.randomUUID().toString();
+            long start = System.nanoTime();
+            nodes.get(0).run(jedis -> RedisLockHelper.lock(jedis, KEY, value, 1));
+            single.record(System.nanoTime() - start);
+            nodes.get(0).run(jedis -> RedisLockHelper.unlock(jedis, KEY, value));
+
+            start = System.nanoTime();
+            for (RedisPool node : nodes) {
+                node.run(jedis -> RedisLockHelper.lock(jedis, KEY, value, 1));
+            }
+            sequential.record(System.nanoTime() - start);
+            for (RedisPool node : nodes) {
+                node.run(jedis -> RedisLockHelper.unlock(jedis, KEY, value));
+            }
+
+            start = System.nanoTime();
+            QuorumLock.Lease lease = quorumLock.tryLock(KEY, 1000L);
+            quorum.record(System.nanoTime() - start);
+            if (lease != null) {
+                quorumLock.unlock(lease);
+            }
+        }
+        LOGGER.info("[single node] acquire: {}", single.summary(TimeUnit.MICROSECONDS));
+        LOGGER.info("[{} nodes sequential] acquire: {}", nodes.size(), sequential.summary(TimeUnit.MICROSECONDS));
+        LOGGER.info("[{} nodes quorum] acquire (including fence round): {}", nodes.size(), quorum.summary(TimeUnit.MICROSECONDS));
+    }
+
+    private static void contention(QuorumLock quorumLock, int threads, int seconds) throws InterruptedException {
+        AtomicInteger holders = new AtomicInteger();
+        AtomicLong lastToken = new AtomicLong();
+        AtomicLong acquired = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicLong overlaps = new AtomicLong();
+        AtomicLong staleTokens = new AtomicLong();
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    QuorumLock.Lease lease = quorumLock.tryLock(KEY, 1000L);
+                    if (lease == null) {
+                        failed.incrementAndGet();
+                        sleep(1L);
+                        continue;
+                    }
+                    acquired.incrementAndGet();
+                    if (holders.incrementAndGet() > 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    // 模拟下游存储：只接受比已见过的令牌更大的令牌
+                    long previous = lastToken.getAndAccumulate(lease.getToken(), Math::max);
+                    if (lease.getToken() <= previous) {
+                        staleTokens.incrementAndGet();
+                    }
+                    sleep(2L);
+                    holders.decrementAndGet();
+                    quorumLock.unlock(lease);
+                }
+                done.countDown();
+            }, "quorum-" + i).start();
+        }
+        while (!done.await(1L, TimeUnit.SECONDS)) {
+            LOGGER.info("[contention] acquired {}, failed attempts {}, overlaps {}, stale tokens {}, last token {}",
+                    acquired.get(), failed.get(), overlaps.get(), staleTokens.get(), lastToken.get());
+        }
+        LOGGER.info("[contention] {} threads, {} s: acquired {}, failed attempts {}, overlaps {}, stale tokens {}, last token {}",
+                threads, seconds, acquired.get(), failed.get(), overlaps.get(), staleTokens.get(), lastToken.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
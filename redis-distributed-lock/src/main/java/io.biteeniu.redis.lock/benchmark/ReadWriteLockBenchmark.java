@@ -0,0 +1,152 @@
+package io.biteeniu.redis.lock.benchmark;
+
+import io.biteeniu.common.metrics.LatencyHistogram;
+import io.biteeniu.common.redis.RedisConfig;
+import io.biteeniu.common.redis.RedisPool;
+import io.biteeniu.redis.lock.LockReleaseSubscriber;
+import io.biteeniu.redis.lock.RedisLockHelper;
+import io.biteeniu.redis.lock.RedisReadWriteLock;
+import io.biteeniu.redis.lock.RedisSemaphore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 读写锁基准测试：多个线程反复进入一个耗时holdMillis毫秒的只读临界区，比较以下几种方式每秒完成的临界区数量
+ * 1. exclusive：每个读者都获取RedisLockHelper的排他锁（现有的做法），临界区逐个串行执行
+ * 2. read：读者获取RedisReadWriteLock的读锁，临界区并发执行
+ * 3. read+writer：读锁之外再有一个写者每100毫秒获取一次写锁，检查写者不会被持续到达的读者饿死
+ * 4. semaphore：读者获取许可数为4的RedisSemaphore，并发度不超过4
+ * 运行方式（需要一个本地启动的redis-server）：
+ * java -cp ... io.biteeniu.redis.lock.benchmark.ReadWriteLockBenchmark [redis主机] [每种情况的秒数] [临界区耗时（毫秒）]
+ * @author luzhanghong
+ * @date 2026-10-19 06:50
+ */
+public class ReadWriteLockBenchmark {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ReadWriteLockBenchmark.class);
+    private final static String KEY = "benchmark-rw-lock";
+    private final static long LEASE_MILLIS = 5000L;
+    private final static long WAIT_MILLIS = 10000L;
+
+    public static void main(String[] args) throws InterruptedException {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long holdMillis = args.length > 2 ? Long.parseLong(args[2]) : 5L;
+        RedisPool jedisPool = new RedisPool(new RedisConfig().setHost(host).setMaxTotal(40));
+        LockReleaseSubscriber subscriber = new LockReleaseSubscriber(jedisPool);
+        Thread subscriberThread = new Thread(subscriber, "lock-release-subscriber");
+        subscriberThread.setDaemon(true);
+        subscriberThread.start();
+        RedisReadWriteLock rwLock = new RedisReadWriteLock(jedisPool, KEY, LEASE_MILLIS, subscriber);
+        RedisSemaphore semaphore = new RedisSemaphore(jedisPool, KEY + ":semaphore", 4, LEASE_MILLIS, subscriber);
+        for (int readers : new int[]{1, 4, 16}) {
+            jedisPool.run(jedis -> jedis.del(KEY, KEY + ":readers", KEY + ":write-pending", KEY + ":semaphore"));
+            run("exclusive", readers, seconds, holdMillis, null, () -> {
+                if (!RedisLockHelper.tryLock(jedisPool, KEY, (int) (LEASE_MILLIS / 1000), WAIT_MILLIS, subscriber)) {
+                    return false;
+                }
+                sleep(holdMillis);
+                try (Jedis jedis = jedisPool.getResource()) {
+                    RedisLockHelper.unlock(jedis, KEY);
+                }
+                return true;
+            });
+            run("read", readers, seconds, holdMillis, null, () -> {
+                if (!rwLock.tryReadLock(WAIT_MILLIS)) {
+                    return false;
+                }
+                sleep(holdMillis);
+                rwLock.unlockRead();
+                return true;
+            });
+            run("read+writer", readers, seconds, holdMillis, rwLock, () -> {
+                if (!rwLock.tryReadLock(WAIT_MILLIS)) {
+                    return false;
+                }
+                sleep(holdMillis);
+                rwLock.unlockRead();
+                return true;
+            });
+            run("semaphore(4)", readers, seconds, holdMillis, null, () -> {
+                String permit = semaphore.tryAcquire(WAIT_MILLIS);
+                if (permit == null) {
+                    return false;
+                }
+                sleep(holdMillis);
+                semaphore.release(permit);
+                return true;
+            });
+        }
+        subscriber.close();
+        jedisPool.close();
+    }
+
+    /**
+     * 运行一种情况：readers个线程持续执行criticalSection，writerLock不为null时再启动一个写者线程
+     */
+    private static void run(String mode, int readers, int seconds, long holdMillis, RedisReadWriteLock writerLock,
+                            BooleanSupplier criticalSection) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(seconds);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        LatencyHistogram wait = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>(readers + 1);
+        for (int i = 0; i < readers; i++) {
+            threads.add(new Thread(() -> {
+                while (System.currentTimeMillis() < deadline) {
+                    long start = System.nanoTime();
+                    if (criticalSection.getAsBoolean()) {
+                        // 等待时间 = 总耗时 - 临界区耗时
+                        wait.record(Math.max(System.nanoTime() - start - TimeUnit.MILLISECONDS.toNanos(holdMillis), 0L));
+                        completed.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                }
+            }, mode + "-reader-" + i));
+        }
+        AtomicLong writes = new AtomicLong();
+        LatencyHistogram writeWait = new LatencyHistogram();
+        if (writerLock != null) {
+            threads.add(new Thread(() -> {
+                while (System.currentTimeMillis() < deadline) {
+                    long start = System.nanoTime();
+                    if (writerLock.tryWriteLock(WAIT_MILLIS)) {
+                        writeWait.record(System.nanoTime() - start);
+                        writes.incrementAndGet();
+                        sleep(holdMillis);
+                        writerLock.unlockWrite();
+                    }
+                    sleep(100L);
+                }
+            }, mode + "-writer"));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        LOGGER.info("[{} x{}] {} critical sections/s, {} failed, reader wait: {}", mode, readers,
+                completed.get() / seconds, failed.get(), wait.summary(TimeUnit.MILLISECONDS));
+        if (writerLock != null) {
+            LOGGER.info("[{} x{}] {} writes, writer wait: {}", mode, readers, writes.get(), writeWait.summary(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}